@@ -76,6 +76,7 @@ abstract class AbstractReadContext
     private DirectedReadOptions defaultDirectedReadOption;
     private ExecutorProvider executorProvider;
     private Clock clock = new Clock();
+    private LatencyMetrics latencyMetrics;
 
     Builder() {}
 
@@ -124,6 +125,11 @@ abstract class AbstractReadContext
       return self();
     }
 
+    B setLatencyMetrics(@Nullable LatencyMetrics latencyMetrics) {
+      this.latencyMetrics = latencyMetrics;
+      return self();
+    }
+
     abstract T build();
   }
 
@@ -145,6 +151,7 @@ abstract class AbstractReadContext
   static class SingleReadContext extends AbstractReadContext {
     static class Builder extends AbstractReadContext.Builder<Builder, SingleReadContext> {
       private TimestampBound bound;
+      private StaleReadCache staleReadCache;
 
       private Builder() {}
 
@@ -153,6 +160,11 @@ abstract class AbstractReadContext
         return self();
       }
 
+      Builder setStaleReadCache(@Nullable StaleReadCache staleReadCache) {
+        this.staleReadCache = staleReadCache;
+        return self();
+      }
+
       @Override
       SingleReadContext build() {
         return new SingleReadContext(this);
@@ -169,12 +181,19 @@ abstract class AbstractReadContext
 
     final TimestampBound bound;
 
+    /** The cache for the query results of this context, or null if these cannot be cached. */
+    @Nullable private final StaleReadCache staleReadCache;
+
     @GuardedBy("lock")
     private boolean used;
 
     private SingleReadContext(Builder builder) {
       super(builder);
       this.bound = builder.bound;
+      this.staleReadCache =
+          builder.staleReadCache != null && StaleReadCache.isCacheable(bound)
+              ? builder.staleReadCache
+              : null;
     }
 
     @Override
@@ -190,6 +209,42 @@ abstract class AbstractReadContext
       used = true;
     }
 
+    @Override
+    ResultSet executeQueryInternalWithOptions(
+        Statement statement, QueryMode queryMode, Options options, ByteString partitionToken) {
+      if (staleReadCache != null && queryMode == QueryMode.NORMAL && partitionToken == null) {
+        CloseableIterator<PartialResultSet> cached =
+            staleReadCache.get(
+                statement,
+                getEffectiveQueryOptions(statement),
+                getEffectiveDirectedReadOptions(options),
+                bound);
+        if (cached != null) {
+          beforeReadOrQuery();
+          return new GrpcResultSet(cached, this, options.lazyDecoding());
+        }
+      }
+      return super.executeQueryInternalWithOptions(statement, queryMode, options, partitionToken);
+    }
+
+    @Override
+    CloseableIterator<PartialResultSet> wrapQueryStream(
+        Statement statement,
+        QueryMode queryMode,
+        Options options,
+        @Nullable ByteString partitionToken,
+        CloseableIterator<PartialResultSet> stream) {
+      if (staleReadCache != null && queryMode == QueryMode.NORMAL && partitionToken == null) {
+        return staleReadCache.record(
+            statement,
+            getEffectiveQueryOptions(statement),
+            getEffectiveDirectedReadOptions(options),
+            bound,
+            stream);
+      }
+      return stream;
+    }
+
     @Override
     @Nullable
     TransactionSelector getTransactionSelector() {
@@ -197,6 +252,13 @@ abstract class AbstractReadContext
         // Default mode: no need to specify a transaction.
         return null;
       }
+      if (staleReadCache != null) {
+        // The read timestamp is needed to determine whether a cached result satisfies the bound of
+        // a later query.
+        TransactionOptions.Builder options = TransactionOptions.newBuilder();
+        bound.applyToBuilder(options.getReadOnlyBuilder()).setReturnReadTimestamp(true);
+        return TransactionSelector.newBuilder().setSingleUse(options).build();
+      }
       return TransactionSelector.newBuilder()
           .setSingleUse(TransactionOptions.newBuilder().setReadOnly(bound.toProto()))
           .build();
@@ -408,6 +470,8 @@ abstract class AbstractReadContext
 
   private final DirectedReadOptions defaultDirectedReadOptions;
   private final Clock clock;
+  /** The latency metrics of this context, or null if no latency metrics should be recorded. */
+  @Nullable final LatencyMetrics latencyMetrics;
 
   @GuardedBy("lock")
   private boolean isValid = true;
@@ -435,6 +499,7 @@ abstract class AbstractReadContext
     this.span = builder.span;
     this.executorProvider = builder.executorProvider;
     this.clock = builder.clock;
+    this.latencyMetrics = builder.latencyMetrics;
   }
 
   @Override
@@ -464,8 +529,15 @@ abstract class AbstractReadContext
         readOptions.hasBufferRows()
             ? readOptions.bufferRows()
             : AsyncResultSetImpl.DEFAULT_BUFFER_SIZE;
+    final long bufferBytes =
+        readOptions.hasBufferBytes()
+            ? readOptions.bufferBytes()
+            : AsyncResultSetImpl.UNLIMITED_BUFFER_BYTES;
     return new AsyncResultSetImpl(
-        executorProvider, readInternal(table, null, keys, columns, options), bufferRows);
+        executorProvider,
+        readInternal(table, null, keys, columns, options),
+        bufferRows,
+        bufferBytes);
   }
 
   @Override
@@ -482,10 +554,15 @@ abstract class AbstractReadContext
         readOptions.hasBufferRows()
             ? readOptions.bufferRows()
             : AsyncResultSetImpl.DEFAULT_BUFFER_SIZE;
+    final long bufferBytes =
+        readOptions.hasBufferBytes()
+            ? readOptions.bufferBytes()
+            : AsyncResultSetImpl.UNLIMITED_BUFFER_BYTES;
     return new AsyncResultSetImpl(
         executorProvider,
         readInternal(table, checkNotNull(index), keys, columns, options),
-        bufferRows);
+        bufferRows,
+        bufferBytes);
   }
 
   @Nullable
@@ -534,11 +611,16 @@ abstract class AbstractReadContext
         readOptions.hasBufferRows()
             ? readOptions.bufferRows()
             : AsyncResultSetImpl.DEFAULT_BUFFER_SIZE;
+    final long bufferBytes =
+        readOptions.hasBufferBytes()
+            ? readOptions.bufferBytes()
+            : AsyncResultSetImpl.UNLIMITED_BUFFER_BYTES;
     return new AsyncResultSetImpl(
         executorProvider,
         executeQueryInternal(
             statement, com.google.spanner.v1.ExecuteSqlRequest.QueryMode.NORMAL, options),
-        bufferRows);
+        bufferRows,
+        bufferBytes);
   }
 
   @Override
@@ -579,6 +661,11 @@ abstract class AbstractReadContext
    */
   @VisibleForTesting
   QueryOptions buildQueryOptions(QueryOptions requestOptions) {
+    return mergeQueryOptions(defaultQueryOptions, requestOptions);
+  }
+
+  static QueryOptions mergeQueryOptions(
+      QueryOptions defaultQueryOptions, @Nullable QueryOptions requestOptions) {
     // Shortcut for the most common return value.
     if (defaultQueryOptions.equals(QueryOptions.getDefaultInstance()) && requestOptions == null) {
       return QueryOptions.getDefaultInstance();
@@ -593,7 +680,22 @@ abstract class AbstractReadContext
   }
 
   RequestOptions buildRequestOptions(Options options) {
-    RequestOptions.Builder builder = RequestOptions.newBuilder();
+    return buildRequestOptions(options, null);
+  }
+
+  /**
+   * Returns the {@link RequestOptions} for a request. The given template options are returned
+   * without creating a copy if the request does not set any additional options.
+   */
+  RequestOptions buildRequestOptions(Options options, @Nullable RequestOptions templateOptions) {
+    if (templateOptions != null
+        && !options.hasPriority()
+        && !options.hasTag()
+        && getTransactionTag() == null) {
+      return templateOptions;
+    }
+    RequestOptions.Builder builder =
+        templateOptions == null ? RequestOptions.newBuilder() : templateOptions.toBuilder();
     if (options.hasPriority()) {
       builder.setPriority(options.priority());
     }
@@ -608,17 +710,32 @@ abstract class AbstractReadContext
 
   ExecuteSqlRequest.Builder getExecuteSqlRequestBuilder(
       Statement statement, QueryMode queryMode, Options options, boolean withTransactionSelector) {
+    // Statements that are created from a template only need to encode the parameter values.
+    StatementTemplate template = statement.getTemplate();
     ExecuteSqlRequest.Builder builder =
-        ExecuteSqlRequest.newBuilder()
-            .setSql(statement.getSql())
-            .setQueryMode(queryMode)
-            .setSession(session.getName());
+        template == null
+            ? ExecuteSqlRequest.newBuilder().setSql(statement.getSql())
+            : template.newExecuteSqlRequestBuilder();
+    builder.setQueryMode(queryMode).setSession(session.getName());
     Map<String, Value> stmtParameters = statement.getParameters();
     if (!stmtParameters.isEmpty()) {
-      com.google.protobuf.Struct.Builder paramsBuilder = builder.getParamsBuilder();
+      // The statement of a query partition reuses the parameters that were encoded for the
+      // PartitionQuery request, so large parameters are not encoded again for each partition.
+      com.google.protobuf.Struct encodedParameters = statement.getEncodedParameters();
+      com.google.protobuf.Struct.Builder paramsBuilder = null;
+      if (encodedParameters == null) {
+        paramsBuilder = builder.getParamsBuilder();
+      } else {
+        builder.setParams(encodedParameters);
+      }
       for (Map.Entry<String, Value> param : stmtParameters.entrySet()) {
-        paramsBuilder.putFields(param.getKey(), Value.toProto(param.getValue()));
-        if (param.getValue() != null && param.getValue().getType() != null) {
+        if (paramsBuilder != null) {
+          paramsBuilder.putFields(param.getKey(), Value.toProto(param.getValue()));
+        }
+        if (param.getValue() != null
+            && param.getValue().getType() != null
+            && (template == null
+                || !template.isDeclaredParameterType(param.getKey(), param.getValue().getType()))) {
           builder.putParamTypes(param.getKey(), param.getValue().getType().toProto());
         }
       }
@@ -632,32 +749,59 @@ abstract class AbstractReadContext
     if (options.hasDataBoostEnabled()) {
       builder.setDataBoostEnabled(options.dataBoostEnabled());
     }
-    if (options.hasDirectedReadOptions()) {
-      builder.setDirectedReadOptions(options.directedReadOptions());
-    } else if (defaultDirectedReadOptions != null) {
-      builder.setDirectedReadOptions(defaultDirectedReadOptions);
+    DirectedReadOptions directedReadOptions = getEffectiveDirectedReadOptions(options);
+    if (directedReadOptions != null) {
+      builder.setDirectedReadOptions(directedReadOptions);
     }
     builder.setSeqno(getSeqNo());
-    builder.setQueryOptions(buildQueryOptions(statement.getQueryOptions()));
-    builder.setRequestOptions(buildRequestOptions(options));
+    builder.setQueryOptions(getEffectiveQueryOptions(statement));
+    if (template == null) {
+      builder.setRequestOptions(buildRequestOptions(options));
+    } else {
+      builder.setRequestOptions(buildRequestOptions(options, template.getRequestOptions()));
+    }
     return builder;
   }
 
+  /** Returns the query options that are sent to Spanner for the given statement. */
+  QueryOptions getEffectiveQueryOptions(Statement statement) {
+    StatementTemplate template = statement.getTemplate();
+    return template == null
+        ? buildQueryOptions(statement.getQueryOptions())
+        : template.getMergedQueryOptions(defaultQueryOptions);
+  }
+
+  /** Returns the directed read options that are sent to Spanner for the given options, if any. */
+  @Nullable
+  DirectedReadOptions getEffectiveDirectedReadOptions(Options options) {
+    return options.hasDirectedReadOptions()
+        ? options.directedReadOptions()
+        : defaultDirectedReadOptions;
+  }
+
   ExecuteBatchDmlRequest.Builder getExecuteBatchDmlRequestBuilder(
       Iterable<Statement> statements, Options options) {
     ExecuteBatchDmlRequest.Builder builder =
         ExecuteBatchDmlRequest.newBuilder().setSession(session.getName());
     int idx = 0;
     for (Statement stmt : statements) {
-      builder.addStatementsBuilder();
-      builder.getStatementsBuilder(idx).setSql(stmt.getSql());
+      StatementTemplate template = stmt.getTemplate();
+      if (template == null) {
+        builder.addStatementsBuilder().setSql(stmt.getSql());
+      } else {
+        builder.addStatements(template.newBatchDmlStatementBuilder());
+      }
       Map<String, Value> stmtParameters = stmt.getParameters();
       if (!stmtParameters.isEmpty()) {
         com.google.protobuf.Struct.Builder paramsBuilder =
             builder.getStatementsBuilder(idx).getParamsBuilder();
         for (Map.Entry<String, Value> param : stmtParameters.entrySet()) {
           paramsBuilder.putFields(param.getKey(), Value.toProto(param.getValue()));
-          if (param.getValue() != null && param.getValue().getType() != null) {
+          if (param.getValue() != null
+              && param.getValue().getType() != null
+              && (template == null
+                  || !template.isDeclaredParameterType(
+                      param.getKey(), param.getValue().getType()))) {
             builder
                 .getStatementsBuilder(idx)
                 .putParamTypes(param.getKey(), param.getValue().getType().toProto());
@@ -687,6 +831,7 @@ abstract class AbstractReadContext
     final ExecuteSqlRequest.Builder request =
         getExecuteSqlRequestBuilder(
             statement, queryMode, options, /* withTransactionSelector = */ false);
+    final QueryExecutionStats.Collector executionStats = createExecutionStats(options);
     ResumableStreamIterator stream =
         new ResumableStreamIterator(
             MAX_BUFFERED_CHUNKS,
@@ -696,7 +841,12 @@ abstract class AbstractReadContext
             rpc.getExecuteQueryRetryableCodes()) {
           @Override
           CloseableIterator<PartialResultSet> startStream(@Nullable ByteString resumeToken) {
-            GrpcStreamIterator stream = new GrpcStreamIterator(statement, prefetchChunks);
+            GrpcStreamIterator stream =
+                new GrpcStreamIterator(
+                    statement,
+                    prefetchChunks,
+                    createPrefetchController(options, prefetchChunks),
+                    executionStats);
             if (partitionToken != null) {
               request.setPartitionToken(partitionToken);
             }
@@ -718,8 +868,58 @@ abstract class AbstractReadContext
             stream.setCall(call, request.getTransaction().hasBegin());
             return stream;
           }
+
+          @Override
+          void onBackoff(long nanos) {
+            onResume(LatencyMetrics.METHOD_EXECUTE_STREAMING_SQL, nanos, executionStats);
+          }
         };
-    return new GrpcResultSet(stream, this);
+    return new GrpcResultSet(
+        wrapQueryStream(statement, queryMode, options, partitionToken, stream),
+        this,
+        options.lazyDecoding(),
+        latencyMetrics,
+        LatencyMetrics.METHOD_EXECUTE_STREAMING_SQL,
+        executionStats);
+  }
+
+  /**
+   * Returns the stream that should be used to return the results of the given query. Subclasses
+   * can override this method to observe the results of a query.
+   */
+  CloseableIterator<PartialResultSet> wrapQueryStream(
+      Statement statement,
+      QueryMode queryMode,
+      Options options,
+      @Nullable ByteString partitionToken,
+      CloseableIterator<PartialResultSet> stream) {
+    return stream;
+  }
+
+  /** Called when a stream is resumed after waiting for the given number of nanoseconds. */
+  private void onResume(
+      String method, long nanos, @Nullable QueryExecutionStats.Collector executionStats) {
+    if (latencyMetrics != null) {
+      latencyMetrics.recordNanos(LatencyMetrics.Phase.RETRY_DELAY, method, nanos);
+    }
+    if (executionStats != null) {
+      executionStats.onResume();
+    }
+  }
+
+  @Nullable
+  private static QueryExecutionStats.Collector createExecutionStats(Options options) {
+    return options.executionStats()
+        ? new QueryExecutionStats.Collector(options.hasTag() ? options.tag() : null)
+        : null;
+  }
+
+  @Nullable
+  private static AdaptivePrefetchController createPrefetchController(
+      Options options, int prefetchChunks) {
+    return options.hasMaxBufferedBytes()
+        ? new AdaptivePrefetchController(prefetchChunks, options.maxBufferedBytes())
+        : null;
   }
 
   /**
@@ -832,6 +1032,7 @@ abstract class AbstractReadContext
     }
     final int prefetchChunks =
         readOptions.hasPrefetchChunks() ? readOptions.prefetchChunks() : defaultPrefetchChunks;
+    final QueryExecutionStats.Collector executionStats = createExecutionStats(readOptions);
     ResumableStreamIterator stream =
         new ResumableStreamIterator(
             MAX_BUFFERED_CHUNKS,
@@ -841,7 +1042,12 @@ abstract class AbstractReadContext
             rpc.getReadRetryableCodes()) {
           @Override
           CloseableIterator<PartialResultSet> startStream(@Nullable ByteString resumeToken) {
-            GrpcStreamIterator stream = new GrpcStreamIterator(prefetchChunks);
+            GrpcStreamIterator stream =
+                new GrpcStreamIterator(
+                    null,
+                    prefetchChunks,
+                    createPrefetchController(readOptions, prefetchChunks),
+                    executionStats);
             TransactionSelector selector = null;
             if (resumeToken != null) {
               builder.setResumeToken(resumeToken);
@@ -861,8 +1067,19 @@ abstract class AbstractReadContext
             stream.setCall(call, /* withBeginTransaction = */ builder.getTransaction().hasBegin());
             return stream;
           }
+
+          @Override
+          void onBackoff(long nanos) {
+            onResume(LatencyMetrics.METHOD_STREAMING_READ, nanos, executionStats);
+          }
         };
-    return new GrpcResultSet(stream, this);
+    return new GrpcResultSet(
+        stream,
+        this,
+        readOptions.lazyDecoding(),
+        latencyMetrics,
+        LatencyMetrics.METHOD_STREAMING_READ,
+        executionStats);
   }
 
   private Struct consumeSingleRow(ResultSet resultSet) {
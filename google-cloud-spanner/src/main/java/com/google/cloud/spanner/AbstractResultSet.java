@@ -39,8 +39,8 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.CharSource;
-import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.protobuf.AbstractMessage;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.ListValue;
@@ -59,23 +59,23 @@ import io.opencensus.trace.Span;
 import io.opencensus.trace.Tracer;
 import io.opencensus.trace.Tracing;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.AbstractList;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.BitSet;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.logging.Level;
@@ -107,18 +107,46 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
   }
 
   @VisibleForTesting
-  static class GrpcResultSet extends AbstractResultSet<List<Object>> {
+  static class GrpcResultSet extends AbstractResultSet<List<Object>>
+      implements ProtobufResultSet {
     private final GrpcValueIterator iterator;
     private final Listener listener;
+    private final boolean lazyDecoding;
     private ResultSetMetadata metadata;
     private GrpcStruct currRow;
     private SpannerException error;
     private ResultSetStats statistics;
     private boolean closed;
+    @Nullable private final LatencyMetrics latencyMetrics;
+    private final String method;
+    @Nullable private final QueryExecutionStats.Collector executionStats;
+    private final boolean measureDecodeTime;
+    /** The time that has been spent in {@link #next()}, excluding waiting for the stream. */
+    private long decodeNanos;
 
     GrpcResultSet(CloseableIterator<PartialResultSet> iterator, Listener listener) {
-      this.iterator = new GrpcValueIterator(iterator);
+      this(iterator, listener, false);
+    }
+
+    GrpcResultSet(
+        CloseableIterator<PartialResultSet> iterator, Listener listener, boolean lazyDecoding) {
+      this(iterator, listener, lazyDecoding, null, null, null);
+    }
+
+    GrpcResultSet(
+        CloseableIterator<PartialResultSet> iterator,
+        Listener listener,
+        boolean lazyDecoding,
+        @Nullable LatencyMetrics latencyMetrics,
+        @Nullable String method,
+        @Nullable QueryExecutionStats.Collector executionStats) {
+      this.measureDecodeTime = latencyMetrics != null || executionStats != null;
+      this.iterator = new GrpcValueIterator(iterator, measureDecodeTime);
       this.listener = listener;
+      this.lazyDecoding = lazyDecoding;
+      this.latencyMetrics = latencyMetrics;
+      this.method = method;
+      this.executionStats = executionStats;
     }
 
     @Override
@@ -133,9 +161,15 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
       if (error != null) {
         throw newSpannerException(error);
       }
+      long startNanos = measureDecodeTime ? System.nanoTime() : 0L;
+      long startStreamNanos = iterator.streamNanos;
       try {
         if (currRow == null) {
           metadata = iterator.getMetadata();
+          if (latencyMetrics != null) {
+            // The stream is started by the first call to next().
+            latencyMetrics.record(LatencyMetrics.Phase.FIRST_RESPONSE, method, startNanos);
+          }
           if (metadata.hasTransaction()) {
             listener.onTransactionMetadata(
                 metadata.getTransaction(), iterator.isWithBeginTransaction());
@@ -144,26 +178,53 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
             throw SpannerExceptionFactory.newSpannerException(
                 ErrorCode.FAILED_PRECONDITION, AbstractReadContext.NO_TRANSACTION_RETURNED_MSG);
           }
-          currRow = new GrpcStruct(iterator.type(), new ArrayList<>());
+          currRow = new GrpcStruct(iterator.type(), new ArrayList<>(), lazyDecoding);
         }
         boolean hasNext = currRow.consumeRow(iterator);
         if (!hasNext) {
           statistics = iterator.getStats();
+        } else if (executionStats != null) {
+          executionStats.onRow();
         }
         return hasNext;
       } catch (Throwable t) {
         throw yieldError(
             SpannerExceptionFactory.asSpannerException(t),
             iterator.isWithBeginTransaction() && currRow == null);
+      } finally {
+        if (measureDecodeTime) {
+          long nanos = System.nanoTime() - startNanos - (iterator.streamNanos - startStreamNanos);
+          decodeNanos += nanos;
+          if (executionStats != null) {
+            executionStats.addDecodeNanos(nanos);
+          }
+        }
       }
     }
 
+    @Override
+    public boolean canGetProtobufValue(int columnIndex) {
+      return !closed && currRow != null && currRow.canGetProtobufValue(columnIndex);
+    }
+
+    @Override
+    public com.google.protobuf.Value getProtobufValue(int columnIndex) {
+      checkState(canGetProtobufValue(columnIndex), "Value has already been decoded");
+      return currRow.getEncodedValue(columnIndex);
+    }
+
     @Override
     @Nullable
     public ResultSetStats getStats() {
       return statistics;
     }
 
+    @Override
+    @Nullable
+    public QueryExecutionStats getExecutionStats() {
+      return executionStats == null ? null : executionStats.snapshot();
+    }
+
     @Override
     public ResultSetMetadata getMetadata() {
       checkState(metadata != null, "next() call required");
@@ -174,6 +235,9 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
     public void close() {
       listener.onDone(iterator.isWithBeginTransaction());
       iterator.close("ResultSet closed");
+      if (latencyMetrics != null && !closed) {
+        latencyMetrics.recordNanos(LatencyMetrics.Phase.DECODE, method, decodeNanos);
+      }
       closed = true;
     }
 
@@ -204,9 +268,13 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
     private PartialResultSet current;
     private int pos;
     private ResultSetStats statistics;
+    private final boolean measureStreamTime;
+    /** The time that has been spent waiting for the stream if measureStreamTime is true. */
+    long streamNanos;
 
-    GrpcValueIterator(CloseableIterator<PartialResultSet> stream) {
+    GrpcValueIterator(CloseableIterator<PartialResultSet> stream, boolean measureStreamTime) {
       this.stream = stream;
+      this.measureStreamTime = measureStreamTime;
     }
 
     @SuppressWarnings("unchecked")
@@ -289,12 +357,27 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
       return type;
     }
 
-    private boolean ensureReady(StreamValue requiredValue) throws SpannerException {
-      while (current == null || pos >= current.getValuesCount()) {
+    /** Moves to the next {@link PartialResultSet} and returns false if there is none. */
+    private boolean nextFromStream() {
+      long startNanos = measureStreamTime ? System.nanoTime() : 0L;
+      try {
         if (!stream.hasNext()) {
           return false;
         }
         current = stream.next();
+        return true;
+      } finally {
+        if (measureStreamTime) {
+          streamNanos += System.nanoTime() - startNanos;
+        }
+      }
+    }
+
+    private boolean ensureReady(StreamValue requiredValue) throws SpannerException {
+      while (current == null || pos >= current.getValuesCount()) {
+        if (!nextFromStream()) {
+          return false;
+        }
         pos = 0;
         if (type == null) {
           // This is the first message on the stream.
@@ -421,6 +504,58 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
       return base64String;
     }
 
+    /**
+     * Decodes the base64 string into a new read-only {@link ByteBuffer}. The value is decoded
+     * directly into a buffer of the exact decoded size, without creating any intermediate copies.
+     */
+    ByteBuffer decodeToByteBuffer() {
+      int length = base64String.length();
+      int padding = 0;
+      if (length > 0 && base64String.charAt(length - 1) == '=') {
+        padding++;
+        if (length > 1 && base64String.charAt(length - 2) == '=') {
+          padding++;
+        }
+      }
+      return decodeToByteBuffer(newInputStream(), length, padding);
+    }
+
+    /**
+     * Decodes the given UTF-8 encoded base64 string into a new read-only {@link ByteBuffer},
+     * without creating any intermediate copies of the encoded or the decoded value.
+     */
+    static ByteBuffer decodeToByteBuffer(ByteString base64) {
+      int length = base64.size();
+      int padding = 0;
+      if (length > 0 && base64.byteAt(length - 1) == '=') {
+        padding++;
+        if (length > 1 && base64.byteAt(length - 2) == '=') {
+          padding++;
+        }
+      }
+      return decodeToByteBuffer(DECODER.wrap(base64.newInput()), length, padding);
+    }
+
+    private static ByteBuffer decodeToByteBuffer(InputStream decoder, int length, int padding) {
+      byte[] bytes = new byte[(int) ((long) length * 3L / 4L) - padding];
+      try (InputStream input = decoder) {
+        ByteStreams.readFully(input, bytes);
+      } catch (IOException ioException) {
+        throw SpannerExceptionFactory.asSpannerException(ioException);
+      }
+      return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    /** Returns an {@link InputStream} that decodes the base64 string while it is read. */
+    InputStream newInputStream() {
+      try {
+        return DECODER.wrap(
+            CharSource.wrap(base64String).asByteSource(StandardCharsets.UTF_8).openStream());
+      } catch (IOException ioException) {
+        throw SpannerExceptionFactory.asSpannerException(ioException);
+      }
+    }
+
     @Override
     public String toString() {
       return getBase64String();
@@ -448,6 +583,15 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
     private final Type type;
     private final List<Object> rowData;
 
+    /**
+     * Indicates whether the values in {@link #rowData} are kept in their wire format until they
+     * are accessed. {@link #decodedColumns} contains the indexes of the columns that have been
+     * decoded for the current row, and is only used in lazy decoding mode.
+     */
+    private final boolean lazyDecoding;
+
+    private final BitSet decodedColumns;
+
     /**
      * Builds an immutable version of this struct using {@link Struct#newBuilder()} which is used as
      * a serialization proxy.
@@ -458,7 +602,7 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
       for (int i = 0; i < structFields.size(); i++) {
         Type.StructField field = structFields.get(i);
         String fieldName = field.getName();
-        Object value = rowData.get(i);
+        Object value = getDecodedValue(i);
         Type fieldType = field.getType();
         switch (fieldType.getCode()) {
           case BOOL:
@@ -576,17 +720,27 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
     }
 
     GrpcStruct(Type type, List<Object> rowData) {
+      this(type, rowData, /* lazyDecoding = */ false);
+    }
+
+    GrpcStruct(Type type, List<Object> rowData, boolean lazyDecoding) {
       this.type = type;
       this.rowData = rowData;
+      this.lazyDecoding = lazyDecoding;
+      this.decodedColumns = lazyDecoding ? new BitSet() : null;
     }
 
     @Override
     public String toString() {
+      decodeAll();
       return this.rowData.toString();
     }
 
     boolean consumeRow(Iterator<com.google.protobuf.Value> iterator) {
       rowData.clear();
+      if (lazyDecoding) {
+        decodedColumns.clear();
+      }
       if (!iterator.hasNext()) {
         return false;
       }
@@ -597,11 +751,50 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
               "Invalid value stream: end of stream reached before row is complete");
         }
         com.google.protobuf.Value value = iterator.next();
-        rowData.add(decodeValue(fieldType.getType(), value));
+        rowData.add(lazyDecoding ? value : decodeValue(fieldType.getType(), value));
       }
       return true;
     }
 
+    /** Returns true if the value of the given column has not yet been decoded. */
+    private boolean isEncoded(int columnIndex) {
+      return lazyDecoding && !decodedColumns.get(columnIndex);
+    }
+
+    /** Returns true if the value of the given column is available in its wire format. */
+    boolean canGetProtobufValue(int columnIndex) {
+      return isEncoded(columnIndex);
+    }
+
+    /** Returns the value of the given column in its wire format. */
+    private com.google.protobuf.Value getEncodedValue(int columnIndex) {
+      return (com.google.protobuf.Value) rowData.get(columnIndex);
+    }
+
+    /**
+     * Returns the decoded value of the given column. The value is decoded and cached if lazy
+     * decoding is enabled and the column has not been accessed before.
+     */
+    private Object getDecodedValue(int columnIndex) {
+      if (isEncoded(columnIndex)) {
+        Object value =
+            decodeValue(
+                type.getStructFields().get(columnIndex).getType(), getEncodedValue(columnIndex));
+        rowData.set(columnIndex, value);
+        decodedColumns.set(columnIndex);
+        return value;
+      }
+      return rowData.get(columnIndex);
+    }
+
+    private void decodeAll() {
+      if (lazyDecoding) {
+        for (int i = 0; i < rowData.size(); i++) {
+          getDecodedValue(i);
+        }
+      }
+    }
+
     private static Object decodeValue(Type fieldType, com.google.protobuf.Value proto) {
       if (proto.getKindCase() == KindCase.NULL_VALUE) {
         return null;
@@ -705,6 +898,8 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
     }
 
     Struct immutableCopy() {
+      // Decode all values, so the copy can safely be shared between threads.
+      decodeAll();
       return new GrpcStruct(type, new ArrayList<>(rowData));
     }
 
@@ -715,6 +910,9 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
 
     @Override
     public boolean isNull(int columnIndex) {
+      if (isEncoded(columnIndex)) {
+        return getEncodedValue(columnIndex).getKindCase() == KindCase.NULL_VALUE;
+      }
       return rowData.get(columnIndex) == null;
     }
 
@@ -723,17 +921,8 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
       Preconditions.checkNotNull(
           message,
           "Proto message may not be null. Use MyProtoClass.getDefaultInstance() as a parameter value.");
-      try {
-        return (T)
-            message
-                .toBuilder()
-                .mergeFrom(
-                    Base64.getDecoder()
-                        .wrap(
-                            CharSource.wrap(((LazyByteArray) rowData.get(columnIndex)).base64String)
-                                .asByteSource(StandardCharsets.UTF_8)
-                                .openStream()))
-                .build();
+      try (InputStream input = getBytesAsInputStreamInternal(columnIndex)) {
+        return (T) message.toBuilder().mergeFrom(input).build();
       } catch (IOException ioException) {
         throw SpannerExceptionFactory.asSpannerException(ioException);
       }
@@ -749,37 +938,53 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
 
     @Override
     protected boolean getBooleanInternal(int columnIndex) {
+      if (isEncoded(columnIndex)) {
+        // Fast path that does not create a Boolean object.
+        com.google.protobuf.Value proto = getEncodedValue(columnIndex);
+        checkType(getColumnType(columnIndex), proto, KindCase.BOOL_VALUE);
+        return proto.getBoolValue();
+      }
       return (Boolean) rowData.get(columnIndex);
     }
 
     @Override
     protected long getLongInternal(int columnIndex) {
+      if (isEncoded(columnIndex)) {
+        // Fast path that does not create a Long object.
+        com.google.protobuf.Value proto = getEncodedValue(columnIndex);
+        checkType(getColumnType(columnIndex), proto, KindCase.STRING_VALUE);
+        return Long.parseLong(proto.getStringValue());
+      }
       return (Long) rowData.get(columnIndex);
     }
 
     @Override
     protected double getDoubleInternal(int columnIndex) {
+      if (isEncoded(columnIndex)) {
+        // Fast path that does not create a Double object.
+        return valueProtoToFloat64(getEncodedValue(columnIndex));
+      }
       return (Double) rowData.get(columnIndex);
     }
 
     @Override
     protected BigDecimal getBigDecimalInternal(int columnIndex) {
-      return (BigDecimal) rowData.get(columnIndex);
+      return (BigDecimal) getDecodedValue(columnIndex);
     }
 
     @Override
     protected String getStringInternal(int columnIndex) {
-      return (String) rowData.get(columnIndex);
+      return (String) getDecodedValue(columnIndex);
     }
 
     @Override
     protected String getJsonInternal(int columnIndex) {
-      return (String) rowData.get(columnIndex);
+      return (String) getDecodedValue(columnIndex);
     }
 
     @Override
     protected String getPgJsonbInternal(int columnIndex) {
-      return (String) rowData.get(columnIndex);
+      return (String) getDecodedValue(columnIndex);
     }
 
     @Override
@@ -787,22 +992,44 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
       return getLazyBytesInternal(columnIndex).getByteArray();
     }
 
+    @Override
+    protected ByteBuffer getBytesAsByteBufferInternal(int columnIndex) {
+      if (isEncoded(columnIndex)) {
+        // Decode the value directly from the bytes of the protobuf string, without creating a
+        // String first.
+        com.google.protobuf.Value proto = getEncodedValue(columnIndex);
+        checkType(getColumnType(columnIndex), proto, KindCase.STRING_VALUE);
+        return LazyByteArray.decodeToByteBuffer(proto.getStringValueBytes());
+      }
+      return getLazyBytesInternal(columnIndex).decodeToByteBuffer();
+    }
+
+    @Override
+    protected InputStream getBytesAsInputStreamInternal(int columnIndex) {
+      if (isEncoded(columnIndex)) {
+        com.google.protobuf.Value proto = getEncodedValue(columnIndex);
+        checkType(getColumnType(columnIndex), proto, KindCase.STRING_VALUE);
+        return LazyByteArray.DECODER.wrap(proto.getStringValueBytes().newInput());
+      }
+      return getLazyBytesInternal(columnIndex).newInputStream();
+    }
+
     LazyByteArray getLazyBytesInternal(int columnIndex) {
-      return (LazyByteArray) rowData.get(columnIndex);
+      return (LazyByteArray) getDecodedValue(columnIndex);
     }
 
     @Override
     protected Timestamp getTimestampInternal(int columnIndex) {
-      return (Timestamp) rowData.get(columnIndex);
+      return (Timestamp) getDecodedValue(columnIndex);
     }
 
     @Override
     protected Date getDateInternal(int columnIndex) {
-      return (Date) rowData.get(columnIndex);
+      return (Date) getDecodedValue(columnIndex);
     }
 
     protected com.google.protobuf.Value getProtoValueInternal(int columnIndex) {
-      return (com.google.protobuf.Value) rowData.get(columnIndex);
+      return (com.google.protobuf.Value) getDecodedValue(columnIndex);
     }
 
     @Override
@@ -810,7 +1037,7 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
       final List<Type.StructField> structFields = getType().getStructFields();
       final StructField structField = structFields.get(columnIndex);
       final Type columnType = structField.getType();
-      final boolean isNull = rowData.get(columnIndex) == null;
+      final boolean isNull = isNull(columnIndex);
       switch (columnType.getCode()) {
         case BOOL:
           return Value.bool(isNull ? null : getBooleanInternal(columnIndex));
@@ -888,13 +1115,13 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
 
     @Override
     protected Struct getStructInternal(int columnIndex) {
-      return (Struct) rowData.get(columnIndex);
+      return (Struct) getDecodedValue(columnIndex);
     }
 
     @Override
     protected boolean[] getBooleanArrayInternal(int columnIndex) {
       @SuppressWarnings("unchecked") // We know ARRAY<BOOL> produces a List<Boolean>.
-      List<Boolean> values = (List<Boolean>) rowData.get(columnIndex);
+      List<Boolean> values = (List<Boolean>) getDecodedValue(columnIndex);
       boolean[] r = new boolean[values.size()];
       for (int i = 0; i < values.size(); ++i) {
         if (values.get(i) == null) {
@@ -908,7 +1135,7 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
     @Override
     @SuppressWarnings("unchecked") // We know ARRAY<BOOL> produces a List<Boolean>.
     protected List<Boolean> getBooleanListInternal(int columnIndex) {
-      return Collections.unmodifiableList((List<Boolean>) rowData.get(columnIndex));
+      return Collections.unmodifiableList((List<Boolean>) getDecodedValue(columnIndex));
     }
 
     @Override
@@ -918,7 +1145,7 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
 
     @Override
     protected Int64Array getLongListInternal(int columnIndex) {
-      return (Int64Array) rowData.get(columnIndex);
+      return (Int64Array) getDecodedValue(columnIndex);
     }
 
     @Override
@@ -928,25 +1155,25 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
 
     @Override
     protected Float64Array getDoubleListInternal(int columnIndex) {
-      return (Float64Array) rowData.get(columnIndex);
+      return (Float64Array) getDecodedValue(columnIndex);
     }
 
     @Override
     @SuppressWarnings("unchecked") // We know ARRAY<NUMERIC> produces a List<BigDecimal>.
     protected List<BigDecimal> getBigDecimalListInternal(int columnIndex) {
-      return (List<BigDecimal>) rowData.get(columnIndex);
+      return (List<BigDecimal>) getDecodedValue(columnIndex);
     }
 
     @Override
     @SuppressWarnings("unchecked") // We know ARRAY<STRING> produces a List<String>.
     protected List<String> getStringListInternal(int columnIndex) {
-      return Collections.unmodifiableList((List<String>) rowData.get(columnIndex));
+      return Collections.unmodifiableList((List<String>) getDecodedValue(columnIndex));
     }
 
     @Override
     @SuppressWarnings("unchecked") // We know ARRAY<JSON> produces a List<String>.
     protected List<String> getJsonListInternal(int columnIndex) {
-      return Collections.unmodifiableList((List<String>) rowData.get(columnIndex));
+      return Collections.unmodifiableList((List<String>) getDecodedValue(columnIndex));
     }
 
     @Override
@@ -957,7 +1184,7 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
           message,
           "Proto message may not be null. Use MyProtoClass.getDefaultInstance() as a parameter value.");
 
-      List<LazyByteArray> bytesArray = (List<LazyByteArray>) rowData.get(columnIndex);
+      List<LazyByteArray> bytesArray = (List<LazyByteArray>) getDecodedValue(columnIndex);
 
       try {
         List<T> protoMessagesList = new ArrayList<>(bytesArray.size());
@@ -991,7 +1218,7 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
       Preconditions.checkNotNull(
           method, "Method may not be null. Use 'MyProtoEnum::forNumber' as a parameter value.");
 
-      List<Long> enumIntArray = (List<Long>) rowData.get(columnIndex);
+      List<Long> enumIntArray = (List<Long>) getDecodedValue(columnIndex);
       List<T> protoEnumList = new ArrayList<>(enumIntArray.size());
       for (Long enumIntValue : enumIntArray) {
         if (enumIntValue == null) {
@@ -1007,32 +1234,33 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
     @Override
     @SuppressWarnings("unchecked") // We know ARRAY<JSONB> produces a List<String>.
     protected List<String> getPgJsonbListInternal(int columnIndex) {
-      return Collections.unmodifiableList((List<String>) rowData.get(columnIndex));
+      return Collections.unmodifiableList((List<String>) getDecodedValue(columnIndex));
     }
 
     @Override
     @SuppressWarnings("unchecked") // We know ARRAY<BYTES> produces a List<LazyByteArray>.
     protected List<ByteArray> getBytesListInternal(int columnIndex) {
       return Lists.transform(
-          (List<LazyByteArray>) rowData.get(columnIndex), l -> l == null ? null : l.getByteArray());
+          (List<LazyByteArray>) getDecodedValue(columnIndex),
+          l -> l == null ? null : l.getByteArray());
     }
 
     @Override
     @SuppressWarnings("unchecked") // We know ARRAY<TIMESTAMP> produces a List<Timestamp>.
     protected List<Timestamp> getTimestampListInternal(int columnIndex) {
-      return Collections.unmodifiableList((List<Timestamp>) rowData.get(columnIndex));
+      return Collections.unmodifiableList((List<Timestamp>) getDecodedValue(columnIndex));
     }
 
     @Override
     @SuppressWarnings("unchecked") // We know ARRAY<DATE> produces a List<Date>.
     protected List<Date> getDateListInternal(int columnIndex) {
-      return Collections.unmodifiableList((List<Date>) rowData.get(columnIndex));
+      return Collections.unmodifiableList((List<Date>) getDecodedValue(columnIndex));
     }
 
     @Override
     @SuppressWarnings("unchecked") // We know ARRAY<STRUCT<...>> produces a List<STRUCT>.
     protected List<Struct> getStructListInternal(int columnIndex) {
-      return Collections.unmodifiableList((List<Struct>) rowData.get(columnIndex));
+      return Collections.unmodifiableList((List<Struct>) getDecodedValue(columnIndex));
     }
   }
 
@@ -1057,8 +1285,10 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
     private static final PartialResultSet END_OF_STREAM = PartialResultSet.newBuilder().build();
 
     private final ConsumerImpl consumer = new ConsumerImpl();
-    private final BlockingQueue<PartialResultSet> stream;
+    private final SpscRingBuffer<PartialResultSet> stream;
     private final Statement statement;
+    @Nullable private final AdaptivePrefetchController prefetchController;
+    @Nullable private final QueryExecutionStats.Collector executionStats;
 
     private SpannerRpc.StreamingCall call;
     private volatile boolean withBeginTransaction;
@@ -1073,9 +1303,39 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
 
     @VisibleForTesting
     GrpcStreamIterator(Statement statement, int prefetchChunks) {
+      this(statement, prefetchChunks, null);
+    }
+
+    /**
+     * Creates a stream iterator that uses the given controller to determine the number of messages
+     * to request, or that requests one message for each message that is consumed if the
+     * controller is null.
+     */
+    GrpcStreamIterator(
+        Statement statement,
+        int prefetchChunks,
+        @Nullable AdaptivePrefetchController prefetchController) {
+      this(statement, prefetchChunks, prefetchController, null);
+    }
+
+    /**
+     * Creates a stream iterator that also counts the messages that are consumed in the given
+     * {@link QueryExecutionStats.Collector} if it is not null.
+     */
+    GrpcStreamIterator(
+        Statement statement,
+        int prefetchChunks,
+        @Nullable AdaptivePrefetchController prefetchController,
+        @Nullable QueryExecutionStats.Collector executionStats) {
       this.statement = statement;
+      this.prefetchController = prefetchController;
+      this.executionStats = executionStats;
+      int capacity =
+          prefetchController == null
+              ? prefetchChunks
+              : Math.max(prefetchChunks, AdaptivePrefetchController.MAX_WINDOW);
       // One extra to allow for END_OF_STREAM message.
-      this.stream = new LinkedBlockingQueue<>(prefetchChunks + 1);
+      this.stream = new SpscRingBuffer<>(capacity + 1);
     }
 
     protected final SpannerRpc.ResultStreamConsumer consumer() {
@@ -1118,6 +1378,7 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
     @Override
     protected final PartialResultSet computeNext() {
       PartialResultSet next;
+      boolean consumerWaited = prefetchController != null && stream.isEmpty();
       try {
         if (streamWaitTimeoutUnit != null) {
           next = stream.poll(streamWaitTimeoutValue, streamWaitTimeoutUnit);
@@ -1133,7 +1394,19 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
         throw SpannerExceptionFactory.propagateInterrupt(e);
       }
       if (next != END_OF_STREAM) {
-        call.request(1);
+        if (executionStats != null) {
+          executionStats.onPartialResultSet(next.getSerializedSize());
+        }
+        if (prefetchController == null) {
+          call.request(1);
+        } else {
+          int numMessages =
+              prefetchController.onMessageConsumed(
+                  next.getSerializedSize(), consumerWaited, stream.size());
+          if (numMessages > 0) {
+            call.request(numMessages);
+          }
+        }
         return next;
       }
 
@@ -1149,13 +1422,17 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
     }
 
     private void addToStream(PartialResultSet results) {
-      // We assume that nothing from the user will interrupt gRPC event threads.
-      Uninterruptibles.putUninterruptibly(stream, results);
+      // We assume that nothing from the user will interrupt gRPC event threads. The callbacks of a
+      // gRPC call are executed serially, which means that there is only one producer at any time.
+      stream.putUninterruptibly(results);
     }
 
     private class ConsumerImpl implements SpannerRpc.ResultStreamConsumer {
       @Override
       public void onPartialResultSet(PartialResultSet results) {
+        if (prefetchController != null) {
+          prefetchController.onMessageReceived(results.getSerializedSize());
+        }
         addToStream(results);
       }
 
@@ -1204,7 +1481,7 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
     private final Set<Code> retryableCodes;
     private static final Logger logger = Logger.getLogger(ResumableStreamIterator.class.getName());
     private final BackOff backOff;
-    private final LinkedList<PartialResultSet> buffer = new LinkedList<>();
+    private final ArrayDeque<PartialResultSet> buffer = new ArrayDeque<>();
     private final int maxBufferSize;
     private final Span span;
     private CloseableIterator<PartialResultSet> stream;
@@ -1280,6 +1557,12 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
       }
     }
 
+    /**
+     * Called with the time in nanoseconds that was spent waiting before a retry. This method is not
+     * called if the wait is cancelled or interrupted, as no retry follows in that case.
+     */
+    void onBackoff(long nanos) {}
+
     private void backoffSleep(Context context, long backoffMillis) throws SpannerException {
       tracer
           .getCurrentSpan()
@@ -1294,6 +1577,7 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
           };
 
       context.addListener(listener, DirectExecutor.INSTANCE);
+      long startNanos = System.nanoTime();
       try {
         if (backoffMillis == BackOff.STOP) {
           // Highly unlikely but we handle it just in case.
@@ -1308,6 +1592,7 @@ abstract class AbstractResultSet<R> extends AbstractStructReader implements Resu
       } finally {
         context.removeListener(listener);
       }
+      onBackoff(System.nanoTime() - startNanos);
     }
 
     private enum DirectExecutor implements Executor {
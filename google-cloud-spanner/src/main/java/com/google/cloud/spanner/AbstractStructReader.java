@@ -24,7 +24,9 @@ import com.google.cloud.Timestamp;
 import com.google.cloud.spanner.Type.Code;
 import com.google.protobuf.AbstractMessage;
 import com.google.protobuf.ProtocolMessageEnum;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -39,6 +41,11 @@ import java.util.function.Function;
  * type appropriate for the method.
  */
 public abstract class AbstractStructReader implements StructReader {
+  /** The type codes that can be read as a long. Shared to prevent allocations in getLong(..). */
+  private static final List<Code> INT64_CODES = Arrays.asList(Code.ENUM, Code.INT64);
+
+  private static final List<Code> BYTES_CODES = Arrays.asList(Code.PROTO, Code.BYTES);
+
   protected abstract boolean getBooleanInternal(int columnIndex);
 
   protected abstract long getLongInternal(int columnIndex);
@@ -63,6 +70,14 @@ public abstract class AbstractStructReader implements StructReader {
 
   protected abstract Date getDateInternal(int columnIndex);
 
+  protected ByteBuffer getBytesAsByteBufferInternal(int columnIndex) {
+    return getBytesInternal(columnIndex).asReadOnlyByteBuffer();
+  }
+
+  protected InputStream getBytesAsInputStreamInternal(int columnIndex) {
+    return getBytesInternal(columnIndex).asInputStream();
+  }
+
   protected <T extends AbstractMessage> T getProtoMessageInternal(int columnIndex, T message) {
     throw new UnsupportedOperationException("Not implemented");
   }
@@ -153,14 +168,14 @@ public abstract class AbstractStructReader implements StructReader {
 
   @Override
   public long getLong(int columnIndex) {
-    checkNonNullOfCodes(columnIndex, Arrays.asList(Code.ENUM, Code.INT64), columnIndex);
+    checkNonNullOfCodes(columnIndex, INT64_CODES, columnIndex);
     return getLongInternal(columnIndex);
   }
 
   @Override
   public long getLong(String columnName) {
     int columnIndex = getColumnIndex(columnName);
-    checkNonNullOfCodes(columnIndex, Arrays.asList(Code.ENUM, Code.INT64), columnName);
+    checkNonNullOfCodes(columnIndex, INT64_CODES, columnName);
     return getLongInternal(columnIndex);
   }
 
@@ -236,17 +251,43 @@ public abstract class AbstractStructReader implements StructReader {
 
   @Override
   public ByteArray getBytes(int columnIndex) {
-    checkNonNullOfCodes(columnIndex, Arrays.asList(Code.PROTO, Code.BYTES), columnIndex);
+    checkNonNullOfCodes(columnIndex, BYTES_CODES, columnIndex);
     return getBytesInternal(columnIndex);
   }
 
   @Override
   public ByteArray getBytes(String columnName) {
     int columnIndex = getColumnIndex(columnName);
-    checkNonNullOfCodes(columnIndex, Arrays.asList(Code.PROTO, Code.BYTES), columnName);
+    checkNonNullOfCodes(columnIndex, BYTES_CODES, columnName);
     return getBytesInternal(columnIndex);
   }
 
+  @Override
+  public ByteBuffer getBytesAsByteBuffer(int columnIndex) {
+    checkNonNullOfCodes(columnIndex, BYTES_CODES, columnIndex);
+    return getBytesAsByteBufferInternal(columnIndex);
+  }
+
+  @Override
+  public ByteBuffer getBytesAsByteBuffer(String columnName) {
+    int columnIndex = getColumnIndex(columnName);
+    checkNonNullOfCodes(columnIndex, BYTES_CODES, columnName);
+    return getBytesAsByteBufferInternal(columnIndex);
+  }
+
+  @Override
+  public InputStream getBytesAsInputStream(int columnIndex) {
+    checkNonNullOfCodes(columnIndex, BYTES_CODES, columnIndex);
+    return getBytesAsInputStreamInternal(columnIndex);
+  }
+
+  @Override
+  public InputStream getBytesAsInputStream(String columnName) {
+    int columnIndex = getColumnIndex(columnName);
+    checkNonNullOfCodes(columnIndex, BYTES_CODES, columnName);
+    return getBytesAsInputStreamInternal(columnIndex);
+  }
+
   @Override
   public Timestamp getTimestamp(int columnIndex) {
     checkNonNullOfType(columnIndex, Type.timestamp(), columnIndex);
@@ -276,7 +317,7 @@ public abstract class AbstractStructReader implements StructReader {
   @Override
   public <T extends ProtocolMessageEnum> T getProtoEnum(
       int columnIndex, Function<Integer, ProtocolMessageEnum> method) {
-    checkNonNullOfCodes(columnIndex, Arrays.asList(Code.ENUM, Code.INT64), columnIndex);
+    checkNonNullOfCodes(columnIndex, INT64_CODES, columnIndex);
     return getProtoEnumInternal(columnIndex, method);
   }
 
@@ -284,20 +325,20 @@ public abstract class AbstractStructReader implements StructReader {
   public <T extends ProtocolMessageEnum> T getProtoEnum(
       String columnName, Function<Integer, ProtocolMessageEnum> method) {
     int columnIndex = getColumnIndex(columnName);
-    checkNonNullOfCodes(columnIndex, Arrays.asList(Code.ENUM, Code.INT64), columnName);
+    checkNonNullOfCodes(columnIndex, INT64_CODES, columnName);
     return getProtoEnumInternal(columnIndex, method);
   }
 
   @Override
   public <T extends AbstractMessage> T getProtoMessage(int columnIndex, T message) {
-    checkNonNullOfCodes(columnIndex, Arrays.asList(Code.PROTO, Code.BYTES), columnIndex);
+    checkNonNullOfCodes(columnIndex, BYTES_CODES, columnIndex);
     return getProtoMessageInternal(columnIndex, message);
   }
 
   @Override
   public <T extends AbstractMessage> T getProtoMessage(String columnName, T message) {
     int columnIndex = getColumnIndex(columnName);
-    checkNonNullOfCodes(columnIndex, Arrays.asList(Code.PROTO, Code.BYTES), columnName);
+    checkNonNullOfCodes(columnIndex, BYTES_CODES, columnName);
     return getProtoMessageInternal(columnIndex, message);
   }
 
@@ -354,7 +395,7 @@ public abstract class AbstractStructReader implements StructReader {
   @Override
   public List<Long> getLongList(int columnIndex) {
     checkNonNullOfCodes(columnIndex, Collections.singletonList(Code.ARRAY), columnIndex);
-    checkArrayElementType(columnIndex, Arrays.asList(Code.ENUM, Code.INT64), columnIndex);
+    checkArrayElementType(columnIndex, INT64_CODES, columnIndex);
     return getLongListInternal(columnIndex);
   }
 
@@ -362,7 +403,7 @@ public abstract class AbstractStructReader implements StructReader {
   public List<Long> getLongList(String columnName) {
     int columnIndex = getColumnIndex(columnName);
     checkNonNullOfCodes(columnIndex, Collections.singletonList(Code.ARRAY), columnName);
-    checkArrayElementType(columnIndex, Arrays.asList(Code.ENUM, Code.INT64), columnName);
+    checkArrayElementType(columnIndex, INT64_CODES, columnName);
     return getLongListInternal(columnIndex);
   }
 
@@ -455,7 +496,7 @@ public abstract class AbstractStructReader implements StructReader {
   @Override
   public List<ByteArray> getBytesList(int columnIndex) {
     checkNonNullOfCodes(columnIndex, Collections.singletonList(Code.ARRAY), columnIndex);
-    checkArrayElementType(columnIndex, Arrays.asList(Code.PROTO, Code.BYTES), columnIndex);
+    checkArrayElementType(columnIndex, BYTES_CODES, columnIndex);
     return getBytesListInternal(columnIndex);
   }
 
@@ -463,14 +504,14 @@ public abstract class AbstractStructReader implements StructReader {
   public List<ByteArray> getBytesList(String columnName) {
     int columnIndex = getColumnIndex(columnName);
     checkNonNullOfCodes(columnIndex, Collections.singletonList(Code.ARRAY), columnName);
-    checkArrayElementType(columnIndex, Arrays.asList(Code.PROTO, Code.BYTES), columnName);
+    checkArrayElementType(columnIndex, BYTES_CODES, columnName);
     return getBytesListInternal(columnIndex);
   }
 
   @Override
   public <T extends AbstractMessage> List<T> getProtoMessageList(int columnIndex, T message) {
     checkNonNullOfCodes(columnIndex, Collections.singletonList(Code.ARRAY), columnIndex);
-    checkArrayElementType(columnIndex, Arrays.asList(Code.PROTO, Code.BYTES), columnIndex);
+    checkArrayElementType(columnIndex, BYTES_CODES, columnIndex);
     return getProtoMessageListInternal(columnIndex, message);
   }
 
@@ -478,7 +519,7 @@ public abstract class AbstractStructReader implements StructReader {
   public <T extends AbstractMessage> List<T> getProtoMessageList(String columnName, T message) {
     int columnIndex = getColumnIndex(columnName);
     checkNonNullOfCodes(columnIndex, Collections.singletonList(Code.ARRAY), columnName);
-    checkArrayElementType(columnIndex, Arrays.asList(Code.PROTO, Code.BYTES), columnName);
+    checkArrayElementType(columnIndex, BYTES_CODES, columnName);
     return getProtoMessageListInternal(columnIndex, message);
   }
 
@@ -486,7 +527,7 @@ public abstract class AbstractStructReader implements StructReader {
   public <T extends ProtocolMessageEnum> List<T> getProtoEnumList(
       int columnIndex, Function<Integer, ProtocolMessageEnum> method) {
     checkNonNullOfCodes(columnIndex, Collections.singletonList(Code.ARRAY), columnIndex);
-    checkArrayElementType(columnIndex, Arrays.asList(Code.ENUM, Code.INT64), columnIndex);
+    checkArrayElementType(columnIndex, INT64_CODES, columnIndex);
     return getProtoEnumListInternal(columnIndex, method);
   }
 
@@ -495,7 +536,7 @@ public abstract class AbstractStructReader implements StructReader {
       String columnName, Function<Integer, ProtocolMessageEnum> method) {
     int columnIndex = getColumnIndex(columnName);
     checkNonNullOfCodes(columnIndex, Collections.singletonList(Code.ARRAY), columnName);
-    checkArrayElementType(columnIndex, Arrays.asList(Code.ENUM, Code.INT64), columnName);
+    checkArrayElementType(columnIndex, INT64_CODES, columnName);
     return getProtoEnumListInternal(columnIndex, method);
   }
 
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Determines the number of {@code PartialResultSet} messages that a {@link
+ * AbstractResultSet.GrpcStreamIterator} should request from the server. The controller keeps a
+ * window of messages that may be requested but not yet consumed. The window is doubled each time
+ * the consumer has to wait for a message, and is decreased by one each time the consumer finds at
+ * least half of the window buffered in the client. The window never exceeds the number of
+ * messages that fit in the maximum number of buffered bytes, based on a moving average of the size
+ * of the messages that have been received.
+ *
+ * <p>All methods except {@link #onMessageReceived(int)} must be called by the consumer thread.
+ */
+final class AdaptivePrefetchController {
+  /** The maximum number of messages that will be requested, regardless of their size. */
+  @VisibleForTesting static final int MAX_WINDOW = 1024;
+
+  /** The weight of the most recent message in the moving average of the message size. */
+  private static final double MESSAGE_SIZE_WEIGHT = 0.2d;
+
+  private final int minWindow;
+  private final long maxBufferedBytes;
+
+  /** The number of bytes in messages that have been received but not yet consumed. */
+  private final AtomicLong bufferedBytes = new AtomicLong();
+
+  private int window;
+
+  /** The number of messages that have been requested but not yet consumed. */
+  private int inFlight;
+
+  private double averageMessageSize;
+
+  /**
+   * Creates a controller for a stream for which {@code initialWindow} messages have already been
+   * requested.
+   */
+  AdaptivePrefetchController(int initialWindow, long maxBufferedBytes) {
+    Preconditions.checkArgument(initialWindow > 0, "initialWindow must be > 0");
+    Preconditions.checkArgument(maxBufferedBytes > 0L, "maxBufferedBytes must be > 0");
+    this.minWindow = Math.min(initialWindow, MAX_WINDOW);
+    this.maxBufferedBytes = maxBufferedBytes;
+    this.window = minWindow;
+    this.inFlight = initialWindow;
+  }
+
+  /** Registers that a message of the given size has been received. May be called by any thread. */
+  void onMessageReceived(int serializedSize) {
+    bufferedBytes.addAndGet(serializedSize);
+  }
+
+  /**
+   * Registers that the consumer has taken a message of the given size from the buffer, and returns
+   * the number of additional messages that should be requested.
+   *
+   * @param serializedSize the size of the message that was consumed
+   * @param consumerWaited true if the buffer was empty when the consumer asked for the message
+   * @param bufferedMessages the number of messages that are still in the buffer
+   */
+  int onMessageConsumed(int serializedSize, boolean consumerWaited, int bufferedMessages) {
+    bufferedBytes.addAndGet(-serializedSize);
+    inFlight--;
+    averageMessageSize =
+        averageMessageSize == 0d
+            ? serializedSize
+            : averageMessageSize + MESSAGE_SIZE_WEIGHT * (serializedSize - averageMessageSize);
+
+    if (consumerWaited) {
+      window = Math.min(window * 2, MAX_WINDOW);
+    } else if (bufferedMessages >= window / 2 && window > minWindow) {
+      window--;
+    }
+    long maxMessagesForBytes = (long) (maxBufferedBytes / Math.max(1d, averageMessageSize));
+    int limit = (int) Math.max(1L, Math.min(window, maxMessagesForBytes));
+    int toRequest = Math.max(0, limit - inFlight);
+    if (toRequest > 0 && bufferedBytes.get() >= maxBufferedBytes) {
+      // Wait until the consumer has drained the buffer before requesting more messages, unless
+      // there is nothing left to consume.
+      toRequest = inFlight == 0 ? 1 : 0;
+    }
+    inFlight += toRequest;
+    return toRequest;
+  }
+
+  @VisibleForTesting
+  int getWindow() {
+    return window;
+  }
+
+  @VisibleForTesting
+  int getInFlight() {
+    return inFlight;
+  }
+
+  @VisibleForTesting
+  long getBufferedBytes() {
+    return bufferedBytes.get();
+  }
+}
@@ -223,4 +223,23 @@ public interface AsyncResultSet extends ResultSet {
    * @param transformer function which will be used to transform the row. It should not return null.
    */
   <T> List<T> toList(Function<StructReader, T> transformer) throws SpannerException;
+
+  /**
+   * Returns the number of rows that have been fetched from Spanner and that are waiting in the
+   * buffer of this {@link AsyncResultSet} to be consumed by the {@link ReadyCallback}.
+   */
+  default int getNumBufferedRows() {
+    throw new UnsupportedOperationException("Unimplemented");
+  }
+
+  /**
+   * Returns the estimated number of bytes that are used by the rows in the buffer of this {@link
+   * AsyncResultSet}. The size of the buffered rows is only tracked if the buffer is limited by
+   * {@link Options#bufferBytes(long)}, and this method returns 0 if it is not. Implementations that
+   * do not buffer rows, like the default implementation of this method, throw an {@link
+   * UnsupportedOperationException}, in the same way as {@link #getNumBufferedRows()}.
+   */
+  default long getNumBufferedBytes() {
+    throw new UnsupportedOperationException("Unimplemented");
+  }
 }
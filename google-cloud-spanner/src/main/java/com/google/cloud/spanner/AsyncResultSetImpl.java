@@ -34,6 +34,7 @@ import com.google.spanner.v1.ResultSetStats;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
@@ -41,6 +42,8 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -72,6 +75,8 @@ class AsyncResultSetImpl extends ForwardingStructReader implements ListenableAsy
   }
 
   static final int DEFAULT_BUFFER_SIZE = 10;
+  /** Indicates that the buffer is only limited by the number of rows. */
+  static final long UNLIMITED_BUFFER_BYTES = 0L;
   private static final int MAX_WAIT_FOR_BUFFER_CONSUMPTION = 10;
   private static final SpannerException CANCELLED_EXCEPTION =
       SpannerExceptionFactory.newSpannerException(
@@ -89,6 +94,22 @@ class AsyncResultSetImpl extends ForwardingStructReader implements ListenableAsy
   private final ListeningScheduledExecutorService service;
 
   private final BlockingDeque<Struct> buffer;
+
+  /**
+   * The maximum estimated number of bytes of the rows in the buffer, or {@link
+   * #UNLIMITED_BUFFER_BYTES} if the buffer is only limited by the number of rows.
+   */
+  private final long maxBufferBytes;
+
+  /**
+   * The estimated sizes of the rows in the buffer, in the same order as the rows in the buffer.
+   * This is only used if the buffer is limited by the number of bytes.
+   */
+  private final Queue<Long> bufferedRowSizes = new LinkedBlockingQueue<>();
+
+  /** The estimated number of bytes of the rows that are currently in the buffer. */
+  private final AtomicLong bufferedBytes = new AtomicLong();
+
   private Struct currentRow;
   /** Supplies the underlying synchronous {@link ResultSet} that will be producing the rows. */
   private final Supplier<ResultSet> delegateResultSet;
@@ -138,6 +159,12 @@ class AsyncResultSetImpl extends ForwardingStructReader implements ListenableAsy
    * time to catch up.
    */
   private volatile CountDownLatch bufferConsumptionLatch = new CountDownLatch(0);
+  /**
+   * This variable is used to pause the producer when the rows in the buffer use more than {@link
+   * #maxBufferBytes} bytes. The producer is resumed when the consumer has reduced the number of
+   * buffered bytes to half of the maximum.
+   */
+  private volatile CountDownLatch bufferBytesLatch = new CountDownLatch(0);
   /**
    * This variable is used to pause the producer when all rows have been put into the buffer, but
    * the consumer (the callback) has not yet received and processed all rows.
@@ -145,16 +172,38 @@ class AsyncResultSetImpl extends ForwardingStructReader implements ListenableAsy
   private volatile CountDownLatch consumingLatch = new CountDownLatch(0);
 
   AsyncResultSetImpl(ExecutorProvider executorProvider, ResultSet delegate, int bufferSize) {
-    this(executorProvider, Suppliers.ofInstance(Preconditions.checkNotNull(delegate)), bufferSize);
+    this(executorProvider, delegate, bufferSize, UNLIMITED_BUFFER_BYTES);
+  }
+
+  AsyncResultSetImpl(
+      ExecutorProvider executorProvider,
+      ResultSet delegate,
+      int bufferSize,
+      long maxBufferBytes) {
+    this(
+        executorProvider,
+        Suppliers.ofInstance(Preconditions.checkNotNull(delegate)),
+        bufferSize,
+        maxBufferBytes);
   }
 
   AsyncResultSetImpl(
       ExecutorProvider executorProvider, Supplier<ResultSet> delegate, int bufferSize) {
+    this(executorProvider, delegate, bufferSize, UNLIMITED_BUFFER_BYTES);
+  }
+
+  AsyncResultSetImpl(
+      ExecutorProvider executorProvider,
+      Supplier<ResultSet> delegate,
+      int bufferSize,
+      long maxBufferBytes) {
     super(delegate);
+    Preconditions.checkArgument(maxBufferBytes >= 0L, "maxBufferBytes must be >= 0");
     this.executorProvider = Preconditions.checkNotNull(executorProvider);
     this.delegateResultSet = Preconditions.checkNotNull(delegate);
     this.service = MoreExecutors.listeningDecorator(executorProvider.getExecutor());
     this.buffer = new LinkedBlockingDeque<>(bufferSize);
+    this.maxBufferBytes = maxBufferBytes;
   }
 
   /**
@@ -226,6 +275,12 @@ class AsyncResultSetImpl extends ForwardingStructReader implements ListenableAsy
       replaceDelegate(currentRow = buffer.pop());
       synchronized (monitor) {
         bufferConsumptionLatch.countDown();
+        if (maxBufferBytes > UNLIMITED_BUFFER_BYTES) {
+          long remaining = bufferedBytes.addAndGet(-bufferedRowSizes.remove());
+          if (remaining <= getBufferBytesLowWatermark()) {
+            bufferBytesLatch.countDown();
+          }
+        }
       }
       return CursorState.OK;
     }
@@ -321,6 +376,7 @@ class AsyncResultSetImpl extends ForwardingStructReader implements ListenableAsy
           while (bufferConsumptionLatch.getCount() > 0L) {
             bufferConsumptionLatch.countDown();
           }
+          bufferBytesLatch.countDown();
         }
       }
     }
@@ -368,9 +424,31 @@ class AsyncResultSetImpl extends ForwardingStructReader implements ListenableAsy
                   stop = state.shouldStop;
                 }
               }
+              while (isBufferFullByBytes() && !stop) {
+                waitIfPaused();
+                // The rows in the buffer use more than the maximum number of bytes. Wait until the
+                // callback has consumed enough rows to bring the buffer down to the low watermark.
+                CountDownLatch latch;
+                synchronized (monitor) {
+                  latch = bufferBytesLatch = new CountDownLatch(1);
+                }
+                startCallbackIfNecessary();
+                if (bufferedBytes.get() > getBufferBytesLowWatermark()) {
+                  latch.await();
+                }
+                synchronized (monitor) {
+                  stop = state.shouldStop;
+                }
+              }
             }
             if (!stop) {
-              buffer.put(delegateResultSet.get().getCurrentRowAsStruct());
+              Struct row = delegateResultSet.get().getCurrentRowAsStruct();
+              if (maxBufferBytes > UNLIMITED_BUFFER_BYTES) {
+                long size = PartitionedResultSet.estimateSize(row);
+                bufferedRowSizes.add(size);
+                bufferedBytes.addAndGet(size);
+              }
+              buffer.put(row);
               startCallbackIfNecessary();
               hasNext = delegateResultSet.get().next();
             }
@@ -420,6 +498,16 @@ class AsyncResultSetImpl extends ForwardingStructReader implements ListenableAsy
       return null;
     }
 
+    /**
+     * Returns true if the rows in the buffer use at least the maximum number of bytes. An empty
+     * buffer is never full, so a single row that is larger than the maximum is always accepted.
+     */
+    private boolean isBufferFullByBytes() {
+      return maxBufferBytes > UNLIMITED_BUFFER_BYTES
+          && bufferedBytes.get() >= maxBufferBytes
+          && !buffer.isEmpty();
+    }
+
     private void waitIfPaused() throws InterruptedException {
       CountDownLatch pause;
       synchronized (monitor) {
@@ -472,6 +560,20 @@ class AsyncResultSetImpl extends ForwardingStructReader implements ListenableAsy
     return result;
   }
 
+  private long getBufferBytesLowWatermark() {
+    return maxBufferBytes / 2;
+  }
+
+  @Override
+  public int getNumBufferedRows() {
+    return buffer.size();
+  }
+
+  @Override
+  public long getNumBufferedBytes() {
+    return bufferedBytes.get();
+  }
+
   @Override
   public void cancel() {
     synchronized (monitor) {
@@ -480,6 +582,7 @@ class AsyncResultSetImpl extends ForwardingStructReader implements ListenableAsy
           "cannot cancel a result set without a callback");
       state = State.CANCELLED;
       pausedLatch.countDown();
+      bufferBytesLatch.countDown();
     }
   }
 
@@ -578,6 +681,11 @@ class AsyncResultSetImpl extends ForwardingStructReader implements ListenableAsy
     return delegateResultSet.get().getMetadata();
   }
 
+  @Override
+  public QueryExecutionStats getExecutionStats() {
+    return delegateResultSet.get().getExecutionStats();
+  }
+
   @Override
   protected void checkValidState() {
     synchronized (monitor) {
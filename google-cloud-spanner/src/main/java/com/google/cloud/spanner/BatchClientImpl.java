@@ -199,11 +199,16 @@ public class BatchClientImpl implements BatchClient {
 
       final PartitionQueryRequest request = builder.build();
       PartitionResponse response = rpc.partitionQuery(request, options);
+      // All partitions share the parameters that were encoded for the PartitionQuery request.
+      Statement partitionStatement =
+          stmtParameters.isEmpty()
+              ? statement
+              : statement.withEncodedParameters(request.getParams());
       ImmutableList.Builder<Partition> partitions = ImmutableList.builder();
       for (com.google.spanner.v1.Partition p : response.getPartitionsList()) {
         Partition partition =
             Partition.createQueryPartition(
-                p.getPartitionToken(), partitionOptions, statement, queryOptions);
+                p.getPartitionToken(), partitionOptions, partitionStatement, queryOptions);
         partitions.add(partition);
       }
       return partitions.build();
@@ -227,6 +232,21 @@ public class BatchClientImpl implements BatchClient {
           partition.getPartitionToken());
     }
 
+    @Override
+    public ResultSet executePartitions(
+        List<Partition> partitions, PartitionExecutionOptions options) throws SpannerException {
+      return new PartitionedResultSet(this::execute, partitions, checkNotNull(options));
+    }
+
+    @Override
+    public AsyncResultSet executePartitionsAsync(
+        List<Partition> partitions, PartitionExecutionOptions options) {
+      return new AsyncResultSetImpl(
+          executorProvider,
+          executePartitions(partitions, options),
+          AsyncResultSetImpl.DEFAULT_BUFFER_SIZE);
+    }
+
     /**
      * Closes the session as part of the cleanup. It is the responsibility of the caller to make a
      * call to this method once the transaction completes execution across all the channels (which
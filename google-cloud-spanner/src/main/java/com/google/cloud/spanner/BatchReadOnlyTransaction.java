@@ -192,6 +192,50 @@ public interface BatchReadOnlyTransaction extends ReadOnlyTransaction {
    */
   ResultSet execute(Partition partition) throws SpannerException;
 
+  /**
+   * Executes the given partitions in parallel and returns the merged results as one {@link
+   * ResultSet}. The order of the rows in the returned {@link ResultSet} is not guaranteed. The
+   * number of partitions that are executed in parallel, the {@link java.util.concurrent.Executor}
+   * that is used to execute them, and the maximum number of rows and bytes that may be buffered in
+   * memory are configured with {@link PartitionExecutionOptions}. Partitions pause when the buffer
+   * is full, and continue once the application has consumed rows from the returned {@link
+   * ResultSet}. Closing the returned {@link ResultSet} stops all partitions that are still running.
+   *
+   * <pre>{@code
+   * final BatchReadOnlyTransaction txn =
+   *     batchClient.batchReadOnlyTransaction(TimestampBound.strong());
+   * List<Partition> partitions = txn.partitionQuery(PartitionOptions.getDefaultInstance(),
+   *     Statement.of("SELECT SingerId, FirstName, LastName FROM Singers"));
+   * try (ResultSet results =
+   *     txn.executePartitions(
+   *         partitions,
+   *         PartitionExecutionOptions.newBuilder()
+   *             .setMaxParallelism(8)
+   *             .setMaxBufferedBytes(16L * 1024L * 1024L)
+   *             .build())) {
+   *   while (results.next()) {
+   *     System.out.println(results.getLong(0));
+   *   }
+   * }
+   * }</pre>
+   *
+   * @param partitions the partitions to execute. All partitions must belong to this transaction.
+   * @param options the options for executing the partitions
+   */
+  default ResultSet executePartitions(
+      List<Partition> partitions, PartitionExecutionOptions options) throws SpannerException {
+    throw new UnsupportedOperationException("Method should be overridden");
+  }
+
+  /**
+   * Same as {@link #executePartitions(List, PartitionExecutionOptions)}, but returns the merged
+   * results as an {@link AsyncResultSet}.
+   */
+  default AsyncResultSet executePartitionsAsync(
+      List<Partition> partitions, PartitionExecutionOptions options) {
+    throw new UnsupportedOperationException("Method should be overridden");
+  }
+
   /**
    * Returns a {@link BatchTransactionId} to be re-used across several machines/processes. This
    * BatchTransactionId guarantees the subsequent read/query to be executed at the same timestamp.
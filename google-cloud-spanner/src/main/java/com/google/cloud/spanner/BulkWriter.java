@@ -0,0 +1,452 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import com.google.cloud.spanner.Mutation.Op;
+import com.google.cloud.spanner.Options.TransactionOption;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ascii;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * Writes a large number of mutations to Spanner using multiple commits. {@link BulkWriter}
+ * prepares the mutations before they are written:
+ *
+ * <ol>
+ *   <li>The mutations are divided into consecutive segments at deletes that could change the
+ *       outcome of mutations on other rows. These are deletes of multiple rows or key ranges, and
+ *       deletes of a single row when the segment also contains writes to another table, as
+ *       deleting a row of an interleaved parent table also deletes its child rows.
+ *   <li>Within a segment, mutations for the same row are merged into a single mutation where
+ *       possible. This requires the primary key columns of the table to be registered with {@link
+ *       Builder#setKeyColumns(String, String...)}.
+ *   <li>Each segment is split into batches that stay below the configured maximum number of
+ *       mutations and estimated number of bytes per commit. All mutations for the same row of a
+ *       table with registered key columns are included in the same batch, in the order in which
+ *       they were given.
+ *   <li>The batches of a segment are committed in parallel. The number of commits that are
+ *       executed at the same time is limited by {@link Builder#setMaxParallelism(int)}. The next
+ *       segment is only started when all batches of the previous segment have been committed.
+ * </ol>
+ *
+ * <p>Each batch is committed atomically, but the batches of a segment are committed independently
+ * of each other and in no particular order. The order of mutations for the same row of a table
+ * without registered key columns is therefore only kept if a delete separates them. If a commit
+ * fails, no new commits are started and the error is thrown. Batches that were committed before
+ * the error are not rolled back.
+ *
+ * <p>Example of writing a large number of rows:
+ *
+ * <pre>{@code
+ * BulkWriter writer =
+ *     BulkWriter.newBuilder(dbClient)
+ *         .setKeyColumns("Singers", "SingerId")
+ *         .setMaxParallelism(8)
+ *         .build();
+ * List<CommitResponse> responses = writer.write(mutations);
+ * }</pre>
+ */
+public final class BulkWriter {
+  /**
+   * The default maximum number of mutations per commit. This is well below the limit of Spanner,
+   * to leave room for the mutations that are needed to update secondary indexes.
+   */
+  static final int DEFAULT_MAX_MUTATIONS_PER_COMMIT = 20_000;
+
+  static final long DEFAULT_MAX_BYTES_PER_COMMIT = 32L * 1024L * 1024L;
+  static final int DEFAULT_MAX_PARALLELISM = 4;
+
+  /** Size estimate for values that have a fixed size. */
+  private static final long FIXED_SIZE_ESTIMATE = 8L;
+
+  /** Builder for {@link BulkWriter}. */
+  public static final class Builder {
+    private final DatabaseClient client;
+    private final Map<String, List<String>> keyColumns = new HashMap<>();
+    private int maxMutationsPerCommit = DEFAULT_MAX_MUTATIONS_PER_COMMIT;
+    private long maxBytesPerCommit = DEFAULT_MAX_BYTES_PER_COMMIT;
+    private int maxParallelism = DEFAULT_MAX_PARALLELISM;
+    private Executor executor;
+    private boolean atLeastOnce;
+    private TransactionOption[] transactionOptions = new TransactionOption[0];
+
+    private Builder(DatabaseClient client) {
+      this.client = Preconditions.checkNotNull(client);
+    }
+
+    /**
+     * Registers the primary key columns of a table. Mutations for a table with registered key
+     * columns are merged if they write to the same row.
+     */
+    public Builder setKeyColumns(String table, String... keyColumns) {
+      Preconditions.checkNotNull(table);
+      Preconditions.checkArgument(keyColumns.length > 0, "at least one key column is required");
+      this.keyColumns.put(table, ImmutableList.copyOf(keyColumns));
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of mutations per commit. Each column value of an insert or update
+     * counts as one mutation, and each key or key range of a delete counts as one mutation. The
+     * default is 20,000.
+     */
+    public Builder setMaxMutationsPerCommit(int maxMutationsPerCommit) {
+      Preconditions.checkArgument(maxMutationsPerCommit > 0, "maxMutationsPerCommit must be > 0");
+      this.maxMutationsPerCommit = maxMutationsPerCommit;
+      return this;
+    }
+
+    /** Sets the maximum estimated number of bytes per commit. The default is 32MiB. */
+    public Builder setMaxBytesPerCommit(long maxBytesPerCommit) {
+      Preconditions.checkArgument(maxBytesPerCommit > 0L, "maxBytesPerCommit must be > 0");
+      this.maxBytesPerCommit = maxBytesPerCommit;
+      return this;
+    }
+
+    /** Sets the maximum number of commits that are executed in parallel. The default is 4. */
+    public Builder setMaxParallelism(int maxParallelism) {
+      Preconditions.checkArgument(maxParallelism > 0, "maxParallelism must be > 0");
+      this.maxParallelism = maxParallelism;
+      return this;
+    }
+
+    /**
+     * Sets the {@link Executor} that is used to execute commits in parallel. The executor is not
+     * shut down by the {@link BulkWriter}. If no executor is set, a thread pool is created for
+     * each call to {@link BulkWriter#write(Iterable)} that needs to commit batches in parallel.
+     */
+    public Builder setExecutor(Executor executor) {
+      this.executor = Preconditions.checkNotNull(executor);
+      return this;
+    }
+
+    /**
+     * Sets whether the batches should be written with {@link
+     * DatabaseClient#writeAtLeastOnceWithOptions(Iterable, TransactionOption...)} instead of {@link
+     * DatabaseClient#writeWithOptions(Iterable, TransactionOption...)}. This means that a batch
+     * may be applied more than once. The default is false.
+     */
+    public Builder setAtLeastOnce(boolean atLeastOnce) {
+      this.atLeastOnce = atLeastOnce;
+      return this;
+    }
+
+    /** Sets the options that are used for each commit. */
+    public Builder setTransactionOptions(TransactionOption... transactionOptions) {
+      this.transactionOptions = Preconditions.checkNotNull(transactionOptions).clone();
+      return this;
+    }
+
+    public BulkWriter build() {
+      return new BulkWriter(this);
+    }
+  }
+
+  public static Builder newBuilder(DatabaseClient client) {
+    return new Builder(client);
+  }
+
+  private final DatabaseClient client;
+  private final MutationCoalescer coalescer;
+  private final int maxMutationsPerCommit;
+  private final long maxBytesPerCommit;
+  private final int maxParallelism;
+  @Nullable private final Executor executor;
+  private final boolean atLeastOnce;
+  private final TransactionOption[] transactionOptions;
+
+  private BulkWriter(Builder builder) {
+    this.client = builder.client;
+    this.coalescer = new MutationCoalescer(builder.keyColumns);
+    this.maxMutationsPerCommit = builder.maxMutationsPerCommit;
+    this.maxBytesPerCommit = builder.maxBytesPerCommit;
+    this.maxParallelism = builder.maxParallelism;
+    this.executor = builder.executor;
+    this.atLeastOnce = builder.atLeastOnce;
+    this.transactionOptions = builder.transactionOptions;
+  }
+
+  /**
+   * Writes the given mutations to Spanner and returns the {@link CommitResponse} of each commit
+   * that was executed, in the order of the batches.
+   *
+   * @throws SpannerException if one of the commits failed. Errors of other commits that failed at
+   *     the same time are added as suppressed exceptions.
+   */
+  public List<CommitResponse> write(Iterable<Mutation> mutations) throws SpannerException {
+    ImmutableList.Builder<CommitResponse> responses = ImmutableList.builder();
+    ExecutorService ownedExecutor = null;
+    try {
+      for (List<Mutation> segment : segment(mutations)) {
+        List<List<Mutation>> batches = split(segment);
+        if (batches.size() == 1) {
+          responses.add(commit(Iterables.getOnlyElement(batches)));
+          continue;
+        }
+        Executor executor = this.executor;
+        if (executor == null) {
+          if (ownedExecutor == null) {
+            ownedExecutor =
+                Executors.newFixedThreadPool(
+                    maxParallelism,
+                    ThreadFactoryUtil.createVirtualOrPlatformDaemonThreadFactory(
+                        "bulk-writer", false));
+          }
+          executor = ownedExecutor;
+        }
+        responses.addAll(commitInParallel(batches, executor));
+      }
+    } finally {
+      if (ownedExecutor != null) {
+        ownedExecutor.shutdown();
+      }
+    }
+    return responses.build();
+  }
+
+  /** Commits the given batches in parallel and waits until all of them have finished. */
+  private List<CommitResponse> commitInParallel(List<List<Mutation>> batches, Executor executor) {
+    int parallelism = Math.min(maxParallelism, batches.size());
+    CommitResponse[] responses = new CommitResponse[batches.size()];
+    List<SpannerException> errors = new ArrayList<>();
+    AtomicInteger nextBatch = new AtomicInteger();
+    CountDownLatch finished = new CountDownLatch(parallelism);
+    try {
+      for (int i = 0; i < parallelism; i++) {
+        Runnable worker =
+            () -> {
+              try {
+                int index;
+                while ((index = nextBatch.getAndIncrement()) < batches.size()) {
+                  try {
+                    responses[index] = commit(batches.get(index));
+                  } catch (Throwable t) {
+                    synchronized (errors) {
+                      errors.add(SpannerExceptionFactory.asSpannerException(t));
+                    }
+                    // Do not start any new commits.
+                    nextBatch.set(batches.size());
+                  }
+                }
+              } finally {
+                finished.countDown();
+              }
+            };
+        try {
+          executor.execute(worker);
+        } catch (RuntimeException e) {
+          // The executor did not accept the worker, for example because it has been shut down.
+          synchronized (errors) {
+            errors.add(SpannerExceptionFactory.asSpannerException(e));
+          }
+          nextBatch.set(batches.size());
+          finished.countDown();
+        }
+      }
+      finished.await();
+    } catch (InterruptedException interruptedException) {
+      nextBatch.set(batches.size());
+      throw SpannerExceptionFactory.propagateInterrupt(interruptedException);
+    }
+    if (!errors.isEmpty()) {
+      SpannerException error = errors.get(0);
+      for (SpannerException suppressed : errors.subList(1, errors.size())) {
+        error.addSuppressed(suppressed);
+      }
+      throw error;
+    }
+    return Arrays.asList(responses);
+  }
+
+  private CommitResponse commit(List<Mutation> batch) {
+    return atLeastOnce
+        ? client.writeAtLeastOnceWithOptions(batch, transactionOptions)
+        : client.writeWithOptions(batch, transactionOptions);
+  }
+
+  /**
+   * Divides the given mutations into consecutive segments. The mutations in a segment can be
+   * committed in any order, as long as the mutations for the same row stay in their original
+   * order. A delete starts a new segment if it could affect a row that another mutation in the
+   * segment writes to:
+   *
+   * <ul>
+   *   <li>A delete of multiple rows or key ranges, or of a table without registered key columns,
+   *       can only be in a segment with other deletes, as deletes never change the outcome of
+   *       other deletes.
+   *   <li>A delete of a single row can be in a segment with writes to the same table, as the
+   *       mutations for that row are grouped. It cannot be in a segment with writes to other
+   *       tables, as it could cascade to a child table.
+   * </ul>
+   */
+  @VisibleForTesting
+  List<List<Mutation>> segment(Iterable<Mutation> mutations) {
+    List<List<Mutation>> segments = new ArrayList<>();
+    List<Mutation> segment = new ArrayList<>();
+    Set<String> writtenTables = new HashSet<>();
+    Set<String> unkeyedWriteTables = new HashSet<>();
+    Set<String> singleRowDeleteTables = new HashSet<>();
+    boolean hasMultiRowDelete = false;
+    for (Mutation mutation : mutations) {
+      String table = Ascii.toLowerCase(mutation.getTable());
+      boolean singleRow = coalescer.isKeyedToSingleRow(mutation);
+      boolean delete = mutation.getOperation() == Op.DELETE;
+      boolean conflict;
+      if (delete && singleRow) {
+        conflict = containsOtherTable(writtenTables, table) || unkeyedWriteTables.contains(table);
+      } else if (delete) {
+        conflict = !writtenTables.isEmpty();
+      } else if (singleRow) {
+        conflict = hasMultiRowDelete || containsOtherTable(singleRowDeleteTables, table);
+      } else {
+        conflict = hasMultiRowDelete || !singleRowDeleteTables.isEmpty();
+      }
+      if (conflict) {
+        segments.add(segment);
+        segment = new ArrayList<>();
+        writtenTables.clear();
+        unkeyedWriteTables.clear();
+        singleRowDeleteTables.clear();
+        hasMultiRowDelete = false;
+      }
+      segment.add(mutation);
+      if (!delete) {
+        writtenTables.add(table);
+        if (!singleRow) {
+          unkeyedWriteTables.add(table);
+        }
+      } else if (singleRow) {
+        singleRowDeleteTables.add(table);
+      } else {
+        hasMultiRowDelete = true;
+      }
+    }
+    if (!segment.isEmpty()) {
+      segments.add(segment);
+    }
+    return segments;
+  }
+
+  private static boolean containsOtherTable(Set<String> tables, String table) {
+    return tables.size() > 1 || (tables.size() == 1 && !tables.contains(table));
+  }
+
+  /** Coalesces the mutations of a single segment and splits these into batches. */
+  @VisibleForTesting
+  List<List<Mutation>> split(Iterable<Mutation> mutations) {
+    List<List<Mutation>> batches = new ArrayList<>();
+    List<Mutation> batch = new ArrayList<>();
+    int batchMutations = 0;
+    long batchBytes = 0L;
+    for (List<Mutation> group : coalescer.coalesce(mutations)) {
+      int groupMutations = 0;
+      long groupBytes = 0L;
+      for (Mutation mutation : group) {
+        groupMutations += countMutations(mutation);
+        groupBytes += estimateSize(mutation);
+      }
+      // A group that is larger than the limits on its own is put in a separate batch.
+      if (!batch.isEmpty()
+          && (batchMutations + groupMutations > maxMutationsPerCommit
+              || batchBytes + groupBytes > maxBytesPerCommit)) {
+        batches.add(batch);
+        batch = new ArrayList<>();
+        batchMutations = 0;
+        batchBytes = 0L;
+      }
+      batch.addAll(group);
+      batchMutations += groupMutations;
+      batchBytes += groupBytes;
+    }
+    if (!batch.isEmpty()) {
+      batches.add(batch);
+    }
+    return batches;
+  }
+
+  /** Returns the number of mutations that Spanner counts for the given mutation. */
+  @VisibleForTesting
+  static int countMutations(Mutation mutation) {
+    if (mutation.getOperation() == Op.DELETE) {
+      KeySet keySet = mutation.getKeySet();
+      return keySet.isAll()
+          ? 1
+          : Iterables.size(keySet.getKeys()) + Iterables.size(keySet.getRanges());
+    }
+    return Iterables.size(mutation.getColumns());
+  }
+
+  /** Returns an estimate of the number of bytes that the given mutation uses in a request. */
+  @VisibleForTesting
+  static long estimateSize(Mutation mutation) {
+    long size = mutation.getTable().length();
+    if (mutation.getOperation() == Op.DELETE) {
+      KeySet keySet = mutation.getKeySet();
+      for (Key key : keySet.getKeys()) {
+        size += key.toProto().getSerializedSize();
+      }
+      for (KeyRange range : keySet.getRanges()) {
+        size += range.getStart().toProto().getSerializedSize();
+        size += range.getEnd().toProto().getSerializedSize();
+      }
+      return size;
+    }
+    for (String column : mutation.getColumns()) {
+      size += column.length();
+    }
+    for (Value value : mutation.getValues()) {
+      size += estimateSize(value);
+    }
+    return size;
+  }
+
+  private static long estimateSize(Value value) {
+    if (value.isNull()) {
+      return 1L;
+    }
+    switch (value.getType().getCode()) {
+      case BOOL:
+      case INT64:
+      case FLOAT64:
+      case DATE:
+      case TIMESTAMP:
+        return FIXED_SIZE_ESTIMATE;
+      case STRING:
+        return value.getString().length();
+      case BYTES:
+        // Bytes are sent as base64 strings.
+        return (value.getBytes().length() + 2L) / 3L * 4L;
+      default:
+        return value.toProto().getSerializedSize();
+    }
+  }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+/**
+ * Queue of idle sessions that is sharded by gRPC channel. Each shard is a bounded double-ended
+ * queue that is guarded by its own monitor, which means that sessions that belong to different
+ * channels can be checked out and released in parallel without contending on a single lock. The
+ * shards are backed by pre-sized arrays, so adding and removing elements does not allocate any
+ * objects as long as a shard does not grow beyond its initial capacity.
+ */
+final class ChannelShardedSessionQueue<T> {
+
+  /** A single shard of the queue. All methods must be called while holding the shard monitor. */
+  private static final class Shard<T> {
+    private Object[] elements;
+    private int head;
+
+    /** The size is volatile so it can be read without taking the monitor of the shard. */
+    private volatile int size;
+
+    private Shard(int initialCapacity) {
+      this.elements = new Object[Math.max(1, initialCapacity)];
+    }
+
+    private int index(int position) {
+      return (head + position) % elements.length;
+    }
+
+    private void ensureCapacity() {
+      if (size == elements.length) {
+        Object[] grown = new Object[elements.length * 2];
+        for (int i = 0; i < size; i++) {
+          grown[i] = elements[index(i)];
+        }
+        elements = grown;
+        head = 0;
+      }
+    }
+
+    private void addFirst(T element) {
+      ensureCapacity();
+      head = (head + elements.length - 1) % elements.length;
+      elements[head] = element;
+      size++;
+    }
+
+    private void addLast(T element) {
+      ensureCapacity();
+      elements[index(size)] = element;
+      size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T pollFirst() {
+      if (size == 0) {
+        return null;
+      }
+      T element = (T) elements[head];
+      elements[head] = null;
+      head = (head + 1) % elements.length;
+      size--;
+      return element;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T get(int position) {
+      return (T) elements[index(position)];
+    }
+
+    private void removeAt(int position) {
+      for (int i = position; i < size - 1; i++) {
+        elements[index(i)] = elements[index(i + 1)];
+      }
+      elements[index(size - 1)] = null;
+      size--;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void removeIf(Predicate<? super T> predicate, List<T> removed) {
+      int kept = 0;
+      for (int i = 0; i < size; i++) {
+        T element = (T) elements[index(i)];
+        if (predicate.test(element)) {
+          removed.add(element);
+        } else {
+          elements[index(kept)] = element;
+          kept++;
+        }
+      }
+      for (int i = kept; i < size; i++) {
+        elements[index(i)] = null;
+      }
+      size = kept;
+    }
+
+    private void clear() {
+      for (int i = 0; i < size; i++) {
+        elements[index(i)] = null;
+      }
+      head = 0;
+      size = 0;
+    }
+  }
+
+  private final Shard<T>[] shards;
+
+  @SuppressWarnings("unchecked")
+  ChannelShardedSessionQueue(int numShards, int initialCapacityPerShard) {
+    Preconditions.checkArgument(numShards > 0, "numShards must be > 0");
+    this.shards = (Shard<T>[]) new Shard<?>[numShards];
+    for (int i = 0; i < numShards; i++) {
+      this.shards[i] = new Shard<>(initialCapacityPerShard);
+    }
+  }
+
+  int getNumShards() {
+    return shards.length;
+  }
+
+  /** Returns the index of the shard that is used for the given channel. */
+  int shardOf(int channel) {
+    return Math.floorMod(channel, shards.length);
+  }
+
+  /** Adds the given element at the head of the shard for the given channel. */
+  void addFirst(int channel, T element) {
+    Preconditions.checkNotNull(element);
+    Shard<T> shard = shards[shardOf(channel)];
+    synchronized (shard) {
+      shard.addFirst(element);
+    }
+  }
+
+  /** Adds the given element at the tail of the shard for the given channel. */
+  void addLast(int channel, T element) {
+    Preconditions.checkNotNull(element);
+    Shard<T> shard = shards[shardOf(channel)];
+    synchronized (shard) {
+      shard.addLast(element);
+    }
+  }
+
+  /**
+   * Removes and returns the element at the head of a non-empty shard with the lowest load, or null
+   * if all shards are empty. The search starts at a random shard, so that shards with equal load
+   * are used evenly without the need for any shared state between threads.
+   *
+   * @param loadOfShard returns the current load of the shard with the given index
+   */
+  @Nullable
+  T pollLeastLoaded(IntUnaryOperator loadOfShard) {
+    int numShards = shards.length;
+    int start = numShards == 1 ? 0 : ThreadLocalRandom.current().nextInt(numShards);
+    while (true) {
+      int best = -1;
+      int bestLoad = Integer.MAX_VALUE;
+      for (int i = 0; i < numShards; i++) {
+        int index = (start + i) % numShards;
+        if (shards[index].size > 0) {
+          int load = loadOfShard.applyAsInt(index);
+          if (load < bestLoad) {
+            best = index;
+            bestLoad = load;
+          }
+        }
+      }
+      if (best == -1) {
+        return null;
+      }
+      Shard<T> shard = shards[best];
+      synchronized (shard) {
+        T element = shard.pollFirst();
+        if (element != null) {
+          return element;
+        }
+      }
+      // Another thread emptied the shard between the size check and the poll. Try again.
+    }
+  }
+
+  /**
+   * Removes and returns the first element that matches the given predicate. The shards are
+   * searched breadth-first, i.e. the heads of all shards are checked before the second element of
+   * any shard is checked, and at most maxToCheck elements are inspected.
+   */
+  @Nullable
+  T removeFirstMatching(Predicate<? super T> predicate, int maxToCheck) {
+    int checked = 0;
+    for (int position = 0; checked < maxToCheck; position++) {
+      boolean anyRemaining = false;
+      for (Shard<T> shard : shards) {
+        synchronized (shard) {
+          if (position < shard.size) {
+            anyRemaining = true;
+            checked++;
+            T element = shard.get(position);
+            if (predicate.test(element)) {
+              shard.removeAt(position);
+              return element;
+            }
+            if (checked >= maxToCheck) {
+              return null;
+            }
+          }
+        }
+      }
+      if (!anyRemaining) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  /** Removes all elements that match the given predicate and returns these. */
+  List<T> removeIf(Predicate<? super T> predicate) {
+    List<T> removed = new ArrayList<>();
+    for (Shard<T> shard : shards) {
+      synchronized (shard) {
+        shard.removeIf(predicate, removed);
+      }
+    }
+    return removed;
+  }
+
+  /** Returns the number of elements in the shard with the given index. */
+  int size(int shard) {
+    return shards[shard].size;
+  }
+
+  /** Returns the total number of elements in all shards. */
+  int size() {
+    int size = 0;
+    for (Shard<T> shard : shards) {
+      size += shard.size;
+    }
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size() == 0;
+  }
+
+  void clear() {
+    for (Shard<T> shard : shards) {
+      synchronized (shard) {
+        shard.clear();
+      }
+    }
+  }
+}
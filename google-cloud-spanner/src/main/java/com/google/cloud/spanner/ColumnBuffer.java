@@ -0,0 +1,223 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Buffer for the values of one column of a batch of rows. A {@link ColumnBuffer} is filled by
+ * {@link ResultSet#nextBatch(ColumnBuffer...)}, and stores the values of {@code BOOL}, {@code
+ * INT64} and {@code FLOAT64} columns in primitive arrays. A buffer can be reused for any number of
+ * batches, which allows an application to scan a large number of rows without creating a boxed
+ * object for each value that is read.
+ *
+ * <p>Usage example:
+ *
+ * <pre>{@code
+ * ColumnBuffer.Int64Buffer ids = ColumnBuffer.int64(0, 1024);
+ * ColumnBuffer.Float64Buffer amounts = ColumnBuffer.float64(1, 1024);
+ * try (ResultSet resultSet =
+ *     client
+ *         .singleUse()
+ *         .executeQuery(
+ *             Statement.of("SELECT Id, Amount FROM Orders"), Options.lazyDecoding())) {
+ *   double total = 0d;
+ *   while (resultSet.nextBatch(ids, amounts) > 0) {
+ *     for (int row = 0; row < amounts.size(); row++) {
+ *       if (!amounts.isNull(row)) {
+ *         total += amounts.get(row);
+ *       }
+ *     }
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>{@link ColumnBuffer} instances are not thread-safe.
+ */
+public abstract class ColumnBuffer {
+  private final int columnIndex;
+  private final boolean[] nulls;
+  private int size;
+
+  /** Creates a buffer for {@code capacity} values of the {@code INT64} column at the index. */
+  public static Int64Buffer int64(int columnIndex, int capacity) {
+    return new Int64Buffer(columnIndex, capacity);
+  }
+
+  /** Creates a buffer for {@code capacity} values of the {@code FLOAT64} column at the index. */
+  public static Float64Buffer float64(int columnIndex, int capacity) {
+    return new Float64Buffer(columnIndex, capacity);
+  }
+
+  /** Creates a buffer for {@code capacity} values of the {@code BOOL} column at the index. */
+  public static BoolBuffer bool(int columnIndex, int capacity) {
+    return new BoolBuffer(columnIndex, capacity);
+  }
+
+  private ColumnBuffer(int columnIndex, int capacity) {
+    Preconditions.checkArgument(columnIndex >= 0, "columnIndex must be >= 0");
+    Preconditions.checkArgument(capacity > 0, "capacity must be > 0");
+    this.columnIndex = columnIndex;
+    this.nulls = new boolean[capacity];
+  }
+
+  /** Returns the index of the column in the result set that is read into this buffer. */
+  public int getColumnIndex() {
+    return columnIndex;
+  }
+
+  /** Returns the maximum number of values that this buffer can hold. */
+  public int getCapacity() {
+    return nulls.length;
+  }
+
+  /** Returns the number of values that were read into this buffer by the last batch. */
+  public int size() {
+    return size;
+  }
+
+  /** Returns true if the value at the given row of the last batch is {@code NULL}. */
+  public boolean isNull(int row) {
+    checkRow(row);
+    return nulls[row];
+  }
+
+  void checkRow(int row) {
+    Preconditions.checkElementIndex(row, size, "row");
+  }
+
+  void setSize(int size) {
+    this.size = size;
+  }
+
+  /** Reads the value in the current row of the given reader into the given row of the buffer. */
+  void read(StructReader reader, int row) {
+    if (reader.isNull(columnIndex)) {
+      nulls[row] = true;
+      readDefault(row);
+    } else {
+      nulls[row] = false;
+      readNonNull(reader, columnIndex, row);
+    }
+  }
+
+  abstract void readDefault(int row);
+
+  abstract void readNonNull(StructReader reader, int columnIndex, int row);
+
+  /** {@link ColumnBuffer} for {@code INT64} columns. */
+  public static final class Int64Buffer extends ColumnBuffer {
+    private final long[] values;
+
+    private Int64Buffer(int columnIndex, int capacity) {
+      super(columnIndex, capacity);
+      this.values = new long[capacity];
+    }
+
+    /** Returns the value at the given row, or 0 if the value is {@code NULL}. */
+    public long get(int row) {
+      checkRow(row);
+      return values[row];
+    }
+
+    /**
+     * Returns the backing array of this buffer. Only the first {@link #size()} elements contain
+     * values from the last batch. The array is reused for the next batch.
+     */
+    public long[] getValues() {
+      return values;
+    }
+
+    @Override
+    void readDefault(int row) {
+      values[row] = 0L;
+    }
+
+    @Override
+    void readNonNull(StructReader reader, int columnIndex, int row) {
+      values[row] = reader.getLong(columnIndex);
+    }
+  }
+
+  /** {@link ColumnBuffer} for {@code FLOAT64} columns. */
+  public static final class Float64Buffer extends ColumnBuffer {
+    private final double[] values;
+
+    private Float64Buffer(int columnIndex, int capacity) {
+      super(columnIndex, capacity);
+      this.values = new double[capacity];
+    }
+
+    /** Returns the value at the given row, or 0 if the value is {@code NULL}. */
+    public double get(int row) {
+      checkRow(row);
+      return values[row];
+    }
+
+    /**
+     * Returns the backing array of this buffer. Only the first {@link #size()} elements contain
+     * values from the last batch. The array is reused for the next batch.
+     */
+    public double[] getValues() {
+      return values;
+    }
+
+    @Override
+    void readDefault(int row) {
+      values[row] = 0d;
+    }
+
+    @Override
+    void readNonNull(StructReader reader, int columnIndex, int row) {
+      values[row] = reader.getDouble(columnIndex);
+    }
+  }
+
+  /** {@link ColumnBuffer} for {@code BOOL} columns. */
+  public static final class BoolBuffer extends ColumnBuffer {
+    private final boolean[] values;
+
+    private BoolBuffer(int columnIndex, int capacity) {
+      super(columnIndex, capacity);
+      this.values = new boolean[capacity];
+    }
+
+    /** Returns the value at the given row, or false if the value is {@code NULL}. */
+    public boolean get(int row) {
+      checkRow(row);
+      return values[row];
+    }
+
+    /**
+     * Returns the backing array of this buffer. Only the first {@link #size()} elements contain
+     * values from the last batch. The array is reused for the next batch.
+     */
+    public boolean[] getValues() {
+      return values;
+    }
+
+    @Override
+    void readDefault(int row) {
+      values[row] = false;
+    }
+
+    @Override
+    void readNonNull(StructReader reader, int columnIndex, int row) {
+      values[row] = reader.getBoolean(columnIndex);
+    }
+  }
+}
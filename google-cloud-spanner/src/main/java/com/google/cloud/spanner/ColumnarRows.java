@@ -0,0 +1,207 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import com.google.cloud.ByteArray;
+import com.google.cloud.Date;
+import com.google.cloud.Timestamp;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ListValue;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Column-oriented values of a batch of rows that are written by the mutations of a {@link
+ * Mutation.ColumnarWriteBuilder}. The values are encoded directly from the column arrays to the
+ * protobuf values of the request, without creating a {@link Value} for each cell. {@link Value}
+ * instances are only created if the values of a mutation are requested by the application.
+ */
+final class ColumnarRows {
+  /** The values of a single column for all rows. */
+  abstract static class Column {
+    final String name;
+
+    Column(String name) {
+      this.name = name;
+    }
+
+    abstract int size();
+
+    abstract Value getValue(int row);
+
+    abstract com.google.protobuf.Value getProto(int row);
+  }
+
+  static final class Int64Column extends Column {
+    private final long[] values;
+
+    Int64Column(String name, long[] values) {
+      super(name);
+      this.values = values.clone();
+    }
+
+    @Override
+    int size() {
+      return values.length;
+    }
+
+    @Override
+    Value getValue(int row) {
+      return Value.int64(values[row]);
+    }
+
+    @Override
+    com.google.protobuf.Value getProto(int row) {
+      return com.google.protobuf.Value.newBuilder()
+          .setStringValue(Long.toString(values[row]))
+          .build();
+    }
+  }
+
+  static final class Float64Column extends Column {
+    private final double[] values;
+
+    Float64Column(String name, double[] values) {
+      super(name);
+      this.values = values.clone();
+    }
+
+    @Override
+    int size() {
+      return values.length;
+    }
+
+    @Override
+    Value getValue(int row) {
+      return Value.float64(values[row]);
+    }
+
+    @Override
+    com.google.protobuf.Value getProto(int row) {
+      return com.google.protobuf.Value.newBuilder().setNumberValue(values[row]).build();
+    }
+  }
+
+  static final class BoolColumn extends Column {
+    private final boolean[] values;
+
+    BoolColumn(String name, boolean[] values) {
+      super(name);
+      this.values = values.clone();
+    }
+
+    @Override
+    int size() {
+      return values.length;
+    }
+
+    @Override
+    Value getValue(int row) {
+      return Value.bool(values[row]);
+    }
+
+    @Override
+    com.google.protobuf.Value getProto(int row) {
+      return com.google.protobuf.Value.newBuilder().setBoolValue(values[row]).build();
+    }
+  }
+
+  /** A column of objects, where a null element is written as {@code NULL}. */
+  static final class ObjectColumn<T> extends Column {
+    private final T[] values;
+    private final Function<T, Value> toValue;
+    private final Function<T, com.google.protobuf.Value> toProto;
+
+    private ObjectColumn(
+        String name,
+        T[] values,
+        Function<T, Value> toValue,
+        Function<T, com.google.protobuf.Value> toProto) {
+      super(name);
+      this.values = values.clone();
+      this.toValue = toValue;
+      this.toProto = toProto;
+    }
+
+    @Override
+    int size() {
+      return values.length;
+    }
+
+    @Override
+    Value getValue(int row) {
+      return toValue.apply(values[row]);
+    }
+
+    @Override
+    com.google.protobuf.Value getProto(int row) {
+      T value = values[row];
+      return value == null ? Value.NULL_PROTO : toProto.apply(value);
+    }
+  }
+
+  static Column ofStrings(String name, String[] values) {
+    return new ObjectColumn<>(name, values, Value::string, ColumnarRows::stringProto);
+  }
+
+  static Column ofBytes(String name, ByteArray[] values) {
+    return new ObjectColumn<>(
+        name, values, Value::bytes, value -> stringProto(value.toBase64()));
+  }
+
+  static Column ofTimestamps(String name, Timestamp[] values) {
+    return new ObjectColumn<>(
+        name,
+        values,
+        Value::timestamp,
+        // The commit timestamp placeholder uses a special encoding.
+        value ->
+            value == Value.COMMIT_TIMESTAMP
+                ? Value.timestamp(value).toProto()
+                : stringProto(value.toString()));
+  }
+
+  static Column ofDates(String name, Date[] values) {
+    return new ObjectColumn<>(name, values, Value::date, value -> stringProto(value.toString()));
+  }
+
+  private static com.google.protobuf.Value stringProto(String value) {
+    return com.google.protobuf.Value.newBuilder().setStringValue(value).build();
+  }
+
+  private final Column[] columns;
+
+  ColumnarRows(List<Column> columns) {
+    this.columns = columns.toArray(new Column[0]);
+  }
+
+  /** Returns the values of the given row as {@link Value} instances. */
+  ImmutableList<Value> getValues(int row) {
+    ImmutableList.Builder<Value> values = ImmutableList.builderWithExpectedSize(columns.length);
+    for (Column column : columns) {
+      values.add(column.getValue(row));
+    }
+    return values.build();
+  }
+
+  /** Encodes the values of the given row directly into {@code out}. */
+  void appendRow(int row, ListValue.Builder out) {
+    for (Column column : columns) {
+      out.addValues(column.getProto(row));
+    }
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.google.cloud.spanner;
 
+import com.google.api.core.ApiFuture;
 import com.google.api.gax.rpc.ServerStream;
 import com.google.cloud.Timestamp;
 import com.google.cloud.spanner.Options.RpcPriority;
@@ -49,6 +50,37 @@ public interface DatabaseClient {
     throw new UnsupportedOperationException("method should be overwritten");
   }
 
+  /**
+   * Warms up the session pool of this client by executing {@code SELECT 1} on each gRPC channel.
+   *
+   * @see #warmup(Statement)
+   */
+  default ApiFuture<SessionPoolWarmupStats> warmup() {
+    return warmup(Statement.of("SELECT 1"));
+  }
+
+  /**
+   * Warms up the session pool of this client. The returned future is done when the pool contains
+   * at least {@link SessionPoolOptions#getMinSessions()} sessions, and the given statement has been
+   * executed in a single-use read-only transaction on one session of each gRPC channel. This can be
+   * used to wait until the client is ready to serve requests with a low latency before an
+   * application starts accepting traffic. The initial sessions of the pool are created in parallel
+   * on all channels, and {@link SessionPoolOptions#getMinSessions()} should therefore be at least
+   * the number of channels to warm up all channels.
+   *
+   * <p>Example:
+   *
+   * <pre>{@code
+   * SessionPoolWarmupStats stats = dbClient.warmup().get(30L, TimeUnit.SECONDS);
+   * }</pre>
+   *
+   * @param statement a cheap query that is executed on each channel, for example {@code SELECT 1}
+   * @return a future with the timing statistics of the warm-up
+   */
+  default ApiFuture<SessionPoolWarmupStats> warmup(Statement statement) {
+    throw new UnsupportedOperationException("method should be overwritten");
+  }
+
   /**
    * Writes the given mutations atomically to the database.
    *
@@ -601,4 +633,35 @@ public interface DatabaseClient {
    * idempotent, such as deleting old rows from a very large table.
    */
   long executePartitionedUpdate(Statement stmt, UpdateOption... options);
+
+  /**
+   * Executes a Partitioned DML statement once for each key range that is defined by the given
+   * {@link PartitionedUpdateOptions}, and returns the sum of the lower bounds of the number of
+   * modified rows of all key ranges. The key ranges are executed in parallel as independent
+   * Partitioned DML statements, each on its own session, which can reduce the total execution time
+   * of large statements that would otherwise be limited by a single stream.
+   *
+   * <p>The bounds of each key range are bound to the parameters {@link
+   * PartitionedUpdateOptions#RANGE_START_PARAMETER} and {@link
+   * PartitionedUpdateOptions#RANGE_END_PARAMETER}, and the statement must use these parameters to
+   * restrict the rows that it modifies. All remarks in {@link #executePartitionedUpdate(Statement,
+   * UpdateOption...)} also apply to each key range. If one key range fails, no new key ranges are
+   * started, and the error is thrown when the key ranges that are already running have finished.
+   * Key ranges that have already finished are not rolled back.
+   *
+   * <p>If the calling thread is interrupted, no new key ranges are started and the key ranges that
+   * are running on the thread pool that is created by the client are cancelled. Key ranges that are
+   * running on an {@link java.util.concurrent.Executor} that is set with {@link
+   * PartitionedUpdateOptions.Builder#setExecutor} are not cancelled and continue until they have
+   * finished.
+   *
+   * @param stmt the statement to execute for each key range
+   * @param partitionedUpdateOptions defines the key ranges and the parallelism
+   * @param options the options that are used for the statement of each key range
+   * @return the sum of the lower bounds of the number of modified rows of all key ranges
+   */
+  default long executePartitionedUpdate(
+      Statement stmt, PartitionedUpdateOptions partitionedUpdateOptions, UpdateOption... options) {
+    throw new UnsupportedOperationException("method should be overwritten");
+  }
 }
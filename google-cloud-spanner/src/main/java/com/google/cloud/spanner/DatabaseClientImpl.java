@@ -16,6 +16,7 @@
 
 package com.google.cloud.spanner;
 
+import com.google.api.core.ApiFuture;
 import com.google.api.gax.rpc.ServerStream;
 import com.google.cloud.Timestamp;
 import com.google.cloud.spanner.Options.TransactionOption;
@@ -36,10 +37,12 @@ class DatabaseClientImpl implements DatabaseClient {
   private static final String READ_WRITE_TRANSACTION = "CloudSpanner.ReadWriteTransaction";
   private static final String READ_ONLY_TRANSACTION = "CloudSpanner.ReadOnlyTransaction";
   private static final String PARTITION_DML_TRANSACTION = "CloudSpanner.PartitionDMLTransaction";
+  private static final String PARALLEL_PARTITION_DML = "CloudSpanner.ParallelPartitionDML";
   private static final Tracer tracer = Tracing.getTracer();
 
   @VisibleForTesting final String clientId;
   @VisibleForTesting final SessionPool pool;
+  @VisibleForTesting @Nullable final MultiplexedSessionDatabaseClient multiplexedSessionClient;
 
   @VisibleForTesting
   DatabaseClientImpl(SessionPool pool) {
@@ -47,8 +50,16 @@ class DatabaseClientImpl implements DatabaseClient {
   }
 
   DatabaseClientImpl(String clientId, SessionPool pool) {
+    this(clientId, pool, null);
+  }
+
+  DatabaseClientImpl(
+      String clientId,
+      SessionPool pool,
+      @Nullable MultiplexedSessionDatabaseClient multiplexedSessionClient) {
     this.clientId = clientId;
     this.pool = pool;
+    this.multiplexedSessionClient = multiplexedSessionClient;
   }
 
   @VisibleForTesting
@@ -56,6 +67,27 @@ class DatabaseClientImpl implements DatabaseClient {
     return pool.getSession();
   }
 
+  /**
+   * Creates a read-only context on the multiplexed session if multiplexed sessions are enabled,
+   * and otherwise on a session from the pool. Operations on the multiplexed session are retried on
+   * a new multiplexed session if the backend no longer knows the session.
+   */
+  private ReadContext createReadContext(Span span, Function<Session, ReadContext> factory) {
+    if (multiplexedSessionClient != null) {
+      return new MultiplexedSessionReadContext<>(multiplexedSessionClient, span, factory, true);
+    }
+    return factory.apply(getSession());
+  }
+
+  private ReadOnlyTransaction createReadOnlyTransaction(
+      Span span, Function<Session, ReadOnlyTransaction> factory, boolean isSingleUse) {
+    if (multiplexedSessionClient != null) {
+      return new MultiplexedSessionReadContext.MultiplexedSessionReadOnlyTransaction(
+          multiplexedSessionClient, span, factory, isSingleUse);
+    }
+    return factory.apply(getSession());
+  }
+
   @Override
   public Dialect getDialect() {
     return pool.getDialect();
@@ -67,6 +99,11 @@ class DatabaseClientImpl implements DatabaseClient {
     return pool.getDatabaseRole();
   }
 
+  @Override
+  public ApiFuture<SessionPoolWarmupStats> warmup(Statement statement) {
+    return pool.warmup(statement);
+  }
+
   @Override
   public Timestamp write(final Iterable<Mutation> mutations) throws SpannerException {
     return writeWithOptions(mutations).getCommitTimestamp();
@@ -127,7 +164,7 @@ class DatabaseClientImpl implements DatabaseClient {
   public ReadContext singleUse() {
     Span span = tracer.spanBuilder(READ_ONLY_TRANSACTION).startSpan();
     try (Scope s = tracer.withSpan(span)) {
-      return getSession().singleUse();
+      return createReadContext(span, Session::singleUse);
     } catch (RuntimeException e) {
       TraceUtil.endSpanWithFailure(span, e);
       throw e;
@@ -138,7 +175,7 @@ class DatabaseClientImpl implements DatabaseClient {
   public ReadContext singleUse(TimestampBound bound) {
     Span span = tracer.spanBuilder(READ_ONLY_TRANSACTION).startSpan();
     try (Scope s = tracer.withSpan(span)) {
-      return getSession().singleUse(bound);
+      return createReadContext(span, session -> session.singleUse(bound));
     } catch (RuntimeException e) {
       TraceUtil.endSpanWithFailure(span, e);
       throw e;
@@ -149,7 +186,7 @@ class DatabaseClientImpl implements DatabaseClient {
   public ReadOnlyTransaction singleUseReadOnlyTransaction() {
     Span span = tracer.spanBuilder(READ_ONLY_TRANSACTION).startSpan();
     try (Scope s = tracer.withSpan(span)) {
-      return getSession().singleUseReadOnlyTransaction();
+      return createReadOnlyTransaction(span, Session::singleUseReadOnlyTransaction, true);
     } catch (RuntimeException e) {
       TraceUtil.endSpanWithFailure(span, e);
       throw e;
@@ -160,7 +197,8 @@ class DatabaseClientImpl implements DatabaseClient {
   public ReadOnlyTransaction singleUseReadOnlyTransaction(TimestampBound bound) {
     Span span = tracer.spanBuilder(READ_ONLY_TRANSACTION).startSpan();
     try (Scope s = tracer.withSpan(span)) {
-      return getSession().singleUseReadOnlyTransaction(bound);
+      return createReadOnlyTransaction(
+          span, session -> session.singleUseReadOnlyTransaction(bound), true);
     } catch (RuntimeException e) {
       TraceUtil.endSpanWithFailure(span, e);
       throw e;
@@ -171,7 +209,7 @@ class DatabaseClientImpl implements DatabaseClient {
   public ReadOnlyTransaction readOnlyTransaction() {
     Span span = tracer.spanBuilder(READ_ONLY_TRANSACTION).startSpan();
     try (Scope s = tracer.withSpan(span)) {
-      return getSession().readOnlyTransaction();
+      return createReadOnlyTransaction(span, Session::readOnlyTransaction, false);
     } catch (RuntimeException e) {
       TraceUtil.endSpanWithFailure(span, e);
       throw e;
@@ -182,7 +220,7 @@ class DatabaseClientImpl implements DatabaseClient {
   public ReadOnlyTransaction readOnlyTransaction(TimestampBound bound) {
     Span span = tracer.spanBuilder(READ_ONLY_TRANSACTION).startSpan();
     try (Scope s = tracer.withSpan(span)) {
-      return getSession().readOnlyTransaction(bound);
+      return createReadOnlyTransaction(span, session -> session.readOnlyTransaction(bound), false);
     } catch (RuntimeException e) {
       TraceUtil.endSpanWithFailure(span, e);
       throw e;
@@ -246,6 +284,21 @@ class DatabaseClientImpl implements DatabaseClient {
     }
   }
 
+  @Override
+  public long executePartitionedUpdate(
+      Statement stmt, PartitionedUpdateOptions partitionedUpdateOptions, UpdateOption... options) {
+    Span span = tracer.spanBuilder(PARALLEL_PARTITION_DML).startSpan();
+    try (Scope s = tracer.withSpan(span)) {
+      long updateCount =
+          new ParallelPartitionedUpdate(this, stmt, partitionedUpdateOptions, options).execute();
+      span.end(TraceUtil.END_SPAN_OPTIONS);
+      return updateCount;
+    } catch (RuntimeException e) {
+      TraceUtil.endSpanWithFailure(span, e);
+      throw e;
+    }
+  }
+
   private <T> T runWithSessionRetry(Function<Session, T> callable) {
     PooledSessionFuture session = getSession();
     while (true) {
@@ -258,6 +311,9 @@ class DatabaseClientImpl implements DatabaseClient {
   }
 
   ListenableFuture<Void> closeAsync(ClosedException closedException) {
+    if (multiplexedSessionClient != null) {
+      multiplexedSessionClient.close(closedException);
+    }
     return pool.closeAsync(closedException);
   }
 }
@@ -61,4 +61,14 @@ public class ForwardingAsyncResultSet extends ForwardingResultSet implements Asy
   public <T> List<T> toList(Function<StructReader, T> transformer) throws SpannerException {
     return delegate.toList(transformer);
   }
+
+  @Override
+  public int getNumBufferedRows() {
+    return delegate.getNumBufferedRows();
+  }
+
+  @Override
+  public long getNumBufferedBytes() {
+    return delegate.getNumBufferedBytes();
+  }
 }
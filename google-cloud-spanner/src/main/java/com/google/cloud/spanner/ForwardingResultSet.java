@@ -23,7 +23,7 @@ import com.google.spanner.v1.ResultSetMetadata;
 import com.google.spanner.v1.ResultSetStats;
 
 /** Forwarding implementation of ResultSet that forwards all calls to a delegate. */
-public class ForwardingResultSet extends ForwardingStructReader implements ResultSet {
+public class ForwardingResultSet extends ForwardingStructReader implements ProtobufResultSet {
 
   private Supplier<ResultSet> delegate;
 
@@ -73,6 +73,22 @@ public class ForwardingResultSet extends ForwardingStructReader implements Resul
     rs.close();
   }
 
+  @Override
+  public boolean canGetProtobufValue(int columnIndex) {
+    ResultSet resultSet = delegate.get();
+    return resultSet instanceof ProtobufResultSet
+        && ((ProtobufResultSet) resultSet).canGetProtobufValue(columnIndex);
+  }
+
+  @Override
+  public com.google.protobuf.Value getProtobufValue(int columnIndex) {
+    ResultSet resultSet = delegate.get();
+    Preconditions.checkState(
+        resultSet instanceof ProtobufResultSet,
+        "The delegate result set does not support protobuf values");
+    return ((ProtobufResultSet) resultSet).getProtobufValue(columnIndex);
+  }
+
   @Override
   public ResultSetStats getStats() {
     return delegate.get().getStats();
@@ -82,4 +98,9 @@ public class ForwardingResultSet extends ForwardingStructReader implements Resul
   public ResultSetMetadata getMetadata() {
     return delegate.get().getMetadata();
   }
+
+  @Override
+  public QueryExecutionStats getExecutionStats() {
+    return delegate.get().getExecutionStats();
+  }
 }
@@ -24,7 +24,9 @@ import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.protobuf.AbstractMessage;
 import com.google.protobuf.ProtocolMessageEnum;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.function.Function;
 
@@ -195,6 +197,30 @@ public class ForwardingStructReader implements StructReader {
     return delegate.get().getBytes(columnName);
   }
 
+  @Override
+  public ByteBuffer getBytesAsByteBuffer(int columnIndex) {
+    checkValidState();
+    return delegate.get().getBytesAsByteBuffer(columnIndex);
+  }
+
+  @Override
+  public ByteBuffer getBytesAsByteBuffer(String columnName) {
+    checkValidState();
+    return delegate.get().getBytesAsByteBuffer(columnName);
+  }
+
+  @Override
+  public InputStream getBytesAsInputStream(int columnIndex) {
+    checkValidState();
+    return delegate.get().getBytesAsInputStream(columnIndex);
+  }
+
+  @Override
+  public InputStream getBytesAsInputStream(String columnName) {
+    checkValidState();
+    return delegate.get().getBytesAsInputStream(columnName);
+  }
+
   @Override
   public Timestamp getTimestamp(int columnIndex) {
     checkValidState();
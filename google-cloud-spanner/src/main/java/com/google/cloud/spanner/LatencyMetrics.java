@@ -0,0 +1,141 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import com.google.common.base.Preconditions;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OpenTelemetry histograms that break the latency of Spanner operations down into the phases of
+ * the operation. One instance is created for each database that is used by a {@link Spanner}
+ * instance that has been configured with {@link
+ * SpannerOptions.Builder#setOpenTelemetry(OpenTelemetry)}. Callers hold a null reference instead
+ * of an instance if no {@link OpenTelemetry} instance has been configured, and skip all timing in
+ * that case.
+ *
+ * <p>All latencies are recorded in milliseconds with the attributes {@link #METHOD} and {@link
+ * #DATABASE}.
+ */
+final class LatencyMetrics {
+  /** The phases of an operation for which the latency is recorded. */
+  enum Phase {
+    SESSION_ACQUIRE(
+        "session_acquire_latency", "Time to check out a session from the session pool"),
+    BEGIN_TRANSACTION(
+        "begin_transaction_latency",
+        "Time to start a read/write transaction with a BeginTransaction RPC or inlined with the"
+            + " first statement of the transaction"),
+    FIRST_RESPONSE(
+        "first_response_latency",
+        "Time from starting a streaming query or read until the first PartialResultSet has been"
+            + " received"),
+    DECODE(
+        "decode_latency",
+        "Time that is spent by ResultSet#next() on decoding the rows of a result set, excluding"
+            + " the time that is spent waiting for data from Spanner"),
+    COMMIT("commit_latency", "Latency of Commit RPCs"),
+    RETRY_DELAY(
+        "retry_delay",
+        "Time that is spent waiting before retrying an aborted transaction or resuming a broken"
+            + " stream");
+
+    private final String name;
+    private final String description;
+
+    Phase(String name, String description) {
+      this.name = name;
+      this.description = description;
+    }
+
+    String getMetricName() {
+      return METRIC_PREFIX + name;
+    }
+  }
+
+  static final String INSTRUMENTATION_SCOPE = "com.google.cloud.spanner";
+  static final String METRIC_PREFIX = "spanner.client.";
+  static final String MILLISECOND = "ms";
+
+  static final AttributeKey<String> METHOD = AttributeKey.stringKey("method");
+  static final AttributeKey<String> DATABASE = AttributeKey.stringKey("database");
+  /** Indicates whether the BeginTransaction of a {@link Phase#BEGIN_TRANSACTION} was inlined. */
+  static final AttributeKey<Boolean> INLINED = AttributeKey.booleanKey("inlined");
+
+  static final String METHOD_BEGIN_TRANSACTION = "BeginTransaction";
+  static final String METHOD_COMMIT = "Commit";
+  static final String METHOD_EXECUTE_STREAMING_SQL = "ExecuteStreamingSql";
+  static final String METHOD_GET_SESSION = "GetSession";
+  static final String METHOD_READ_WRITE_TRANSACTION = "ReadWriteTransaction";
+  static final String METHOD_STREAMING_READ = "StreamingRead";
+
+  private final Map<Phase, DoubleHistogram> histograms = new EnumMap<>(Phase.class);
+  private final String database;
+  /** The attributes for each method. The number of methods is small and fixed. */
+  private final Map<String, Attributes> attributes = new ConcurrentHashMap<>();
+
+  LatencyMetrics(OpenTelemetry openTelemetry, DatabaseId databaseId) {
+    Preconditions.checkNotNull(openTelemetry);
+    Meter meter = openTelemetry.getMeter(INSTRUMENTATION_SCOPE);
+    for (Phase phase : Phase.values()) {
+      histograms.put(
+          phase,
+          meter
+              .histogramBuilder(phase.getMetricName())
+              .setDescription(phase.description)
+              .setUnit(MILLISECOND)
+              .build());
+    }
+    this.database = databaseId.getName();
+  }
+
+  /** Records the time between {@code startNanos} and now for the given phase and method. */
+  void record(Phase phase, String method, long startNanos) {
+    recordNanos(phase, method, System.nanoTime() - startNanos);
+  }
+
+  /** Records the given duration in nanoseconds for the given phase and method. */
+  void recordNanos(Phase phase, String method, long nanos) {
+    histograms
+        .get(phase)
+        .record(toMillis(nanos), attributes.computeIfAbsent(method, this::createAttributes));
+  }
+
+  /** Records the time that it took to start a read/write transaction. */
+  void recordBeginTransaction(boolean inlined, long startNanos) {
+    histograms
+        .get(Phase.BEGIN_TRANSACTION)
+        .record(
+            toMillis(System.nanoTime() - startNanos),
+            createAttributes(METHOD_BEGIN_TRANSACTION).toBuilder().put(INLINED, inlined).build());
+  }
+
+  private Attributes createAttributes(String method) {
+    return Attributes.of(METHOD, method, DATABASE, database);
+  }
+
+  private static double toMillis(long nanos) {
+    return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1L);
+  }
+}
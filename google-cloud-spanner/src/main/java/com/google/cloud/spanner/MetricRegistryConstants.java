@@ -72,6 +72,9 @@ class MetricRegistryConstants {
   static final String NUM_ACQUIRED_SESSIONS = "cloud.google.com/java/spanner/num_acquired_sessions";
   static final String NUM_RELEASED_SESSIONS = "cloud.google.com/java/spanner/num_released_sessions";
   static final String NUM_SESSIONS_IN_POOL = "cloud.google.com/java/spanner/num_sessions_in_pool";
+  static final String STALE_READ_CACHE_HITS = "cloud.google.com/java/spanner/stale_read_cache_hits";
+  static final String STALE_READ_CACHE_MISSES =
+      "cloud.google.com/java/spanner/stale_read_cache_misses";
 
   static final String MAX_IN_USE_SESSIONS_DESCRIPTION =
       "The maximum number of sessions in use during the last 10 minute interval.";
@@ -84,4 +87,8 @@ class MetricRegistryConstants {
   static final String NUM_RELEASED_SESSIONS_DESCRIPTION =
       "The number of sessions released by the user and pool maintainer.";
   static final String NUM_SESSIONS_IN_POOL_DESCRIPTION = "The number of sessions in the pool.";
+  static final String STALE_READ_CACHE_HITS_DESCRIPTION =
+      "The number of stale queries that were served from the client-side result cache.";
+  static final String STALE_READ_CACHE_MISSES_DESCRIPTION =
+      "The number of stale queries that could not be served from the client-side result cache.";
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import com.google.api.core.SettableApiFuture;
+import com.google.api.gax.core.ExecutorProvider;
+import com.google.cloud.spanner.SessionClient.SessionConsumer;
+import com.google.cloud.spanner.SpannerImpl.ClosedException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import io.opencensus.trace.Span;
+import javax.annotation.concurrent.GuardedBy;
+import org.threeten.bp.Duration;
+import org.threeten.bp.Instant;
+
+/**
+ * Manages the multiplexed session that is used by a {@link DatabaseClientImpl} for read-only
+ * operations. A multiplexed session can be used for any number of concurrent read-only
+ * transactions, which means that read-only operations do not need to check out a session from the
+ * session pool, and are not limited by the maximum number of sessions in the pool.
+ *
+ * <p>The multiplexed session is created in the background when this client is created. Read-only
+ * operations that are started before the session has been created will wait until the session is
+ * available. The multiplexed session is replaced by a new one once it has been in use for the
+ * configured maintenance duration. The old session is used until the new session has been
+ * created. Multiplexed sessions are not deleted by the client, as these are automatically garbage
+ * collected by the backend. If the backend no longer knows the current session, the session is
+ * invalidated and a new session is created, see {@link MultiplexedSessionReadContext}.
+ */
+final class MultiplexedSessionDatabaseClient implements SessionConsumer {
+  private final SessionClient sessionClient;
+  private final Duration maintenanceDuration;
+  private final Clock clock;
+
+  private final Object lock = new Object();
+
+  /** The current multiplexed session, or null if no session has been created yet. */
+  private volatile SessionImpl currentSession;
+
+  /** The time that the current session should be replaced by a new session. */
+  private volatile Instant currentSessionExpiration;
+
+  /** Future that is done when the first multiplexed session has been created or has failed. */
+  @GuardedBy("lock")
+  private SettableApiFuture<SessionImpl> pendingSession = SettableApiFuture.create();
+
+  @GuardedBy("lock")
+  private boolean isCreatingSession;
+
+  /** Set when the client is closed. Only written while holding the lock. */
+  private volatile ClosedException closedException;
+
+  MultiplexedSessionDatabaseClient(SessionClient sessionClient, SessionPoolOptions options) {
+    this(sessionClient, options.getMultiplexedSessionMaintenanceDuration(), new Clock());
+  }
+
+  @VisibleForTesting
+  MultiplexedSessionDatabaseClient(
+      SessionClient sessionClient, Duration maintenanceDuration, Clock clock) {
+    this.sessionClient = Preconditions.checkNotNull(sessionClient);
+    this.maintenanceDuration = Preconditions.checkNotNull(maintenanceDuration);
+    this.clock = Preconditions.checkNotNull(clock);
+    synchronized (lock) {
+      startCreateSession();
+    }
+  }
+
+  @GuardedBy("lock")
+  private void startCreateSession() {
+    isCreatingSession = true;
+    sessionClient.asyncCreateMultiplexedSession(this);
+  }
+
+  @Override
+  public void onSessionReady(SessionImpl session) {
+    synchronized (lock) {
+      isCreatingSession = false;
+      if (closedException != null) {
+        return;
+      }
+      currentSessionExpiration = clock.instant().plus(maintenanceDuration);
+      currentSession = session;
+      pendingSession.set(session);
+    }
+  }
+
+  @Override
+  public void onSessionCreateFailure(Throwable t, int createFailureForSessionCount) {
+    synchronized (lock) {
+      isCreatingSession = false;
+      // This is a no-op if a multiplexed session has already been created. The existing session
+      // is then used until the next attempt to replace it succeeds.
+      pendingSession.setException(t);
+    }
+  }
+
+  /**
+   * Returns a {@link SessionImpl} that references the current multiplexed session and that can be
+   * used for exactly one read-only transaction. Each call returns a new {@link SessionImpl}
+   * instance, and consecutive calls are distributed over the available gRPC channels.
+   */
+  SessionImpl getSession(Span span) {
+    if (closedException != null) {
+      throw new IllegalStateException("Database client has been closed", closedException);
+    }
+    SessionImpl session = currentSession;
+    if (session == null) {
+      session = SpannerApiFutures.get(getPendingSession());
+    } else if (clock.instant().isAfter(currentSessionExpiration)) {
+      maybeReplaceSession();
+    }
+    SessionImpl result = sessionClient.sessionWithId(session.getName());
+    result.setCurrentSpan(span);
+    return result;
+  }
+
+  private SettableApiFuture<SessionImpl> getPendingSession() {
+    synchronized (lock) {
+      if (closedException != null) {
+        throw new IllegalStateException("Database client has been closed", closedException);
+      }
+      if (pendingSession.isDone() && currentSession == null && !isCreatingSession) {
+        // The previous attempt to create a multiplexed session failed. Retry.
+        pendingSession = SettableApiFuture.create();
+        startCreateSession();
+      }
+      return pendingSession;
+    }
+  }
+
+  private void maybeReplaceSession() {
+    synchronized (lock) {
+      if (!isCreatingSession && closedException == null) {
+        startCreateSession();
+      }
+    }
+  }
+
+  /**
+   * Invalidates the current multiplexed session if it is the session with the given name, and
+   * starts the creation of a new multiplexed session. This is called when the backend returns a
+   * {@link SessionNotFoundException} for the multiplexed session, for example because it was
+   * garbage collected before the maintenance duration had passed. Read-only operations wait for
+   * the new session to be created.
+   */
+  void invalidateSession(String sessionName) {
+    synchronized (lock) {
+      SessionImpl session = currentSession;
+      if (closedException != null
+          || session == null
+          || !session.getName().equals(sessionName)) {
+        return;
+      }
+      currentSession = null;
+      pendingSession = SettableApiFuture.create();
+      if (!isCreatingSession) {
+        startCreateSession();
+      }
+    }
+  }
+
+  ExecutorProvider getAsyncExecutorProvider() {
+    return sessionClient.getSpanner().getAsyncExecutorProvider();
+  }
+
+  @VisibleForTesting
+  SessionImpl getCurrentSession() {
+    return currentSession;
+  }
+
+  void close(ClosedException closedException) {
+    synchronized (lock) {
+      if (this.closedException == null) {
+        this.closedException = closedException;
+        pendingSession.setException(
+            new IllegalStateException("Database client has been closed", closedException));
+      }
+    }
+  }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.Options.QueryOption;
+import com.google.cloud.spanner.Options.ReadOption;
+import com.google.cloud.spanner.SessionPool.CachedResultSetSupplier;
+import com.google.common.base.Function;
+import io.opencensus.trace.Span;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * {@link ReadContext} on a multiplexed session that handles {@link SessionNotFoundException}s. The
+ * multiplexed session is invalidated when the backend returns a {@link SessionNotFoundException}
+ * for it, for example because it was garbage collected before the maintenance duration had passed.
+ * The operation is then retried on a new multiplexed session, unless it is part of a multi-use
+ * read-only transaction that has already returned data, or the result set has already returned
+ * rows.
+ */
+class MultiplexedSessionReadContext<T extends ReadContext> implements ReadContext {
+  /** {@link ReadOnlyTransaction} on a multiplexed session. */
+  static class MultiplexedSessionReadOnlyTransaction
+      extends MultiplexedSessionReadContext<ReadOnlyTransaction> implements ReadOnlyTransaction {
+
+    MultiplexedSessionReadOnlyTransaction(
+        MultiplexedSessionDatabaseClient client,
+        Span span,
+        Function<? super SessionImpl, ReadOnlyTransaction> delegateSupplier,
+        boolean isSingleUse) {
+      super(client, span, delegateSupplier, isSingleUse);
+    }
+
+    @Override
+    public Timestamp getReadTimestamp() {
+      return getReadContextDelegate().getReadTimestamp();
+    }
+  }
+
+  private final MultiplexedSessionDatabaseClient client;
+  private final Span span;
+  private final Function<? super SessionImpl, T> delegateSupplier;
+  private final boolean isSingleUse;
+
+  private final Object lock = new Object();
+
+  @GuardedBy("lock")
+  private SessionImpl session;
+
+  @GuardedBy("lock")
+  private T readContextDelegate;
+
+  /** Set when a multi-use transaction has returned data and can no longer move to a new session. */
+  @GuardedBy("lock")
+  private boolean sessionUsedForQuery;
+
+  MultiplexedSessionReadContext(
+      MultiplexedSessionDatabaseClient client,
+      Span span,
+      Function<? super SessionImpl, T> delegateSupplier,
+      boolean isSingleUse) {
+    this.client = client;
+    this.span = span;
+    this.delegateSupplier = delegateSupplier;
+    this.isSingleUse = isSingleUse;
+    this.session = client.getSession(span);
+  }
+
+  T getReadContextDelegate() {
+    synchronized (lock) {
+      if (readContextDelegate == null) {
+        readContextDelegate = delegateSupplier.apply(session);
+      }
+      return readContextDelegate;
+    }
+  }
+
+  private void markUsed() {
+    synchronized (lock) {
+      sessionUsedForQuery = true;
+    }
+  }
+
+  /**
+   * Invalidates the multiplexed session of this read context and moves the read context to a new
+   * multiplexed session, or re-throws the given exception if that is not possible.
+   */
+  private void replaceSessionIfPossible(SessionNotFoundException notFound, boolean canRetry) {
+    synchronized (lock) {
+      client.invalidateSession(session.getName());
+      if (!canRetry || (!isSingleUse && sessionUsedForQuery)) {
+        throw notFound;
+      }
+      if (readContextDelegate != null) {
+        readContextDelegate.close();
+      }
+      session = client.getSession(span);
+      readContextDelegate = delegateSupplier.apply(session);
+    }
+  }
+
+  private ResultSet wrap(final CachedResultSetSupplier resultSetSupplier) {
+    return new ForwardingResultSet(resultSetSupplier) {
+      private boolean beforeFirst = true;
+
+      @Override
+      public boolean next() throws SpannerException {
+        while (true) {
+          try {
+            boolean hasNext = super.next();
+            if (beforeFirst) {
+              beforeFirst = false;
+              markUsed();
+            }
+            return hasNext;
+          } catch (SessionNotFoundException e) {
+            // The query cannot be restarted once it has returned rows to the caller.
+            replaceSessionIfPossible(e, beforeFirst);
+            replaceDelegate(resultSetSupplier.reload());
+          }
+        }
+      }
+    };
+  }
+
+  private AsyncResultSet wrapAsync(CachedResultSetSupplier resultSetSupplier, Options options) {
+    int bufferRows =
+        options.hasBufferRows() ? options.bufferRows() : AsyncResultSetImpl.DEFAULT_BUFFER_SIZE;
+    long bufferBytes =
+        options.hasBufferBytes()
+            ? options.bufferBytes()
+            : AsyncResultSetImpl.UNLIMITED_BUFFER_BYTES;
+    return new AsyncResultSetImpl(
+        client.getAsyncExecutorProvider(), wrap(resultSetSupplier), bufferRows, bufferBytes);
+  }
+
+  @Override
+  public ResultSet read(
+      final String table,
+      final KeySet keys,
+      final Iterable<String> columns,
+      final ReadOption... options) {
+    return wrap(
+        new CachedResultSetSupplier() {
+          @Override
+          ResultSet load() {
+            return getReadContextDelegate().read(table, keys, columns, options);
+          }
+        });
+  }
+
+  @Override
+  public AsyncResultSet readAsync(
+      final String table,
+      final KeySet keys,
+      final Iterable<String> columns,
+      final ReadOption... options) {
+    return wrapAsync(
+        new CachedResultSetSupplier() {
+          @Override
+          ResultSet load() {
+            return getReadContextDelegate().read(table, keys, columns, options);
+          }
+        },
+        Options.fromReadOptions(options));
+  }
+
+  @Override
+  public ResultSet readUsingIndex(
+      final String table,
+      final String index,
+      final KeySet keys,
+      final Iterable<String> columns,
+      final ReadOption... options) {
+    return wrap(
+        new CachedResultSetSupplier() {
+          @Override
+          ResultSet load() {
+            return getReadContextDelegate().readUsingIndex(table, index, keys, columns, options);
+          }
+        });
+  }
+
+  @Override
+  public AsyncResultSet readUsingIndexAsync(
+      final String table,
+      final String index,
+      final KeySet keys,
+      final Iterable<String> columns,
+      final ReadOption... options) {
+    return wrapAsync(
+        new CachedResultSetSupplier() {
+          @Override
+          ResultSet load() {
+            return getReadContextDelegate().readUsingIndex(table, index, keys, columns, options);
+          }
+        },
+        Options.fromReadOptions(options));
+  }
+
+  @Override
+  @Nullable
+  public Struct readRow(String table, Key key, Iterable<String> columns) {
+    while (true) {
+      try {
+        Struct row = getReadContextDelegate().readRow(table, key, columns);
+        markUsed();
+        return row;
+      } catch (SessionNotFoundException e) {
+        replaceSessionIfPossible(e, true);
+      }
+    }
+  }
+
+  @Override
+  public ApiFuture<Struct> readRowAsync(String table, Key key, Iterable<String> columns) {
+    try (AsyncResultSet rs = readAsync(table, KeySet.singleKey(key), columns)) {
+      return AbstractReadContext.consumeSingleRowAsync(rs);
+    }
+  }
+
+  @Override
+  @Nullable
+  public Struct readRowUsingIndex(String table, String index, Key key, Iterable<String> columns) {
+    while (true) {
+      try {
+        Struct row = getReadContextDelegate().readRowUsingIndex(table, index, key, columns);
+        markUsed();
+        return row;
+      } catch (SessionNotFoundException e) {
+        replaceSessionIfPossible(e, true);
+      }
+    }
+  }
+
+  @Override
+  public ApiFuture<Struct> readRowUsingIndexAsync(
+      String table, String index, Key key, Iterable<String> columns) {
+    try (AsyncResultSet rs = readUsingIndexAsync(table, index, KeySet.singleKey(key), columns)) {
+      return AbstractReadContext.consumeSingleRowAsync(rs);
+    }
+  }
+
+  @Override
+  public ResultSet executeQuery(final Statement statement, final QueryOption... options) {
+    return wrap(
+        new CachedResultSetSupplier() {
+          @Override
+          ResultSet load() {
+            return getReadContextDelegate().executeQuery(statement, options);
+          }
+        });
+  }
+
+  @Override
+  public AsyncResultSet executeQueryAsync(
+      final Statement statement, final QueryOption... options) {
+    return wrapAsync(
+        new CachedResultSetSupplier() {
+          @Override
+          ResultSet load() {
+            return getReadContextDelegate().executeQuery(statement, options);
+          }
+        },
+        Options.fromQueryOptions(options));
+  }
+
+  @Override
+  public ResultSet analyzeQuery(final Statement statement, final QueryAnalyzeMode queryMode) {
+    return wrap(
+        new CachedResultSetSupplier() {
+          @Override
+          ResultSet load() {
+            return getReadContextDelegate().analyzeQuery(statement, queryMode);
+          }
+        });
+  }
+
+  @Override
+  public void close() {
+    synchronized (lock) {
+      if (readContextDelegate != null) {
+        readContextDelegate.close();
+      }
+    }
+  }
+}
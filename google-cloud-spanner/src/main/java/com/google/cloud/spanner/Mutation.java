@@ -19,9 +19,15 @@ package com.google.cloud.spanner;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
+import com.google.cloud.ByteArray;
+import com.google.cloud.Date;
+import com.google.cloud.Timestamp;
 import com.google.common.collect.ImmutableList;
 import com.google.protobuf.ListValue;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -90,9 +96,16 @@ public final class Mutation implements Serializable {
   private final String table;
   private final Op operation;
   private final ImmutableList<String> columns;
-  private final ImmutableList<Value> values;
+  // Lazily created from the columnar rows for mutations that are created by a
+  // ColumnarWriteBuilder.
+  private ImmutableList<Value> values;
   private final KeySet keySet;
 
+  // The values of mutations that are created by a ColumnarWriteBuilder. The values are
+  // materialized before the mutation is serialized.
+  @Nullable private final transient ColumnarRows rows;
+  private final transient int row;
+
   private Mutation(
       String table,
       Op operation,
@@ -104,6 +117,19 @@ public final class Mutation implements Serializable {
     this.columns = columns;
     this.values = values;
     this.keySet = keySet;
+    this.rows = null;
+    this.row = -1;
+  }
+
+  private Mutation(
+      String table, Op operation, ImmutableList<String> columns, ColumnarRows rows, int row) {
+    this.table = table;
+    this.operation = operation;
+    this.columns = columns;
+    this.values = null;
+    this.keySet = null;
+    this.rows = rows;
+    this.row = row;
   }
 
   /**
@@ -138,6 +164,22 @@ public final class Mutation implements Serializable {
     return new WriteBuilder(table, Op.REPLACE);
   }
 
+  /**
+   * Returns a builder that can be used to construct {@link Op#INSERT} mutations for a batch of rows
+   * from column-oriented arrays of values; see {@link ColumnarWriteBuilder}.
+   */
+  public static ColumnarWriteBuilder newColumnarInsertBuilder(String table) {
+    return new ColumnarWriteBuilder(table, Op.INSERT);
+  }
+
+  /**
+   * Returns a builder that can be used to construct {@link Op#INSERT_OR_UPDATE} mutations for a
+   * batch of rows from column-oriented arrays of values; see {@link ColumnarWriteBuilder}.
+   */
+  public static ColumnarWriteBuilder newColumnarInsertOrUpdateBuilder(String table) {
+    return new ColumnarWriteBuilder(table, Op.INSERT_OR_UPDATE);
+  }
+
   /**
    * Returns a mutation that will delete the row with primary key {@code key}. Exactly equivalent to
    * {@code delete(table, KeySet.singleKey(key))}.
@@ -225,6 +267,111 @@ public final class Mutation implements Serializable {
     }
   }
 
+  /**
+   * Builder for {@link Op#INSERT} and {@link Op#INSERT_OR_UPDATE} mutations for a batch of rows,
+   * where the values are given as one array per column. The {@code i}th element of each array is
+   * the value for the {@code i}th row. For example:
+   *
+   * <pre>
+   *     List&lt;Mutation&gt; mutations = Mutation.newColumnarInsertBuilder("Singers")
+   *         .set("SingerId", new long[] {1L, 2L, 3L})
+   *         .set("Name", new String[] {"Alice", "Bruce", null})
+   *         .build();
+   * </pre>
+   *
+   * The builder returns one {@link Mutation} per row. The values of these mutations are encoded
+   * directly from the arrays when the mutations are sent to Spanner, without creating a {@link
+   * Value} for each cell. This reduces the number of objects that are created when writing large
+   * batches of rows. The arrays are copied by the builder, and changes to the arrays after a
+   * column has been set are not reflected in the mutations.
+   *
+   * <p>{@code null} elements in object arrays are written as {@code NULL}. Use {@link
+   * WriteBuilder} for columns of other types, or for nullable numeric and boolean columns.
+   */
+  public static final class ColumnarWriteBuilder {
+    private final String table;
+    private final Op operation;
+    private final ImmutableList.Builder<String> columns = ImmutableList.builder();
+    private final List<ColumnarRows.Column> values = new ArrayList<>();
+    private final Set<String> lowerCaseColumns = new HashSet<>();
+    private int numRows = -1;
+
+    private ColumnarWriteBuilder(String table, Op operation) {
+      this.table = checkNotNull(table);
+      this.operation = operation;
+    }
+
+    /** Sets the {@code INT64} values of {@code columnName} for all rows. */
+    public ColumnarWriteBuilder set(String columnName, long[] values) {
+      return add(new ColumnarRows.Int64Column(checkNotNull(columnName), values));
+    }
+
+    /** Sets the {@code FLOAT64} values of {@code columnName} for all rows. */
+    public ColumnarWriteBuilder set(String columnName, double[] values) {
+      return add(new ColumnarRows.Float64Column(checkNotNull(columnName), values));
+    }
+
+    /** Sets the {@code BOOL} values of {@code columnName} for all rows. */
+    public ColumnarWriteBuilder set(String columnName, boolean[] values) {
+      return add(new ColumnarRows.BoolColumn(checkNotNull(columnName), values));
+    }
+
+    /** Sets the {@code STRING} values of {@code columnName} for all rows. */
+    public ColumnarWriteBuilder set(String columnName, String[] values) {
+      return add(ColumnarRows.ofStrings(checkNotNull(columnName), values));
+    }
+
+    /** Sets the {@code BYTES} values of {@code columnName} for all rows. */
+    public ColumnarWriteBuilder set(String columnName, ByteArray[] values) {
+      return add(ColumnarRows.ofBytes(checkNotNull(columnName), values));
+    }
+
+    /**
+     * Sets the {@code TIMESTAMP} values of {@code columnName} for all rows. Elements may be {@link
+     * Value#COMMIT_TIMESTAMP}.
+     */
+    public ColumnarWriteBuilder set(String columnName, Timestamp[] values) {
+      return add(ColumnarRows.ofTimestamps(checkNotNull(columnName), values));
+    }
+
+    /** Sets the {@code DATE} values of {@code columnName} for all rows. */
+    public ColumnarWriteBuilder set(String columnName, Date[] values) {
+      return add(ColumnarRows.ofDates(checkNotNull(columnName), values));
+    }
+
+    private ColumnarWriteBuilder add(ColumnarRows.Column column) {
+      if (!lowerCaseColumns.add(column.name.toLowerCase())) {
+        throw new IllegalStateException("Duplicate column: " + column.name.toLowerCase());
+      }
+      if (numRows == -1) {
+        numRows = column.size();
+      } else if (column.size() != numRows) {
+        throw new IllegalArgumentException(
+            String.format(
+                "Column %s has %d values, but the previous columns have %d values",
+                column.name, column.size(), numRows));
+      }
+      columns.add(column.name);
+      values.add(column);
+      return this;
+    }
+
+    /**
+     * Returns one newly created {@code Mutation} for each row in the batch. All mutations share
+     * the same column arrays.
+     */
+    public List<Mutation> build() {
+      ImmutableList<String> columnNames = columns.build();
+      ColumnarRows rows = new ColumnarRows(values);
+      ImmutableList.Builder<Mutation> mutations =
+          ImmutableList.builderWithExpectedSize(Math.max(numRows, 0));
+      for (int row = 0; row < numRows; row++) {
+        mutations.add(new Mutation(table, operation, columnNames, rows, row));
+      }
+      return mutations.build();
+    }
+  }
+
   /** Returns the name of the table that this mutation will affect. */
   public String getTable() {
     return table;
@@ -254,7 +401,26 @@ public final class Mutation implements Serializable {
    */
   public Iterable<Value> getValues() {
     checkState(operation != Op.DELETE, "values() cannot be called for a DELETE mutation");
-    return values;
+    return values();
+  }
+
+  /**
+   * Returns the values of this mutation. The values of a mutation that was created by a {@link
+   * ColumnarWriteBuilder} are created when they are first requested. Concurrent calls could
+   * create the values more than once, which is harmless as the values are immutable.
+   */
+  private ImmutableList<Value> values() {
+    ImmutableList<Value> result = values;
+    if (result == null && rows != null) {
+      result = rows.getValues(row);
+      values = result;
+    }
+    return result;
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    values();
+    out.defaultWriteObject();
   }
 
   /**
@@ -268,6 +434,7 @@ public final class Mutation implements Serializable {
   public Map<String, Value> asMap() {
     checkState(operation != Op.DELETE, "asMap() cannot be called for a DELETE mutation");
     LinkedHashMap<String, Value> map = new LinkedHashMap<>();
+    ImmutableList<Value> values = values();
     for (int i = 0; i < columns.size(); ++i) {
       Value existing = map.put(columns.get(i), values.get(i));
     }
@@ -313,6 +480,7 @@ public final class Mutation implements Serializable {
     }
     if (isWrite) {
       b.append(opName).append('(').append(table).append('{');
+      ImmutableList<Value> values = values();
       for (int i = 0; i < columns.size(); ++i) {
         if (i > 0) {
           b.append(',');
@@ -349,13 +517,13 @@ public final class Mutation implements Serializable {
     return operation == that.operation
         && Objects.equals(table, that.table)
         && Objects.equals(columns, that.columns)
-        && areValuesEqual(values, that.values)
+        && areValuesEqual(values(), that.values())
         && Objects.equals(keySet, that.keySet);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(operation, table, columns, values, keySet);
+    return Objects.hash(operation, table, columns, values(), keySet);
   }
 
   /**
@@ -414,8 +582,12 @@ public final class Mutation implements Serializable {
         write = null;
       } else {
         ListValue.Builder values = ListValue.newBuilder();
-        for (Value value : mutation.getValues()) {
-          values.addValues(value.toProto());
+        if (mutation.values == null && mutation.rows != null) {
+          mutation.rows.appendRow(mutation.row, values);
+        } else {
+          for (Value value : mutation.getValues()) {
+            values.addValues(value.toProto());
+          }
         }
         if (last != null
             && mutation.operation == last.operation
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import com.google.cloud.spanner.Mutation.Op;
+import com.google.cloud.spanner.Mutation.WriteBuilder;
+import com.google.common.base.Ascii;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.protobuf.ListValue;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * Groups mutations by the row that they affect, and merges consecutive mutations for the same row
+ * into a single mutation where that does not change the outcome of applying the mutations in
+ * order. The row of a mutation can only be determined for tables with known primary key columns.
+ * All other mutations, and deletes of multiple keys or key ranges, are returned as separate groups.
+ */
+final class MutationCoalescer {
+  /** Identifies a single row in a table. */
+  private static final class RowKey {
+    private final String table;
+    private final ListValue key;
+
+    private RowKey(String table, ListValue key) {
+      this.table = table;
+      this.key = key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof RowKey)) {
+        return false;
+      }
+      RowKey other = (RowKey) o;
+      return table.equals(other.table) && key.equals(other.key);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(table, key);
+    }
+  }
+
+  /** The primary key columns of each table. Table and column names are stored in lower case. */
+  private final ImmutableMap<String, ImmutableList<String>> keyColumns;
+
+  MutationCoalescer(Map<String, List<String>> keyColumns) {
+    ImmutableMap.Builder<String, ImmutableList<String>> builder = ImmutableMap.builder();
+    for (Map.Entry<String, List<String>> entry : keyColumns.entrySet()) {
+      ImmutableList.Builder<String> columns = ImmutableList.builder();
+      for (String column : entry.getValue()) {
+        columns.add(Ascii.toLowerCase(column));
+      }
+      builder.put(Ascii.toLowerCase(entry.getKey()), columns.build());
+    }
+    this.keyColumns = builder.build();
+  }
+
+  /**
+   * Coalesces the given mutations and returns them in groups. All mutations for the same row are
+   * returned in the same group, in the order in which they should be applied, unless a mutation
+   * that is not keyed to a single row of the same table is applied between them. Such a mutation
+   * closes all groups of the table, so mutations that follow it start new groups and are never
+   * moved in front of it. Groups are returned in the order of the first mutation in each group.
+   */
+  List<List<Mutation>> coalesce(Iterable<Mutation> mutations) {
+    List<List<Mutation>> groups = new ArrayList<>();
+    Map<RowKey, List<Mutation>> openGroups = new HashMap<>();
+    for (Mutation mutation : mutations) {
+      RowKey rowKey = getRowKey(mutation);
+      if (rowKey == null) {
+        // This mutation cannot be merged with any other mutation, and it could affect any row of
+        // the table. Later mutations for the table may therefore not be moved in front of it.
+        String table = Ascii.toLowerCase(mutation.getTable());
+        openGroups.keySet().removeIf(key -> key.table.equals(table));
+        groups.add(ImmutableList.of(mutation));
+        continue;
+      }
+      List<Mutation> group = openGroups.get(rowKey);
+      if (group == null) {
+        group = new ArrayList<>(1);
+        group.add(mutation);
+        groups.add(group);
+        openGroups.put(rowKey, group);
+        continue;
+      }
+      int last = group.size() - 1;
+      Mutation merged = merge(group.get(last), mutation);
+      if (merged == null) {
+        group.add(mutation);
+      } else {
+        group.set(last, merged);
+      }
+    }
+    return groups;
+  }
+
+  /**
+   * Returns true if the given mutation is known to affect exactly one row. This is only the case
+   * for inserts, updates and deletes of a single key of a table with known primary key columns.
+   */
+  boolean isKeyedToSingleRow(Mutation mutation) {
+    return getRowKey(mutation) != null;
+  }
+
+  @Nullable
+  private RowKey getRowKey(Mutation mutation) {
+    String table = Ascii.toLowerCase(mutation.getTable());
+    ImmutableList<String> key = keyColumns.get(table);
+    if (key == null) {
+      return null;
+    }
+    if (mutation.getOperation() == Op.DELETE) {
+      KeySet keySet = mutation.getKeySet();
+      if (keySet.isAll()
+          || !Iterables.isEmpty(keySet.getRanges())
+          || Iterables.size(keySet.getKeys()) != 1) {
+        return null;
+      }
+      return new RowKey(table, Iterables.getOnlyElement(keySet.getKeys()).toProto());
+    }
+    Value[] parts = new Value[key.size()];
+    Iterator<Value> values = mutation.getValues().iterator();
+    for (String column : mutation.getColumns()) {
+      Value value = values.next();
+      int index = key.indexOf(Ascii.toLowerCase(column));
+      if (index > -1) {
+        parts[index] = value;
+      }
+    }
+    ListValue.Builder builder = ListValue.newBuilder();
+    for (Value part : parts) {
+      if (part == null) {
+        // Not all key columns are included. Let Spanner return the error for this mutation.
+        return null;
+      }
+      builder.addValues(part.toProto());
+    }
+    return new RowKey(table, builder.build());
+  }
+
+  /**
+   * Returns a single mutation that has the same effect as applying {@code previous} and then
+   * {@code next} to the same row, or null if no such mutation exists. Two mutations are only
+   * merged if neither of them can fail because the row does or does not exist in a case where the
+   * merged mutation would succeed. This does not guarantee that the merged mutation reports the
+   * same error at the same point as the original mutations for other failures, such as invalid
+   * values or constraint violations.
+   */
+  @Nullable
+  static Mutation merge(Mutation previous, Mutation next) {
+    Op prev = previous.getOperation();
+    switch (next.getOperation()) {
+      case DELETE:
+      case REPLACE:
+        // The row is removed or completely overwritten, but the previous mutation could have
+        // failed if it was an INSERT or an UPDATE.
+        return prev == Op.INSERT_OR_UPDATE || prev == Op.REPLACE || prev == Op.DELETE
+            ? next
+            : null;
+      case INSERT:
+        // An insert only succeeds after a delete.
+        return prev == Op.DELETE ? withOperation(next, Op.REPLACE) : null;
+      case INSERT_OR_UPDATE:
+        if (prev == Op.DELETE) {
+          return withOperation(next, Op.REPLACE);
+        }
+        // An update could fail if the row does not exist.
+        return prev == Op.UPDATE ? null : mergeColumns(previous, next, prev);
+      case UPDATE:
+        // An update fails after a delete.
+        return prev == Op.DELETE ? null : mergeColumns(previous, next, prev);
+      default:
+        throw new IllegalArgumentException("Unknown operation: " + next.getOperation());
+    }
+  }
+
+  private static Mutation withOperation(Mutation mutation, Op operation) {
+    WriteBuilder builder = newWriteBuilder(mutation.getTable(), operation);
+    Iterator<Value> values = mutation.getValues().iterator();
+    for (String column : mutation.getColumns()) {
+      builder.set(column).to(values.next());
+    }
+    return builder.build();
+  }
+
+  /** Merges the columns of both mutations, where the values of {@code next} take precedence. */
+  private static Mutation mergeColumns(Mutation previous, Mutation next, Op operation) {
+    // Maps lower-case column names to the column name that is used in the mutation.
+    Map<String, String> names = new LinkedHashMap<>();
+    Map<String, Value> values = new LinkedHashMap<>();
+    for (Mutation mutation : ImmutableList.of(previous, next)) {
+      Iterator<Value> iterator = mutation.getValues().iterator();
+      for (String column : mutation.getColumns()) {
+        String key = Ascii.toLowerCase(column);
+        names.putIfAbsent(key, column);
+        values.put(key, iterator.next());
+      }
+    }
+    WriteBuilder builder = newWriteBuilder(previous.getTable(), operation);
+    for (Map.Entry<String, String> name : names.entrySet()) {
+      builder.set(name.getValue()).to(values.get(name.getKey()));
+    }
+    return builder.build();
+  }
+
+  private static WriteBuilder newWriteBuilder(String table, Op operation) {
+    switch (operation) {
+      case INSERT:
+        return Mutation.newInsertBuilder(table);
+      case UPDATE:
+        return Mutation.newUpdateBuilder(table);
+      case INSERT_OR_UPDATE:
+        return Mutation.newInsertOrUpdateBuilder(table);
+      case REPLACE:
+        return Mutation.newReplaceBuilder(table);
+      default:
+        throw new IllegalArgumentException("Not a write operation: " + operation);
+    }
+  }
+}
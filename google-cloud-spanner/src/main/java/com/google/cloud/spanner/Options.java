@@ -17,10 +17,16 @@
 package com.google.cloud.spanner;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.spanner.v1.DirectedReadOptions;
 import com.google.spanner.v1.RequestOptions.Priority;
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
+import org.threeten.bp.Duration;
 
 /** Specifies options for various spanner operations */
 public final class Options implements Serializable {
@@ -107,6 +113,88 @@ public final class Options implements Serializable {
   public static TransactionOption optimisticLock() {
     return OPTIMISTIC_LOCK_OPTION;
   }
+
+  /**
+   * Specifying this enables automatic batching of DML statements in a read/write transaction.
+   * Statements that are executed with {@link TransactionContext#executeUpdateAsync(Statement,
+   * UpdateOption...)} are buffered in the client and sent to Spanner as a single {@code
+   * ExecuteBatchDml} request when one of the following happens:
+   *
+   * <ul>
+   *   <li>The transaction executes a read or query, a non-buffered DML statement, or commits.
+   *   <li>A call to {@link TransactionContext#executeUpdate(Statement, UpdateOption...)} is made.
+   *       The statement of that call is included in the batch.
+   *   <li>The application waits for the result of one of the buffered statements.
+   *   <li>The number of buffered statements reaches {@code maxBatchSize}.
+   *   <li>The first buffered statement has been waiting for {@code maxDelay}.
+   * </ul>
+   *
+   * A batch is only sent when the previous batch of the transaction has been executed, so the
+   * statements are executed in the order that they were buffered. Reads and queries wait until all
+   * batches that have been sent and all buffered statements have been executed, so they always see
+   * the changes of earlier DML statements in the same transaction. Each statement returns its own
+   * update count or error. Statements with different {@link UpdateOption}s are not batched
+   * together.
+   */
+  public static TransactionOption autoBatchDml(int maxBatchSize, Duration maxDelay) {
+    Preconditions.checkArgument(maxBatchSize > 0, "maxBatchSize should be greater than 0");
+    Preconditions.checkNotNull(maxDelay);
+    Preconditions.checkArgument(
+        !maxDelay.isNegative() && !maxDelay.isZero(), "maxDelay should be greater than 0");
+    return new AutoBatchDmlOption(maxBatchSize, maxDelay);
+  }
+
+  /**
+   * Same as {@link #autoBatchDml(int, Duration)} with a maximum batch size of 100 statements and
+   * a maximum delay of 10 milliseconds.
+   */
+  public static TransactionOption autoBatchDml() {
+    return AUTO_BATCH_DML_OPTION;
+  }
+
+  /**
+   * Specifying this makes the mutations that have been buffered in a read/write transaction with
+   * {@link TransactionContext#buffer(Mutation)} visible to the reads of that transaction. Reads of
+   * rows that are covered by buffered mutations return the values of those mutations, and rows
+   * that are fully defined by the buffered mutations are returned without a round-trip to Spanner.
+   * This allows an application to use mutations instead of DML statements when it needs to read
+   * back the data that it has written in the same transaction.
+   *
+   * <p>The client needs to know the primary key of a table to match mutations with the keys that
+   * are read. Buffered mutations are only applied to reads of the tables in {@code
+   * primaryKeyColumns}. The following restrictions apply to the reads of these tables while there
+   * are buffered mutations for the table:
+   *
+   * <ul>
+   *   <li>Only reads by key are supported, and a read with a {@link KeyRange} or {@link
+   *       KeySet#all()} fails with {@link ErrorCode#UNIMPLEMENTED}. This also applies if a buffered
+   *       delete mutation for the table uses a {@link KeyRange}.
+   *   <li>Columns that are not set by an insert or replace mutation are returned as {@code NULL},
+   *       also if the column has a default value or is a generated column.
+   *   <li>Reading a column that a buffered mutation sets to {@link Value#COMMIT_TIMESTAMP} fails
+   *       with {@link ErrorCode#FAILED_PRECONDITION}, as the value is not known until commit.
+   *   <li>A buffered delete of a parent row is not applied to reads of interleaved child tables,
+   *       also if these are defined with {@code ON DELETE CASCADE}.
+   * </ul>
+   *
+   * Rows are returned in primary key order, like Spanner returns them. Reads using an index and
+   * queries do not see buffered mutations.
+   *
+   * @param primaryKeyColumns the primary key columns of each table, in primary key order. Add the
+   *     suffix {@code DESC} to a column that is sorted in descending order, for example {@code
+   *     "AlbumId DESC"}.
+   */
+  public static TransactionOption readYourWrites(Map<String, List<String>> primaryKeyColumns) {
+    Preconditions.checkNotNull(primaryKeyColumns);
+    Map<String, List<String>> copy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    for (Map.Entry<String, List<String>> entry : primaryKeyColumns.entrySet()) {
+      Preconditions.checkArgument(
+          !entry.getValue().isEmpty(), "Table %s has no primary key columns", entry.getKey());
+      copy.put(entry.getKey(), ImmutableList.copyOf(entry.getValue()));
+    }
+    return new ReadYourWritesOption(Collections.unmodifiableMap(copy));
+  }
+
   /**
    * Specifying this will cause the read to yield at most this many rows. This should be greater
    * than 0.
@@ -130,11 +218,71 @@ public final class Options implements Serializable {
     return new FlowControlOption(prefetchChunks);
   }
 
+  /**
+   * Specifying this enables adaptive prefetching for read and query. The client starts by
+   * prefetching the number of {@code PartialResultSet} chunks that is specified by {@link
+   * #prefetchChunks(int)} (or the default for the {@link Spanner} instance), and then increases the
+   * number of prefetched chunks if the application consumes the results faster than they are
+   * received, and decreases it again if the application consumes the results slower than they are
+   * received. The number of prefetched chunks is limited by the estimated number of bytes that the
+   * prefetched chunks use, instead of by a fixed number of chunks. This prevents queries that
+   * return large rows from using a large amount of memory, while allowing queries that return small
+   * rows to prefetch a larger number of chunks. {@code maxBufferedBytes} should be greater than 0.
+   */
+  public static ReadAndQueryOption adaptivePrefetch(long maxBufferedBytes) {
+    Preconditions.checkArgument(maxBufferedBytes > 0, "maxBufferedBytes should be greater than 0");
+    return new AdaptivePrefetchOption(maxBufferedBytes);
+  }
+
   public static ReadAndQueryOption bufferRows(int bufferRows) {
     Preconditions.checkArgument(bufferRows > 0, "bufferRows should be greater than 0");
     return new BufferRowsOption(bufferRows);
   }
 
+  /**
+   * Specifying this limits the buffer of an {@link AsyncResultSet} by the estimated size of the
+   * buffered rows, in addition to the number of rows that is set with {@link #bufferRows(int)}. The
+   * producer of the {@link AsyncResultSet} stops fetching rows when the buffered rows use more than
+   * {@code bufferBytes} bytes, and continues when the consumer has reduced the buffer to half this
+   * size. A single row that is larger than {@code bufferBytes} is always accepted, so a result set
+   * can always make progress. This makes the memory usage of an {@link AsyncResultSet} predictable
+   * for queries that return rows of varying sizes. Combine this option with a large value for
+   * {@link #bufferRows(int)} to let the size of the rows be the limiting factor. {@code
+   * bufferBytes} should be greater than 0.
+   */
+  public static ReadAndQueryOption bufferBytes(long bufferBytes) {
+    Preconditions.checkArgument(bufferBytes > 0, "bufferBytes should be greater than 0");
+    return new BufferBytesOption(bufferBytes);
+  }
+
+  /**
+   * Specifying this will cause the {@link ResultSet} to keep the values of each row in their wire
+   * format, and to only decode a column when it is accessed through one of the getters of the
+   * {@link ResultSet}. Values of type {@code BOOL}, {@code INT64} and {@code FLOAT64} that are
+   * accessed through the primitive getters ({@link ResultSet#getBoolean(int)}, {@link
+   * ResultSet#getLong(int)} and {@link ResultSet#getDouble(int)}) are decoded without creating an
+   * intermediate object. This reduces the CPU time and memory allocation per row for queries and
+   * reads that return many columns, but where the application only uses some of those columns.
+   *
+   * <p>Note that invalid values in columns that are never accessed are not detected when this
+   * option is used.
+   */
+  public static ReadAndQueryOption lazyDecoding() {
+    return LAZY_DECODING_OPTION;
+  }
+
+  /**
+   * Specifying this will cause the {@link ResultSet} to collect client-side statistics of the
+   * query or read, such as the number of rows and bytes that were received and the time that was
+   * spent on decoding the rows. These statistics are returned by {@link
+   * ResultSet#getExecutionStats()}, and can be aggregated by statement tag with a {@link
+   * QueryExecutionStats.Aggregator}. The decode time does not include the time that is spent on
+   * decoding column values that are decoded lazily when {@link #lazyDecoding()} is also specified.
+   */
+  public static ReadAndQueryOption executionStats() {
+    return EXECUTION_STATS_OPTION;
+  }
+
   /** Specifies the priority to use for the RPC. */
   public static ReadQueryUpdateTransactionOption priority(RpcPriority priority) {
     return new PriorityOption(priority);
@@ -257,6 +405,40 @@ public final class Options implements Serializable {
 
   static final OptimisticLockOption OPTIMISTIC_LOCK_OPTION = new OptimisticLockOption();
 
+  /** Option to automatically batch DML statements in read/write transactions. */
+  static final class AutoBatchDmlOption extends InternalOption implements TransactionOption {
+    final int maxBatchSize;
+    final Duration maxDelay;
+
+    AutoBatchDmlOption(int maxBatchSize, Duration maxDelay) {
+      this.maxBatchSize = maxBatchSize;
+      this.maxDelay = maxDelay;
+    }
+
+    @Override
+    void appendToOptions(Options options) {
+      options.autoBatchDmlMaxBatchSize = maxBatchSize;
+      options.autoBatchDmlMaxDelay = maxDelay;
+    }
+  }
+
+  static final AutoBatchDmlOption AUTO_BATCH_DML_OPTION =
+      new AutoBatchDmlOption(100, Duration.ofMillis(10L));
+
+  /** Option to make buffered mutations visible to reads in read/write transactions. */
+  static final class ReadYourWritesOption extends InternalOption implements TransactionOption {
+    final Map<String, List<String>> primaryKeyColumns;
+
+    ReadYourWritesOption(Map<String, List<String>> primaryKeyColumns) {
+      this.primaryKeyColumns = primaryKeyColumns;
+    }
+
+    @Override
+    void appendToOptions(Options options) {
+      options.readYourWritesPrimaryKeyColumns = primaryKeyColumns;
+    }
+  }
+
   /** Option pertaining to flow control. */
   static final class FlowControlOption extends InternalOption implements ReadAndQueryOption {
     final int prefetchChunks;
@@ -271,6 +453,40 @@ public final class Options implements Serializable {
     }
   }
 
+  /** Option to adapt the number of prefetched chunks to the speed of the consumer. */
+  static final class AdaptivePrefetchOption extends InternalOption implements ReadAndQueryOption {
+    final long maxBufferedBytes;
+
+    AdaptivePrefetchOption(long maxBufferedBytes) {
+      this.maxBufferedBytes = maxBufferedBytes;
+    }
+
+    @Override
+    void appendToOptions(Options options) {
+      options.maxBufferedBytes = maxBufferedBytes;
+    }
+  }
+
+  /** Option to decode the columns of a row only when these are accessed. */
+  static final class LazyDecodingOption extends InternalOption implements ReadAndQueryOption {
+    @Override
+    void appendToOptions(Options options) {
+      options.lazyDecoding = true;
+    }
+  }
+
+  static final LazyDecodingOption LAZY_DECODING_OPTION = new LazyDecodingOption();
+
+  /** Option to collect client-side {@link QueryExecutionStats}. */
+  static final class ExecutionStatsOption extends InternalOption implements ReadAndQueryOption {
+    @Override
+    void appendToOptions(Options options) {
+      options.executionStats = true;
+    }
+  }
+
+  static final ExecutionStatsOption EXECUTION_STATS_OPTION = new ExecutionStatsOption();
+
   static final class BufferRowsOption extends InternalOption implements ReadAndQueryOption {
     final int bufferRows;
 
@@ -284,6 +500,20 @@ public final class Options implements Serializable {
     }
   }
 
+  /** Option to limit the buffer of an {@link AsyncResultSet} by the size of the rows. */
+  static final class BufferBytesOption extends InternalOption implements ReadAndQueryOption {
+    final long bufferBytes;
+
+    BufferBytesOption(long bufferBytes) {
+      this.bufferBytes = bufferBytes;
+    }
+
+    @Override
+    void appendToOptions(Options options) {
+      options.bufferBytes = bufferBytes;
+    }
+  }
+
   static final class PriorityOption extends InternalOption
       implements ReadQueryUpdateTransactionOption {
     private final RpcPriority priority;
@@ -356,7 +586,9 @@ public final class Options implements Serializable {
   private boolean withCommitStats;
   private Long limit;
   private Integer prefetchChunks;
+  private Long maxBufferedBytes;
   private Integer bufferRows;
+  private Long bufferBytes;
   private Integer pageSize;
   private String pageToken;
   private String filter;
@@ -367,6 +599,11 @@ public final class Options implements Serializable {
   private Boolean withOptimisticLock;
   private Boolean dataBoostEnabled;
   private DirectedReadOptions directedReadOptions;
+  private boolean lazyDecoding;
+  private boolean executionStats;
+  private Integer autoBatchDmlMaxBatchSize;
+  private Duration autoBatchDmlMaxDelay;
+  private Map<String, List<String>> readYourWritesPrimaryKeyColumns;
 
   // Construction is via factory methods below.
   private Options() {}
@@ -383,6 +620,32 @@ public final class Options implements Serializable {
     return limit;
   }
 
+  /** Returns a copy of these options without a limit. */
+  Options withoutLimit() {
+    Options copy = new Options();
+    copy.withCommitStats = withCommitStats;
+    copy.prefetchChunks = prefetchChunks;
+    copy.maxBufferedBytes = maxBufferedBytes;
+    copy.bufferRows = bufferRows;
+    copy.bufferBytes = bufferBytes;
+    copy.pageSize = pageSize;
+    copy.pageToken = pageToken;
+    copy.filter = filter;
+    copy.priority = priority;
+    copy.tag = tag;
+    copy.etag = etag;
+    copy.validateOnly = validateOnly;
+    copy.withOptimisticLock = withOptimisticLock;
+    copy.dataBoostEnabled = dataBoostEnabled;
+    copy.directedReadOptions = directedReadOptions;
+    copy.lazyDecoding = lazyDecoding;
+    copy.executionStats = executionStats;
+    copy.autoBatchDmlMaxBatchSize = autoBatchDmlMaxBatchSize;
+    copy.autoBatchDmlMaxDelay = autoBatchDmlMaxDelay;
+    copy.readYourWritesPrimaryKeyColumns = readYourWritesPrimaryKeyColumns;
+    return copy;
+  }
+
   boolean hasPrefetchChunks() {
     return prefetchChunks != null;
   }
@@ -391,6 +654,14 @@ public final class Options implements Serializable {
     return prefetchChunks;
   }
 
+  boolean hasMaxBufferedBytes() {
+    return maxBufferedBytes != null;
+  }
+
+  long maxBufferedBytes() {
+    return maxBufferedBytes;
+  }
+
   boolean hasBufferRows() {
     return bufferRows != null;
   }
@@ -399,6 +670,14 @@ public final class Options implements Serializable {
     return bufferRows;
   }
 
+  boolean hasBufferBytes() {
+    return bufferBytes != null;
+  }
+
+  long bufferBytes() {
+    return bufferBytes;
+  }
+
   boolean hasPageSize() {
     return pageSize != null;
   }
@@ -475,6 +754,34 @@ public final class Options implements Serializable {
     return directedReadOptions;
   }
 
+  boolean lazyDecoding() {
+    return lazyDecoding;
+  }
+
+  boolean executionStats() {
+    return executionStats;
+  }
+
+  boolean hasAutoBatchDml() {
+    return autoBatchDmlMaxBatchSize != null;
+  }
+
+  int autoBatchDmlMaxBatchSize() {
+    return autoBatchDmlMaxBatchSize;
+  }
+
+  Duration autoBatchDmlMaxDelay() {
+    return autoBatchDmlMaxDelay;
+  }
+
+  boolean hasReadYourWrites() {
+    return readYourWritesPrimaryKeyColumns != null;
+  }
+
+  Map<String, List<String>> readYourWritesPrimaryKeyColumns() {
+    return readYourWritesPrimaryKeyColumns;
+  }
+
   @Override
   public String toString() {
     StringBuilder b = new StringBuilder();
@@ -487,6 +794,12 @@ public final class Options implements Serializable {
     if (prefetchChunks != null) {
       b.append("prefetchChunks: ").append(prefetchChunks).append(' ');
     }
+    if (maxBufferedBytes != null) {
+      b.append("maxBufferedBytes: ").append(maxBufferedBytes).append(' ');
+    }
+    if (bufferBytes != null) {
+      b.append("bufferBytes: ").append(bufferBytes).append(' ');
+    }
     if (pageSize != null) {
       b.append("pageSize: ").append(pageSize).append(' ');
     }
@@ -517,6 +830,19 @@ public final class Options implements Serializable {
     if (directedReadOptions != null) {
       b.append("directedReadOptions: ").append(directedReadOptions).append(' ');
     }
+    if (lazyDecoding) {
+      b.append("lazyDecoding: ").append(lazyDecoding).append(' ');
+    }
+    if (executionStats) {
+      b.append("executionStats: ").append(executionStats).append(' ');
+    }
+    if (autoBatchDmlMaxBatchSize != null) {
+      b.append("autoBatchDmlMaxBatchSize: ").append(autoBatchDmlMaxBatchSize).append(' ');
+      b.append("autoBatchDmlMaxDelay: ").append(autoBatchDmlMaxDelay).append(' ');
+    }
+    if (readYourWritesPrimaryKeyColumns != null) {
+      b.append("readYourWrites: ").append(readYourWritesPrimaryKeyColumns).append(' ');
+    }
     return b.toString();
   }
 
@@ -539,10 +865,12 @@ public final class Options implements Serializable {
             || hasPrefetchChunks()
                 && that.hasPrefetchChunks()
                 && Objects.equals(prefetchChunks(), that.prefetchChunks()))
+        && Objects.equals(maxBufferedBytes, that.maxBufferedBytes)
         && (!hasBufferRows() && !that.hasBufferRows()
             || hasBufferRows()
                 && that.hasBufferRows()
                 && Objects.equals(bufferRows(), that.bufferRows()))
+        && Objects.equals(bufferBytes, that.bufferBytes)
         && (!hasPageSize() && !that.hasPageSize()
             || hasPageSize() && that.hasPageSize() && Objects.equals(pageSize(), that.pageSize()))
         && Objects.equals(pageToken(), that.pageToken())
@@ -553,7 +881,12 @@ public final class Options implements Serializable {
         && Objects.equals(validateOnly(), that.validateOnly())
         && Objects.equals(withOptimisticLock(), that.withOptimisticLock())
         && Objects.equals(dataBoostEnabled(), that.dataBoostEnabled())
-        && Objects.equals(directedReadOptions(), that.directedReadOptions());
+        && Objects.equals(directedReadOptions(), that.directedReadOptions())
+        && Objects.equals(lazyDecoding, that.lazyDecoding)
+        && Objects.equals(executionStats, that.executionStats)
+        && Objects.equals(autoBatchDmlMaxBatchSize, that.autoBatchDmlMaxBatchSize)
+        && Objects.equals(autoBatchDmlMaxDelay, that.autoBatchDmlMaxDelay)
+        && Objects.equals(readYourWritesPrimaryKeyColumns, that.readYourWritesPrimaryKeyColumns);
   }
 
   @Override
@@ -568,9 +901,15 @@ public final class Options implements Serializable {
     if (prefetchChunks != null) {
       result = 31 * result + prefetchChunks.hashCode();
     }
+    if (maxBufferedBytes != null) {
+      result = 31 * result + maxBufferedBytes.hashCode();
+    }
     if (bufferRows != null) {
       result = 31 * result + bufferRows.hashCode();
     }
+    if (bufferBytes != null) {
+      result = 31 * result + bufferBytes.hashCode();
+    }
     if (pageSize != null) {
       result = 31 * result + pageSize.hashCode();
     }
@@ -601,6 +940,15 @@ public final class Options implements Serializable {
     if (directedReadOptions != null) {
       result = 31 * result + directedReadOptions.hashCode();
     }
+    result = 31 * result + Boolean.hashCode(lazyDecoding);
+    result = 31 * result + Boolean.hashCode(executionStats);
+    if (autoBatchDmlMaxBatchSize != null) {
+      result = 31 * result + autoBatchDmlMaxBatchSize.hashCode();
+      result = 31 * result + autoBatchDmlMaxDelay.hashCode();
+    }
+    if (readYourWritesPrimaryKeyColumns != null) {
+      result = 31 * result + readYourWritesPrimaryKeyColumns.hashCode();
+    }
     return result;
   }
 
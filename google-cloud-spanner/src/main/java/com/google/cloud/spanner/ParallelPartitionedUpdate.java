@@ -0,0 +1,333 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import com.google.cloud.Date;
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.Options.UpdateOption;
+import com.google.cloud.spanner.PartitionedUpdateOptions.ProgressListener;
+import com.google.cloud.spanner.PartitionedUpdateOptions.RangeProgress;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.primitives.UnsignedBytes;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Executes a Partitioned DML statement for a set of key ranges in parallel. Each key range is
+ * executed as a separate Partitioned DML statement by {@link
+ * DatabaseClient#executePartitionedUpdate(Statement, UpdateOption...)}, which means that each key
+ * range uses its own session and is retried independently of the other key ranges. The execution
+ * stops scheduling new key ranges as soon as one key range fails.
+ */
+class ParallelPartitionedUpdate {
+  /** The number of rows that are sampled for each key range that should be created. */
+  @VisibleForTesting static final int SAMPLE_ROWS_PER_RANGE = 100;
+
+  private final DatabaseClient client;
+  private final Statement statement;
+  private final PartitionedUpdateOptions options;
+  private final UpdateOption[] updateOptions;
+
+  private final AtomicInteger nextRange = new AtomicInteger();
+  private final AtomicLong updateCount = new AtomicLong();
+  private final AtomicReference<Throwable> error = new AtomicReference<>();
+  private volatile boolean stopped;
+  private int completedRangeCount;
+
+  ParallelPartitionedUpdate(
+      DatabaseClient client,
+      Statement statement,
+      PartitionedUpdateOptions options,
+      UpdateOption... updateOptions) {
+    this.client = client;
+    this.statement = statement;
+    this.options = options;
+    this.updateOptions = updateOptions;
+  }
+
+  /** Returns true if key ranges can be split on a key column of the given type. */
+  static boolean isSupportedKeyType(Type type) {
+    switch (type.getCode()) {
+      case BOOL:
+      case INT64:
+      case FLOAT64:
+      case NUMERIC:
+      case PG_NUMERIC:
+      case STRING:
+      case BYTES:
+      case TIMESTAMP:
+      case DATE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Compares two non-null key values of the same supported type in the order in which Spanner
+   * sorts keys in ascending order.
+   */
+  static int compareKeys(Value a, Value b) {
+    switch (a.getType().getCode()) {
+      case BOOL:
+        return Boolean.compare(a.getBool(), b.getBool());
+      case INT64:
+        return Long.compare(a.getInt64(), b.getInt64());
+      case FLOAT64:
+        return Double.compare(a.getFloat64(), b.getFloat64());
+      case NUMERIC:
+        return a.getNumeric().compareTo(b.getNumeric());
+      case PG_NUMERIC:
+        return comparePgNumeric(a.getString(), b.getString());
+      case STRING:
+        // Spanner sorts strings by their UTF-8 encoding.
+        return UnsignedBytes.lexicographicalComparator()
+            .compare(
+                a.getString().getBytes(StandardCharsets.UTF_8),
+                b.getString().getBytes(StandardCharsets.UTF_8));
+      case BYTES:
+        return UnsignedBytes.lexicographicalComparator()
+            .compare(a.getBytes().toByteArray(), b.getBytes().toByteArray());
+      case TIMESTAMP:
+        return a.getTimestamp().compareTo(b.getTimestamp());
+      case DATE:
+        return a.getDate().compareTo(b.getDate());
+      default:
+        throw new IllegalArgumentException("Unsupported key type: " + a.getType());
+    }
+  }
+
+  /**
+   * Returns true if the given value is a FLOAT64 NaN. NaN cannot be used as a bound of a key range
+   * in GoogleSQL, as all comparisons with NaN return false.
+   */
+  static boolean isNaN(Value value) {
+    return value.getType().getCode() == Type.Code.FLOAT64
+        && !value.isNull()
+        && Double.isNaN(value.getFloat64());
+  }
+
+  /** PostgreSQL sorts NaN after all other NUMERIC values. */
+  private static int comparePgNumeric(String a, String b) {
+    if (Value.NAN.equalsIgnoreCase(a) || Value.NAN.equalsIgnoreCase(b)) {
+      return Boolean.compare(Value.NAN.equalsIgnoreCase(a), Value.NAN.equalsIgnoreCase(b));
+    }
+    return new BigDecimal(a).compareTo(new BigDecimal(b));
+  }
+
+  /** Returns a {@code NULL} value of the given type that can be used as an unbounded key. */
+  static Value nullValue(Type type) {
+    switch (type.getCode()) {
+      case BOOL:
+        return Value.bool((Boolean) null);
+      case INT64:
+        return Value.int64((Long) null);
+      case FLOAT64:
+        return Value.float64((Double) null);
+      case NUMERIC:
+        return Value.numeric((BigDecimal) null);
+      case PG_NUMERIC:
+        return Value.pgNumeric(null);
+      case STRING:
+        return Value.string(null);
+      case BYTES:
+        return Value.bytes(null);
+      case TIMESTAMP:
+        return Value.timestamp((Timestamp) null);
+      case DATE:
+        return Value.date((Date) null);
+      default:
+        throw new IllegalArgumentException("Unsupported key type: " + type);
+    }
+  }
+
+  /** Executes the statement for all key ranges and returns the sum of the update counts. */
+  long execute() {
+    List<Value> bounds = createBounds();
+    int rangeCount = bounds.size() - 1;
+    int parallelism =
+        Math.min(
+            rangeCount,
+            options.getMaxParallelism() == 0
+                ? Runtime.getRuntime().availableProcessors()
+                : options.getMaxParallelism());
+    Executor executor = options.getExecutor();
+    ExecutorService ownedExecutor = null;
+    if (executor == null) {
+      ownedExecutor =
+          Executors.newFixedThreadPool(
+              parallelism,
+              ThreadFactoryUtil.createVirtualOrPlatformDaemonThreadFactory(
+                  "partitioned-update-executor", false));
+      executor = ownedExecutor;
+    }
+    CountDownLatch workersDone = new CountDownLatch(parallelism);
+    try {
+      for (int i = 0; i < parallelism; i++) {
+        try {
+          executor.execute(
+              () -> {
+                try {
+                  runWorker(bounds);
+                } finally {
+                  workersDone.countDown();
+                }
+              });
+        } catch (RejectedExecutionException rejectedExecutionException) {
+          error.compareAndSet(null, rejectedExecutionException);
+          workersDone.countDown();
+        }
+      }
+      workersDone.await();
+    } catch (InterruptedException interruptedException) {
+      stopped = true;
+      if (ownedExecutor != null) {
+        // Cancel the key ranges that are running. Key ranges that are running on an executor of
+        // the caller are not interrupted, as the threads of that executor are not ours.
+        ownedExecutor.shutdownNow();
+      }
+      throw SpannerExceptionFactory.propagateInterrupt(interruptedException);
+    } finally {
+      if (ownedExecutor != null) {
+        ownedExecutor.shutdown();
+      }
+    }
+    Throwable throwable = error.get();
+    if (throwable != null) {
+      throw SpannerExceptionFactory.asSpannerException(throwable);
+    }
+    return updateCount.get();
+  }
+
+  private void runWorker(List<Value> bounds) {
+    int rangeCount = bounds.size() - 1;
+    while (!stopped && error.get() == null) {
+      int index = nextRange.getAndIncrement();
+      if (index >= rangeCount) {
+        return;
+      }
+      Value start = bounds.get(index);
+      Value end = bounds.get(index + 1);
+      try {
+        long count =
+            client.executePartitionedUpdate(createRangeStatement(start, end), updateOptions);
+        updateCount.addAndGet(count);
+        onRangeCompleted(index, rangeCount, start, end, count);
+      } catch (Throwable t) {
+        error.compareAndSet(null, t);
+        return;
+      }
+    }
+  }
+
+  private synchronized void onRangeCompleted(
+      int index, int rangeCount, Value start, Value end, long count) {
+    completedRangeCount++;
+    ProgressListener listener = options.getProgressListener();
+    if (listener != null) {
+      listener.onRangeCompleted(
+          new RangeProgress(index, rangeCount, start, end, count, completedRangeCount));
+    }
+  }
+
+  private Statement createRangeStatement(Value start, Value end) {
+    return statement
+        .toBuilder()
+        .bind(PartitionedUpdateOptions.RANGE_START_PARAMETER)
+        .to(start)
+        .bind(PartitionedUpdateOptions.RANGE_END_PARAMETER)
+        .to(end)
+        .build();
+  }
+
+  /**
+   * Returns the bounds of all key ranges. The first and the last bound are {@code NULL} values, and
+   * key range {@code i} is {@code [bounds[i], bounds[i + 1])}. Keys that do not fall in any range,
+   * which are {@code NULL} and FLOAT64 NaN keys, must be matched by the statement in the first
+   * range, which is the only range with a {@code NULL} lower bound.
+   */
+  @VisibleForTesting
+  List<Value> createBounds() {
+    List<Value> splitPoints = options.getSplitPoints();
+    Type type;
+    if (splitPoints != null) {
+      type = splitPoints.get(0).getType();
+    } else {
+      List<Value> sample = new ArrayList<>();
+      try (ResultSet resultSet = client.singleUse().executeQuery(createSampleStatement())) {
+        while (resultSet.next()) {
+          // NULL and NaN keys are included in the first range by the statement, and cannot be a
+          // bound.
+          if (!resultSet.isNull(0) && !isNaN(resultSet.getValue(0))) {
+            sample.add(resultSet.getValue(0));
+          }
+        }
+        type = resultSet.getType().getStructFields().get(0).getType();
+      }
+      splitPoints = selectSplitPoints(sample, options.getSampleRangeCount());
+    }
+    Value unbounded = nullValue(type);
+    List<Value> bounds = new ArrayList<>(splitPoints.size() + 2);
+    bounds.add(unbounded);
+    bounds.addAll(splitPoints);
+    bounds.add(unbounded);
+    return bounds;
+  }
+
+  private Statement createSampleStatement() {
+    String keyColumn = options.getSampleKeyColumn();
+    return Statement.of(
+        String.format(
+            "SELECT %s FROM %s TABLESAMPLE RESERVOIR (%d ROWS) ORDER BY %s",
+            keyColumn,
+            options.getSampleTable(),
+            options.getSampleRangeCount() * SAMPLE_ROWS_PER_RANGE,
+            keyColumn));
+  }
+
+  /**
+   * Selects the split points that divide the given sorted sample into the given number of ranges of
+   * approximately equal size. Duplicate values are skipped, which means that fewer ranges are
+   * returned if the sample does not contain enough distinct values.
+   */
+  @VisibleForTesting
+  static List<Value> selectSplitPoints(List<Value> sortedSample, int rangeCount) {
+    List<Value> splitPoints = new ArrayList<>(rangeCount - 1);
+    if (sortedSample.isEmpty()) {
+      return splitPoints;
+    }
+    Value previous = null;
+    for (int i = 1; i < rangeCount; i++) {
+      Value splitPoint = sortedSample.get((int) ((long) i * sortedSample.size() / rangeCount));
+      if (!splitPoint.equals(previous)) {
+        splitPoints.add(splitPoint);
+        previous = splitPoint;
+      }
+    }
+    return splitPoints;
+  }
+}
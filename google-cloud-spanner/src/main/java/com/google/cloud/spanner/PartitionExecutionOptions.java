@@ -0,0 +1,140 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import com.google.common.base.Preconditions;
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
+
+/**
+ * Defines how a list of {@link Partition}s is executed in parallel by {@link
+ * BatchReadOnlyTransaction#executePartitions(java.util.List, PartitionExecutionOptions)}.
+ */
+public final class PartitionExecutionOptions {
+  static final int DEFAULT_MAX_BUFFERED_ROWS = 1024;
+  static final long DEFAULT_MAX_BUFFERED_BYTES = 64L * 1024L * 1024L;
+
+  private final int maxParallelism;
+  @Nullable private final Executor executor;
+  private final int maxBufferedRows;
+  private final long maxBufferedBytes;
+
+  private PartitionExecutionOptions(Builder builder) {
+    this.maxParallelism = builder.maxParallelism;
+    this.executor = builder.executor;
+    this.maxBufferedRows = builder.maxBufferedRows;
+    this.maxBufferedBytes = builder.maxBufferedBytes;
+  }
+
+  /** Builder for {@link PartitionExecutionOptions}. */
+  public static final class Builder {
+    private int maxParallelism;
+    private Executor executor;
+    private int maxBufferedRows = DEFAULT_MAX_BUFFERED_ROWS;
+    private long maxBufferedBytes = DEFAULT_MAX_BUFFERED_BYTES;
+
+    private Builder() {}
+
+    /**
+     * Sets the maximum number of partitions that are executed in parallel. The default is 0, which
+     * means that the number of available processors is used.
+     */
+    public Builder setMaxParallelism(int maxParallelism) {
+      Preconditions.checkArgument(maxParallelism >= 0, "maxParallelism must be >= 0");
+      this.maxParallelism = maxParallelism;
+      return this;
+    }
+
+    /**
+     * Sets the {@link Executor} that is used to execute the partitions. The executor must be able
+     * to run at least as many tasks in parallel as the configured parallelism, and may for example
+     * be an executor that creates a virtual thread for each task. The executor is not shut down
+     * when the results have been consumed. If no executor is set, the client creates a thread pool
+     * with one thread per partition that is executed in parallel.
+     *
+     * <p>The tasks on a custom executor are not interrupted when the result set is closed. A task
+     * that is waiting for Spanner to return a row stops and closes its partition when that row has
+     * been returned.
+     */
+    public Builder setExecutor(Executor executor) {
+      this.executor = Preconditions.checkNotNull(executor);
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of rows that have been fetched from the partitions, but that have
+     * not yet been consumed. Partitions pause when this limit has been reached.
+     */
+    public Builder setMaxBufferedRows(int maxBufferedRows) {
+      Preconditions.checkArgument(maxBufferedRows > 0, "maxBufferedRows must be > 0");
+      this.maxBufferedRows = maxBufferedRows;
+      return this;
+    }
+
+    /**
+     * Sets the maximum estimated number of bytes in the rows that have been fetched from the
+     * partitions, but that have not yet been consumed. Partitions pause when this limit has been
+     * reached. A single row that is larger than this limit is always accepted if there are no
+     * other buffered rows.
+     */
+    public Builder setMaxBufferedBytes(long maxBufferedBytes) {
+      Preconditions.checkArgument(maxBufferedBytes > 0L, "maxBufferedBytes must be > 0");
+      this.maxBufferedBytes = maxBufferedBytes;
+      return this;
+    }
+
+    public PartitionExecutionOptions build() {
+      return new PartitionExecutionOptions(this);
+    }
+  }
+
+  public static PartitionExecutionOptions getDefaultInstance() {
+    return newBuilder().build();
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /** Returns the maximum number of partitions that are executed in parallel. */
+  public int getMaxParallelism() {
+    return maxParallelism;
+  }
+
+  /** Returns the {@link Executor} that is used to execute the partitions, if any. */
+  @Nullable
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  /** Returns the maximum number of rows that are buffered. */
+  public int getMaxBufferedRows() {
+    return maxBufferedRows;
+  }
+
+  /** Returns the maximum estimated number of bytes in the rows that are buffered. */
+  public long getMaxBufferedBytes() {
+    return maxBufferedBytes;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "maxParallelism: %d, executor: %s, maxBufferedRows: %d, maxBufferedBytes: %d",
+        maxParallelism, executor, maxBufferedRows, maxBufferedBytes);
+  }
+}
@@ -0,0 +1,438 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.cloud.ByteArray;
+import com.google.cloud.spanner.Type.StructField;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
+import com.google.spanner.v1.ResultSetMetadata;
+import com.google.spanner.v1.ResultSetStats;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * {@link ResultSet} that executes a list of {@link Partition}s in parallel and returns the merged
+ * results. The order of the rows is not guaranteed. Each worker executes one partition at a time,
+ * and the number of rows and the estimated number of bytes that have been fetched by the workers
+ * but not yet consumed are limited by the budget in {@link PartitionExecutionOptions}.
+ */
+class PartitionedResultSet extends ForwardingStructReader implements ResultSet {
+  /** Fixed size estimate for values that do not have a variable length. */
+  private static final long FIXED_SIZE_ESTIMATE = 8L;
+
+  /** A row, a type, an error or a finished marker that is produced by a worker. */
+  private static final class Entry {
+    static final Entry FINISHED = new Entry(null, null, null, null, 0L);
+
+    final Struct row;
+    final Type type;
+    final ResultSetMetadata metadata;
+    final Throwable error;
+    final long size;
+
+    Entry(Struct row, Type type, ResultSetMetadata metadata, Throwable error, long size) {
+      this.row = row;
+      this.type = type;
+      this.metadata = metadata;
+      this.error = error;
+      this.size = size;
+    }
+  }
+
+  /** Holds the row that the result set is currently positioned on. */
+  private static final class CurrentRow implements Supplier<Struct> {
+    private Struct row;
+
+    @Override
+    public Struct get() {
+      checkState(row != null, "next() call required");
+      return row;
+    }
+  }
+
+  /** Limits the number of rows and bytes that have been produced but not yet consumed. */
+  private final class Budget {
+    @GuardedBy("this")
+    private int bufferedRows;
+
+    @GuardedBy("this")
+    private long bufferedBytes;
+
+    /** Waits until the row fits in the budget. Returns false if the workers have been stopped. */
+    synchronized boolean acquire(long size) throws InterruptedException {
+      while (!stopped
+          && bufferedRows > 0
+          && (bufferedRows >= options.getMaxBufferedRows()
+              || bufferedBytes + size > options.getMaxBufferedBytes())) {
+        wait();
+      }
+      if (stopped) {
+        return false;
+      }
+      bufferedRows++;
+      bufferedBytes += size;
+      return true;
+    }
+
+    synchronized void release(long size) {
+      bufferedRows--;
+      bufferedBytes -= size;
+      notifyAll();
+    }
+
+    synchronized void close() {
+      notifyAll();
+    }
+  }
+
+  private final Function<Partition, ResultSet> executeFunction;
+  private final PartitionExecutionOptions options;
+  private final ConcurrentLinkedQueue<Partition> pendingPartitions;
+  private final LinkedBlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+  private final Budget budget = new Budget();
+  private final CurrentRow currentRow;
+  private final int parallelism;
+  @Nullable private final ExecutorService ownedExecutor;
+
+  /** Set when the workers should stop, either because the result set was closed or failed. */
+  private volatile boolean stopped;
+
+  private boolean closed;
+  private int activeWorkers;
+  private Type type;
+  private ResultSetMetadata metadata;
+  private SpannerException error;
+
+  PartitionedResultSet(
+      Function<Partition, ResultSet> executeFunction,
+      List<Partition> partitions,
+      PartitionExecutionOptions options) {
+    this(executeFunction, partitions, options, new CurrentRow());
+  }
+
+  private PartitionedResultSet(
+      Function<Partition, ResultSet> executeFunction,
+      List<Partition> partitions,
+      PartitionExecutionOptions options,
+      CurrentRow currentRow) {
+    super(currentRow);
+    this.currentRow = currentRow;
+    this.executeFunction = Preconditions.checkNotNull(executeFunction);
+    this.options = Preconditions.checkNotNull(options);
+    this.pendingPartitions = new ConcurrentLinkedQueue<>(Preconditions.checkNotNull(partitions));
+    int maxParallelism =
+        options.getMaxParallelism() == 0
+            ? Runtime.getRuntime().availableProcessors()
+            : options.getMaxParallelism();
+    this.parallelism = Math.min(partitions.size(), maxParallelism);
+    this.activeWorkers = parallelism;
+    if (partitions.isEmpty()) {
+      this.type = Type.struct();
+      this.metadata = ResultSetMetadata.getDefaultInstance();
+    }
+    Executor executor = options.getExecutor();
+    if (executor == null && parallelism > 0) {
+      this.ownedExecutor =
+          Executors.newFixedThreadPool(
+              parallelism,
+              ThreadFactoryUtil.createVirtualOrPlatformDaemonThreadFactory(
+                  "partition-executor", false));
+      executor = ownedExecutor;
+    } else {
+      this.ownedExecutor = null;
+    }
+    try {
+      for (int i = 0; i < parallelism; i++) {
+        executor.execute(this::runWorker);
+      }
+    } catch (RuntimeException exception) {
+      // The executor rejected a worker. Stop the workers that have already been started, so they
+      // close their partitions, as the caller cannot close a result set that was never returned.
+      stopWorkers();
+      throw exception;
+    }
+    if (ownedExecutor != null) {
+      // This does not stop any running tasks, but ensures that the executor is always shut down,
+      // also if the user never closes the result set.
+      ownedExecutor.shutdown();
+    }
+  }
+
+  @VisibleForTesting
+  int getParallelism() {
+    return parallelism;
+  }
+
+  private void runWorker() {
+    try {
+      Partition partition;
+      while (!stopped && (partition = pendingPartitions.poll()) != null) {
+        try (ResultSet resultSet = executeFunction.apply(partition)) {
+          boolean first = true;
+          while (!stopped && resultSet.next()) {
+            // Estimate the size before the row is copied, as that decodes all values.
+            long size = estimateSize(resultSet);
+            Struct row = resultSet.getCurrentRowAsStruct();
+            if (!budget.acquire(size)) {
+              return;
+            }
+            queue.add(
+                new Entry(
+                    row,
+                    first ? resultSet.getType() : null,
+                    first ? resultSet.getMetadata() : null,
+                    null,
+                    size));
+            first = false;
+          }
+          if (first && !stopped) {
+            // The partition did not return any rows. Push the type and metadata to the consumer,
+            // in case none of the other partitions return any rows either.
+            queue.add(new Entry(null, resultSet.getType(), resultSet.getMetadata(), null, 0L));
+          }
+        }
+      }
+    } catch (InterruptedException interruptedException) {
+      queue.add(
+          new Entry(
+              null,
+              null,
+              null,
+              SpannerExceptionFactory.propagateInterrupt(interruptedException),
+              0L));
+    } catch (Throwable t) {
+      queue.add(new Entry(null, null, null, t, 0L));
+    } finally {
+      queue.add(Entry.FINISHED);
+    }
+  }
+
+  @Override
+  protected void checkValidState() {
+    checkState(!closed, "This result set has been closed");
+  }
+
+  @Override
+  public boolean next() throws SpannerException {
+    checkValidState();
+    if (error != null) {
+      throw error;
+    }
+    while (activeWorkers > 0) {
+      Entry entry;
+      try {
+        entry = queue.take();
+      } catch (InterruptedException interruptedException) {
+        throw SpannerExceptionFactory.propagateInterrupt(interruptedException);
+      }
+      if (entry == Entry.FINISHED) {
+        activeWorkers--;
+        continue;
+      }
+      if (entry.error != null) {
+        error = SpannerExceptionFactory.asSpannerException(entry.error);
+        stopWorkers();
+        throw error;
+      }
+      if (type == null && entry.type != null) {
+        type = entry.type;
+        metadata = entry.metadata;
+      }
+      if (entry.row != null) {
+        budget.release(entry.size);
+        currentRow.row = entry.row;
+        return true;
+      }
+    }
+    currentRow.row = null;
+    return false;
+  }
+
+  @Override
+  public Struct getCurrentRowAsStruct() {
+    checkValidState();
+    return currentRow.get();
+  }
+
+  @Override
+  public Type getType() {
+    checkValidState();
+    checkState(type != null, "next() call required");
+    return type;
+  }
+
+  @Override
+  public int getColumnCount() {
+    return getType().getStructFields().size();
+  }
+
+  @Override
+  public int getColumnIndex(String columnName) {
+    return getType().getFieldIndex(columnName);
+  }
+
+  @Override
+  public Type getColumnType(int columnIndex) {
+    return getType().getStructFields().get(columnIndex).getType();
+  }
+
+  @Override
+  public Type getColumnType(String columnName) {
+    return getColumnType(getColumnIndex(columnName));
+  }
+
+  @Override
+  public ResultSetMetadata getMetadata() {
+    checkValidState();
+    checkState(metadata != null, "next() call required");
+    return metadata;
+  }
+
+  @Override
+  public ResultSetStats getStats() {
+    return null;
+  }
+
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      stopWorkers();
+    }
+  }
+
+  /**
+   * Stops all workers. Workers on the executor that is owned by this result set are interrupted.
+   * Workers on an executor that was supplied by the caller cannot be interrupted, and stop and
+   * close their partition when the row that they are waiting for has been returned.
+   */
+  private void stopWorkers() {
+    stopped = true;
+    budget.close();
+    if (ownedExecutor != null) {
+      // Interrupt any workers that are waiting for results from Spanner.
+      ownedExecutor.shutdownNow();
+    }
+  }
+
+  /**
+   * Returns an estimate of the number of bytes that the given row uses. Values that have not been
+   * decoded yet are estimated by the serialized size of their protobuf value, so they are not
+   * decoded only to estimate their size.
+   */
+  static long estimateSize(StructReader row) {
+    ProtobufResultSet protobufRow =
+        row instanceof ProtobufResultSet ? (ProtobufResultSet) row : null;
+    long size = 0L;
+    List<StructField> fields = row.getType().getStructFields();
+    for (int i = 0; i < fields.size(); i++) {
+      if (protobufRow != null && protobufRow.canGetProtobufValue(i)) {
+        size += protobufRow.getProtobufValue(i).getSerializedSize();
+      } else {
+        size += row.isNull(i) ? 1L : estimateSize(row, i, fields.get(i).getType());
+      }
+    }
+    return size;
+  }
+
+  private static long estimateSize(StructReader row, int index, Type type) {
+    switch (type.getCode()) {
+      case STRING:
+      case PG_NUMERIC:
+        return row.getString(index).length();
+      case JSON:
+        return row.getJson(index).length();
+      case PG_JSONB:
+        return row.getPgJsonb(index).length();
+      case BYTES:
+        // Use the base64 encoded value, as getBytes(int) could decode it.
+        return row.getValue(index).toProto().getStringValue().length();
+      case PROTO:
+        return row.getBytes(index).length();
+      case STRUCT:
+        return estimateSize(row.getStruct(index));
+      case ARRAY:
+        return estimateArraySize(row, index, type.getArrayElementType());
+      default:
+        return FIXED_SIZE_ESTIMATE;
+    }
+  }
+
+  private static long estimateArraySize(StructReader row, int index, Type elementType) {
+    long size = 0L;
+    switch (elementType.getCode()) {
+      case STRING:
+      case PG_NUMERIC:
+        for (String value : row.getStringList(index)) {
+          size += value == null ? 1L : value.length();
+        }
+        return size;
+      case JSON:
+        for (String value : row.getJsonList(index)) {
+          size += value == null ? 1L : value.length();
+        }
+        return size;
+      case PG_JSONB:
+        for (String value : row.getPgJsonbList(index)) {
+          size += value == null ? 1L : value.length();
+        }
+        return size;
+      case BYTES:
+        for (com.google.protobuf.Value value :
+            row.getValue(index).toProto().getListValue().getValuesList()) {
+          size += value.hasNullValue() ? 1L : value.getStringValue().length();
+        }
+        return size;
+      case PROTO:
+        for (ByteArray value : row.getBytesList(index)) {
+          size += value == null ? 1L : value.length();
+        }
+        return size;
+      case STRUCT:
+        for (Struct value : row.getStructList(index)) {
+          size += value == null ? 1L : estimateSize(value);
+        }
+        return size;
+      case BOOL:
+        return row.getBooleanList(index).size();
+      case INT64:
+      case ENUM:
+        return FIXED_SIZE_ESTIMATE * row.getLongList(index).size();
+      case FLOAT64:
+        return FIXED_SIZE_ESTIMATE * row.getDoubleList(index).size();
+      case NUMERIC:
+        return FIXED_SIZE_ESTIMATE * row.getBigDecimalList(index).size();
+      case DATE:
+        return FIXED_SIZE_ESTIMATE * row.getDateList(index).size();
+      case TIMESTAMP:
+        return FIXED_SIZE_ESTIMATE * row.getTimestampList(index).size();
+      default:
+        return FIXED_SIZE_ESTIMATE;
+    }
+  }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
+
+/**
+ * Defines how a Partitioned DML statement is split into key ranges that are executed in parallel
+ * by {@link DatabaseClient#executePartitionedUpdate(Statement, PartitionedUpdateOptions,
+ * Options.UpdateOption...)}.
+ *
+ * <p>The statement is executed once for each key range as a separate Partitioned DML statement on
+ * a separate session. The bounds of the key range are bound to the parameters {@value
+ * #RANGE_START_PARAMETER} (inclusive) and {@value #RANGE_END_PARAMETER} (exclusive) of the
+ * statement. The first range has no lower bound and the last range has no upper bound, which is
+ * indicated by a {@code NULL} value. The statement must therefore handle {@code NULL} bounds. Rows
+ * with a {@code NULL} key must be included in the first range, which is the only range with a
+ * {@code NULL} lower bound:
+ *
+ * <pre>{@code
+ * long deleted =
+ *     client.executePartitionedUpdate(
+ *         Statement.newBuilder(
+ *                 "DELETE FROM Events WHERE CreatedAt < @cutoff"
+ *                     + " AND (@rangeStart IS NULL OR EventId >= @rangeStart)"
+ *                     + " AND (@rangeEnd IS NULL OR EventId < @rangeEnd"
+ *                     + "      OR (@rangeStart IS NULL AND EventId IS NULL))")
+ *             .bind("cutoff")
+ *             .to(cutoff)
+ *             .build(),
+ *         PartitionedUpdateOptions.newBuilder()
+ *             .setSampledSplitPoints("Events", "EventId", 16)
+ *             .setMaxParallelism(8)
+ *             .build());
+ * }</pre>
+ *
+ * <p>All comparisons with NaN are false in GoogleSQL, so rows with a NaN key are not in any key
+ * range. If the key is a FLOAT64 column, the statement must also include rows with a NaN key in
+ * the first range, or these rows are not modified:
+ *
+ * <pre>{@code
+ * " AND (@rangeEnd IS NULL OR Score < @rangeEnd"
+ *     + " OR (@rangeStart IS NULL AND (Score IS NULL OR IS_NAN(Score))))"
+ * }</pre>
+ */
+public final class PartitionedUpdateOptions {
+  /** The name of the parameter that contains the inclusive lower bound of a key range. */
+  public static final String RANGE_START_PARAMETER = "rangeStart";
+  /** The name of the parameter that contains the exclusive upper bound of a key range. */
+  public static final String RANGE_END_PARAMETER = "rangeEnd";
+
+  /** The progress of a {@link DatabaseClient#executePartitionedUpdate} with key ranges. */
+  public static final class RangeProgress {
+    private final int rangeIndex;
+    private final int rangeCount;
+    private final Value rangeStart;
+    private final Value rangeEnd;
+    private final long updateCount;
+    private final int completedRangeCount;
+
+    RangeProgress(
+        int rangeIndex,
+        int rangeCount,
+        Value rangeStart,
+        Value rangeEnd,
+        long updateCount,
+        int completedRangeCount) {
+      this.rangeIndex = rangeIndex;
+      this.rangeCount = rangeCount;
+      this.rangeStart = rangeStart;
+      this.rangeEnd = rangeEnd;
+      this.updateCount = updateCount;
+      this.completedRangeCount = completedRangeCount;
+    }
+
+    /** The index of the key range that has been completed. */
+    public int getRangeIndex() {
+      return rangeIndex;
+    }
+
+    /** The total number of key ranges. */
+    public int getRangeCount() {
+      return rangeCount;
+    }
+
+    /** The inclusive lower bound of the key range, which is a {@code NULL} value if unbounded. */
+    public Value getRangeStart() {
+      return rangeStart;
+    }
+
+    /** The exclusive upper bound of the key range, which is a {@code NULL} value if unbounded. */
+    public Value getRangeEnd() {
+      return rangeEnd;
+    }
+
+    /** The lower bound of the number of rows that were modified in the key range. */
+    public long getUpdateCount() {
+      return updateCount;
+    }
+
+    /** The number of key ranges that have been completed, including this key range. */
+    public int getCompletedRangeCount() {
+      return completedRangeCount;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("rangeIndex", rangeIndex)
+          .add("rangeCount", rangeCount)
+          .add("rangeStart", rangeStart)
+          .add("rangeEnd", rangeEnd)
+          .add("updateCount", updateCount)
+          .add("completedRangeCount", completedRangeCount)
+          .toString();
+    }
+  }
+
+  /**
+   * Listener for the progress of a Partitioned DML statement that is executed for multiple key
+   * ranges. The listener is never called concurrently.
+   */
+  public interface ProgressListener {
+    /** Called when the statement has been executed successfully for a key range. */
+    void onRangeCompleted(RangeProgress progress);
+  }
+
+  private final ImmutableList<Value> splitPoints;
+  @Nullable private final String sampleTable;
+  @Nullable private final String sampleKeyColumn;
+  private final int sampleRangeCount;
+  private final int maxParallelism;
+  @Nullable private final Executor executor;
+  @Nullable private final ProgressListener progressListener;
+
+  private PartitionedUpdateOptions(Builder builder) {
+    this.splitPoints = builder.splitPoints;
+    this.sampleTable = builder.sampleTable;
+    this.sampleKeyColumn = builder.sampleKeyColumn;
+    this.sampleRangeCount = builder.sampleRangeCount;
+    this.maxParallelism = builder.maxParallelism;
+    this.executor = builder.executor;
+    this.progressListener = builder.progressListener;
+  }
+
+  /** Builder for {@link PartitionedUpdateOptions}. */
+  public static final class Builder {
+    private ImmutableList<Value> splitPoints;
+    private String sampleTable;
+    private String sampleKeyColumn;
+    private int sampleRangeCount;
+    private int maxParallelism;
+    private Executor executor;
+    private ProgressListener progressListener;
+
+    private Builder() {}
+
+    /**
+     * Sets the points at which the key space is split into ranges. The split points must be
+     * non-null values of the same type in strictly ascending order, and may not be NaN. The
+     * supported types are BOOL, INT64, FLOAT64, NUMERIC, STRING, BYTES, TIMESTAMP and DATE. {@code
+     * n} split points result in {@code n + 1} key ranges.
+     */
+    public Builder setSplitPoints(List<Value> splitPoints) {
+      Preconditions.checkArgument(!splitPoints.isEmpty(), "at least one split point is required");
+      Type type = splitPoints.get(0).getType();
+      Preconditions.checkArgument(
+          ParallelPartitionedUpdate.isSupportedKeyType(type),
+          "split points of type %s are not supported",
+          type);
+      Value previous = null;
+      for (Value splitPoint : splitPoints) {
+        Preconditions.checkArgument(!splitPoint.isNull(), "split points may not be null");
+        Preconditions.checkArgument(
+            !ParallelPartitionedUpdate.isNaN(splitPoint), "split points may not be NaN");
+        Preconditions.checkArgument(
+            splitPoint.getType().equals(type), "all split points must have the same type");
+        Preconditions.checkArgument(
+            previous == null || ParallelPartitionedUpdate.compareKeys(previous, splitPoint) < 0,
+            "split points must be in strictly ascending order, but %s is followed by %s",
+            previous,
+            splitPoint);
+        previous = splitPoint;
+      }
+      this.splitPoints = ImmutableList.copyOf(splitPoints);
+      this.sampleTable = null;
+      this.sampleKeyColumn = null;
+      return this;
+    }
+
+    /**
+     * Derives the split points from a random sample of the values in the given key column of the
+     * given table, so that the key ranges contain approximately the same number of rows. The
+     * table and column names are included in the sample query as-is, and the sample query uses
+     * GoogleSQL syntax.
+     *
+     * @param table the table that is sampled
+     * @param keyColumn the column that is used to split the table, normally the first column of
+     *     the primary key
+     * @param rangeCount the number of key ranges to create. Fewer ranges are created if the table
+     *     does not contain enough distinct values.
+     */
+    public Builder setSampledSplitPoints(String table, String keyColumn, int rangeCount) {
+      Preconditions.checkArgument(rangeCount > 0, "rangeCount must be > 0");
+      this.sampleTable = Preconditions.checkNotNull(table);
+      this.sampleKeyColumn = Preconditions.checkNotNull(keyColumn);
+      this.sampleRangeCount = rangeCount;
+      this.splitPoints = null;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of key ranges that are executed in parallel. Each key range that is
+     * executed uses a session from the session pool. The default is 0, which means that the number
+     * of available processors is used.
+     */
+    public Builder setMaxParallelism(int maxParallelism) {
+      Preconditions.checkArgument(maxParallelism >= 0, "maxParallelism must be >= 0");
+      this.maxParallelism = maxParallelism;
+      return this;
+    }
+
+    /**
+     * Sets the {@link Executor} that is used to execute the key ranges. The executor must be able
+     * to run at least as many tasks in parallel as the configured parallelism. The executor is not
+     * shut down by the client. If no executor is set, the client creates a thread pool with one
+     * thread per key range that is executed in parallel.
+     */
+    public Builder setExecutor(Executor executor) {
+      this.executor = Preconditions.checkNotNull(executor);
+      return this;
+    }
+
+    /** Sets a listener that is called each time that a key range has been completed. */
+    public Builder setProgressListener(ProgressListener progressListener) {
+      this.progressListener = Preconditions.checkNotNull(progressListener);
+      return this;
+    }
+
+    public PartitionedUpdateOptions build() {
+      Preconditions.checkState(
+          splitPoints != null || sampleTable != null,
+          "Either split points or a table to sample must be set");
+      return new PartitionedUpdateOptions(this);
+    }
+  }
+
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+
+  /** Returns the split points that have been set, or null if the split points are sampled. */
+  @Nullable
+  public List<Value> getSplitPoints() {
+    return splitPoints;
+  }
+
+  /** Returns the table that is sampled to derive the split points, if any. */
+  @Nullable
+  public String getSampleTable() {
+    return sampleTable;
+  }
+
+  /** Returns the key column that is sampled to derive the split points, if any. */
+  @Nullable
+  public String getSampleKeyColumn() {
+    return sampleKeyColumn;
+  }
+
+  /** Returns the number of key ranges that should be derived from a sample. */
+  public int getSampleRangeCount() {
+    return sampleRangeCount;
+  }
+
+  /** Returns the maximum number of key ranges that are executed in parallel. */
+  public int getMaxParallelism() {
+    return maxParallelism;
+  }
+
+  /** Returns the {@link Executor} that is used to execute the key ranges, if any. */
+  @Nullable
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  /** Returns the listener for the progress of the key ranges, if any. */
+  @Nullable
+  public ProgressListener getProgressListener() {
+    return progressListener;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("splitPoints", splitPoints)
+        .add("sampleTable", sampleTable)
+        .add("sampleKeyColumn", sampleKeyColumn)
+        .add("sampleRangeCount", sampleRangeCount)
+        .add("maxParallelism", maxParallelism)
+        .add("executor", executor)
+        .toString();
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import com.google.api.core.InternalApi;
+
+/**
+ * A {@link ResultSet} that can return the values of the current row in the protobuf format that
+ * was returned by Cloud Spanner. This is only possible for values that have not yet been decoded,
+ * which requires the query to be executed with {@link Options#lazyDecoding()}.
+ */
+@InternalApi
+public interface ProtobufResultSet extends ResultSet {
+
+  /**
+   * Returns true if the value of the given column of the current row is available in protobuf
+   * format. Once a value has been read with any other getter, it is no longer available in
+   * protobuf format.
+   */
+  boolean canGetProtobufValue(int columnIndex);
+
+  /**
+   * Returns the value of the given column of the current row in protobuf format.
+   *
+   * @throws IllegalStateException if {@link #canGetProtobufValue(int)} returns false for the
+   *     column
+   */
+  com.google.protobuf.Value getProtobufValue(int columnIndex);
+}
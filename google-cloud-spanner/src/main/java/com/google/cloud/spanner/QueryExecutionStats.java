@@ -0,0 +1,218 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import org.threeten.bp.Duration;
+
+/**
+ * Client-side statistics of a single query or read. These statistics show the work that the
+ * client did to consume the results of a query, while {@link ResultSet#getStats()} returns the
+ * statistics of the work that Spanner did to execute the query. These statistics are returned by
+ * {@link ResultSet#getExecutionStats()} for queries and reads that are executed with {@link
+ * Options#executionStats()}.
+ *
+ * <p>Use an {@link Aggregator} to aggregate the statistics of multiple queries by statement tag.
+ */
+public final class QueryExecutionStats {
+  /**
+   * Collects the statistics of one query or read. All methods are called by the thread that
+   * consumes the result stream, and the statistics may be read by any thread.
+   */
+  static final class Collector {
+    @Nullable private final String statementTag;
+    private volatile long rowCount;
+    private volatile long partialResultSetCount;
+    private volatile long bytes;
+    private volatile long resumeCount;
+    private volatile long decodeNanos;
+
+    Collector(@Nullable String statementTag) {
+      this.statementTag = statementTag;
+    }
+
+    void onPartialResultSet(int serializedSize) {
+      partialResultSetCount++;
+      bytes += serializedSize;
+    }
+
+    void onResume() {
+      resumeCount++;
+    }
+
+    void onRow() {
+      rowCount++;
+    }
+
+    void addDecodeNanos(long nanos) {
+      decodeNanos += nanos;
+    }
+
+    QueryExecutionStats snapshot() {
+      return new QueryExecutionStats(
+          statementTag, rowCount, partialResultSetCount, bytes, resumeCount, decodeNanos);
+    }
+  }
+
+  /**
+   * Aggregates {@link QueryExecutionStats} by statement tag. Statistics of queries without a
+   * statement tag are aggregated under the empty string. This class is safe for concurrent use.
+   */
+  public static final class Aggregator {
+    private final Map<String, QueryExecutionStats> stats = new ConcurrentHashMap<>();
+
+    /** Adds the given statistics to the aggregated statistics of its statement tag. */
+    public void record(QueryExecutionStats executionStats) {
+      Preconditions.checkNotNull(executionStats);
+      String tag = executionStats.statementTag == null ? "" : executionStats.statementTag;
+      stats.merge(tag, executionStats, QueryExecutionStats::plus);
+    }
+
+    /**
+     * Returns the aggregated statistics for the given statement tag, or null if no statistics
+     * have been recorded for the tag.
+     */
+    @Nullable
+    public QueryExecutionStats getStats(String statementTag) {
+      return stats.get(Preconditions.checkNotNull(statementTag));
+    }
+
+    /** Returns a snapshot of the aggregated statistics of all statement tags. */
+    public Map<String, QueryExecutionStats> getStatsByStatementTag() {
+      return ImmutableMap.copyOf(stats);
+    }
+
+    /** Removes all aggregated statistics. */
+    public void reset() {
+      stats.clear();
+    }
+  }
+
+  @Nullable private final String statementTag;
+  private final long rowCount;
+  private final long partialResultSetCount;
+  private final long bytes;
+  private final long resumeCount;
+  private final long decodeNanos;
+
+  private QueryExecutionStats(
+      @Nullable String statementTag,
+      long rowCount,
+      long partialResultSetCount,
+      long bytes,
+      long resumeCount,
+      long decodeNanos) {
+    this.statementTag = statementTag;
+    this.rowCount = rowCount;
+    this.partialResultSetCount = partialResultSetCount;
+    this.bytes = bytes;
+    this.resumeCount = resumeCount;
+    this.decodeNanos = decodeNanos;
+  }
+
+  /** The statement tag of the query, or null if the query did not have a statement tag. */
+  @Nullable
+  public String getStatementTag() {
+    return statementTag;
+  }
+
+  /** The number of rows that have been returned by {@link ResultSet#next()}. */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * The number of {@code PartialResultSet} messages that have been received, including messages
+   * that were received again after the stream was resumed.
+   */
+  public long getPartialResultSetCount() {
+    return partialResultSetCount;
+  }
+
+  /** The serialized size in bytes of all {@code PartialResultSet} messages that were received. */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /** The number of times that the stream was resumed after a retryable error. */
+  public long getResumeCount() {
+    return resumeCount;
+  }
+
+  /**
+   * The time that was spent in {@link ResultSet#next()} on decoding rows, excluding the time that
+   * was spent waiting for data from Spanner. If the query or read used {@link
+   * Options#lazyDecoding()}, the column values are decoded by the getters of the {@link ResultSet}
+   * instead of by {@link ResultSet#next()}, and the time that is spent on that decoding is not
+   * included in this value.
+   */
+  public Duration getDecodeTime() {
+    return Duration.ofNanos(decodeNanos);
+  }
+
+  /**
+   * Returns the sum of these statistics and the given statistics. The statement tag of the result
+   * is the statement tag of both statistics if they are equal, and null otherwise.
+   */
+  public QueryExecutionStats plus(QueryExecutionStats other) {
+    return new QueryExecutionStats(
+        Objects.equals(statementTag, other.statementTag) ? statementTag : null,
+        rowCount + other.rowCount,
+        partialResultSetCount + other.partialResultSetCount,
+        bytes + other.bytes,
+        resumeCount + other.resumeCount,
+        decodeNanos + other.decodeNanos);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof QueryExecutionStats)) {
+      return false;
+    }
+    QueryExecutionStats other = (QueryExecutionStats) o;
+    return Objects.equals(statementTag, other.statementTag)
+        && rowCount == other.rowCount
+        && partialResultSetCount == other.partialResultSetCount
+        && bytes == other.bytes
+        && resumeCount == other.resumeCount
+        && decodeNanos == other.decodeNanos;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(
+        statementTag, rowCount, partialResultSetCount, bytes, resumeCount, decodeNanos);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("statementTag", statementTag)
+        .add("rowCount", rowCount)
+        .add("partialResultSetCount", partialResultSetCount)
+        .add("bytes", bytes)
+        .add("resumeCount", resumeCount)
+        .add("decodeTime", getDecodeTime())
+        .toString();
+  }
+}
@@ -0,0 +1,451 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import com.google.cloud.ByteArray;
+import com.google.cloud.spanner.AbstractResultSet.GrpcStruct;
+import com.google.cloud.spanner.Mutation.Op;
+import com.google.cloud.spanner.Type.StructField;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.UnsignedBytes;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.NullValue;
+import com.google.protobuf.ProtocolMessageEnum;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+
+/**
+ * Applies the mutations that have been buffered in a read/write transaction to the rows that are
+ * read by that transaction. Rows that are fully defined by the buffered mutations are returned
+ * without reading them from Spanner once the column types of the read are known. All other rows are
+ * read from Spanner, and the buffered mutations are applied to the rows that are returned.
+ *
+ * <p>The row type of a read is always taken from Spanner, and not from the values in the
+ * mutations, as these can have a different type than the column, for example a STRING value that
+ * is written to a JSON column, or a NULL value of a different type. The row type is cached for the
+ * lifetime of the overlay, which is one transaction.
+ *
+ * <p>Rows are returned in primary key order, as Spanner would return them, and the limit of a read
+ * is applied after sorting. The primary key columns of a table are given in primary key order, and
+ * columns that are sorted in descending order have the suffix {@code DESC}.
+ *
+ * <p>The overlay only applies the mutations of a table to reads of that table. A buffered delete
+ * of a row in a parent table is not applied to reads of its interleaved child tables, even if these
+ * are defined with {@code ON DELETE CASCADE}. Reading a column that is set to {@link
+ * Value#COMMIT_TIMESTAMP} by a buffered mutation fails, as the value is not known until the
+ * transaction is committed.
+ */
+final class ReadYourWritesOverlay {
+  /** Reads rows from Spanner. */
+  interface RowReader {
+    ResultSet read(KeySet keys, List<String> columns, Options readOptions);
+  }
+
+  private static final com.google.protobuf.Value NULL_PROTO =
+      com.google.protobuf.Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build();
+
+  private static final String DESC_SUFFIX = " DESC";
+
+  /** The primary key of a table. */
+  private static final class PrimaryKey implements Comparator<Key> {
+    private final List<String> columns;
+    private final boolean[] descending;
+
+    private PrimaryKey(List<String> definition) {
+      ImmutableList.Builder<String> columns = ImmutableList.builder();
+      this.descending = new boolean[definition.size()];
+      for (int i = 0; i < definition.size(); i++) {
+        String column = definition.get(i).trim();
+        if (column.regionMatches(
+            true, column.length() - DESC_SUFFIX.length(), DESC_SUFFIX, 0, DESC_SUFFIX.length())) {
+          column = column.substring(0, column.length() - DESC_SUFFIX.length()).trim();
+          descending[i] = true;
+        }
+        columns.add(column);
+      }
+      this.columns = columns.build();
+    }
+
+    @Override
+    public int compare(Key key1, Key key2) {
+      Iterator<Object> parts1 = key1.getParts().iterator();
+      Iterator<Object> parts2 = key2.getParts().iterator();
+      for (int i = 0; parts1.hasNext() && parts2.hasNext(); i++) {
+        int result = compareParts(parts1.next(), parts2.next());
+        if (result != 0) {
+          return i < descending.length && descending[i] ? -result : result;
+        }
+      }
+      return Boolean.compare(parts1.hasNext(), parts2.hasNext());
+    }
+
+    /** Compares two key parts in the order in which Spanner sorts the values of a column. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareParts(@Nullable Object part1, @Nullable Object part2) {
+      if (part1 == null || part2 == null) {
+        // NULL is sorted before all other values.
+        return Boolean.compare(part1 != null, part2 != null);
+      }
+      if (part1.getClass() != part2.getClass()) {
+        // Spanner rejects a key with a value of the wrong type, so any consistent order will do.
+        return part1.getClass().getName().compareTo(part2.getClass().getName());
+      }
+      if (part1 instanceof Double) {
+        // NaN is sorted before all other FLOAT64 values, and -0.0 is equal to 0.0.
+        double value1 = (Double) part1;
+        double value2 = (Double) part2;
+        if (Double.isNaN(value1) || Double.isNaN(value2)) {
+          return Boolean.compare(!Double.isNaN(value1), !Double.isNaN(value2));
+        }
+        return value1 < value2 ? -1 : value1 > value2 ? 1 : 0;
+      }
+      if (part1 instanceof String) {
+        // Strings are sorted by their UTF-8 encoding, which is the same as code point order.
+        return UnsignedBytes.lexicographicalComparator()
+            .compare(
+                ((String) part1).getBytes(StandardCharsets.UTF_8),
+                ((String) part2).getBytes(StandardCharsets.UTF_8));
+      }
+      if (part1 instanceof ByteArray) {
+        return UnsignedBytes.lexicographicalComparator()
+            .compare(((ByteArray) part1).toByteArray(), ((ByteArray) part2).toByteArray());
+      }
+      if (part1 instanceof ProtocolMessageEnum) {
+        return Integer.compare(
+            ((ProtocolMessageEnum) part1).getNumber(), ((ProtocolMessageEnum) part2).getNumber());
+      }
+      return ((Comparable) part1).compareTo(part2);
+    }
+  }
+
+  private enum Existence {
+    /** The buffered mutations do not determine whether the row exists. */
+    UNKNOWN,
+    EXISTS,
+    DELETED,
+  }
+
+  /** The state of one row after applying the buffered mutations for the row. */
+  private static final class RowState {
+    private final Key key;
+    private boolean modified;
+    private Existence existence = Existence.UNKNOWN;
+    /**
+     * Indicates whether columns that are not written by the buffered mutations are NULL, instead
+     * of having the value that is currently stored in the database.
+     */
+    private boolean unwrittenColumnsAreNull;
+
+    private final Map<String, Value> values = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    private RowState(Key key) {
+      this.key = key;
+    }
+
+    private void apply(Mutation mutation) {
+      modified = true;
+      switch (mutation.getOperation()) {
+        case DELETE:
+          existence = Existence.DELETED;
+          values.clear();
+          break;
+        case INSERT:
+        case REPLACE:
+          existence = Existence.EXISTS;
+          unwrittenColumnsAreNull = true;
+          values.clear();
+          values.putAll(mutation.asMap());
+          break;
+        case INSERT_OR_UPDATE:
+          if (existence == Existence.DELETED) {
+            unwrittenColumnsAreNull = true;
+          }
+          existence = Existence.EXISTS;
+          values.putAll(mutation.asMap());
+          break;
+        case UPDATE:
+          // An update of a deleted row fails when the transaction is committed, and the row is
+          // returned as deleted until then.
+          if (existence != Existence.DELETED) {
+            values.putAll(mutation.asMap());
+          }
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown operation: " + mutation.getOperation());
+      }
+    }
+
+    private boolean hasAllValues(List<String> columns) {
+      for (String column : columns) {
+        if (!values.containsKey(column)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /** Returns true if the current row in the database is needed to determine this row. */
+    private boolean needsDatabaseRow(List<String> columns) {
+      if (!modified) {
+        return true;
+      }
+      switch (existence) {
+        case DELETED:
+          return false;
+        case EXISTS:
+          return !unwrittenColumnsAreNull && !hasAllValues(columns);
+        default:
+          return true;
+      }
+    }
+
+    /**
+     * Returns the encoded values of this row for the given columns, or null if the row does not
+     * exist.
+     */
+    @Nullable
+    private List<Object> encode(
+        List<String> columns, @Nullable Struct databaseRow, Map<String, Integer> databaseColumns) {
+      if (existence == Existence.DELETED
+          || existence == Existence.UNKNOWN && databaseRow == null) {
+        return null;
+      }
+      if (existence == Existence.EXISTS && unwrittenColumnsAreNull) {
+        databaseRow = null;
+      }
+      List<Object> row = new ArrayList<>(columns.size());
+      for (String column : columns) {
+        Value value = values.get(column);
+        if (value != null && value.isCommitTimestamp()) {
+          throw SpannerExceptionFactory.newSpannerException(
+              ErrorCode.FAILED_PRECONDITION,
+              "Column "
+                  + column
+                  + " of row "
+                  + key
+                  + " is set to the commit timestamp by a buffered mutation, and its value is"
+                  + " not known until the transaction is committed");
+        }
+        if (value != null) {
+          row.add(value.toProto());
+        } else if (databaseRow == null) {
+          row.add(NULL_PROTO);
+        } else {
+          row.add(databaseRow.getValue(databaseColumns.get(column)).toProto());
+        }
+      }
+      return row;
+    }
+  }
+
+  /** The primary key of each table, by case-insensitive table name. */
+  private final Map<String, PrimaryKey> primaryKeys = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+  /** The row types that have been returned by Spanner, by table and columns. */
+  private final Map<List<String>, Type> rowTypes = new ConcurrentHashMap<>();
+
+  ReadYourWritesOverlay(Map<String, List<String>> primaryKeyColumns) {
+    for (Map.Entry<String, List<String>> entry :
+        Preconditions.checkNotNull(primaryKeyColumns).entrySet()) {
+      primaryKeys.put(entry.getKey(), new PrimaryKey(entry.getValue()));
+    }
+  }
+
+  /**
+   * Reads the given keys and columns from the given table and applies the given buffered
+   * mutations to the result. Rows that are not fully defined by the mutations are read with the
+   * given {@link RowReader}.
+   */
+  ResultSet read(
+      String table,
+      KeySet keys,
+      Iterable<String> columns,
+      Options readOptions,
+      Iterable<Mutation> mutations,
+      RowReader reader) {
+    List<String> readColumns = ImmutableList.copyOf(columns);
+    PrimaryKey primaryKey = primaryKeys.get(table);
+    List<Mutation> tableMutations = new ArrayList<>();
+    if (primaryKey != null) {
+      for (Mutation mutation : mutations) {
+        if (mutation.getTable().equalsIgnoreCase(table)) {
+          tableMutations.add(mutation);
+        }
+      }
+    }
+    if (tableMutations.isEmpty()) {
+      return reader.read(keys, readColumns, readOptions);
+    }
+    if (keys.isAll() || keys.getRanges().iterator().hasNext()) {
+      throw SpannerExceptionFactory.newSpannerException(
+          ErrorCode.UNIMPLEMENTED,
+          "Reads of key ranges are not supported for table "
+              + table
+              + " while the transaction has buffered mutations for the table");
+    }
+
+    // Apply all buffered mutations to the rows that are read.
+    List<String> keyColumns = primaryKey.columns;
+    Map<ListValue, RowState> rows = new LinkedHashMap<>();
+    for (Key key : keys.getKeys()) {
+      rows.putIfAbsent(key.toProto(), new RowState(key));
+    }
+    if (rows.isEmpty()) {
+      return reader.read(keys, readColumns, readOptions);
+    }
+    for (Mutation mutation : tableMutations) {
+      if (mutation.getOperation() == Op.DELETE) {
+        KeySet deleted = mutation.getKeySet();
+        if (deleted.getRanges().iterator().hasNext()) {
+          throw SpannerExceptionFactory.newSpannerException(
+              ErrorCode.UNIMPLEMENTED,
+              "Reads are not supported for table "
+                  + table
+                  + " while the transaction has a buffered delete of a key range for the table");
+        }
+        if (deleted.isAll()) {
+          rows.values().forEach(row -> row.apply(mutation));
+        } else {
+          for (Key key : deleted.getKeys()) {
+            applyIfPresent(rows, key.toProto(), mutation);
+          }
+        }
+      } else {
+        ListValue key = encodeKey(mutation, keyColumns);
+        if (key != null) {
+          applyIfPresent(rows, key, mutation);
+        }
+      }
+    }
+
+    // Determine the rows that must be read from the database.
+    KeySet.Builder databaseKeys = KeySet.newBuilder();
+    boolean readFromDatabase = false;
+    for (RowState row : rows.values()) {
+      if (row.needsDatabaseRow(readColumns)) {
+        databaseKeys.addKey(row.key);
+        readFromDatabase = true;
+      }
+    }
+    List<String> rowTypeKey =
+        ImmutableList.<String>builder().add(table).addAll(readColumns).build();
+    Type type = readFromDatabase ? null : rowTypes.get(rowTypeKey);
+    if (type == null && !readFromDatabase) {
+      // The rows are fully defined by the mutations, but the types of the columns are not known.
+      // Read one of the rows to get the types of the columns.
+      databaseKeys.addKey(rows.values().iterator().next().key);
+      readFromDatabase = true;
+    }
+    Map<ListValue, Struct> databaseRows = new LinkedHashMap<>();
+    Map<String, Integer> databaseColumns = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    if (readFromDatabase) {
+      List<String> columnsToRead = new ArrayList<>(readColumns);
+      for (String keyColumn : keyColumns) {
+        if (columnsToRead.stream().noneMatch(keyColumn::equalsIgnoreCase)) {
+          columnsToRead.add(keyColumn);
+        }
+      }
+      // The limit of the read is applied to the result of the overlay, and not to the rows that
+      // are read from the database, as these are only a subset of the rows that are returned.
+      try (ResultSet resultSet =
+          reader.read(databaseKeys.build(), columnsToRead, readOptions.withoutLimit())) {
+        while (resultSet.next()) {
+          Struct row = resultSet.getCurrentRowAsStruct();
+          databaseRows.put(encodeKey(row, keyColumns), row);
+        }
+        List<StructField> fields = resultSet.getType().getStructFields();
+        for (int i = 0; i < fields.size(); i++) {
+          databaseColumns.putIfAbsent(fields.get(i).getName(), i);
+        }
+        type = Type.struct(fields.subList(0, readColumns.size()));
+        rowTypes.put(rowTypeKey, type);
+      }
+    }
+
+    // Spanner returns the rows in primary key order, and applies the limit in that order.
+    List<Map.Entry<ListValue, RowState>> sortedRows = new ArrayList<>(rows.entrySet());
+    sortedRows.sort((row1, row2) -> primaryKey.compare(row1.getValue().key, row2.getValue().key));
+    List<Struct> result = new ArrayList<>(rows.size());
+    long limit = readOptions.hasLimit() && readOptions.limit() > 0L ? readOptions.limit() : -1L;
+    for (Map.Entry<ListValue, RowState> entry : sortedRows) {
+      if (limit >= 0L && result.size() >= limit) {
+        break;
+      }
+      RowState state = entry.getValue();
+      Struct databaseRow = databaseRows.get(entry.getKey());
+      List<Object> row =
+          state.modified
+              ? state.encode(readColumns, databaseRow, databaseColumns)
+              : databaseRow == null ? null : encodeDatabaseRow(databaseRow, readColumns.size());
+      if (row != null) {
+        result.add(new GrpcStruct(type, row, /* lazyDecoding = */ true).immutableCopy());
+      }
+    }
+    return ResultSets.forRows(type, result);
+  }
+
+  private static void applyIfPresent(Map<ListValue, RowState> rows, ListValue key, Mutation m) {
+    RowState row = rows.get(key);
+    if (row != null) {
+      row.apply(m);
+    }
+  }
+
+  /**
+   * Returns the key of the row that is written by the given mutation, or null if the mutation
+   * does not contain all primary key columns.
+   */
+  @Nullable
+  private static ListValue encodeKey(Mutation mutation, List<String> keyColumns) {
+    Map<String, Value> values = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    values.putAll(mutation.asMap());
+    ListValue.Builder key = ListValue.newBuilder();
+    for (String keyColumn : keyColumns) {
+      Value value = values.get(keyColumn);
+      if (value == null) {
+        return null;
+      }
+      key.addValues(value.toProto());
+    }
+    return key.build();
+  }
+
+  private static ListValue encodeKey(Struct row, List<String> keyColumns) {
+    ListValue.Builder key = ListValue.newBuilder();
+    for (String keyColumn : keyColumns) {
+      key.addValues(row.getValue(keyColumn).toProto());
+    }
+    return key.build();
+  }
+
+  private static List<Object> encodeDatabaseRow(Struct row, int numColumns) {
+    List<Object> result = new ArrayList<>(numColumns);
+    for (int i = 0; i < numColumns; i++) {
+      result.add(row.getValue(i).toProto());
+    }
+    return result;
+  }
+}
@@ -17,6 +17,7 @@
 package com.google.cloud.spanner;
 
 import com.google.cloud.spanner.Options.QueryOption;
+import com.google.common.base.Preconditions;
 import com.google.spanner.v1.ResultSetMetadata;
 import com.google.spanner.v1.ResultSetStats;
 import javax.annotation.Nullable;
@@ -45,6 +46,43 @@ public interface ResultSet extends AutoCloseable, StructReader {
    */
   boolean next() throws SpannerException;
 
+  /**
+   * Advances the result set over a batch of rows and copies the values of the given columns into
+   * the given buffers. The number of rows in a batch is limited by the smallest capacity of the
+   * given buffers. This method returns the number of rows that were read, which is 0 if no more
+   * rows exist. The result set is positioned over the last row that was read when this method
+   * returns a value larger than 0. This method may block.
+   *
+   * <p>The buffers store the values of {@code BOOL}, {@code INT64} and {@code FLOAT64} columns in
+   * primitive arrays, and can be reused for all batches of a result set. Combine this method with
+   * {@link Options#lazyDecoding()} to read these columns without creating any intermediate boxed
+   * values.
+   *
+   * @param buffers the buffers to fill. At least one buffer must be given.
+   * @return the number of rows that were read into the buffers
+   */
+  default int nextBatch(ColumnBuffer... buffers) throws SpannerException {
+    Preconditions.checkArgument(buffers.length > 0, "At least one buffer is required");
+    int capacity = Integer.MAX_VALUE;
+    for (ColumnBuffer buffer : buffers) {
+      capacity = Math.min(capacity, buffer.getCapacity());
+    }
+    int rows = 0;
+    try {
+      while (rows < capacity && next()) {
+        for (ColumnBuffer buffer : buffers) {
+          buffer.read(this, rows);
+        }
+        rows++;
+      }
+    } finally {
+      for (ColumnBuffer buffer : buffers) {
+        buffer.setSize(rows);
+      }
+    }
+    return rows;
+  }
+
   /**
    * Creates an immutable version of the row that the result set is positioned over. This may
    * involve copying internal data structures, and so converting all rows to {@code Struct} objects
@@ -82,4 +120,15 @@ public interface ResultSet extends AutoCloseable, StructReader {
   default ResultSetMetadata getMetadata() {
     throw new UnsupportedOperationException("Method should be overridden");
   }
+
+  /**
+   * Returns the client-side {@link QueryExecutionStats} of this {@link ResultSet}, or null if the
+   * query or read was not executed with {@link Options#executionStats()}. The statistics are
+   * updated while the {@link ResultSet} is consumed, and this method returns a snapshot of the
+   * statistics at the moment that it is called.
+   */
+  @Nullable
+  default QueryExecutionStats getExecutionStats() {
+    return null;
+  }
 }
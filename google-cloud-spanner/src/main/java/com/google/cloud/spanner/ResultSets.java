@@ -33,7 +33,9 @@ import com.google.protobuf.AbstractMessage;
 import com.google.protobuf.ProtocolMessageEnum;
 import com.google.spanner.v1.ResultSetMetadata;
 import com.google.spanner.v1.ResultSetStats;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.function.Function;
 
@@ -78,7 +80,11 @@ public final class ResultSets {
         readOptions.hasBufferRows()
             ? readOptions.bufferRows()
             : AsyncResultSetImpl.DEFAULT_BUFFER_SIZE;
-    return new AsyncResultSetImpl(executorProvider, delegate, bufferRows);
+    final long bufferBytes =
+        readOptions.hasBufferBytes()
+            ? readOptions.bufferBytes()
+            : AsyncResultSetImpl.UNLIMITED_BUFFER_BYTES;
+    return new AsyncResultSetImpl(executorProvider, delegate, bufferRows, bufferBytes);
   }
 
   /**
@@ -92,8 +98,12 @@ public final class ResultSets {
         readOptions.hasBufferRows()
             ? readOptions.bufferRows()
             : AsyncResultSetImpl.DEFAULT_BUFFER_SIZE;
+    final long bufferBytes =
+        readOptions.hasBufferBytes()
+            ? readOptions.bufferBytes()
+            : AsyncResultSetImpl.UNLIMITED_BUFFER_BYTES;
     return new AsyncResultSetImpl(
-        executorProvider, new FutureResultSetSupplier(delegate), bufferRows);
+        executorProvider, new FutureResultSetSupplier(delegate), bufferRows, bufferBytes);
   }
 
   private static class FutureResultSetSupplier implements Supplier<ResultSet> {
@@ -283,6 +293,26 @@ public final class ResultSets {
       return getCurrentRowAsStruct().getBytes(columnName);
     }
 
+    @Override
+    public ByteBuffer getBytesAsByteBuffer(int columnIndex) {
+      return getCurrentRowAsStruct().getBytesAsByteBuffer(columnIndex);
+    }
+
+    @Override
+    public ByteBuffer getBytesAsByteBuffer(String columnName) {
+      return getCurrentRowAsStruct().getBytesAsByteBuffer(columnName);
+    }
+
+    @Override
+    public InputStream getBytesAsInputStream(int columnIndex) {
+      return getCurrentRowAsStruct().getBytesAsInputStream(columnIndex);
+    }
+
+    @Override
+    public InputStream getBytesAsInputStream(String columnName) {
+      return getCurrentRowAsStruct().getBytesAsInputStream(columnName);
+    }
+
     @Override
     public Timestamp getTimestamp(int columnIndex) {
       return getCurrentRowAsStruct().getTimestamp(columnIndex);
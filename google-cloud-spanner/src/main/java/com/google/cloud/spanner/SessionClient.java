@@ -225,6 +225,53 @@ class SessionClient implements AutoCloseable {
     }
   }
 
+  /**
+   * Create a multiplexed session. A multiplexed session can be used for multiple concurrent
+   * read-only transactions. The returned {@link SessionImpl} should only be used as a template for
+   * creating a new {@link SessionImpl} for each transaction through {@link #sessionWithId(String)}.
+   */
+  SessionImpl createMultiplexedSession() {
+    Span span = SpannerImpl.tracer.spanBuilder(SpannerImpl.CREATE_MULTIPLEXED_SESSION).startSpan();
+    try (Scope s = SpannerImpl.tracer.withSpan(span)) {
+      com.google.spanner.v1.Session session =
+          spanner
+              .getRpc()
+              .createMultiplexedSession(
+                  db.getName(),
+                  spanner.getOptions().getDatabaseRole(),
+                  spanner.getOptions().getSessionLabels(),
+                  null);
+      return new SessionImpl(spanner, session.getName(), Collections.emptyMap());
+    } catch (RuntimeException e) {
+      TraceUtil.setWithFailure(span, e);
+      throw e;
+    } finally {
+      span.end(TraceUtil.END_SPAN_OPTIONS);
+    }
+  }
+
+  /**
+   * Asynchronously creates a multiplexed session and returns it to the given {@link
+   * SessionConsumer}.
+   */
+  void asyncCreateMultiplexedSession(SessionConsumer consumer) {
+    try {
+      executor.submit(
+          () -> {
+            SessionImpl session;
+            try {
+              session = createMultiplexedSession();
+            } catch (Throwable t) {
+              consumer.onSessionCreateFailure(t, 1);
+              return;
+            }
+            consumer.onSessionReady(session);
+          });
+    } catch (Throwable t) {
+      consumer.onSessionCreateFailure(t, 1);
+    }
+  }
+
   /**
    * Asynchronously creates a batch of sessions and returns these to the given {@link
    * SessionConsumer}. This method may split the actual session creation over several gRPC calls in
@@ -118,6 +118,12 @@ class SessionImpl implements Session {
     return options;
   }
 
+  /** Returns the latency metrics of the database of this session, or null if disabled. */
+  @Nullable
+  LatencyMetrics getLatencyMetrics() {
+    return spanner.getLatencyMetrics(databaseId);
+  }
+
   void setCurrentSpan(Span span) {
     currentSpan = span;
   }
@@ -192,8 +198,19 @@ class SessionImpl implements Session {
     CommitRequest request = requestBuilder.build();
     Span span = tracer.spanBuilder(SpannerImpl.COMMIT).startSpan();
     try (Scope s = tracer.withSpan(span)) {
+      final LatencyMetrics latencyMetrics = getLatencyMetrics();
       return SpannerRetryHelper.runTxWithRetriesOnAborted(
-          () -> new CommitResponse(spanner.getRpc().commit(request, this.options)));
+          () -> {
+            long startNanos = latencyMetrics == null ? 0L : System.nanoTime();
+            try {
+              return new CommitResponse(spanner.getRpc().commit(request, this.options));
+            } finally {
+              if (latencyMetrics != null) {
+                latencyMetrics.record(
+                    LatencyMetrics.Phase.COMMIT, LatencyMetrics.METHOD_COMMIT, startNanos);
+              }
+            }
+          });
     } catch (RuntimeException e) {
       TraceUtil.setWithFailure(span, e);
       throw e;
@@ -252,12 +269,14 @@ class SessionImpl implements Session {
         SingleReadContext.newBuilder()
             .setSession(this)
             .setTimestampBound(bound)
+            .setStaleReadCache(spanner.getStaleReadCache(databaseId))
             .setRpc(spanner.getRpc())
             .setDefaultQueryOptions(spanner.getDefaultQueryOptions(databaseId))
             .setDefaultPrefetchChunks(spanner.getDefaultPrefetchChunks())
             .setDefaultDirectedReadOptions(spanner.getOptions().getDirectedReadOptions())
             .setSpan(currentSpan)
             .setExecutorProvider(spanner.getAsyncExecutorProvider())
+            .setLatencyMetrics(getLatencyMetrics())
             .build());
   }
 
@@ -272,12 +291,14 @@ class SessionImpl implements Session {
         SingleUseReadOnlyTransaction.newBuilder()
             .setSession(this)
             .setTimestampBound(bound)
+            .setStaleReadCache(spanner.getStaleReadCache(databaseId))
             .setRpc(spanner.getRpc())
             .setDefaultQueryOptions(spanner.getDefaultQueryOptions(databaseId))
             .setDefaultPrefetchChunks(spanner.getDefaultPrefetchChunks())
             .setDefaultDirectedReadOptions(spanner.getOptions().getDirectedReadOptions())
             .setSpan(currentSpan)
             .setExecutorProvider(spanner.getAsyncExecutorProvider())
+            .setLatencyMetrics(getLatencyMetrics())
             .buildSingleUseReadOnlyTransaction());
   }
 
@@ -298,6 +319,7 @@ class SessionImpl implements Session {
             .setDefaultDirectedReadOptions(spanner.getOptions().getDirectedReadOptions())
             .setSpan(currentSpan)
             .setExecutorProvider(spanner.getAsyncExecutorProvider())
+            .setLatencyMetrics(getLatencyMetrics())
             .build());
   }
 
@@ -367,6 +389,8 @@ class SessionImpl implements Session {
             .setSession(name)
             .setOptions(createReadWriteTransactionOptions(transactionOptions))
             .build();
+    final LatencyMetrics latencyMetrics = getLatencyMetrics();
+    final long startNanos = latencyMetrics == null ? 0L : System.nanoTime();
     final ApiFuture<Transaction> requestFuture =
         spanner.getRpc().beginTransactionAsync(request, options, routeToLeader);
     requestFuture.addListener(
@@ -379,6 +403,9 @@ class SessionImpl implements Session {
                   throw newSpannerException(
                       ErrorCode.INTERNAL, "Missing id in transaction\n" + getName());
                 }
+                if (latencyMetrics != null) {
+                  latencyMetrics.recordBeginTransaction(/* inlined = */ false, startNanos);
+                }
                 span.end(TraceUtil.END_SPAN_OPTIONS);
                 res.set(txn.getId());
               } catch (ExecutionException e) {
@@ -413,6 +440,7 @@ class SessionImpl implements Session {
         .setDefaultPrefetchChunks(spanner.getDefaultPrefetchChunks())
         .setSpan(currentSpan)
         .setExecutorProvider(spanner.getAsyncExecutorProvider())
+        .setLatencyMetrics(getLatencyMetrics())
         .setClock(poolMaintainerClock == null ? new Clock() : poolMaintainerClock)
         .build();
   }
@@ -93,16 +93,22 @@ import java.util.List;
 import java.util.Queue;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntUnaryOperator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
@@ -144,7 +150,7 @@ class SessionPool {
     }
   }
 
-  private abstract static class CachedResultSetSupplier implements Supplier<ResultSet> {
+  abstract static class CachedResultSetSupplier implements Supplier<ResultSet> {
     private ResultSet cached;
 
     abstract ResultSet load();
@@ -174,8 +180,11 @@ class SessionPool {
      */
     private class AutoClosingReadContextAsyncResultSetImpl extends AsyncResultSetImpl {
       private AutoClosingReadContextAsyncResultSetImpl(
-          ExecutorProvider executorProvider, ResultSet delegate, int bufferRows) {
-        super(executorProvider, delegate, bufferRows);
+          ExecutorProvider executorProvider,
+          ResultSet delegate,
+          int bufferRows,
+          long bufferBytes) {
+        super(executorProvider, delegate, bufferRows, bufferBytes);
       }
 
       @Override
@@ -353,6 +362,10 @@ class SessionPool {
           readOptions.hasBufferRows()
               ? readOptions.bufferRows()
               : AsyncResultSetImpl.DEFAULT_BUFFER_SIZE;
+      final long bufferBytes =
+          readOptions.hasBufferBytes()
+              ? readOptions.bufferBytes()
+              : AsyncResultSetImpl.UNLIMITED_BUFFER_BYTES;
       return new AutoClosingReadContextAsyncResultSetImpl(
           sessionPool.sessionClient.getSpanner().getAsyncExecutorProvider(),
           wrap(
@@ -362,7 +375,8 @@ class SessionPool {
                   return getReadContextDelegate().read(table, keys, columns, options);
                 }
               }),
-          bufferRows);
+          bufferRows,
+          bufferBytes);
     }
 
     @Override
@@ -393,6 +407,10 @@ class SessionPool {
           readOptions.hasBufferRows()
               ? readOptions.bufferRows()
               : AsyncResultSetImpl.DEFAULT_BUFFER_SIZE;
+      final long bufferBytes =
+          readOptions.hasBufferBytes()
+              ? readOptions.bufferBytes()
+              : AsyncResultSetImpl.UNLIMITED_BUFFER_BYTES;
       return new AutoClosingReadContextAsyncResultSetImpl(
           sessionPool.sessionClient.getSpanner().getAsyncExecutorProvider(),
           wrap(
@@ -403,7 +421,8 @@ class SessionPool {
                       .readUsingIndex(table, index, keys, columns, options);
                 }
               }),
-          bufferRows);
+          bufferRows,
+          bufferBytes);
     }
 
     @Override
@@ -488,6 +507,10 @@ class SessionPool {
           queryOptions.hasBufferRows()
               ? queryOptions.bufferRows()
               : AsyncResultSetImpl.DEFAULT_BUFFER_SIZE;
+      final long bufferBytes =
+          queryOptions.hasBufferBytes()
+              ? queryOptions.bufferBytes()
+              : AsyncResultSetImpl.UNLIMITED_BUFFER_BYTES;
       return new AutoClosingReadContextAsyncResultSetImpl(
           sessionPool.sessionClient.getSpanner().getAsyncExecutorProvider(),
           wrap(
@@ -497,7 +520,8 @@ class SessionPool {
                   return getReadContextDelegate().executeQuery(statement, options);
                 }
               }),
-          bufferRows);
+          bufferRows,
+          bufferBytes);
     }
 
     @Override
@@ -1307,10 +1331,8 @@ class SessionPool {
           return delegate.asyncClose();
         }
       } finally {
-        synchronized (lock) {
-          leakedException = null;
-          checkedOutSessions.remove(this);
-        }
+        leakedException = null;
+        checkedOutSessions.remove(this);
       }
       return ApiFutures.immediateFuture(Empty.getDefaultInstance());
     }
@@ -1339,10 +1361,8 @@ class SessionPool {
         if (res != null) {
           res.markBusy(span);
           span.addAnnotation(sessionAnnotation(res));
-          synchronized (lock) {
-            incrementNumSessionsInUse();
-            checkedOutSessions.add(this);
-          }
+          incrementNumSessionsInUse(res);
+          checkedOutSessions.add(this);
           res.eligibleForLongRunning = eligibleForLongRunning;
         }
         initialized.countDown();
@@ -1533,10 +1553,7 @@ class SessionPool {
 
     @Override
     public void close() {
-      synchronized (lock) {
-        numSessionsInUse--;
-        numSessionsReleased++;
-      }
+      decrementNumSessionsInUse(this);
       if ((lastException != null && isSessionNotFound(lastException)) || isRemovedFromPool) {
         invalidateSession(this);
       } else {
@@ -1571,19 +1588,60 @@ class SessionPool {
     }
 
     private void keepAlive() {
+      keepAlive(Statement.newBuilder("SELECT 1").build());
+    }
+
+    private void keepAlive(Statement statement) {
       markUsed();
       final Span previousSpan = delegate.getCurrentSpan();
       delegate.setCurrentSpan(BlankSpan.INSTANCE);
       try (ResultSet resultSet =
           delegate
               .singleUse(TimestampBound.ofMaxStaleness(60, TimeUnit.SECONDS))
-              .executeQuery(Statement.newBuilder("SELECT 1").build())) {
+              .executeQuery(statement)) {
         resultSet.next();
       } finally {
         delegate.setCurrentSpan(previousSpan);
       }
     }
 
+    /**
+     * Executes the given warm-up statement on this session in a background task and releases the
+     * session into the pool when it is done.
+     */
+    private ApiFuture<Void> executeWarmupQueryAsync(final Statement statement) {
+      final SettableApiFuture<Void> result = SettableApiFuture.create();
+      try {
+        executor.submit(
+            () -> {
+              Throwable error = null;
+              try {
+                keepAlive(statement);
+              } catch (Throwable t) {
+                error = t;
+              }
+              try {
+                if (error instanceof SpannerException) {
+                  handleException((SpannerException) error, this);
+                } else {
+                  releaseSession(this, false);
+                }
+              } finally {
+                if (error == null) {
+                  result.set(null);
+                } else {
+                  result.setException(error);
+                }
+              }
+            });
+      } catch (RejectedExecutionException e) {
+        // The pool is being closed.
+        releaseSession(this, false);
+        result.setException(e);
+      }
+      return result;
+    }
+
     private void determineDialectAsync(final SettableFuture<Dialect> dialect) {
       Preconditions.checkNotNull(dialect);
       executor.submit(
@@ -1815,6 +1873,21 @@ class SessionPool {
         // all sessions that have a lastUseTime before that time, unless it would cause us to go
         // below MinSessions.
         Instant minLastUseTime = currTime.minus(options.getRemoveInactiveSessionAfter());
+        if (shardedSessions != null) {
+          for (PooledSession session :
+              shardedSessions.removeIf(
+                  idleSession ->
+                      idleSession.delegate.getLastUseTime().isBefore(minLastUseTime)
+                          && idleSession.state != SessionState.CLOSING)) {
+            if (removeFromPool(session)) {
+              numIdleSessionsRemoved++;
+              if (idleSessionRemovedListener != null) {
+                idleSessionRemovedListener.apply(session);
+              }
+            }
+          }
+          return;
+        }
         Iterator<PooledSession> iterator = sessions.descendingIterator();
         while (iterator.hasNext()) {
           PooledSession session = iterator.next();
@@ -1837,7 +1910,7 @@ class SessionPool {
     private void keepAliveSessions(Instant currTime) {
       long numSessionsToKeepAlive = 0;
       synchronized (lock) {
-        if (numSessionsInUse >= (options.getMinSessions() + options.getMaxIdleSessions())) {
+        if (numSessionsInUse.get() >= (options.getMinSessions() + options.getMaxIdleSessions())) {
           // At least MinSessions are in use, so we don't have to ping any sessions.
           return;
         }
@@ -1847,7 +1920,7 @@ class SessionPool {
                 Math.ceil(
                     (double)
                             ((options.getMinSessions() + options.getMaxIdleSessions())
-                                - numSessionsInUse)
+                                - numSessionsInUse.get())
                         / numKeepAliveCycles);
       }
       // Now go over all the remaining sessions and see if they need to be kept alive explicitly.
@@ -1857,7 +1930,14 @@ class SessionPool {
       while (numSessionsToKeepAlive > 0) {
         PooledSession sessionToKeepAlive = null;
         synchronized (lock) {
-          sessionToKeepAlive = findSessionToKeepAlive(sessions, keepAliveThreshold, 0);
+          sessionToKeepAlive =
+              shardedSessions == null
+                  ? findSessionToKeepAlive(sessions, keepAliveThreshold, 0)
+                  : shardedSessions.removeFirstMatching(
+                      session -> session.delegate.getLastUseTime().isBefore(keepAliveThreshold),
+                      options.getMinSessions()
+                          + options.getMaxIdleSessions()
+                          - numSessionsInUse.get());
         }
         if (sessionToKeepAlive == null) {
           break;
@@ -1995,6 +2075,8 @@ class SessionPool {
   private final SettableFuture<Dialect> dialect = SettableFuture.create();
   private final String databaseRole;
   private final SessionClient sessionClient;
+  /** The latency metrics of this pool, or null if no latency metrics should be recorded. */
+  @Nullable private volatile LatencyMetrics latencyMetrics;
   private final ScheduledExecutorService executor;
   private final ExecutorFactory<ScheduledExecutorService> executorFactory;
 
@@ -2019,13 +2101,13 @@ class SessionPool {
   private int pendingClosure;
 
   @GuardedBy("lock")
-  private SettableFuture<Void> closureFuture;
+  private volatile SettableFuture<Void> closureFuture;
 
   @GuardedBy("lock")
   private ClosedException closedException;
 
   @GuardedBy("lock")
-  private ResourceNotFoundException resourceNotFoundException;
+  private volatile ResourceNotFoundException resourceNotFoundException;
 
   @GuardedBy("lock")
   private boolean stopAutomaticPrepare;
@@ -2033,23 +2115,46 @@ class SessionPool {
   @GuardedBy("lock")
   private final LinkedList<PooledSession> sessions = new LinkedList<>();
 
+  /**
+   * The idle sessions of the pool sharded by gRPC channel. This is only set if {@link
+   * SessionPoolOptions#isUseChannelShardedSessions()} is enabled, in which case it is used instead
+   * of {@link #sessions}. Each shard is guarded by its own lock, which allows sessions to be
+   * checked out and released without taking the pool-wide lock.
+   */
+  @Nullable private final ChannelShardedSessionQueue<PooledSession> shardedSessions;
+
+  /**
+   * The number of checked out sessions per shard of {@link #shardedSessions}. Sessions are checked
+   * out from the shard with the lowest number of checked out sessions in order to keep the load
+   * evenly balanced over all channels.
+   */
+  @Nullable private final AtomicIntegerArray numCheckedOutSessionsPerShard;
+
+  /**
+   * Returns the load of a shard of {@link #shardedSessions}. This is either the number of checked
+   * out sessions of the shard, or the number of outstanding requests on the channel of the shard if
+   * {@link SessionPoolOptions#isUseLeastOutstandingRequestsChannelSelection()} is enabled.
+   */
+  @Nullable private final IntUnaryOperator loadOfShard;
+
+  /**
+   * The waiters for a session. Modifications are always done while holding the pool-wide lock. The
+   * queue is a concurrent queue if {@link #shardedSessions} is used, as releasing a session into a
+   * sharded pool checks whether there are any waiters without taking the lock.
+   */
   @GuardedBy("lock")
-  private final Queue<WaiterFuture> waiters = new LinkedList<>();
+  private final Queue<WaiterFuture> waiters;
 
   @GuardedBy("lock")
   private int numSessionsBeingCreated = 0;
 
-  @GuardedBy("lock")
-  private int numSessionsInUse = 0;
+  private final AtomicInteger numSessionsInUse = new AtomicInteger();
 
-  @GuardedBy("lock")
-  private int maxSessionsInUse = 0;
+  private final AtomicInteger maxSessionsInUse = new AtomicInteger();
 
-  @GuardedBy("lock")
-  private long numSessionsAcquired = 0;
+  private final LongAdder numSessionsAcquired = new LongAdder();
 
-  @GuardedBy("lock")
-  private long numSessionsReleased = 0;
+  private final LongAdder numSessionsReleased = new LongAdder();
 
   @GuardedBy("lock")
   private long numIdleSessionsRemoved = 0;
@@ -2062,9 +2167,8 @@ class SessionPool {
   @GuardedBy("lock")
   private final Set<PooledSession> allSessions = new HashSet<>();
 
-  @GuardedBy("lock")
   @VisibleForTesting
-  final Set<PooledSessionFuture> checkedOutSessions = new HashSet<>();
+  final Set<PooledSessionFuture> checkedOutSessions = ConcurrentHashMap.newKeySet();
 
   private final SessionConsumer sessionConsumer = new SessionConsumerImpl();
 
@@ -2074,6 +2178,19 @@ class SessionPool {
 
   private final CountDownLatch waitOnMinSessionsLatch;
 
+  /** The value of {@link System#nanoTime()} when this pool was created. */
+  private final long poolCreationNanos;
+
+  /**
+   * The time it took to create {@link SessionPoolOptions#getMinSessions()} sessions, or null if the
+   * pool has not yet contained that many sessions.
+   */
+  private volatile Duration minSessionsCreationDuration;
+
+  /** Futures that are completed when the pool contains at least minSessions sessions. */
+  @GuardedBy("lock")
+  private final List<SettableApiFuture<Void>> minSessionsWaiters = new ArrayList<>();
+
   /**
    * Create a session pool with the given options and for the given database. It will also start
    * eagerly creating sessions if {@link SessionPoolOptions#getMinSessions()} is greater than 0.
@@ -2086,15 +2203,19 @@ class SessionPool {
 
     // A clock instance is passed in {@code SessionPoolOptions} in order to allow mocking via tests.
     final Clock poolMaintainerClock = sessionPoolOptions.getPoolMaintainerClock();
-    return createPool(
-        sessionPoolOptions,
-        spannerOptions.getDatabaseRole(),
-        ((GrpcTransportOptions) spannerOptions.getTransportOptions()).getExecutorFactory(),
-        sessionClient,
-        poolMaintainerClock == null ? new Clock() : poolMaintainerClock,
-        Position.RANDOM,
-        Metrics.getMetricRegistry(),
-        labelValues);
+    SessionPool pool =
+        createPool(
+            sessionPoolOptions,
+            spannerOptions.getDatabaseRole(),
+            ((GrpcTransportOptions) spannerOptions.getTransportOptions()).getExecutorFactory(),
+            sessionClient,
+            poolMaintainerClock == null ? new Clock() : poolMaintainerClock,
+            Position.RANDOM,
+            Metrics.getMetricRegistry(),
+            labelValues);
+    pool.latencyMetrics =
+        sessionClient.getSpanner().getLatencyMetrics(sessionClient.getDatabaseId());
+    return pool;
   }
 
   static SessionPool createPool(
@@ -2162,10 +2283,134 @@ class SessionPool {
     this.sessionClient = sessionClient;
     this.clock = clock;
     this.initialReleasePosition = initialReleasePosition;
+    if (options.isUseChannelShardedSessions()) {
+      int numChannels = sessionClient.getSpanner().getOptions().getNumChannels();
+      this.shardedSessions =
+          new ChannelShardedSessionQueue<>(numChannels, options.getMaxSessions());
+      this.numCheckedOutSessionsPerShard = new AtomicIntegerArray(numChannels);
+      if (options.isUseLeastOutstandingRequestsChannelSelection()
+          && !sessionClient.getSpanner().getOptions().usesDynamicChannelPool()) {
+        // The pool has one shard per channel, so the index of a shard is equal to its channel.
+        // This is not the case for a dynamic channel pool, which maps the channel hint of a shard
+        // to a channel based on the current size of the pool.
+        SpannerRpc rpc = sessionClient.getSpanner().getRpc();
+        this.loadOfShard = rpc::getNumOutstandingRequests;
+      } else {
+        this.loadOfShard = numCheckedOutSessionsPerShard::get;
+      }
+      this.waiters = new ConcurrentLinkedQueue<>();
+    } else {
+      this.shardedSessions = null;
+      this.numCheckedOutSessionsPerShard = null;
+      this.loadOfShard = null;
+      this.waiters = new LinkedList<>();
+    }
     this.poolMaintainer = new PoolMaintainer();
     this.initMetricsCollection(metricRegistry, labelValues);
     this.waitOnMinSessionsLatch =
         options.getMinSessions() > 0 ? new CountDownLatch(1) : new CountDownLatch(0);
+    this.poolCreationNanos = System.nanoTime();
+    if (options.getMinSessions() == 0) {
+      this.minSessionsCreationDuration = Duration.ZERO;
+    }
+  }
+
+  /**
+   * Warms up this pool. The returned future is done when the pool contains at least {@link
+   * SessionPoolOptions#getMinSessions()} sessions, and the given statement has been executed on one
+   * idle session of each gRPC channel that has a session in the pool. The initial sessions of the
+   * pool are created in parallel and are distributed evenly over all channels, which means that
+   * the connection of each channel has been established when the returned future is done.
+   */
+  ApiFuture<SessionPoolWarmupStats> warmup(final Statement statement) {
+    Preconditions.checkNotNull(statement);
+    final long startNanos = System.nanoTime();
+    final SettableApiFuture<Void> minSessionsCreated = SettableApiFuture.create();
+    synchronized (lock) {
+      if (closureFuture != null) {
+        return ApiFutures.immediateFailedFuture(
+            new IllegalStateException("Pool has been closed", closedException));
+      }
+      if (resourceNotFoundException != null) {
+        return ApiFutures.immediateFailedFuture(resourceNotFoundException);
+      }
+      if (allSessions.size() >= options.getMinSessions()) {
+        minSessionsCreated.set(null);
+      } else {
+        minSessionsWaiters.add(minSessionsCreated);
+        // Create any sessions that are missing, for example because creating the initial sessions
+        // of the pool failed.
+        int missing = options.getMinSessions() - (totalSessions() + numSessionsBeingCreated);
+        if (missing > 0) {
+          createSessions(getAllowedCreateSessions(missing), true);
+        }
+      }
+    }
+    return ApiFutures.transformAsync(
+        minSessionsCreated, ignore -> executeWarmupQueries(statement, startNanos), executor);
+  }
+
+  private ApiFuture<SessionPoolWarmupStats> executeWarmupQueries(
+      Statement statement, long startNanos) {
+    int numChannels = sessionClient.getSpanner().getOptions().getNumChannels();
+    final List<PooledSession> warmupSessions = new ArrayList<>(numChannels);
+    final int numSessions;
+    synchronized (lock) {
+      numSessions = allSessions.size();
+      for (int channel = 0; channel < numChannels; channel++) {
+        PooledSession session = removeIdleSessionOfChannel(channel);
+        if (session != null) {
+          warmupSessions.add(session);
+        }
+      }
+    }
+    final long queryStartNanos = System.nanoTime();
+    List<ApiFuture<Void>> queries = new ArrayList<>(warmupSessions.size());
+    for (PooledSession session : warmupSessions) {
+      queries.add(session.executeWarmupQueryAsync(statement));
+    }
+    return ApiFutures.transform(
+        ApiFutures.allAsList(queries),
+        ignore -> {
+          long endNanos = System.nanoTime();
+          return new SessionPoolWarmupStats(
+              numSessions,
+              warmupSessions.size(),
+              minSessionsCreationDuration,
+              Duration.ofNanos(endNanos - queryStartNanos),
+              Duration.ofNanos(endNanos - startNanos));
+        },
+        MoreExecutors.directExecutor());
+  }
+
+  /** Removes and returns an idle session that uses the given channel, or null if there is none. */
+  @GuardedBy("lock")
+  private PooledSession removeIdleSessionOfChannel(int channel) {
+    if (shardedSessions != null) {
+      return shardedSessions.removeFirstMatching(
+          session -> session.getChannel() == channel, shardedSessions.size());
+    }
+    Iterator<PooledSession> iterator = sessions.iterator();
+    while (iterator.hasNext()) {
+      PooledSession session = iterator.next();
+      if (session.getChannel() == channel) {
+        iterator.remove();
+        return session;
+      }
+    }
+    return null;
+  }
+
+  @GuardedBy("lock")
+  private void completeMinSessionsWaiters(@Nullable SpannerException e) {
+    for (SettableApiFuture<Void> waiter : minSessionsWaiters) {
+      if (e == null) {
+        waiter.set(null);
+      } else {
+        waiter.setException(e);
+      }
+    }
+    minSessionsWaiters.clear();
   }
 
   /**
@@ -2208,9 +2453,7 @@ class SessionPool {
 
   @VisibleForTesting
   int getNumberOfSessionsInUse() {
-    synchronized (lock) {
-      return numSessionsInUse;
-    }
+    return numSessionsInUse.get();
   }
 
   @VisibleForTesting
@@ -2220,7 +2463,7 @@ class SessionPool {
       if (maxSessions == 0) {
         return 0;
       }
-      return (double) numSessionsInUse / maxSessions;
+      return (double) numSessionsInUse.get() / maxSessions;
     }
   }
 
@@ -2251,6 +2494,9 @@ class SessionPool {
 
   @VisibleForTesting
   int getNumberOfSessionsInPool() {
+    if (shardedSessions != null) {
+      return shardedSessions.size();
+    }
     synchronized (lock) {
       return sessions.size();
     }
@@ -2317,7 +2563,7 @@ class SessionPool {
     Iterator<PooledSession> iterator = queue.iterator();
     while (iterator.hasNext()
         && (numChecked + numAlreadyChecked)
-            < (options.getMinSessions() + options.getMaxIdleSessions() - numSessionsInUse)) {
+            < (options.getMinSessions() + options.getMaxIdleSessions() - numSessionsInUse.get())) {
       PooledSession session = iterator.next();
       if (session.delegate.getLastUseTime().isBefore(keepAliveThreshold)) {
         iterator.remove();
@@ -2351,10 +2597,19 @@ class SessionPool {
    * </ol>
    */
   PooledSessionFuture getSession() throws SpannerException {
+    long startNanos = latencyMetrics == null ? 0L : System.nanoTime();
     Span span = Tracing.getTracer().getCurrentSpan();
     span.addAnnotation("Acquiring session");
     WaiterFuture waiter = null;
     PooledSession sess = null;
+    if (shardedSessions != null && closureFuture == null && resourceNotFoundException == null) {
+      // Fast path for sharded pools: Try to get an idle session without taking the pool-wide lock.
+      sess = shardedSessions.pollLeastLoaded(loadOfShard);
+      if (sess != null) {
+        span.addAnnotation("Acquired session");
+        return checkoutSession(span, sess, null, startNanos);
+      }
+    }
     synchronized (lock) {
       if (closureFuture != null) {
         span.addAnnotation("Pool has been closed");
@@ -2369,29 +2624,55 @@ class SessionPool {
                 resourceNotFoundException.getMessage()),
             resourceNotFoundException);
       }
-      sess = sessions.poll();
+      sess = pollIdleSession();
       if (sess == null) {
         span.addAnnotation("No session available");
         maybeCreateSession();
         waiter = new WaiterFuture();
         waiters.add(waiter);
-      } else {
+        if (shardedSessions != null) {
+          // Sessions are released into a sharded pool without taking the pool-wide lock. Check
+          // once more whether a session was released after the previous poll, but before the
+          // waiter was registered. Any session that is released after this point will be handed
+          // to the waiter by the thread that releases it.
+          sess = pollIdleSession();
+          if (sess != null) {
+            waiters.remove(waiter);
+            waiter = null;
+          }
+        }
+      }
+      if (sess != null) {
         span.addAnnotation("Acquired session");
       }
-      return checkoutSession(span, sess, waiter);
+      return checkoutSession(span, sess, waiter, startNanos);
     }
   }
 
   private PooledSessionFuture checkoutSession(
-      final Span span, final PooledSession readySession, WaiterFuture waiter) {
+      final Span span, final PooledSession readySession, WaiterFuture waiter, long startNanos) {
     ListenableFuture<PooledSession> sessionFuture;
+    final LatencyMetrics metrics = latencyMetrics;
     if (waiter != null) {
       logger.log(
           Level.FINE,
           "No session available in the pool. Blocking for one to become available/created");
       span.addAnnotation("Waiting for a session to come available");
       sessionFuture = waiter;
+      if (metrics != null) {
+        waiter.addListener(
+            () ->
+                metrics.record(
+                    LatencyMetrics.Phase.SESSION_ACQUIRE,
+                    LatencyMetrics.METHOD_GET_SESSION,
+                    startNanos),
+            MoreExecutors.directExecutor());
+      }
     } else {
+      if (metrics != null) {
+        metrics.record(
+            LatencyMetrics.Phase.SESSION_ACQUIRE, LatencyMetrics.METHOD_GET_SESSION, startNanos);
+      }
       SettableFuture<PooledSession> fut = SettableFuture.create();
       fut.set(readySession);
       sessionFuture = fut;
@@ -2403,11 +2684,8 @@ class SessionPool {
 
   PooledSessionFuture replaceSession(SessionNotFoundException e, PooledSessionFuture session) {
     if (!options.isFailIfSessionNotFound() && session.get().allowReplacing) {
-      synchronized (lock) {
-        numSessionsInUse--;
-        numSessionsReleased++;
-        checkedOutSessions.remove(session);
-      }
+      decrementNumSessionsInUse(session.get());
+      checkedOutSessions.remove(session);
       session.leakedException = null;
       invalidateSession(session.get());
       return getSession();
@@ -2422,12 +2700,33 @@ class SessionPool {
         "Using Session", ImmutableMap.of("sessionId", sessionId));
   }
 
-  private void incrementNumSessionsInUse() {
-    synchronized (lock) {
-      if (maxSessionsInUse < ++numSessionsInUse) {
-        maxSessionsInUse = numSessionsInUse;
-      }
-      numSessionsAcquired++;
+  /** Returns an idle session from the pool, or null if there are no idle sessions. */
+  @GuardedBy("lock")
+  private PooledSession pollIdleSession() {
+    if (shardedSessions != null) {
+      return shardedSessions.pollLeastLoaded(loadOfShard);
+    }
+    return sessions.poll();
+  }
+
+  private void incrementNumSessionsInUse(PooledSession session) {
+    int inUse = numSessionsInUse.incrementAndGet();
+    if (maxSessionsInUse.get() < inUse) {
+      maxSessionsInUse.accumulateAndGet(inUse, Math::max);
+    }
+    numSessionsAcquired.increment();
+    if (numCheckedOutSessionsPerShard != null) {
+      numCheckedOutSessionsPerShard.incrementAndGet(
+          shardedSessions.shardOf(session.getChannel()));
+    }
+  }
+
+  private void decrementNumSessionsInUse(PooledSession session) {
+    numSessionsInUse.decrementAndGet();
+    numSessionsReleased.increment();
+    if (numCheckedOutSessionsPerShard != null) {
+      numCheckedOutSessionsPerShard.decrementAndGet(
+          shardedSessions.shardOf(session.getChannel()));
     }
   }
 
@@ -2454,6 +2753,10 @@ class SessionPool {
   /** Releases a session back to the pool. This might cause one of the waiters to be unblocked. */
   private void releaseSession(PooledSession session, boolean isNewSession) {
     Preconditions.checkNotNull(session);
+    if (shardedSessions != null) {
+      releaseShardedSession(session);
+      return;
+    }
     synchronized (lock) {
       if (closureFuture != null) {
         return;
@@ -2491,6 +2794,45 @@ class SessionPool {
     }
   }
 
+  /**
+   * Releases a session into the shard of its channel. The pool-wide lock is only taken if there
+   * are threads waiting for a session.
+   */
+  private void releaseShardedSession(PooledSession session) {
+    if (closureFuture != null) {
+      return;
+    }
+    if (waiters.isEmpty()) {
+      shardedSessions.addFirst(session.getChannel(), session);
+      if (waiters.isEmpty()) {
+        return;
+      }
+      // A waiter was registered while the session was being released. Hand the session (or any
+      // other idle session) over to the waiter, as the waiter might have missed it.
+      synchronized (lock) {
+        while (closureFuture == null && !waiters.isEmpty()) {
+          PooledSession idleSession = shardedSessions.pollLeastLoaded(loadOfShard);
+          if (idleSession == null) {
+            break;
+          }
+          waiters.poll().put(idleSession);
+        }
+      }
+    } else {
+      synchronized (lock) {
+        if (closureFuture != null) {
+          return;
+        }
+        WaiterFuture waiter = waiters.poll();
+        if (waiter == null) {
+          shardedSessions.addFirst(session.getChannel(), session);
+        } else {
+          waiter.put(session);
+        }
+      }
+    }
+  }
+
   private boolean isUnbalanced(PooledSession session) {
     int channel = session.getChannel();
     int numChannels = sessionClient.getSpanner().getOptions().getNumChannels();
@@ -2586,6 +2928,7 @@ class SessionPool {
       if (!dialect.isDone()) {
         dialect.setException(e);
       }
+      completeMinSessionsWaiters(e);
       if (isDatabaseOrInstanceNotFound(e)) {
         setResourceNotFoundException((ResourceNotFoundException) e);
         poolMaintainer.close();
@@ -2622,6 +2965,7 @@ class SessionPool {
         waiter.put(newSpannerException(ErrorCode.INTERNAL, "Client has been closed"));
         waiter = waiters.poll();
       }
+      completeMinSessionsWaiters(newSpannerException(ErrorCode.INTERNAL, "Client has been closed"));
       closureFuture = SettableFuture.create();
       retFuture = closureFuture;
 
@@ -2633,6 +2977,9 @@ class SessionPool {
       }
 
       sessions.clear();
+      if (shardedSessions != null) {
+        shardedSessions.clear();
+      }
       for (PooledSessionFuture session : checkedOutSessions) {
         if (session.leakedException != null) {
           if (options.isFailOnSessionLeak()) {
@@ -2763,6 +3110,10 @@ class SessionPool {
           allSessions.add(pooledSession);
           if (allSessions.size() >= minSessions) {
             waitOnMinSessionsLatch.countDown();
+            if (minSessionsCreationDuration == null) {
+              minSessionsCreationDuration = Duration.ofNanos(System.nanoTime() - poolCreationNanos);
+            }
+            completeMinSessionsWaiters(null);
           }
           if (options.isAutoDetectDialect() && !detectDialectStarted) {
             // Get the dialect of the underlying database if that has not yet been done. Note that
@@ -2861,7 +3212,7 @@ class SessionPool {
     // invoked whenever metrics are collected.
     maxInUseSessionsMetric.removeTimeSeries(labelValues);
     maxInUseSessionsMetric.createTimeSeries(
-        labelValues, this, sessionPool -> sessionPool.maxSessionsInUse);
+        labelValues, this, sessionPool -> sessionPool.maxSessionsInUse.get());
 
     // The value of a maxSessions is observed from a callback function. This function is invoked
     // whenever metrics are collected.
@@ -2876,11 +3227,11 @@ class SessionPool {
 
     numAcquiredSessionsMetric.removeTimeSeries(labelValues);
     numAcquiredSessionsMetric.createTimeSeries(
-        labelValues, this, sessionPool -> sessionPool.numSessionsAcquired);
+        labelValues, this, sessionPool -> sessionPool.numSessionsAcquired.sum());
 
     numReleasedSessionsMetric.removeTimeSeries(labelValues);
     numReleasedSessionsMetric.createTimeSeries(
-        labelValues, this, sessionPool -> sessionPool.numSessionsReleased);
+        labelValues, this, sessionPool -> sessionPool.numSessionsReleased.sum());
 
     List<LabelValue> labelValuesWithBeingPreparedType = new ArrayList<>(labelValues);
     labelValuesWithBeingPreparedType.add(NUM_SESSIONS_BEING_PREPARED);
@@ -2895,13 +3246,13 @@ class SessionPool {
     labelValuesWithInUseType.add(NUM_IN_USE_SESSIONS);
     numSessionsInPoolMetric.removeTimeSeries(labelValuesWithInUseType);
     numSessionsInPoolMetric.createTimeSeries(
-        labelValuesWithInUseType, this, sessionPool -> sessionPool.numSessionsInUse);
+        labelValuesWithInUseType, this, sessionPool -> sessionPool.numSessionsInUse.get());
 
     List<LabelValue> labelValuesWithReadType = new ArrayList<>(labelValues);
     labelValuesWithReadType.add(NUM_READ_SESSIONS);
     numSessionsInPoolMetric.removeTimeSeries(labelValuesWithReadType);
     numSessionsInPoolMetric.createTimeSeries(
-        labelValuesWithReadType, this, sessionPool -> sessionPool.sessions.size());
+        labelValuesWithReadType, this, SessionPool::getNumberOfSessionsInPool);
 
     List<LabelValue> labelValuesWithWriteType = new ArrayList<>(labelValues);
     labelValuesWithWriteType.add(NUM_WRITE_SESSIONS);
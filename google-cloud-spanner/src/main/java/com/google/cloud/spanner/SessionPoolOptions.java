@@ -64,6 +64,10 @@ public class SessionPoolOptions {
   private final Duration waitForMinSessions;
   private final Duration acquireSessionTimeout;
   private final Position releaseToPosition;
+  private final boolean useChannelShardedSessions;
+  private final boolean useLeastOutstandingRequestsChannelSelection;
+  private final boolean useMultiplexedSession;
+  private final Duration multiplexedSessionMaintenanceDuration;
 
   /** Property for allowing mocking of session maintenance clock. */
   private final Clock poolMaintainerClock;
@@ -89,6 +93,11 @@ public class SessionPoolOptions {
     this.waitForMinSessions = builder.waitForMinSessions;
     this.acquireSessionTimeout = builder.acquireSessionTimeout;
     this.releaseToPosition = builder.releaseToPosition;
+    this.useChannelShardedSessions = builder.useChannelShardedSessions;
+    this.useLeastOutstandingRequestsChannelSelection =
+        builder.useLeastOutstandingRequestsChannelSelection;
+    this.useMultiplexedSession = builder.useMultiplexedSession;
+    this.multiplexedSessionMaintenanceDuration = builder.multiplexedSessionMaintenanceDuration;
     this.inactiveTransactionRemovalOptions = builder.inactiveTransactionRemovalOptions;
     this.poolMaintainerClock = builder.poolMaintainerClock;
   }
@@ -118,6 +127,14 @@ public class SessionPoolOptions {
         && Objects.equals(this.waitForMinSessions, other.waitForMinSessions)
         && Objects.equals(this.acquireSessionTimeout, other.acquireSessionTimeout)
         && Objects.equals(this.releaseToPosition, other.releaseToPosition)
+        && Objects.equals(this.useChannelShardedSessions, other.useChannelShardedSessions)
+        && Objects.equals(
+            this.useLeastOutstandingRequestsChannelSelection,
+            other.useLeastOutstandingRequestsChannelSelection)
+        && Objects.equals(this.useMultiplexedSession, other.useMultiplexedSession)
+        && Objects.equals(
+            this.multiplexedSessionMaintenanceDuration,
+            other.multiplexedSessionMaintenanceDuration)
         && Objects.equals(
             this.inactiveTransactionRemovalOptions, other.inactiveTransactionRemovalOptions)
         && Objects.equals(this.poolMaintainerClock, other.poolMaintainerClock);
@@ -143,6 +160,10 @@ public class SessionPoolOptions {
         this.waitForMinSessions,
         this.acquireSessionTimeout,
         this.releaseToPosition,
+        this.useChannelShardedSessions,
+        this.useLeastOutstandingRequestsChannelSelection,
+        this.useMultiplexedSession,
+        this.multiplexedSessionMaintenanceDuration,
         this.inactiveTransactionRemovalOptions,
         this.poolMaintainerClock);
   }
@@ -263,6 +284,22 @@ public class SessionPoolOptions {
     return releaseToPosition;
   }
 
+  public boolean isUseChannelShardedSessions() {
+    return useChannelShardedSessions;
+  }
+
+  public boolean isUseLeastOutstandingRequestsChannelSelection() {
+    return useLeastOutstandingRequestsChannelSelection;
+  }
+
+  public boolean getUseMultiplexedSession() {
+    return useMultiplexedSession;
+  }
+
+  Duration getMultiplexedSessionMaintenanceDuration() {
+    return multiplexedSessionMaintenanceDuration;
+  }
+
   public static Builder newBuilder() {
     return new Builder();
   }
@@ -451,6 +488,10 @@ public class SessionPoolOptions {
     private Duration waitForMinSessions = Duration.ZERO;
     private Duration acquireSessionTimeout = Duration.ofSeconds(60);
     private Position releaseToPosition = getReleaseToPositionFromSystemProperty();
+    private boolean useChannelShardedSessions = false;
+    private boolean useLeastOutstandingRequestsChannelSelection = false;
+    private boolean useMultiplexedSession = false;
+    private Duration multiplexedSessionMaintenanceDuration = Duration.ofDays(7);
 
     private Clock poolMaintainerClock;
 
@@ -487,6 +528,11 @@ public class SessionPoolOptions {
       this.autoDetectDialect = options.autoDetectDialect;
       this.waitForMinSessions = options.waitForMinSessions;
       this.acquireSessionTimeout = options.acquireSessionTimeout;
+      this.useChannelShardedSessions = options.useChannelShardedSessions;
+      this.useLeastOutstandingRequestsChannelSelection =
+          options.useLeastOutstandingRequestsChannelSelection;
+      this.useMultiplexedSession = options.useMultiplexedSession;
+      this.multiplexedSessionMaintenanceDuration = options.multiplexedSessionMaintenanceDuration;
       this.inactiveTransactionRemovalOptions = options.inactiveTransactionRemovalOptions;
       this.poolMaintainerClock = options.poolMaintainerClock;
     }
@@ -764,6 +810,80 @@ public class SessionPoolOptions {
       return this;
     }
 
+    /**
+     * Sets whether the session pool should keep its idle sessions in one queue per gRPC channel
+     * instead of in a single list that is guarded by the pool-wide lock. Checking out and releasing
+     * a session then only locks the queue of the channel of that session, which significantly
+     * reduces lock contention for applications that execute a large number of transactions in
+     * parallel. Sessions are checked out from the channel that has the lowest number of checked
+     * out sessions, which keeps the load balanced over all channels.
+     *
+     * <p>Defaults to false.
+     *
+     * @param useChannelShardedSessions whether the session pool should shard its idle sessions by
+     *     gRPC channel
+     * @return this builder for chaining
+     */
+    public Builder setUseChannelShardedSessions(boolean useChannelShardedSessions) {
+      this.useChannelShardedSessions = useChannelShardedSessions;
+      return this;
+    }
+
+    /**
+     * Sets whether the session pool should check out sessions from the gRPC channel with the
+     * lowest number of outstanding RPCs and streams, instead of from the channel with the lowest
+     * number of checked out sessions. The number of checked out sessions of a channel does not
+     * always reflect how busy the channel is, as a single checked out session can for example have
+     * multiple open streams, or be idle while the application is processing results. This option
+     * requires {@link #setUseChannelShardedSessions(boolean)} to be enabled. It has no effect if
+     * a dynamic channel pool is used, see {@link
+     * SpannerOptions.Builder#setChannelPoolSettings(com.google.api.gax.grpc.ChannelPoolSettings)}.
+     *
+     * <p>Defaults to false.
+     *
+     * @param useLeastOutstandingRequestsChannelSelection whether sessions should be checked out
+     *     from the channel with the lowest number of outstanding requests
+     * @return this builder for chaining
+     */
+    public Builder setUseLeastOutstandingRequestsChannelSelection(
+        boolean useLeastOutstandingRequestsChannelSelection) {
+      this.useLeastOutstandingRequestsChannelSelection =
+          useLeastOutstandingRequestsChannelSelection;
+      return this;
+    }
+
+    /**
+     * Sets whether the client should use a multiplexed session for read-only operations. A
+     * multiplexed session can be used for any number of concurrent read-only transactions. When
+     * this option is enabled, all single-use read operations and read-only transactions that are
+     * started through a {@link DatabaseClient} are executed on a multiplexed session instead of on
+     * a session that is checked out from the session pool. This removes the session checkout from
+     * the critical path of read-only operations, and means that the number of concurrent read-only
+     * operations is not limited by {@link #setMaxSessions(int)}. Read/write transactions and
+     * mutations still use sessions from the session pool.
+     *
+     * <p>Default is false.
+     *
+     * @param useMultiplexedSession whether read-only operations should use a multiplexed session
+     * @return this builder for chaining
+     */
+    public Builder setUseMultiplexedSession(boolean useMultiplexedSession) {
+      this.useMultiplexedSession = useMultiplexedSession;
+      return this;
+    }
+
+    /**
+     * Sets the duration after which the client replaces its multiplexed session with a new one.
+     * The old multiplexed session continues to be used until the new session has been created.
+     * Default is 7 days.
+     */
+    @VisibleForTesting
+    Builder setMultiplexedSessionMaintenanceDuration(
+        Duration multiplexedSessionMaintenanceDuration) {
+      this.multiplexedSessionMaintenanceDuration = multiplexedSessionMaintenanceDuration;
+      return this;
+    }
+
     /** Build a SessionPoolOption object */
     public SessionPoolOptions build() {
       validate();
@@ -780,6 +900,14 @@ public class SessionPoolOptions {
       }
       Preconditions.checkArgument(
           keepAliveIntervalMinutes < 60, "Keep alive interval should be less than" + "60 minutes");
+      Preconditions.checkArgument(
+          multiplexedSessionMaintenanceDuration != null
+              && !multiplexedSessionMaintenanceDuration.isNegative()
+              && !multiplexedSessionMaintenanceDuration.isZero(),
+          "Multiplexed session maintenance duration must be > 0");
+      Preconditions.checkArgument(
+          !useLeastOutstandingRequestsChannelSelection || useChannelShardedSessions,
+          "Least outstanding requests channel selection requires channel sharded sessions");
     }
   }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import com.google.common.base.MoreObjects;
+import org.threeten.bp.Duration;
+
+/**
+ * Timing statistics of warming up the session pool of a {@link DatabaseClient}. These are returned
+ * by {@link DatabaseClient#warmup(Statement)}.
+ */
+public final class SessionPoolWarmupStats {
+  private final int numSessions;
+  private final int numChannels;
+  private final Duration sessionCreationDuration;
+  private final Duration warmupQueryDuration;
+  private final Duration totalDuration;
+
+  SessionPoolWarmupStats(
+      int numSessions,
+      int numChannels,
+      Duration sessionCreationDuration,
+      Duration warmupQueryDuration,
+      Duration totalDuration) {
+    this.numSessions = numSessions;
+    this.numChannels = numChannels;
+    this.sessionCreationDuration = sessionCreationDuration;
+    this.warmupQueryDuration = warmupQueryDuration;
+    this.totalDuration = totalDuration;
+  }
+
+  /** The number of sessions in the pool when the pool was ready. */
+  public int getNumSessions() {
+    return numSessions;
+  }
+
+  /** The number of gRPC channels on which the warm-up query was executed. */
+  public int getNumChannels() {
+    return numChannels;
+  }
+
+  /**
+   * The time between the creation of the session pool and the moment that the pool contained
+   * {@link SessionPoolOptions#getMinSessions()} sessions.
+   */
+  public Duration getSessionCreationDuration() {
+    return sessionCreationDuration;
+  }
+
+  /**
+   * The time that it took to execute the warm-up query on all channels. The queries are executed
+   * in parallel, so this is the execution time of the slowest query.
+   */
+  public Duration getWarmupQueryDuration() {
+    return warmupQueryDuration;
+  }
+
+  /** The time between the call to warm up the pool and the moment that the pool was ready. */
+  public Duration getTotalDuration() {
+    return totalDuration;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("numSessions", numSessions)
+        .add("numChannels", numChannels)
+        .add("sessionCreationDuration", sessionCreationDuration)
+        .add("warmupQueryDuration", warmupQueryDuration)
+        .add("totalDuration", totalDuration)
+        .toString();
+  }
+}
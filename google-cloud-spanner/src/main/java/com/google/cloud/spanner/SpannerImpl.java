@@ -37,12 +37,14 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.spanner.v1.ExecuteSqlRequest.QueryOptions;
 import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.Metrics;
 import io.opencensus.trace.Tracer;
 import io.opencensus.trace.Tracing;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -58,6 +60,8 @@ class SpannerImpl extends BaseService<SpannerOptions> implements Spanner {
   static final Tracer tracer = Tracing.getTracer();
 
   static final String CREATE_SESSION = "CloudSpannerOperation.CreateSession";
+  static final String CREATE_MULTIPLEXED_SESSION =
+      "CloudSpannerOperation.CreateMultiplexedSession";
   static final String BATCH_CREATE_SESSIONS = "CloudSpannerOperation.BatchCreateSessions";
   static final String BATCH_CREATE_SESSIONS_REQUEST =
       "CloudSpannerOperation.BatchCreateSessionsRequest";
@@ -96,6 +100,10 @@ class SpannerImpl extends BaseService<SpannerOptions> implements Spanner {
   @GuardedBy("this")
   private final Map<DatabaseId, SessionClient> sessionClients = new HashMap<>();
 
+  private final Map<DatabaseId, StaleReadCache> staleReadCaches = new ConcurrentHashMap<>();
+
+  private final Map<DatabaseId, LatencyMetrics> latencyMetrics = new ConcurrentHashMap<>();
+
   private final DatabaseAdminClient dbAdminClient;
   private final InstanceAdminClient instanceClient;
 
@@ -148,6 +156,24 @@ class SpannerImpl extends BaseService<SpannerOptions> implements Spanner {
     return getOptions().getDefaultQueryOptions(databaseId);
   }
 
+  /**
+   * Returns the cache for stale query results for the specified database, or null if the cache is
+   * disabled.
+   */
+  @Nullable
+  StaleReadCache getStaleReadCache(DatabaseId databaseId) {
+    return staleReadCaches.get(databaseId);
+  }
+
+  /**
+   * Returns the latency metrics for the specified database, or null if no {@link
+   * io.opentelemetry.api.OpenTelemetry} instance has been configured.
+   */
+  @Nullable
+  LatencyMetrics getLatencyMetrics(DatabaseId databaseId) {
+    return latencyMetrics.get(databaseId);
+  }
+
   /**
    * Returns the {@link ExecutorProvider} to use for async methods that need a background executor.
    */
@@ -219,11 +245,31 @@ class SpannerImpl extends BaseService<SpannerOptions> implements Spanner {
                 LabelValue.create(db.getDatabase()),
                 LabelValue.create(db.getInstanceId().getName()),
                 LabelValue.create(GaxProperties.getLibraryVersion(getOptions().getClass())));
+        if (getOptions().getOpenTelemetry() != null) {
+          latencyMetrics.computeIfAbsent(
+              db, databaseId -> new LatencyMetrics(getOptions().getOpenTelemetry(), databaseId));
+        }
         SessionPool pool =
             SessionPool.createPool(
                 getOptions(), SpannerImpl.this.getSessionClient(db), labelValues);
         pool.maybeWaitOnMinSessions();
-        DatabaseClientImpl dbClient = createDatabaseClient(clientId, pool);
+        if (getOptions().getStaleReadCacheMaxBytes() > 0L && !staleReadCaches.containsKey(db)) {
+          StaleReadCache staleReadCache =
+              new StaleReadCache(getOptions().getStaleReadCacheMaxBytes());
+          staleReadCache.initMetricsCollection(Metrics.getMetricRegistry(), labelValues);
+          staleReadCaches.put(db, staleReadCache);
+        }
+        DatabaseClientImpl dbClient;
+        if (getOptions().getSessionPoolOptions().getUseMultiplexedSession()) {
+          dbClient =
+              createDatabaseClient(
+                  clientId,
+                  pool,
+                  new MultiplexedSessionDatabaseClient(
+                      SpannerImpl.this.getSessionClient(db), getOptions().getSessionPoolOptions()));
+        } else {
+          dbClient = createDatabaseClient(clientId, pool);
+        }
         dbClients.put(db, dbClient);
         return dbClient;
       }
@@ -235,6 +281,14 @@ class SpannerImpl extends BaseService<SpannerOptions> implements Spanner {
     return new DatabaseClientImpl(clientId, pool);
   }
 
+  @VisibleForTesting
+  DatabaseClientImpl createDatabaseClient(
+      String clientId,
+      SessionPool pool,
+      MultiplexedSessionDatabaseClient multiplexedSessionClient) {
+    return new DatabaseClientImpl(clientId, pool, multiplexedSessionClient);
+  }
+
   @Override
   public BatchClient getBatchClient(DatabaseId db) {
     return new BatchClientImpl(getSessionClient(db));
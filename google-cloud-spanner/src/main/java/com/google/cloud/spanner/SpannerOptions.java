@@ -20,6 +20,7 @@ import com.google.api.core.ApiFunction;
 import com.google.api.core.BetaApi;
 import com.google.api.core.InternalApi;
 import com.google.api.gax.core.ExecutorProvider;
+import com.google.api.gax.grpc.ChannelPoolSettings;
 import com.google.api.gax.grpc.GrpcCallContext;
 import com.google.api.gax.grpc.GrpcInterceptorProvider;
 import com.google.api.gax.longrunning.OperationTimedPollAlgorithm;
@@ -61,6 +62,7 @@ import io.grpc.Context;
 import io.grpc.ExperimentalApi;
 import io.grpc.ManagedChannelBuilder;
 import io.grpc.MethodDescriptor;
+import io.opentelemetry.api.OpenTelemetry;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -107,7 +109,12 @@ public class SpannerOptions extends ServiceOptions<Spanner, SpannerOptions> {
   private final GrpcInterceptorProvider interceptorProvider;
   private final SessionPoolOptions sessionPoolOptions;
   private final int prefetchChunks;
+  private final long staleReadCacheMaxBytes;
+  @Nullable private final OpenTelemetry openTelemetry;
   private final int numChannels;
+  /** The number of channels that was set explicitly, or null if the default is used. */
+  @Nullable private final Integer explicitNumChannels;
+  @Nullable private final ChannelPoolSettings channelPoolSettings;
   private final String transportChannelExecutorThreadNameFormat;
   private final String databaseRole;
   private final ImmutableMap<String, String> sessionLabels;
@@ -583,12 +590,18 @@ public class SpannerOptions extends ServiceOptions<Spanner, SpannerOptions> {
 
   protected SpannerOptions(Builder builder) {
     super(SpannerFactory.class, SpannerRpcFactory.class, builder, new SpannerDefaults());
-    numChannels = builder.numChannels == null ? DEFAULT_CHANNELS : builder.numChannels;
+    explicitNumChannels = builder.numChannels;
+    numChannels =
+        builder.numChannels == null ? builder.getDefaultNumChannels() : builder.numChannels;
     Preconditions.checkArgument(
         numChannels >= 1 && numChannels <= MAX_CHANNELS,
         "Number of channels must fall in the range [1, %s], found: %s",
         MAX_CHANNELS,
         numChannels);
+    channelPoolSettings = builder.channelPoolSettings;
+    Preconditions.checkArgument(
+        channelPoolSettings == null || !builder.grpcGcpExtensionEnabled,
+        "A dynamic channel pool cannot be used in combination with the gRPC-GCP extension");
 
     transportChannelExecutorThreadNameFormat = builder.transportChannelExecutorThreadNameFormat;
     channelProvider = builder.channelProvider;
@@ -599,6 +612,8 @@ public class SpannerOptions extends ServiceOptions<Spanner, SpannerOptions> {
             ? builder.sessionPoolOptions
             : SessionPoolOptions.newBuilder().build();
     prefetchChunks = builder.prefetchChunks;
+    staleReadCacheMaxBytes = builder.staleReadCacheMaxBytes;
+    openTelemetry = builder.openTelemetry;
     databaseRole = builder.databaseRole;
     sessionLabels = builder.sessionLabels;
     try {
@@ -708,10 +723,13 @@ public class SpannerOptions extends ServiceOptions<Spanner, SpannerOptions> {
     private GrpcInterceptorProvider interceptorProvider;
 
     private Integer numChannels;
+    private ChannelPoolSettings channelPoolSettings;
 
     private String transportChannelExecutorThreadNameFormat = "Cloud-Spanner-TransportChannel-%d";
 
     private int prefetchChunks = DEFAULT_PREFETCH_CHUNKS;
+    private long staleReadCacheMaxBytes;
+    private OpenTelemetry openTelemetry;
     private SessionPoolOptions sessionPoolOptions;
     private String databaseRole;
     private ImmutableMap<String, String> sessionLabels;
@@ -773,11 +791,16 @@ public class SpannerOptions extends ServiceOptions<Spanner, SpannerOptions> {
           && !options.getHost().equals(this.emulatorHost)) {
         this.emulatorHost = null;
       }
-      this.numChannels = options.numChannels;
+      // Only copy an explicitly set number of channels, so the default is determined again if for
+      // example the channel pool settings are changed.
+      this.numChannels = options.explicitNumChannels;
+      this.channelPoolSettings = options.channelPoolSettings;
       this.transportChannelExecutorThreadNameFormat =
           options.transportChannelExecutorThreadNameFormat;
       this.sessionPoolOptions = options.sessionPoolOptions;
       this.prefetchChunks = options.prefetchChunks;
+      this.staleReadCacheMaxBytes = options.staleReadCacheMaxBytes;
+      this.openTelemetry = options.openTelemetry;
       this.databaseRole = options.databaseRole;
       this.sessionLabels = options.sessionLabels;
       this.spannerStubSettingsBuilder = options.spannerStubSettings.toBuilder();
@@ -873,6 +896,47 @@ public class SpannerOptions extends ServiceOptions<Spanner, SpannerOptions> {
       return this;
     }
 
+    /**
+     * Sets the settings for a dynamically sized pool of gRPC channels. The pool adds channels when
+     * the average number of outstanding RPCs and streams per channel exceeds {@link
+     * ChannelPoolSettings#getMaxRpcsPerChannel()}, and removes channels when the average drops
+     * below {@link ChannelPoolSettings#getMinRpcsPerChannel()}. Each channel supports at most 100
+     * concurrent streams, so the max number of RPCs per channel should be set to a value below
+     * that limit. For example:
+     *
+     * <pre>{@code
+     * SpannerOptions options =
+     *     SpannerOptions.newBuilder()
+     *         .setChannelPoolSettings(
+     *             ChannelPoolSettings.builder()
+     *                 .setMinChannelCount(2)
+     *                 .setInitialChannelCount(4)
+     *                 .setMaxChannelCount(32)
+     *                 .setMinRpcsPerChannel(10)
+     *                 .setMaxRpcsPerChannel(80)
+     *                 .build())
+     *         .build();
+     * }</pre>
+     *
+     * <p>Sessions are assigned to one of {@link #setNumChannels(int)} channel hints. An RPC is
+     * sent on the channel with index {@code hint % poolSize}, where {@code poolSize} is the size
+     * of the pool when the RPC is started. The sessions of multiple hints therefore share a
+     * channel while the pool is smaller than its max size, and sessions are not rebalanced when
+     * the pool grows or shrinks. The number of channel hints defaults to {@link
+     * ChannelPoolSettings#getMaxChannelCount()} when a dynamic channel pool is used, so the
+     * sessions are distributed over all channels when the pool has reached its max size. {@link
+     * SessionPoolOptions.Builder#setUseLeastOutstandingRequestsChannelSelection(boolean)} has no
+     * effect with a dynamic channel pool, as a channel hint does not map to a fixed channel.
+     *
+     * <p>A dynamic channel pool cannot be used in combination with the gRPC-GCP extension, and is
+     * only used if no custom {@link TransportChannelProvider} has been set.
+     */
+    @BetaApi
+    public Builder setChannelPoolSettings(ChannelPoolSettings channelPoolSettings) {
+      this.channelPoolSettings = Preconditions.checkNotNull(channelPoolSettings);
+      return this;
+    }
+
     /** Sets the name format for transport channel threads that should be used by this instance. */
     Builder setTransportChannelExecutorThreadNameFormat(
         String transportChannelExecutorThreadNameFormat) {
@@ -1205,6 +1269,41 @@ public class SpannerOptions extends ServiceOptions<Spanner, SpannerOptions> {
       return this;
     }
 
+    /**
+     * Enables a client-side cache for the results of single-use queries that are executed with a
+     * {@link TimestampBound} of type {@link TimestampBound.Mode#READ_TIMESTAMP}, {@link
+     * TimestampBound.Mode#MIN_READ_TIMESTAMP} or {@link TimestampBound.Mode#MAX_STALENESS}. A
+     * cached result is only returned for a query if the read timestamp of the cached result
+     * satisfies the {@link TimestampBound} of the query. The max staleness of a cached result is
+     * computed using the local clock. Queries with a strong or an exact staleness bound are never
+     * served from the cache.
+     *
+     * <p>The cache is created per database and holds at most {@code maxBytes} bytes of results.
+     * The cache is disabled if {@code maxBytes} is 0, which is the default.
+     */
+    public Builder setStaleReadCacheMaxBytes(long maxBytes) {
+      Preconditions.checkArgument(maxBytes >= 0L, "maxBytes must be >= 0");
+      this.staleReadCacheMaxBytes = maxBytes;
+      return this;
+    }
+
+    /**
+     * Sets the {@link OpenTelemetry} instance that is used to record client-side latency metrics.
+     * The client then records histograms that break the latency of each operation down into the
+     * time to acquire a session, to begin a transaction, to receive the first response of a query
+     * or read, to decode the rows of a result set, to commit a transaction, and the time that is
+     * spent waiting before a retry. The histograms are recorded in milliseconds with the
+     * attributes {@code method} and {@code database}. The names of the histograms start with
+     * {@code spanner.client.}.
+     *
+     * <p>No latency metrics are recorded if no {@link OpenTelemetry} instance is set, which is the
+     * default.
+     */
+    public Builder setOpenTelemetry(OpenTelemetry openTelemetry) {
+      this.openTelemetry = Preconditions.checkNotNull(openTelemetry);
+      return this;
+    }
+
     @Override
     public Builder setHost(String host) {
       super.setHost(host);
@@ -1292,13 +1391,16 @@ public class SpannerOptions extends ServiceOptions<Spanner, SpannerOptions> {
         // As we are using plain text, we should never send any credentials.
         this.setCredentials(NoCredentials.getInstance());
       }
-      if (this.numChannels == null) {
-        this.numChannels =
-            this.grpcGcpExtensionEnabled ? GRPC_GCP_ENABLED_DEFAULT_CHANNELS : DEFAULT_CHANNELS;
-      }
-
       return new SpannerOptions(this);
     }
+
+    /** Returns the number of channels that is used if no number of channels has been set. */
+    private int getDefaultNumChannels() {
+      if (this.channelPoolSettings != null) {
+        return this.channelPoolSettings.getMaxChannelCount();
+      }
+      return this.grpcGcpExtensionEnabled ? GRPC_GCP_ENABLED_DEFAULT_CHANNELS : DEFAULT_CHANNELS;
+    }
   }
 
   /** Returns default instance of {@code SpannerOptions}. */
@@ -1353,6 +1455,24 @@ public class SpannerOptions extends ServiceOptions<Spanner, SpannerOptions> {
     return numChannels;
   }
 
+  /**
+   * Returns the settings for a dynamically sized channel pool, or null if the channel pool has a
+   * fixed size of {@link #getNumChannels()} channels.
+   */
+  @BetaApi
+  @Nullable
+  public ChannelPoolSettings getChannelPoolSettings() {
+    return channelPoolSettings;
+  }
+
+  /**
+   * Returns true if the default channel provider uses a dynamically sized channel pool. A channel
+   * hint is then not bound to a fixed channel.
+   */
+  boolean usesDynamicChannelPool() {
+    return channelPoolSettings != null && getChannelProvider() == null;
+  }
+
   public String getTransportChannelExecutorThreadNameFormat() {
     return transportChannelExecutorThreadNameFormat;
   }
@@ -1452,6 +1572,23 @@ public class SpannerOptions extends ServiceOptions<Spanner, SpannerOptions> {
     return prefetchChunks;
   }
 
+  /**
+   * Returns the max number of bytes in the stale read cache of each database, or 0 if the cache is
+   * disabled.
+   */
+  public long getStaleReadCacheMaxBytes() {
+    return staleReadCacheMaxBytes;
+  }
+
+  /**
+   * Returns the {@link OpenTelemetry} instance that is used to record client-side latency metrics,
+   * or null if no latency metrics are recorded.
+   */
+  @Nullable
+  public OpenTelemetry getOpenTelemetry() {
+    return openTelemetry;
+  }
+
   public static GrpcTransportOptions getDefaultGrpcTransportOptions() {
     return GrpcTransportOptions.newBuilder().build();
   }
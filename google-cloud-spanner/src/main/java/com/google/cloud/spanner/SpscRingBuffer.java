@@ -0,0 +1,172 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import com.google.common.base.Preconditions;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import javax.annotation.Nullable;
+
+/**
+ * Bounded queue for handing off elements from exactly one producer thread to exactly one consumer
+ * thread at a time. The elements are stored in a pre-allocated array, which means that adding and
+ * removing elements does not allocate any objects, and the producer and the consumer never take a
+ * lock. A consumer that finds the queue empty, or a producer that finds the queue full, parks until
+ * the other side has made progress.
+ *
+ * <p>The producer and the consumer may change between calls, as long as there is a happens-before
+ * relationship between consecutive calls from different producer (or consumer) threads. This is
+ * for example the case for the callbacks of a gRPC call, which are always executed serially.
+ */
+final class SpscRingBuffer<E> {
+  private final Object[] elements;
+  private final int mask;
+
+  /** The index of the next element that will be removed. Only written by the consumer. */
+  private final AtomicLong head = new AtomicLong();
+
+  /** The index of the next element that will be added. Only written by the producer. */
+  private final AtomicLong tail = new AtomicLong();
+
+  private volatile Thread waitingConsumer;
+  private volatile Thread waitingProducer;
+
+  /**
+   * Creates a queue that can hold at least {@code capacity} elements. The actual capacity is
+   * rounded up to the next power of two.
+   */
+  SpscRingBuffer(int capacity) {
+    Preconditions.checkArgument(capacity > 0, "capacity must be > 0");
+    Preconditions.checkArgument(capacity <= 1 << 30, "capacity must be <= 2^30");
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) {
+      size <<= 1;
+    }
+    this.elements = new Object[size];
+    this.mask = size - 1;
+  }
+
+  /** Returns the number of elements that this queue can hold. */
+  int capacity() {
+    return elements.length;
+  }
+
+  /**
+   * Adds the given element to the queue, waiting for space to become available if necessary. The
+   * producer cannot be interrupted while waiting. If the producer is interrupted, the interrupt
+   * is restored when this method returns. This method may only be called by the producer.
+   */
+  void putUninterruptibly(E element) {
+    Preconditions.checkNotNull(element);
+    long currentTail = tail.get();
+    boolean interrupted = false;
+    try {
+      while (currentTail - head.get() == elements.length) {
+        waitingProducer = Thread.currentThread();
+        // Check again after publishing the waiting thread, so a concurrent poll cannot be missed.
+        if (currentTail - head.get() == elements.length) {
+          LockSupport.park(this);
+          // park() returns immediately as long as the interrupt flag is set, so clear it to
+          // prevent a busy loop.
+          interrupted |= Thread.interrupted();
+        }
+        waitingProducer = null;
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    elements[(int) currentTail & mask] = element;
+    tail.set(currentTail + 1);
+    Thread consumer = waitingConsumer;
+    if (consumer != null) {
+      // Clear the field so the consumer is only woken up once. A consumer that registers itself
+      // again before it has been woken up, will immediately return from park().
+      waitingConsumer = null;
+      LockSupport.unpark(consumer);
+    }
+  }
+
+  /**
+   * Removes and returns the head of the queue, waiting for an element to become available if
+   * necessary. This method may only be called by the consumer.
+   */
+  E take() throws InterruptedException {
+    return poll(Long.MAX_VALUE, /* timed = */ false);
+  }
+
+  /**
+   * Removes and returns the head of the queue, waiting up to the given timeout for an element to
+   * become available. Returns null if the timeout elapsed before an element was available. This
+   * method may only be called by the consumer.
+   */
+  @Nullable
+  E poll(long timeout, TimeUnit unit) throws InterruptedException {
+    return poll(unit.toNanos(timeout), /* timed = */ true);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Nullable
+  private E poll(long timeoutNanos, boolean timed) throws InterruptedException {
+    long currentHead = head.get();
+    if (tail.get() == currentHead) {
+      long deadline = timed ? System.nanoTime() + timeoutNanos : 0L;
+      while (tail.get() == currentHead) {
+        if (Thread.interrupted()) {
+          throw new InterruptedException();
+        }
+        long remaining = timed ? deadline - System.nanoTime() : 0L;
+        if (timed && remaining <= 0L) {
+          return null;
+        }
+        waitingConsumer = Thread.currentThread();
+        // Check again after publishing the waiting thread, so a concurrent put cannot be missed.
+        if (tail.get() == currentHead) {
+          if (timed) {
+            LockSupport.parkNanos(this, remaining);
+          } else {
+            LockSupport.park(this);
+          }
+        }
+        waitingConsumer = null;
+      }
+    }
+    int index = (int) currentHead & mask;
+    E element = (E) elements[index];
+    elements[index] = null;
+    head.set(currentHead + 1);
+    Thread producer = waitingProducer;
+    if (producer != null) {
+      waitingProducer = null;
+      LockSupport.unpark(producer);
+    }
+    return element;
+  }
+
+  /** Returns the number of elements in the queue. */
+  int size() {
+    // Read the head first, so the size can never be negative.
+    long currentHead = head.get();
+    return (int) (tail.get() - currentHead);
+  }
+
+  boolean isEmpty() {
+    return size() == 0;
+  }
+}
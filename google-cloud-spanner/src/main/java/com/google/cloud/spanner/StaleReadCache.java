@@ -0,0 +1,349 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import static com.google.cloud.spanner.MetricRegistryConstants.COUNT;
+import static com.google.cloud.spanner.MetricRegistryConstants.SPANNER_LABEL_KEYS;
+import static com.google.cloud.spanner.MetricRegistryConstants.STALE_READ_CACHE_HITS;
+import static com.google.cloud.spanner.MetricRegistryConstants.STALE_READ_CACHE_HITS_DESCRIPTION;
+import static com.google.cloud.spanner.MetricRegistryConstants.STALE_READ_CACHE_MISSES;
+import static com.google.cloud.spanner.MetricRegistryConstants.STALE_READ_CACHE_MISSES_DESCRIPTION;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.AbstractResultSet.CloseableIterator;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.spanner.v1.DirectedReadOptions;
+import com.google.spanner.v1.ExecuteSqlRequest.QueryOptions;
+import com.google.spanner.v1.PartialResultSet;
+import io.opencensus.metrics.DerivedLongCumulative;
+import io.opencensus.metrics.LabelValue;
+import io.opencensus.metrics.MetricOptions;
+import io.opencensus.metrics.MetricRegistry;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+import org.threeten.bp.Instant;
+
+/**
+ * Client-side cache for the results of single-use queries that use a {@link TimestampBound} that
+ * allows stale reads. Results are cached as the {@link PartialResultSet}s that were returned by
+ * Spanner, together with the read timestamp of the query. Results are cached by statement, query
+ * options and directed read options. A cached result is only returned for a query if its read
+ * timestamp also satisfies the {@link TimestampBound} of that query:
+ *
+ * <ul>
+ *   <li>{@link TimestampBound.Mode#READ_TIMESTAMP}: The read timestamp is part of the cache key,
+ *       and a cached result is always valid.
+ *   <li>{@link TimestampBound.Mode#MIN_READ_TIMESTAMP}: The read timestamp of the cached result
+ *       must be at or after the minimum read timestamp.
+ *   <li>{@link TimestampBound.Mode#MAX_STALENESS}: The time between the read timestamp of the
+ *       cached result and now according to the local clock must not exceed the max staleness.
+ * </ul>
+ *
+ * Queries with a strong or an exact staleness bound are never cached, as these must be executed at
+ * a timestamp that is determined by Spanner when the query is received.
+ */
+final class StaleReadCache {
+  /** Results that are larger than this fraction of the cache size are not cached. */
+  private static final int MAX_ENTRY_FRACTION = 8;
+
+  /**
+   * The key of a cached result. The query options and directed read options are the options that
+   * are sent to Spanner, which means that they include any default options of the client.
+   */
+  private static final class Key {
+    private final Statement statement;
+    private final QueryOptions queryOptions;
+    @Nullable private final DirectedReadOptions directedReadOptions;
+    @Nullable private final Timestamp readTimestamp;
+
+    private Key(
+        Statement statement,
+        QueryOptions queryOptions,
+        @Nullable DirectedReadOptions directedReadOptions,
+        @Nullable Timestamp readTimestamp) {
+      this.statement = statement;
+      this.queryOptions = queryOptions;
+      this.directedReadOptions = directedReadOptions;
+      this.readTimestamp = readTimestamp;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return statement.equals(other.statement)
+          && queryOptions.equals(other.queryOptions)
+          && Objects.equals(directedReadOptions, other.directedReadOptions)
+          && Objects.equals(readTimestamp, other.readTimestamp);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(statement, queryOptions, directedReadOptions, readTimestamp);
+    }
+  }
+
+  private static final class Entry {
+    private final ImmutableList<PartialResultSet> results;
+    private final Timestamp readTimestamp;
+    private final int weight;
+
+    private Entry(ImmutableList<PartialResultSet> results, Timestamp readTimestamp, int weight) {
+      this.results = results;
+      this.readTimestamp = readTimestamp;
+      this.weight = weight;
+    }
+  }
+
+  private final Cache<Key, Entry> cache;
+  private final long maxEntryBytes;
+  private final Clock clock;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  StaleReadCache(long maxBytes) {
+    this(maxBytes, new Clock());
+  }
+
+  @VisibleForTesting
+  StaleReadCache(long maxBytes, Clock clock) {
+    Preconditions.checkArgument(maxBytes > 0L, "maxBytes must be > 0");
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumWeight(maxBytes)
+            .<Key, Entry>weigher((key, entry) -> entry.weight)
+            .build();
+    this.maxEntryBytes =
+        Math.min(Integer.MAX_VALUE, Math.max(1L, maxBytes / MAX_ENTRY_FRACTION));
+    this.clock = clock;
+  }
+
+  /** Returns true if the results of queries with the given bound can be cached. */
+  static boolean isCacheable(TimestampBound bound) {
+    switch (bound.getMode()) {
+      case READ_TIMESTAMP:
+      case MIN_READ_TIMESTAMP:
+      case MAX_STALENESS:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static Key createKey(
+      Statement statement,
+      QueryOptions queryOptions,
+      @Nullable DirectedReadOptions directedReadOptions,
+      TimestampBound bound) {
+    return new Key(
+        statement,
+        queryOptions,
+        directedReadOptions,
+        bound.getMode() == TimestampBound.Mode.READ_TIMESTAMP ? bound.getReadTimestamp() : null);
+  }
+
+  /**
+   * Returns an iterator that replays the cached results of the given query, or null if there is no
+   * cached result for the query with the same options that satisfies the given bound.
+   */
+  @Nullable
+  CloseableIterator<PartialResultSet> get(
+      Statement statement,
+      QueryOptions queryOptions,
+      @Nullable DirectedReadOptions directedReadOptions,
+      TimestampBound bound) {
+    Entry entry =
+        cache.getIfPresent(createKey(statement, queryOptions, directedReadOptions, bound));
+    if (entry == null || !isValid(entry, bound)) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return new ReplayIterator(entry.results.iterator());
+  }
+
+  private boolean isValid(Entry entry, TimestampBound bound) {
+    switch (bound.getMode()) {
+      case READ_TIMESTAMP:
+        return true;
+      case MIN_READ_TIMESTAMP:
+        return entry.readTimestamp.compareTo(bound.getMinReadTimestamp()) >= 0;
+      case MAX_STALENESS:
+        Instant now = clock.instant();
+        long stalenessMicros =
+            TimeUnit.SECONDS.toMicros(now.getEpochSecond() - entry.readTimestamp.getSeconds())
+                + TimeUnit.NANOSECONDS.toMicros(now.getNano() - entry.readTimestamp.getNanos());
+        return stalenessMicros <= bound.getMaxStaleness(TimeUnit.MICROSECONDS);
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns an iterator that returns the same results as the given stream, and that adds the
+   * results to the cache once the stream has been consumed completely.
+   */
+  CloseableIterator<PartialResultSet> record(
+      Statement statement,
+      QueryOptions queryOptions,
+      @Nullable DirectedReadOptions directedReadOptions,
+      TimestampBound bound,
+      CloseableIterator<PartialResultSet> stream) {
+    return new RecordingIterator(
+        createKey(statement, queryOptions, directedReadOptions, bound), stream);
+  }
+
+  private void put(Key key, Entry entry) {
+    // Keep the most recent result if two queries for the same key finished concurrently.
+    cache
+        .asMap()
+        .merge(
+            key,
+            entry,
+            (existing, update) ->
+                update.readTimestamp.compareTo(existing.readTimestamp) >= 0 ? update : existing);
+  }
+
+  long getHitCount() {
+    return hits.sum();
+  }
+
+  long getMissCount() {
+    return misses.sum();
+  }
+
+  @VisibleForTesting
+  long size() {
+    return cache.size();
+  }
+
+  void initMetricsCollection(MetricRegistry metricRegistry, List<LabelValue> labelValues) {
+    DerivedLongCumulative hitsMetric =
+        metricRegistry.addDerivedLongCumulative(
+            STALE_READ_CACHE_HITS,
+            MetricOptions.builder()
+                .setDescription(STALE_READ_CACHE_HITS_DESCRIPTION)
+                .setUnit(COUNT)
+                .setLabelKeys(SPANNER_LABEL_KEYS)
+                .build());
+    DerivedLongCumulative missesMetric =
+        metricRegistry.addDerivedLongCumulative(
+            STALE_READ_CACHE_MISSES,
+            MetricOptions.builder()
+                .setDescription(STALE_READ_CACHE_MISSES_DESCRIPTION)
+                .setUnit(COUNT)
+                .setLabelKeys(SPANNER_LABEL_KEYS)
+                .build());
+
+    hitsMetric.removeTimeSeries(labelValues);
+    hitsMetric.createTimeSeries(labelValues, this, StaleReadCache::getHitCount);
+    missesMetric.removeTimeSeries(labelValues);
+    missesMetric.createTimeSeries(labelValues, this, StaleReadCache::getMissCount);
+  }
+
+  private static final class ReplayIterator extends AbstractIterator<PartialResultSet>
+      implements CloseableIterator<PartialResultSet> {
+    private final Iterator<PartialResultSet> results;
+
+    private ReplayIterator(Iterator<PartialResultSet> results) {
+      this.results = results;
+    }
+
+    @Override
+    protected PartialResultSet computeNext() {
+      return results.hasNext() ? results.next() : endOfData();
+    }
+
+    @Override
+    public void close(@Nullable String message) {}
+
+    @Override
+    public boolean isWithBeginTransaction() {
+      return false;
+    }
+  }
+
+  private final class RecordingIterator implements CloseableIterator<PartialResultSet> {
+    private final Key key;
+    private final CloseableIterator<PartialResultSet> delegate;
+    /** The results that have been returned so far, or null if the results will not be cached. */
+    @Nullable private List<PartialResultSet> results = new ArrayList<>();
+
+    private Timestamp readTimestamp;
+    private long bytes;
+
+    private RecordingIterator(Key key, CloseableIterator<PartialResultSet> delegate) {
+      this.key = key;
+      this.delegate = delegate;
+    }
+
+    @Override
+    public boolean hasNext() {
+      boolean hasNext = delegate.hasNext();
+      if (!hasNext && results != null) {
+        put(key, new Entry(ImmutableList.copyOf(results), readTimestamp, (int) bytes));
+        results = null;
+      }
+      return hasNext;
+    }
+
+    @Override
+    public PartialResultSet next() {
+      PartialResultSet next = delegate.next();
+      if (results != null) {
+        if (results.isEmpty()) {
+          if (!next.getMetadata().getTransaction().hasReadTimestamp()) {
+            results = null;
+            return next;
+          }
+          readTimestamp =
+              Timestamp.fromProto(next.getMetadata().getTransaction().getReadTimestamp());
+        }
+        bytes += next.getSerializedSize();
+        if (bytes > maxEntryBytes) {
+          results = null;
+        } else {
+          results.add(next);
+        }
+      }
+      return next;
+    }
+
+    @Override
+    public void close(@Nullable String message) {
+      results = null;
+      delegate.close(message);
+    }
+
+    @Override
+    public boolean isWithBeginTransaction() {
+      return delegate.isWithBeginTransaction();
+    }
+  }
+}
@@ -21,12 +21,14 @@ import static com.google.common.base.Preconditions.checkState;
 
 import com.google.cloud.spanner.ReadContext.QueryAnalyzeMode;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
 import com.google.spanner.v1.ExecuteSqlRequest.QueryOptions;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import javax.annotation.Nullable;
 
 /**
  * A SQL statement and optional bound parameters that can be executed in a {@link ReadContext}.
@@ -59,17 +61,33 @@ public final class Statement implements Serializable {
   private final Map<String, Value> parameters;
   private final String sql;
   private final QueryOptions queryOptions;
+  /** The template that was used to create this statement, or null if there is none. */
+  @Nullable private final transient StatementTemplate template;
+  /**
+   * The parameters of this statement in the encoding that is sent to Spanner, or null if the
+   * parameters should be encoded for each request.
+   */
+  @Nullable private final transient com.google.protobuf.Struct encodedParameters;
 
-  private Statement(String sql, Map<String, Value> parameters, QueryOptions queryOptions) {
+  private Statement(
+      String sql,
+      Map<String, Value> parameters,
+      QueryOptions queryOptions,
+      @Nullable StatementTemplate template,
+      @Nullable com.google.protobuf.Struct encodedParameters) {
     this.sql = sql;
     this.parameters = parameters;
     this.queryOptions = queryOptions;
+    this.template = template;
+    this.encodedParameters = encodedParameters;
   }
 
   /** Builder for {@code Statement}. */
   public static final class Builder {
     final Map<String, Value> parameters;
-    private final StringBuilder sqlBuffer;
+    /** The SQL string of this builder. Only created when a builder does not use a template. */
+    private StringBuilder sqlBuffer;
+    @Nullable private StatementTemplate template;
     private String currentBinding;
     private final ValueBinder<Builder> binder = new Binder();
     private QueryOptions queryOptions;
@@ -79,27 +97,52 @@ public final class Statement implements Serializable {
       sqlBuffer = new StringBuilder(sql);
     }
 
+    private Builder(StatementTemplate template) {
+      parameters = Maps.newHashMapWithExpectedSize(template.getParameterTypes().size());
+      this.template = template;
+      queryOptions = template.getQueryOptions();
+    }
+
     private Builder(Statement statement) {
-      sqlBuffer = new StringBuilder(statement.sql);
       parameters = new HashMap<>(statement.parameters);
-      queryOptions =
-          statement.queryOptions == null ? null : statement.queryOptions.toBuilder().build();
+      if (statement.template == null) {
+        sqlBuffer = new StringBuilder(statement.sql);
+        queryOptions =
+            statement.queryOptions == null ? null : statement.queryOptions.toBuilder().build();
+      } else {
+        template = statement.template;
+        queryOptions = statement.queryOptions;
+      }
+    }
+
+    /**
+     * Returns the SQL string of this builder for modification. This detaches the builder from the
+     * template that it was created from, if any.
+     */
+    private StringBuilder sqlBuffer() {
+      if (sqlBuffer == null) {
+        sqlBuffer = new StringBuilder(template.getSql());
+        template = null;
+      }
+      return sqlBuffer;
     }
 
     /** Replaces the current SQL of this builder with the given string. */
     public Builder replace(String sql) {
+      StringBuilder sqlBuffer = sqlBuffer();
       sqlBuffer.replace(0, sqlBuffer.length(), sql);
       return this;
     }
 
     /** Appends {@code sqlFragment} to the statement. */
     public Builder append(String sqlFragment) {
-      sqlBuffer.append(checkNotNull(sqlFragment));
+      sqlBuffer().append(checkNotNull(sqlFragment));
       return this;
     }
 
     /** Sets the {@link QueryOptions} to use when executing this {@link Statement}. */
     public Builder withQueryOptions(QueryOptions queryOptions) {
+      sqlBuffer();
       this.queryOptions = queryOptions;
       return this;
     }
@@ -118,10 +161,21 @@ public final class Statement implements Serializable {
     public Statement build() {
       checkState(
           currentBinding == null, "Binding for parameter '%s' is incomplete.", currentBinding);
+      if (template != null) {
+        template.checkParametersBound(parameters);
+        return new Statement(
+            template.getSql(),
+            Collections.unmodifiableMap(new HashMap<>(parameters)),
+            queryOptions,
+            template,
+            null);
+      }
       return new Statement(
           sqlBuffer.toString(),
           Collections.unmodifiableMap(new HashMap<>(parameters)),
-          queryOptions);
+          queryOptions,
+          null,
+          null);
     }
 
     private class Binder extends ValueBinder<Builder> {
@@ -148,6 +202,11 @@ public final class Statement implements Serializable {
     return new Builder(sql);
   }
 
+  /** Creates a new statement builder for a statement that uses the given template. */
+  static Builder newBuilder(StatementTemplate template) {
+    return new Builder(template);
+  }
+
   /** Returns {@code true} if a binding exists for {@code parameter}. */
   public boolean hasBinding(String parameter) {
     return parameters.containsKey(parameter);
@@ -188,6 +247,28 @@ public final class Statement implements Serializable {
     return parameters;
   }
 
+  /** Returns the {@link StatementTemplate} that was used to create this statement, if any. */
+  @Nullable
+  StatementTemplate getTemplate() {
+    return template;
+  }
+
+  /**
+   * Returns a copy of this statement that sends the given encoded parameters to Spanner, instead
+   * of encoding its parameters again for each request. The encoded parameters must be the encoding
+   * of the parameters of this statement. They are not serialized with the statement.
+   */
+  Statement withEncodedParameters(com.google.protobuf.Struct encodedParameters) {
+    return new Statement(
+        sql, parameters, queryOptions, template, checkNotNull(encodedParameters));
+  }
+
+  /** Returns the encoded parameters of this statement, if these have been set. */
+  @Nullable
+  com.google.protobuf.Struct getEncodedParameters() {
+    return encodedParameters;
+  }
+
   public Builder toBuilder() {
     return new Builder(this);
   }
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import com.google.cloud.spanner.Options.RpcPriority;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.ByteString;
+import com.google.spanner.v1.ExecuteBatchDmlRequest;
+import com.google.spanner.v1.ExecuteSqlRequest;
+import com.google.spanner.v1.ExecuteSqlRequest.QueryOptions;
+import com.google.spanner.v1.RequestOptions;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A template for a SQL statement that is executed many times with different parameter values. The
+ * parts of a request that are the same for each execution of the statement are encoded once when
+ * the template is built, so that only the parameter values need to be encoded each time a {@link
+ * Statement} that is created from the template is executed. These parts are:
+ *
+ * <ul>
+ *   <li>The SQL string.
+ *   <li>The types of the parameters that are declared in the template.
+ *   <li>The {@link QueryOptions} of the statement.
+ *   <li>The priority and the request tag of the statement.
+ * </ul>
+ *
+ * <p>Statements are created from a template by calling {@link #bind()}. The returned {@link
+ * Statement}s can be used anywhere a {@link Statement} can be used. For example:
+ *
+ * <pre>{@code
+ * StatementTemplate template =
+ *     StatementTemplate.newBuilder("SELECT Name FROM Singers WHERE SingerId=@id")
+ *         .addParameter("id", Type.int64())
+ *         .build();
+ * for (long id : singerIds) {
+ *   try (ResultSet resultSet =
+ *       client.singleUse().executeQuery(template.bind().bind("id").to(id).build())) {
+ *     while (resultSet.next()) {
+ *       // ...
+ *     }
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>Priority and request tag options that are passed in when a statement is executed take
+ * precedence over the values in the template. {@code StatementTemplate} instances are immutable
+ * and can be shared between threads.
+ */
+public final class StatementTemplate {
+  /** Builder for {@link StatementTemplate}. */
+  public static final class Builder {
+    private final String sql;
+    private final Map<String, Type> parameterTypes = new LinkedHashMap<>();
+    private QueryOptions queryOptions;
+    private RpcPriority priority;
+    private String tag;
+
+    private Builder(String sql) {
+      this.sql = Preconditions.checkNotNull(sql);
+    }
+
+    /**
+     * Declares a parameter of the statement with the given type. All declared parameters must be
+     * bound when a {@link Statement} is created from the template.
+     */
+    public Builder addParameter(String name, Type type) {
+      Preconditions.checkNotNull(name);
+      Preconditions.checkNotNull(type);
+      Preconditions.checkArgument(
+          !parameterTypes.containsKey(name), "Parameter '%s' has already been added", name);
+      parameterTypes.put(name, type);
+      return this;
+    }
+
+    /** Sets the {@link QueryOptions} to use when executing statements from this template. */
+    public Builder withQueryOptions(QueryOptions queryOptions) {
+      this.queryOptions = queryOptions;
+      return this;
+    }
+
+    /** Sets the {@link RpcPriority} to use when executing statements from this template. */
+    public Builder withPriority(RpcPriority priority) {
+      this.priority = priority;
+      return this;
+    }
+
+    /** Sets the request tag to use when executing statements from this template. */
+    public Builder withTag(String tag) {
+      this.tag = tag;
+      return this;
+    }
+
+    /** Builds the {@link StatementTemplate}. */
+    public StatementTemplate build() {
+      return new StatementTemplate(this);
+    }
+  }
+
+  /** The default query options of a database merged with the query options of the template. */
+  private static final class MergedQueryOptions {
+    private final QueryOptions defaultQueryOptions;
+    private final QueryOptions queryOptions;
+
+    private MergedQueryOptions(QueryOptions defaultQueryOptions, QueryOptions queryOptions) {
+      this.defaultQueryOptions = defaultQueryOptions;
+      this.queryOptions = queryOptions;
+    }
+  }
+
+  private final String sql;
+  private final ImmutableMap<String, Type> parameterTypes;
+  private final QueryOptions queryOptions;
+  private final RequestOptions requestOptions;
+  private final ExecuteSqlRequest executeSqlRequest;
+  private final ExecuteBatchDmlRequest.Statement batchDmlStatement;
+  private volatile MergedQueryOptions mergedQueryOptions;
+
+  private StatementTemplate(Builder builder) {
+    this.sql = builder.sql;
+    this.parameterTypes = ImmutableMap.copyOf(builder.parameterTypes);
+    this.queryOptions = builder.queryOptions;
+
+    RequestOptions.Builder requestOptions = RequestOptions.newBuilder();
+    if (builder.priority != null) {
+      requestOptions.setPriority(
+          Options.fromQueryOptions(Options.priority(builder.priority)).priority());
+    }
+    if (builder.tag != null) {
+      requestOptions.setRequestTag(builder.tag);
+    }
+    this.requestOptions = requestOptions.build();
+
+    // Encode the SQL string once, instead of each time a request is serialized.
+    ByteString sqlBytes = ByteString.copyFromUtf8(sql);
+    ExecuteSqlRequest.Builder executeSqlRequest =
+        ExecuteSqlRequest.newBuilder().setSqlBytes(sqlBytes);
+    ExecuteBatchDmlRequest.Statement.Builder batchDmlStatement =
+        ExecuteBatchDmlRequest.Statement.newBuilder().setSqlBytes(sqlBytes);
+    for (Map.Entry<String, Type> parameter : parameterTypes.entrySet()) {
+      com.google.spanner.v1.Type type = parameter.getValue().toProto();
+      executeSqlRequest.putParamTypes(parameter.getKey(), type);
+      batchDmlStatement.putParamTypes(parameter.getKey(), type);
+    }
+    this.executeSqlRequest = executeSqlRequest.build();
+    this.batchDmlStatement = batchDmlStatement.build();
+  }
+
+  /** Creates a new builder for a template with the SQL text {@code sql}. */
+  public static Builder newBuilder(String sql) {
+    return new Builder(sql);
+  }
+
+  /**
+   * Returns a {@link Statement.Builder} for a statement that uses this template. All declared
+   * parameters of the template must be bound before the statement is built. Changing the SQL
+   * string or the query options of the returned builder creates a statement that no longer uses
+   * this template.
+   */
+  public Statement.Builder bind() {
+    return Statement.newBuilder(this);
+  }
+
+  /** Returns the SQL text of this template. */
+  public String getSql() {
+    return sql;
+  }
+
+  /** Returns the declared parameters of this template and their types. */
+  public Map<String, Type> getParameterTypes() {
+    return parameterTypes;
+  }
+
+  /** Returns the {@link QueryOptions} of this template. */
+  public QueryOptions getQueryOptions() {
+    return queryOptions;
+  }
+
+  @Override
+  public String toString() {
+    return sql;
+  }
+
+  /** Returns the {@link RequestOptions} that are set for all statements from this template. */
+  RequestOptions getRequestOptions() {
+    return requestOptions;
+  }
+
+  /**
+   * Returns a new builder for an {@link ExecuteSqlRequest} that already contains the SQL string
+   * and the types of the declared parameters.
+   */
+  ExecuteSqlRequest.Builder newExecuteSqlRequestBuilder() {
+    return executeSqlRequest.toBuilder();
+  }
+
+  /**
+   * Returns a new builder for a statement in an {@link ExecuteBatchDmlRequest} that already
+   * contains the SQL string and the types of the declared parameters.
+   */
+  ExecuteBatchDmlRequest.Statement.Builder newBatchDmlStatementBuilder() {
+    return batchDmlStatement.toBuilder();
+  }
+
+  /**
+   * Returns true if the type of the given parameter has been declared in this template, and the
+   * encoded type therefore does not need to be added to a request.
+   */
+  boolean isDeclaredParameterType(String name, Type type) {
+    Type declaredType = parameterTypes.get(name);
+    return declaredType != null && declaredType.equals(type);
+  }
+
+  /**
+   * Returns the query options of this template merged with the given default query options of a
+   * database. The result is cached, as all statements that are executed on the same database use
+   * the same default query options.
+   */
+  QueryOptions getMergedQueryOptions(QueryOptions defaultQueryOptions) {
+    MergedQueryOptions merged = mergedQueryOptions;
+    if (merged == null || !Objects.equals(merged.defaultQueryOptions, defaultQueryOptions)) {
+      merged =
+          new MergedQueryOptions(
+              defaultQueryOptions,
+              AbstractReadContext.mergeQueryOptions(defaultQueryOptions, queryOptions));
+      mergedQueryOptions = merged;
+    }
+    return merged.queryOptions;
+  }
+
+  /** Checks that all declared parameters of this template have been bound. */
+  void checkParametersBound(Map<String, Value> parameters) {
+    for (String name : parameterTypes.keySet()) {
+      Preconditions.checkState(
+          parameters.containsKey(name), "Parameter '%s' of the template is not bound", name);
+    }
+  }
+}
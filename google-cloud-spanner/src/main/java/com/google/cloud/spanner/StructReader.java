@@ -21,7 +21,9 @@ import com.google.cloud.Date;
 import com.google.cloud.Timestamp;
 import com.google.protobuf.AbstractMessage;
 import com.google.protobuf.ProtocolMessageEnum;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.function.Function;
 
@@ -257,6 +259,52 @@ public interface StructReader {
    */
   ByteArray getBytes(String columnName);
 
+  /**
+   * Returns the value of a non-{@code NULL} column with type {@link Type#bytes()} or {@link
+   * Type#proto(String)} as a read-only {@link ByteBuffer}. Values that are returned by Spanner are
+   * decoded directly into the returned buffer, without first being converted to a {@link
+   * ByteArray}.
+   *
+   * @param columnIndex index of the column
+   */
+  default ByteBuffer getBytesAsByteBuffer(int columnIndex) {
+    return getBytes(columnIndex).asReadOnlyByteBuffer();
+  }
+
+  /**
+   * Returns the value of a non-{@code NULL} column with type {@link Type#bytes()} or {@link
+   * Type#proto(String)} as a read-only {@link ByteBuffer}. Values that are returned by Spanner are
+   * decoded directly into the returned buffer, without first being converted to a {@link
+   * ByteArray}.
+   *
+   * @param columnName name of the column
+   */
+  default ByteBuffer getBytesAsByteBuffer(String columnName) {
+    return getBytes(columnName).asReadOnlyByteBuffer();
+  }
+
+  /**
+   * Returns the value of a non-{@code NULL} column with type {@link Type#bytes()} or {@link
+   * Type#proto(String)} as an {@link InputStream}. Values that are returned by Spanner are decoded
+   * while the stream is read, so the decoded value is never held in memory as a whole.
+   *
+   * @param columnIndex index of the column
+   */
+  default InputStream getBytesAsInputStream(int columnIndex) {
+    return getBytes(columnIndex).asInputStream();
+  }
+
+  /**
+   * Returns the value of a non-{@code NULL} column with type {@link Type#bytes()} or {@link
+   * Type#proto(String)} as an {@link InputStream}. Values that are returned by Spanner are decoded
+   * while the stream is read, so the decoded value is never held in memory as a whole.
+   *
+   * @param columnName name of the column
+   */
+  default InputStream getBytesAsInputStream(String columnName) {
+    return getBytes(columnName).asInputStream();
+  }
+
   /**
    * @param columnIndex index of the column
    * @return the value of a non-{@code NULL} column with type {@link Type#timestamp()}.
@@ -61,9 +61,12 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.annotation.Nullable;
@@ -173,11 +176,37 @@ class TransactionRunnerImpl implements SessionTransaction, TransactionRunner {
 
     private final Queue<Mutation> mutations = new ConcurrentLinkedQueue<>();
 
+    /** DML statements that have been buffered by automatic DML batching. */
+    @GuardedBy("lock")
+    private final List<BufferedUpdate> bufferedUpdates = new ArrayList<>();
+
+    /** The {@link UpdateOption}s of the statements in {@link #bufferedUpdates}. */
+    @GuardedBy("lock")
+    private Options bufferedUpdateOptions;
+
+    @GuardedBy("lock")
+    private ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * Done when the last batch of buffered DML statements that has been sent to Spanner, and all
+     * batches that were sent before it, have been executed. Each batch is only sent when the
+     * previous batch has finished, so the statements are executed in the order that they were
+     * buffered.
+     */
+    @GuardedBy("lock")
+    private ApiFuture<Void> lastBufferedBatch = ApiFutures.immediateFuture(null);
+
     @GuardedBy("lock")
     private boolean aborted;
 
     private final Options options;
 
+    /**
+     * Applies the buffered mutations to reads in this transaction. This is null unless the
+     * transaction was started with {@link Options#readYourWrites(java.util.Map)}.
+     */
+    @Nullable private final ReadYourWritesOverlay readYourWritesOverlay;
+
     /** Default to -1 to indicate not available. */
     @GuardedBy("lock")
     private long retryDelayInMillis = -1L;
@@ -189,6 +218,9 @@ class TransactionRunnerImpl implements SessionTransaction, TransactionRunner {
      */
     @VisibleForTesting volatile SettableApiFuture<ByteString> transactionIdFuture = null;
 
+    /** The time at which the statement that includes a BeginTransaction option was started. */
+    private volatile long inlinedBeginStartNanos;
+
     @VisibleForTesting long waitForTransactionTimeoutMillis = 60_000L;
     private final boolean trackTransactionStarter;
     private Exception transactionStarter;
@@ -203,6 +235,10 @@ class TransactionRunnerImpl implements SessionTransaction, TransactionRunner {
       this.transactionId = builder.transactionId;
       this.trackTransactionStarter = builder.trackTransactionStarter;
       this.options = builder.options;
+      this.readYourWritesOverlay =
+          options.hasReadYourWrites()
+              ? new ReadYourWritesOverlay(options.readYourWritesPrimaryKeyColumns())
+              : null;
       this.finishedAsyncOperations.set(null);
       this.clock = builder.clock;
     }
@@ -311,6 +347,9 @@ class TransactionRunnerImpl implements SessionTransaction, TransactionRunner {
     volatile ApiFuture<CommitResponse> commitFuture;
 
     ApiFuture<CommitResponse> commitAsync() {
+      // Send any buffered DML statements before the transaction is closed. The commit will wait
+      // for these to finish.
+      flushBufferedUpdates();
       close();
 
       List<com.google.spanner.v1.Mutation> mutationsProto = new ArrayList<>();
@@ -396,6 +435,7 @@ class TransactionRunnerImpl implements SessionTransaction, TransactionRunner {
           span.addAnnotation("Starting Commit");
           final Span opSpan =
               tracer.spanBuilderWithExplicitParent(SpannerImpl.COMMIT, span).startSpan();
+          final long commitStartNanos = latencyMetrics == null ? 0L : System.nanoTime();
           final ApiFuture<com.google.spanner.v1.CommitResponse> commitFuture =
               rpc.commitAsync(commitRequest, session.getOptions());
           session.markUsed(clock.instant());
@@ -403,6 +443,12 @@ class TransactionRunnerImpl implements SessionTransaction, TransactionRunner {
               tracer.withSpan(
                   opSpan,
                   () -> {
+                    if (latencyMetrics != null) {
+                      latencyMetrics.record(
+                          LatencyMetrics.Phase.COMMIT,
+                          LatencyMetrics.METHOD_COMMIT,
+                          commitStartNanos);
+                    }
                     try {
                       com.google.spanner.v1.CommitResponse proto = commitFuture.get();
                       if (!proto.hasCommitTimestamp()) {
@@ -462,6 +508,7 @@ class TransactionRunnerImpl implements SessionTransaction, TransactionRunner {
     }
 
     ApiFuture<Empty> rollbackAsync() {
+      discardBufferedUpdates();
       close();
 
       // It could be that there is no transaction if the transaction has been marked
@@ -510,6 +557,9 @@ class TransactionRunnerImpl implements SessionTransaction, TransactionRunner {
             }
           }
           if (tx == null) {
+            if (latencyMetrics != null) {
+              inlinedBeginStartNanos = System.nanoTime();
+            }
             return TransactionSelector.newBuilder()
                 .setBegin(SessionImpl.createReadWriteTransactionOptions(options))
                 .build();
@@ -565,6 +615,9 @@ class TransactionRunnerImpl implements SessionTransaction, TransactionRunner {
             && this.transactionId == null) {
           this.transactionId = transaction.getId();
           this.transactionIdFuture.set(transaction.getId());
+          if (latencyMetrics != null && inlinedBeginStartNanos != 0L) {
+            latencyMetrics.recordBeginTransaction(/* inlined = */ true, inlinedBeginStartNanos);
+          }
         }
       } else if (shouldIncludeId) {
         // The statement should have returned a transaction.
@@ -717,8 +770,20 @@ class TransactionRunnerImpl implements SessionTransaction, TransactionRunner {
       return internalExecuteUpdate(statement, queryMode, options);
     }
 
+    @Override
+    void beforeReadOrQuery() {
+      super.beforeReadOrQuery();
+      // Reads, queries and DML statements that are not buffered must see the changes of all DML
+      // statements that have been buffered before it.
+      flushBufferedUpdatesAndWait();
+    }
+
     @Override
     public long executeUpdate(Statement statement, UpdateOption... options) {
+      if (this.options.hasAutoBatchDml()) {
+        // Include this statement in the batch and send the batch directly.
+        return SpannerApiFutures.get(bufferUpdate(statement, Options.fromUpdateOptions(options)));
+      }
       ResultSet resultSet = internalExecuteUpdate(statement, QueryMode.NORMAL, options);
       // For standard DML, using the exact row count.
       return resultSet.getStats().getRowCountExact();
@@ -754,6 +819,9 @@ class TransactionRunnerImpl implements SessionTransaction, TransactionRunner {
 
     @Override
     public ApiFuture<Long> executeUpdateAsync(Statement statement, UpdateOption... options) {
+      if (this.options.hasAutoBatchDml()) {
+        return bufferUpdate(statement, Options.fromUpdateOptions(options));
+      }
       beforeReadOrQuery();
       final ExecuteSqlRequest.Builder builder =
           getExecuteSqlRequestBuilder(
@@ -818,6 +886,343 @@ class TransactionRunnerImpl implements SessionTransaction, TransactionRunner {
       return updateCount;
     }
 
+    /**
+     * A DML statement that has been buffered by automatic DML batching. The future is done when the
+     * batch that contains the statement has been executed. Waiting for the result of a buffered
+     * statement sends the buffered statements to Spanner.
+     */
+    private final class BufferedUpdate implements ApiFuture<Long> {
+      private final Statement statement;
+      private final SettableApiFuture<Long> result = SettableApiFuture.create();
+
+      private BufferedUpdate(Statement statement) {
+        this.statement = checkNotNull(statement);
+      }
+
+      @Override
+      public void addListener(Runnable listener, Executor executor) {
+        result.addListener(listener, executor);
+      }
+
+      @Override
+      public boolean cancel(boolean mayInterruptIfRunning) {
+        return result.cancel(mayInterruptIfRunning);
+      }
+
+      @Override
+      public boolean isCancelled() {
+        return result.isCancelled();
+      }
+
+      @Override
+      public boolean isDone() {
+        return result.isDone();
+      }
+
+      @Override
+      public Long get() throws InterruptedException, ExecutionException {
+        if (!result.isDone()) {
+          flushBufferedUpdates();
+        }
+        return result.get();
+      }
+
+      @Override
+      public Long get(long timeout, TimeUnit unit)
+          throws InterruptedException, ExecutionException, TimeoutException {
+        if (!result.isDone()) {
+          flushBufferedUpdates();
+        }
+        return result.get(timeout, unit);
+      }
+    }
+
+    /** Adds a DML statement to the current batch and returns a future for its update count. */
+    private ApiFuture<Long> bufferUpdate(Statement statement, Options updateOptions) {
+      super.beforeReadOrQuery();
+      BufferedUpdate update = new BufferedUpdate(statement);
+      List<BufferedUpdate> batch = null;
+      Options batchOptions = null;
+      ApiFuture<Void> previousBatch = null;
+      synchronized (lock) {
+        if (!bufferedUpdates.isEmpty() && !bufferedUpdateOptions.equals(updateOptions)) {
+          // Statements with different options cannot be sent in the same batch.
+          batchOptions = bufferedUpdateOptions;
+          batch = takeBufferedUpdatesLocked();
+          previousBatch = chainBatchLocked(batch);
+        }
+        if (bufferedUpdates.isEmpty()) {
+          bufferedUpdateOptions = updateOptions;
+          scheduleFlushLocked();
+        }
+        bufferedUpdates.add(update);
+      }
+      if (batch != null) {
+        executeBufferedUpdatesAfter(previousBatch, batch, batchOptions);
+      }
+      synchronized (lock) {
+        if (bufferedUpdates.size() < this.options.autoBatchDmlMaxBatchSize()) {
+          return update;
+        }
+      }
+      flushBufferedUpdates();
+      return update;
+    }
+
+    @GuardedBy("lock")
+    private void scheduleFlushLocked() {
+      if (executorProvider == null) {
+        return;
+      }
+      try {
+        scheduledFlush =
+            executorProvider
+                .getExecutor()
+                .schedule(
+                    this::flushBufferedUpdatesWithoutWaiting,
+                    this.options.autoBatchDmlMaxDelay().toNanos(),
+                    TimeUnit.NANOSECONDS);
+      } catch (RejectedExecutionException ignore) {
+        // The executor has been shut down. The statements will be sent when the transaction
+        // executes a read or query, commits, or when the application waits for the result.
+      }
+    }
+
+    @GuardedBy("lock")
+    private List<BufferedUpdate> takeBufferedUpdatesLocked() {
+      if (scheduledFlush != null) {
+        scheduledFlush.cancel(false);
+        scheduledFlush = null;
+      }
+      List<BufferedUpdate> batch = new ArrayList<>(bufferedUpdates);
+      bufferedUpdates.clear();
+      return batch;
+    }
+
+    /**
+     * Registers the given batch as the last batch that has been sent to Spanner, and returns the
+     * future of the batch that was sent before it. The batch must only be executed when that future
+     * is done.
+     */
+    @GuardedBy("lock")
+    private ApiFuture<Void> chainBatchLocked(List<BufferedUpdate> batch) {
+      // Register the batch as an async operation while holding the lock, so a concurrent commit
+      // cannot miss it.
+      increaseAsyncOperations();
+      List<ApiFuture<Long>> results = new ArrayList<>(batch.size());
+      for (BufferedUpdate update : batch) {
+        results.add(update.result);
+      }
+      ApiFuture<Void> previousBatch = lastBufferedBatch;
+      lastBufferedBatch =
+          ApiFutures.transform(
+              ApiFutures.successfulAsList(results),
+              ignore -> null,
+              MoreExecutors.directExecutor());
+      return previousBatch;
+    }
+
+    /**
+     * Sends all buffered DML statements to Spanner and returns a future that is done when these
+     * statements and all statements that were sent before them have been executed. The future
+     * never fails, as errors are returned to the individual statements.
+     */
+    private ApiFuture<Void> flushBufferedUpdates() {
+      List<BufferedUpdate> batch;
+      Options batchOptions;
+      ApiFuture<Void> previousBatch;
+      ApiFuture<Void> result;
+      synchronized (lock) {
+        if (bufferedUpdates.isEmpty()) {
+          // Batches that have already been sent might still be executing.
+          return lastBufferedBatch;
+        }
+        batchOptions = bufferedUpdateOptions;
+        batch = takeBufferedUpdatesLocked();
+        previousBatch = chainBatchLocked(batch);
+        result = lastBufferedBatch;
+      }
+      executeBufferedUpdatesAfter(previousBatch, batch, batchOptions);
+      return result;
+    }
+
+    /**
+     * Executes the given batch when the previous batch has finished. The batch is executed directly
+     * if the previous batch has already finished, and otherwise on the executor of the client.
+     */
+    private void executeBufferedUpdatesAfter(
+        ApiFuture<Void> previousBatch, List<BufferedUpdate> batch, Options updateOptions) {
+      if (previousBatch.isDone()) {
+        executeBufferedUpdates(batch, updateOptions);
+      } else {
+        previousBatch.addListener(
+            () -> runWhenTransactionStarted(() -> executeBufferedUpdates(batch, updateOptions)),
+            executorProvider == null
+                ? MoreExecutors.directExecutor()
+                : executorProvider.getExecutor());
+      }
+    }
+
+    /**
+     * Sends all buffered DML statements to Spanner from the scheduled flush task. The task runs on
+     * the shared executor of the client, and may therefore not block while another statement of
+     * this transaction is starting the transaction. The flush is instead postponed until the
+     * transaction id has been returned.
+     */
+    private void flushBufferedUpdatesWithoutWaiting() {
+      runWhenTransactionStarted(this::flushBufferedUpdates);
+    }
+
+    /**
+     * Runs the given task directly, unless another statement of this transaction is starting the
+     * transaction. The task is then run when the transaction id has been returned.
+     */
+    private void runWhenTransactionStarted(Runnable task) {
+      ApiFuture<ByteString> pendingTransactionId = null;
+      synchronized (lock) {
+        if (transactionId == null && transactionIdFuture != null && !transactionIdFuture.isDone()) {
+          pendingTransactionId = transactionIdFuture;
+        }
+      }
+      if (pendingTransactionId == null || executorProvider == null) {
+        task.run();
+      } else {
+        pendingTransactionId.addListener(
+            () -> runWhenTransactionStarted(task), executorProvider.getExecutor());
+      }
+    }
+
+    private void flushBufferedUpdatesAndWait() {
+      if (!this.options.hasAutoBatchDml()) {
+        return;
+      }
+      try {
+        flushBufferedUpdates().get();
+      } catch (ExecutionException e) {
+        // Cannot happen, as the errors are returned to the individual statements.
+        throw SpannerExceptionFactory.asSpannerException(e.getCause());
+      } catch (InterruptedException e) {
+        throw SpannerExceptionFactory.propagateInterrupt(e);
+      }
+    }
+
+    /**
+     * Executes the given statements as one ExecuteBatchDml request. The result of each statement is
+     * set on the corresponding {@link BufferedUpdate}. Statements that follow a statement that
+     * failed are sent again in a new batch, as these would also have been executed if the
+     * application had executed the statements one by one. The caller must have registered the
+     * batch as an async operation, which is ended by this method when the batch has finished.
+     */
+    private void executeBufferedUpdates(List<BufferedUpdate> batch, Options updateOptions) {
+      List<Statement> statements = new ArrayList<>(batch.size());
+      for (BufferedUpdate update : batch) {
+        statements.add(update.statement);
+      }
+      final ExecuteBatchDmlRequest.Builder builder;
+      final ApiFuture<ExecuteBatchDmlResponse> response;
+      try {
+        builder = getExecuteBatchDmlRequestBuilder(statements, updateOptions);
+        response = rpc.executeBatchDmlAsync(builder.build(), session.getOptions());
+        session.markUsed(clock.instant());
+      } catch (Throwable t) {
+        SpannerException exception = SpannerExceptionFactory.asSpannerException(t);
+        for (BufferedUpdate update : batch) {
+          update.result.setException(exception);
+        }
+        decreaseAsyncOperations();
+        return;
+      }
+      response.addListener(
+          () -> {
+            try {
+              onBufferedUpdatesDone(batch, updateOptions, builder, response);
+            } finally {
+              decreaseAsyncOperations();
+            }
+          },
+          MoreExecutors.directExecutor());
+    }
+
+    private void onBufferedUpdatesDone(
+        List<BufferedUpdate> batch,
+        Options updateOptions,
+        ExecuteBatchDmlRequest.Builder builder,
+        ApiFuture<ExecuteBatchDmlResponse> responseFuture) {
+      boolean withBeginTransaction = builder.getTransaction().hasBegin();
+      ExecuteBatchDmlResponse response;
+      try {
+        response = responseFuture.get();
+      } catch (Throwable t) {
+        Throwable cause =
+            t instanceof ExecutionException && t.getCause() != null ? t.getCause() : t;
+        SpannerException exception =
+            onError(SpannerExceptionFactory.asSpannerException(cause), withBeginTransaction);
+        for (BufferedUpdate update : batch) {
+          update.result.setException(exception);
+        }
+        return;
+      }
+      int executed = response.getResultSetsCount();
+      for (int i = 0; i < executed; i++) {
+        if (response.getResultSets(i).getMetadata().hasTransaction()) {
+          try {
+            onTransactionMetadata(
+                response.getResultSets(i).getMetadata().getTransaction(), withBeginTransaction);
+          } catch (SpannerException exception) {
+            for (BufferedUpdate update : batch) {
+              update.result.setException(exception);
+            }
+            return;
+          }
+        }
+        batch.get(i).result.set(response.getResultSets(i).getStats().getRowCountExact());
+      }
+      if (response.getStatus().getCode() == Code.OK_VALUE || executed >= batch.size()) {
+        return;
+      }
+      SpannerException exception =
+          response.getStatus().getCode() == Code.ABORTED_VALUE
+              ? createAbortedExceptionForBatchDml(response)
+              : newSpannerException(
+                  ErrorCode.fromRpcStatus(response.getStatus()),
+                  response.getStatus().getMessage());
+      // The statement that included the BeginTransaction option failed if no statements were
+      // executed. onError will then abort the transaction.
+      exception = onError(exception, withBeginTransaction && executed == 0);
+      batch.get(executed).result.setException(exception);
+      List<BufferedUpdate> remaining = batch.subList(executed + 1, batch.size());
+      if (remaining.isEmpty()) {
+        return;
+      }
+      if (exception.getErrorCode() == ErrorCode.ABORTED) {
+        for (BufferedUpdate update : remaining) {
+          update.result.setException(exception);
+        }
+      } else {
+        // The async operation of this batch is ended after this method returns.
+        increaseAsyncOperations();
+        executeBufferedUpdates(new ArrayList<>(remaining), updateOptions);
+      }
+    }
+
+    /** Fails all buffered DML statements that have not been sent to Spanner. */
+    private void discardBufferedUpdates() {
+      List<BufferedUpdate> batch;
+      synchronized (lock) {
+        if (bufferedUpdates.isEmpty()) {
+          return;
+        }
+        batch = takeBufferedUpdatesLocked();
+      }
+      SpannerException exception =
+          newSpannerException(
+              ErrorCode.FAILED_PRECONDITION,
+              "The transaction was rolled back before the statement was executed");
+      for (BufferedUpdate update : batch) {
+        update.result.setException(exception);
+      }
+    }
+
     private SpannerException createAbortedExceptionForBatchDml(ExecuteBatchDmlResponse response) {
       // Manually construct an AbortedException with a 10ms retry delay for BatchDML responses that
       // return an Aborted status (and not an AbortedException).
@@ -923,6 +1328,29 @@ class TransactionRunnerImpl implements SessionTransaction, TransactionRunner {
       return updateCounts;
     }
 
+    @Override
+    com.google.cloud.spanner.ResultSet readInternalWithOptions(
+        String table,
+        @Nullable String index,
+        KeySet keys,
+        Iterable<String> columns,
+        Options readOptions,
+        ByteString partitionToken) {
+      if (readYourWritesOverlay == null || index != null || partitionToken != null) {
+        return super.readInternalWithOptions(
+            table, index, keys, columns, readOptions, partitionToken);
+      }
+      return readYourWritesOverlay.read(
+          table,
+          keys,
+          columns,
+          readOptions,
+          mutations,
+          (readKeys, readColumns, databaseReadOptions) ->
+              super.readInternalWithOptions(
+                  table, null, readKeys, readColumns, databaseReadOptions, null));
+    }
+
     private ListenableAsyncResultSet wrap(ListenableAsyncResultSet delegate) {
       return new TransactionContextAsyncResultSetImpl(delegate);
     }
@@ -1072,7 +1500,26 @@ class TransactionRunnerImpl implements SessionTransaction, TransactionRunner {
             throw e;
           }
         };
-    return SpannerRetryHelper.runTxWithRetriesOnAborted(retryCallable);
+    final LatencyMetrics latencyMetrics = session.getLatencyMetrics();
+    if (latencyMetrics == null) {
+      return SpannerRetryHelper.runTxWithRetriesOnAborted(retryCallable);
+    }
+    // Record the time between the end of an aborted attempt and the start of the next attempt.
+    final AtomicLong attemptEndNanos = new AtomicLong();
+    return SpannerRetryHelper.runTxWithRetriesOnAborted(
+        () -> {
+          if (attempt.get() > 0) {
+            latencyMetrics.record(
+                LatencyMetrics.Phase.RETRY_DELAY,
+                LatencyMetrics.METHOD_READ_WRITE_TRANSACTION,
+                attemptEndNanos.get());
+          }
+          try {
+            return retryCallable.call();
+          } finally {
+            attemptEndNanos.set(System.nanoTime());
+          }
+        });
   }
 
   @Override
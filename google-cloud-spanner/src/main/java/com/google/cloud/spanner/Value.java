@@ -970,6 +970,16 @@ public abstract class Value implements Serializable {
     return value == null ? NULL_PROTO : value.toProto();
   }
 
+  /**
+   * Returns a list value with the given elements. The elements are added to the list in one
+   * operation, which is cheaper than adding them one by one to a {@link ListValue.Builder}.
+   */
+  private static com.google.protobuf.Value listToProto(List<com.google.protobuf.Value> elements) {
+    return com.google.protobuf.Value.newBuilder()
+        .setListValue(ListValue.newBuilder().addAllValues(elements))
+        .build();
+  }
+
   /**
    * Appends a string representation of this value to the given builder. The string representation
    * can be truncated.
@@ -1953,7 +1963,12 @@ public abstract class Value implements Serializable {
 
     abstract T getValue(int i);
 
-    abstract com.google.protobuf.Value getValueAsProto(int i);
+    /**
+     * Returns the proto representation of element {@code i}. The given builder may be used to
+     * create the proto, and is shared by all elements.
+     */
+    abstract com.google.protobuf.Value getValueAsProto(
+        int i, com.google.protobuf.Value.Builder builder);
 
     @Nonnull
     @Override
@@ -1990,15 +2005,12 @@ public abstract class Value implements Serializable {
 
     @Override
     com.google.protobuf.Value valueToProto() {
-      ListValue.Builder list = ListValue.newBuilder();
+      com.google.protobuf.Value.Builder builder = com.google.protobuf.Value.newBuilder();
+      List<com.google.protobuf.Value> elements = new ArrayList<>(size());
       for (int i = 0; i < size(); ++i) {
-        if (isElementNull(i)) {
-          list.addValues(NULL_PROTO);
-        } else {
-          list.addValues(getValueAsProto(i));
-        }
+        elements.add(isElementNull(i) ? NULL_PROTO : getValueAsProto(i, builder));
       }
-      return com.google.protobuf.Value.newBuilder().setListValue(list).build();
+      return listToProto(elements);
     }
   }
 
@@ -2032,8 +2044,8 @@ public abstract class Value implements Serializable {
     }
 
     @Override
-    com.google.protobuf.Value getValueAsProto(int i) {
-      return com.google.protobuf.Value.newBuilder().setBoolValue(values[i]).build();
+    com.google.protobuf.Value getValueAsProto(int i, com.google.protobuf.Value.Builder builder) {
+      return builder.setBoolValue(values[i]).build();
     }
 
     @Override
@@ -2090,10 +2102,8 @@ public abstract class Value implements Serializable {
     }
 
     @Override
-    com.google.protobuf.Value getValueAsProto(int i) {
-      return com.google.protobuf.Value.newBuilder()
-          .setStringValue(Long.toString(values[i]))
-          .build();
+    com.google.protobuf.Value getValueAsProto(int i, com.google.protobuf.Value.Builder builder) {
+      return builder.setStringValue(Long.toString(values[i])).build();
     }
 
     @Override
@@ -2132,8 +2142,8 @@ public abstract class Value implements Serializable {
     }
 
     @Override
-    com.google.protobuf.Value getValueAsProto(int i) {
-      return com.google.protobuf.Value.newBuilder().setNumberValue(values[i]).build();
+    com.google.protobuf.Value getValueAsProto(int i, com.google.protobuf.Value.Builder builder) {
+      return builder.setNumberValue(values[i]).build();
     }
 
     @Override
@@ -2149,16 +2159,21 @@ public abstract class Value implements Serializable {
     }
 
     @Override
-    com.google.protobuf.Value valueToProto() {
-      ListValue.Builder list = ListValue.newBuilder();
+    final com.google.protobuf.Value valueToProto() {
+      com.google.protobuf.Value.Builder builder = com.google.protobuf.Value.newBuilder();
+      List<com.google.protobuf.Value> elements = new ArrayList<>(value.size());
       for (T element : value) {
-        if (element == null) {
-          list.addValues(NULL_PROTO);
-        } else {
-          list.addValuesBuilder().setStringValue(elementToString(element));
-        }
+        elements.add(element == null ? NULL_PROTO : elementToProto(element, builder));
       }
-      return com.google.protobuf.Value.newBuilder().setListValue(list).build();
+      return listToProto(elements);
+    }
+
+    /**
+     * Returns the proto representation of a non-null element. The given builder may be used to
+     * create the proto, and is shared by all elements.
+     */
+    com.google.protobuf.Value elementToProto(T element, com.google.protobuf.Value.Builder builder) {
+      return builder.setStringValue(elementToString(element)).build();
     }
 
     @Nonnull
@@ -2673,16 +2688,9 @@ public abstract class Value implements Serializable {
     }
 
     @Override
-    com.google.protobuf.Value valueToProto() {
-      ListValue.Builder list = ListValue.newBuilder();
-      for (Struct element : value) {
-        if (element == null) {
-          list.addValues(NULL_PROTO);
-        } else {
-          list.addValues(Value.struct(element).toProto());
-        }
-      }
-      return com.google.protobuf.Value.newBuilder().setListValue(list).build();
+    com.google.protobuf.Value elementToProto(
+        Struct element, com.google.protobuf.Value.Builder builder) {
+      return Value.struct(element).toProto();
     }
 
     @Override
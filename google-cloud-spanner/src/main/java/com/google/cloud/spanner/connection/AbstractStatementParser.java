@@ -29,11 +29,14 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheStats;
 import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.spanner.v1.ExecuteSqlRequest.QueryOptions;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -392,6 +395,16 @@ public abstract class AbstractStatementParser {
   static final Set<String> dmlStatements = ImmutableSet.of("INSERT", "UPDATE", "DELETE");
   private final Set<ClientSideStatementImpl> statements;
 
+  /**
+   * The client-side statements that could match a statement that starts with a given keyword. Each
+   * list also contains the client-side statements whose keywords are unknown, in the same order as
+   * in {@link #statements}.
+   */
+  private final ImmutableMap<String, ImmutableList<ClientSideStatementImpl>> statementsByKeyword;
+
+  /** The client-side statements whose keywords are unknown. */
+  private final ImmutableList<ClientSideStatementImpl> statementsWithoutKeywords;
+
   /** The default maximum size of the statement cache in Mb. */
   public static final int DEFAULT_MAX_STATEMENT_CACHE_SIZE_MB = 5;
 
@@ -421,6 +434,28 @@ public abstract class AbstractStatementParser {
 
   AbstractStatementParser(Set<ClientSideStatementImpl> statements) {
     this.statements = Collections.unmodifiableSet(statements);
+    Set<String> keywords = new HashSet<>();
+    ImmutableList.Builder<ClientSideStatementImpl> statementsWithoutKeywords =
+        ImmutableList.builder();
+    for (ClientSideStatementImpl statement : statements) {
+      keywords.addAll(statement.getKeywords());
+      if (statement.getKeywords().isEmpty()) {
+        statementsWithoutKeywords.add(statement);
+      }
+    }
+    ImmutableMap.Builder<String, ImmutableList<ClientSideStatementImpl>> statementsByKeyword =
+        ImmutableMap.builder();
+    for (String keyword : keywords) {
+      ImmutableList.Builder<ClientSideStatementImpl> candidates = ImmutableList.builder();
+      for (ClientSideStatementImpl statement : statements) {
+        if (statement.getKeywords().isEmpty() || statement.getKeywords().contains(keyword)) {
+          candidates.add(statement);
+        }
+      }
+      statementsByKeyword.put(keyword, candidates.build());
+    }
+    this.statementsByKeyword = statementsByKeyword.build();
+    this.statementsWithoutKeywords = statementsWithoutKeywords.build();
     int maxCacheSize = getMaxStatementCacheSize();
     if (maxCacheSize > 0) {
       CacheBuilder<String, ParsedStatement> cacheBuilder =
@@ -504,7 +539,11 @@ public abstract class AbstractStatementParser {
    */
   @VisibleForTesting
   ClientSideStatementImpl parseClientSideStatement(String sql) {
-    for (ClientSideStatementImpl css : statements) {
+    // Only check the client-side statements that start with the same keyword as the statement.
+    // This means that most normal SQL statements do not need to be matched against any pattern.
+    ImmutableList<ClientSideStatementImpl> candidates =
+        statementsByKeyword.getOrDefault(getFirstKeyword(sql), statementsWithoutKeywords);
+    for (ClientSideStatementImpl css : candidates) {
       if (css.matches(sql)) {
         return css;
       }
@@ -512,6 +551,34 @@ public abstract class AbstractStatementParser {
     return null;
   }
 
+  /**
+   * Returns the first keyword of the given statement in lower case, or an empty string if the
+   * statement does not start with a keyword. A keyword is only returned if it consists of ASCII
+   * letters and is followed by a character that cannot be part of a keyword, as the regular
+   * expressions of client-side statements are only case-insensitive for ASCII characters.
+   */
+  @VisibleForTesting
+  static String getFirstKeyword(String sql) {
+    int start = 0;
+    while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+      start++;
+    }
+    int end = start;
+    while (end < sql.length() && isAsciiLetter(sql.charAt(end))) {
+      end++;
+    }
+    if (end == start
+        || end < sql.length()
+            && (Character.isLetterOrDigit(sql.charAt(end)) || sql.charAt(end) == '_')) {
+      return "";
+    }
+    return sql.substring(start, end).toLowerCase(Locale.ENGLISH);
+  }
+
+  private static boolean isAsciiLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
   /**
    * Checks whether the given statement is (probably) a DDL statement. The method does not check the
    * validity of the statement, only if it is a DDL statement based on the first word in the
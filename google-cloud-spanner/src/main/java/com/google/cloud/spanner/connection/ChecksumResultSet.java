@@ -21,6 +21,7 @@ import com.google.cloud.Date;
 import com.google.cloud.Timestamp;
 import com.google.cloud.spanner.AbortedException;
 import com.google.cloud.spanner.Options.QueryOption;
+import com.google.cloud.spanner.ProtobufResultSet;
 import com.google.cloud.spanner.ResultSet;
 import com.google.cloud.spanner.SpannerException;
 import com.google.cloud.spanner.SpannerExceptionFactory;
@@ -36,7 +37,10 @@ import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hasher;
 import com.google.common.hash.Hashing;
 import com.google.common.hash.PrimitiveSink;
+import com.google.protobuf.CodedOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicLong;
@@ -56,13 +60,15 @@ import java.util.concurrent.atomic.AtomicLong;
  * values of the rows that have been consumed. A retry will succeed if the query returns the same
  * results for the already consumed rows.
  *
- * <p>The checksum of a {@link ResultSet} is the SHA256 checksum of the current row together with
- * the previous checksum value of the result set. The calculation of the checksum is executed in a
- * separate {@link Thread} to allow the checksum calculation to lag behind the actual consumption of
- * rows, and catch up again if the client slows down the consumption of rows, for example while
- * waiting for more data from Cloud Spanner. If the checksum calculation queue contains more than
- * {@link ChecksumExecutor#MAX_IN_CHECKSUM_QUEUE} items that have not yet been calculated, calls to
- * {@link ResultSet#next()} will slow down in order to allow the calculation to catch up.
+ * <p>The checksum of a {@link ResultSet} is by default the SHA256 checksum of the current row
+ * together with the previous checksum value of the result set. {@link RetryChecksumMode#FAST}
+ * instead uses a running non-cryptographic 128-bit checksum of the protobuf values of each row. The
+ * calculation of the checksum is executed in a separate {@link Thread} to allow the checksum
+ * calculation to lag behind the actual consumption of rows, and catch up again if the client slows
+ * down the consumption of rows, for example while waiting for more data from Cloud Spanner. If the
+ * checksum calculation queue contains more than {@link ChecksumExecutor#MAX_IN_CHECKSUM_QUEUE}
+ * items that have not yet been calculated, calls to {@link ResultSet#next()} will slow down in
+ * order to allow the calculation to catch up.
  */
 @VisibleForTesting
 class ChecksumResultSet extends ReplaceableForwardingResultSet implements RetriableStatement {
@@ -71,7 +77,8 @@ class ChecksumResultSet extends ReplaceableForwardingResultSet implements Retria
   private final ParsedStatement statement;
   private final AnalyzeMode analyzeMode;
   private final QueryOption[] options;
-  private final ChecksumResultSet.ChecksumCalculator checksumCalculator = new ChecksumCalculator();
+  private final RetryChecksumMode checksumMode;
+  private final ChecksumCalculator checksumCalculator;
 
   ChecksumResultSet(
       ReadWriteTransaction transaction,
@@ -79,6 +86,16 @@ class ChecksumResultSet extends ReplaceableForwardingResultSet implements Retria
       ParsedStatement statement,
       AnalyzeMode analyzeMode,
       QueryOption... options) {
+    this(transaction, delegate, statement, analyzeMode, RetryChecksumMode.SHA256, options);
+  }
+
+  ChecksumResultSet(
+      ReadWriteTransaction transaction,
+      ResultSet delegate,
+      ParsedStatement statement,
+      AnalyzeMode analyzeMode,
+      RetryChecksumMode checksumMode,
+      QueryOption... options) {
     super(delegate);
     Preconditions.checkNotNull(transaction);
     Preconditions.checkNotNull(delegate);
@@ -88,7 +105,9 @@ class ChecksumResultSet extends ReplaceableForwardingResultSet implements Retria
     this.transaction = transaction;
     this.statement = statement;
     this.analyzeMode = analyzeMode;
+    this.checksumMode = Preconditions.checkNotNull(checksumMode);
     this.options = options;
+    this.checksumCalculator = ChecksumCalculator.create(checksumMode);
   }
 
   /** Simple {@link Callable} for calling {@link ResultSet#next()} */
@@ -102,7 +121,7 @@ class ChecksumResultSet extends ReplaceableForwardingResultSet implements Retria
       boolean res = ChecksumResultSet.super.next();
       // Only update the checksum if there was another row to be consumed.
       if (res) {
-        checksumCalculator.calculateNextChecksum(getCurrentRowAsStruct());
+        checksumCalculator.calculateNextChecksum(ChecksumResultSet.this);
       }
       numberOfNextCalls.incrementAndGet();
       return res;
@@ -132,7 +151,7 @@ class ChecksumResultSet extends ReplaceableForwardingResultSet implements Retria
   @Override
   public void retry(AbortedException aborted) throws AbortedException {
     // Execute the same query and consume the result set to the same point as the original.
-    ChecksumResultSet.ChecksumCalculator newChecksumCalculator = new ChecksumCalculator();
+    ChecksumCalculator newChecksumCalculator = ChecksumCalculator.create(checksumMode);
     ResultSet resultSet = null;
     long counter = 0L;
     try {
@@ -150,7 +169,7 @@ class ChecksumResultSet extends ReplaceableForwardingResultSet implements Retria
                 statement, StatementExecutionStep.RETRY_NEXT_ON_RESULT_SET, transaction);
         next = resultSet.next();
         if (next) {
-          newChecksumCalculator.calculateNextChecksum(resultSet.getCurrentRowAsStruct());
+          newChecksumCalculator.calculateNextChecksum(resultSet);
         }
         counter++;
       }
@@ -185,24 +204,130 @@ class ChecksumResultSet extends ReplaceableForwardingResultSet implements Retria
   }
 
   /** Calculates and keeps the current checksum of a {@link ChecksumResultSet} */
-  private static final class ChecksumCalculator {
+  @VisibleForTesting
+  abstract static class ChecksumCalculator {
+    static ChecksumCalculator create(RetryChecksumMode mode) {
+      switch (mode) {
+        case FAST:
+          return new FastChecksumCalculator();
+        case SHA256:
+        default:
+          return new Sha256ChecksumCalculator();
+      }
+    }
+
+    /** Updates the checksum with the current row of the given {@link ResultSet}. */
+    abstract void calculateNextChecksum(ResultSet resultSet);
+
+    /** Returns the current checksum, or null if no rows have been consumed. */
+    abstract HashCode getChecksum();
+  }
+
+  /** Calculates the SHA256 checksum of the decoded values of each row and the previous checksum. */
+  private static final class Sha256ChecksumCalculator extends ChecksumCalculator {
     private static final HashFunction SHA256_FUNCTION = Hashing.sha256();
     private HashCode currentChecksum;
 
-    private void calculateNextChecksum(Struct row) {
+    @Override
+    void calculateNextChecksum(ResultSet resultSet) {
       Hasher hasher = SHA256_FUNCTION.newHasher();
       if (currentChecksum != null) {
         hasher.putBytes(currentChecksum.asBytes());
       }
-      hasher.putObject(row, StructFunnel.INSTANCE);
+      hasher.putObject(resultSet.getCurrentRowAsStruct(), StructFunnel.INSTANCE);
       currentChecksum = hasher.hash();
     }
 
-    private HashCode getChecksum() {
+    @Override
+    HashCode getChecksum() {
       return currentChecksum;
     }
   }
 
+  /**
+   * Calculates a running 128-bit checksum of all rows. Each row is hashed with murmur3_128 over the
+   * serialized protobuf values of the row, which means that the values do not need to be decoded.
+   * The hash of each row is then mixed into the running checksum, so the checksum depends on the
+   * order of the rows. Rows whose values have already been decoded are hashed using their decoded
+   * values instead.
+   */
+  private static final class FastChecksumCalculator extends ChecksumCalculator {
+    private static final HashFunction MURMUR3_FUNCTION = Hashing.murmur3_128();
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final ByteBuffer rowHash = ByteBuffer.allocate(16);
+    private byte[] buffer = new byte[256];
+    private long numRows;
+    private long h1;
+    private long h2;
+
+    @Override
+    void calculateNextChecksum(ResultSet resultSet) {
+      if (numRows == 0L) {
+        // Include the column types, as the encoded values do not contain the type of a column.
+        mix(MURMUR3_FUNCTION.hashUnencodedChars(resultSet.getType().toString()));
+      }
+      mix(hashRow(resultSet));
+      numRows++;
+    }
+
+    private HashCode hashRow(ResultSet resultSet) {
+      if (!(resultSet instanceof ProtobufResultSet)) {
+        return MURMUR3_FUNCTION.hashObject(
+            resultSet.getCurrentRowAsStruct(), StructFunnel.INSTANCE);
+      }
+      ProtobufResultSet protobufResultSet = (ProtobufResultSet) resultSet;
+      int columnCount = resultSet.getColumnCount();
+      int size = 0;
+      for (int i = 0; i < columnCount; i++) {
+        if (!protobufResultSet.canGetProtobufValue(i)) {
+          return MURMUR3_FUNCTION.hashObject(
+              resultSet.getCurrentRowAsStruct(), StructFunnel.INSTANCE);
+        }
+        size += CodedOutputStream.computeMessageSizeNoTag(protobufResultSet.getProtobufValue(i));
+      }
+      if (buffer.length < size) {
+        buffer = new byte[Math.max(size, buffer.length * 2)];
+      }
+      CodedOutputStream output = CodedOutputStream.newInstance(buffer, 0, size);
+      try {
+        for (int i = 0; i < columnCount; i++) {
+          // Each value is prefixed with its length to separate the values of different columns.
+          output.writeMessageNoTag(protobufResultSet.getProtobufValue(i));
+        }
+      } catch (IOException ioException) {
+        throw SpannerExceptionFactory.asSpannerException(ioException);
+      }
+      return MURMUR3_FUNCTION.hashBytes(buffer, 0, size);
+    }
+
+    /** Mixes the given hash into the running checksum, using the block mix step of murmur3. */
+    private void mix(HashCode hash) {
+      hash.writeBytesTo(rowHash.array(), 0, 16);
+      long k1 = rowHash.getLong(0);
+      long k2 = rowHash.getLong(8);
+
+      h1 ^= Long.rotateLeft(k1 * C1, 31) * C2;
+      h1 = Long.rotateLeft(h1, 27);
+      h1 += h2;
+      h1 = h1 * 5 + 0x52dce729;
+
+      h2 ^= Long.rotateLeft(k2 * C2, 33) * C1;
+      h2 = Long.rotateLeft(h2, 31);
+      h2 += h1;
+      h2 = h2 * 5 + 0x38495ab5;
+    }
+
+    @Override
+    HashCode getChecksum() {
+      if (numRows == 0L) {
+        return null;
+      }
+      return HashCode.fromBytes(ByteBuffer.allocate(16).putLong(h1).putLong(h2).array());
+    }
+  }
+
   /**
    * A {@link Funnel} implementation for calculating a {@link HashCode} for each row in a {@link
    * ResultSet}.
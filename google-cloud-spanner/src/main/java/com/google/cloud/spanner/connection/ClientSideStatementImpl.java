@@ -20,11 +20,15 @@ import com.google.cloud.spanner.SpannerException;
 import com.google.cloud.spanner.connection.AbstractStatementParser.ParsedStatement;
 import com.google.cloud.spanner.connection.StatementResult.ClientSideStatementType;
 import com.google.cloud.spanner.connection.StatementResult.ResultType;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -32,6 +36,15 @@ import java.util.regex.Pattern;
  * imported from the file 'ClientSideStatements.json' in the resources folder.
  */
 class ClientSideStatementImpl implements ClientSideStatement {
+  /**
+   * Matches the start of a regex for a client-side statement, for example {@code
+   * (?is)\A\s*(?:begin|start)(?:\s+transaction)?}. The first group contains the alternative
+   * keywords and the second group a single keyword.
+   */
+  private static final Pattern KEYWORDS_PATTERN =
+      Pattern.compile(
+          "\\(\\?is\\)\\\\A\\\\s\\*(?:\\(\\?:([a-z|]+)\\)|([a-z]+))"
+              + "(?:\\\\s|\\\\z|\\(\\?:\\\\s|\\(\\\\s)");
 
   /**
    * Statements that set a value, such as SET AUTOCOMMIT ON|OFF, must specify a {@link
@@ -137,6 +150,12 @@ class ClientSideStatementImpl implements ClientSideStatement {
   /** The compiled regex pattern for recognizing this statement. */
   private transient Pattern pattern;
 
+  /**
+   * The keywords that a statement must start with to match the regex of this statement, or an
+   * empty set if these could not be determined from the regex.
+   */
+  private transient ImmutableSet<String> keywords;
+
   /** A reference to the executor that should be used. */
   private transient ClientSideStatementExecutor executor;
 
@@ -148,6 +167,7 @@ class ClientSideStatementImpl implements ClientSideStatement {
   ClientSideStatementImpl compile() throws CompileException {
     try {
       this.pattern = Pattern.compile(regex);
+      this.keywords = extractKeywords(regex);
       @SuppressWarnings("unchecked")
       Constructor<ClientSideStatementExecutor> constructor =
           (Constructor<ClientSideStatementExecutor>)
@@ -160,6 +180,22 @@ class ClientSideStatementImpl implements ClientSideStatement {
     }
   }
 
+  /**
+   * Extracts the possible first keywords of a statement from the given regex. This only recognizes
+   * regular expressions that start with a keyword, or a non-capturing group of alternative
+   * keywords, that is followed by whitespace, a parenthesis, or the end of the statement. Returns
+   * an empty set for any other regex.
+   */
+  @VisibleForTesting
+  static ImmutableSet<String> extractKeywords(String regex) {
+    Matcher matcher = KEYWORDS_PATTERN.matcher(regex);
+    if (!matcher.lookingAt()) {
+      return ImmutableSet.of();
+    }
+    String keywords = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+    return ImmutableSet.copyOf(keywords.split("\\|"));
+  }
+
   @Override
   public StatementResult execute(
       ConnectionStatementExecutor connection, ParsedStatement statement) {
@@ -193,6 +229,15 @@ class ClientSideStatementImpl implements ClientSideStatement {
     return statementType;
   }
 
+  /**
+   * Returns the keywords that a statement must start with to match this statement, or an empty set
+   * if this statement could start with any keyword.
+   */
+  Set<String> getKeywords() {
+    Preconditions.checkState(keywords != null, "This statement has not been compiled");
+    return keywords;
+  }
+
   boolean matches(String statement) {
     Preconditions.checkState(pattern != null, "This statement has not been compiled");
     return pattern.matcher(statement).matches();
@@ -36,10 +36,12 @@ import com.google.cloud.spanner.ResultSet;
 import com.google.cloud.spanner.SpannerBatchUpdateException;
 import com.google.cloud.spanner.SpannerException;
 import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.Struct;
 import com.google.cloud.spanner.TimestampBound;
 import com.google.cloud.spanner.connection.StatementResult.ResultType;
 import com.google.spanner.v1.ExecuteBatchDmlRequest;
 import com.google.spanner.v1.ResultSetStats;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
@@ -1145,6 +1147,26 @@ public interface Connection extends AutoCloseable {
   PartitionedQueryResultSet runPartitionedQuery(
       Statement query, PartitionOptions partitionOptions, QueryOption... options);
 
+  /**
+   * Executes the given query as a partitioned query and merges the results of the partitions in
+   * the order that is defined by the given {@link Comparator}. The query must return the rows of
+   * each partition in the same order, for example by including an {@code ORDER BY} clause with the
+   * columns that are used by {@code rowComparator}. The merged result set then returns all rows in
+   * that order, without buffering the results of the partitions in memory.
+   *
+   * <p>The partitions are started in parallel using up to <code>maxPartitionedParallelism</code>
+   * threads. All further rows are fetched when the application calls {@link ResultSet#next()} on
+   * the returned result set, which means that no more rows are fetched from Cloud Spanner if the
+   * application stops reading from the result set.
+   */
+  default PartitionedQueryResultSet runPartitionedQuery(
+      Statement query,
+      PartitionOptions partitionOptions,
+      Comparator<Struct> rowComparator,
+      QueryOption... options) {
+    throw new UnsupportedOperationException("Unimplemented");
+  }
+
   /**
    * Executes the given statement as a simple DML statement. If the statement does not contain a
    * valid DML statement, the method will throw a {@link SpannerException}.
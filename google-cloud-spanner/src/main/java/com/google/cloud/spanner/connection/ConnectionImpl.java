@@ -42,6 +42,7 @@ import com.google.cloud.spanner.Spanner;
 import com.google.cloud.spanner.SpannerException;
 import com.google.cloud.spanner.SpannerExceptionFactory;
 import com.google.cloud.spanner.Statement;
+import com.google.cloud.spanner.Struct;
 import com.google.cloud.spanner.TimestampBound;
 import com.google.cloud.spanner.TimestampBound.Mode;
 import com.google.cloud.spanner.connection.AbstractStatementParser.ParsedStatement;
@@ -58,6 +59,7 @@ import com.google.spanner.v1.ResultSetStats;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -191,6 +193,7 @@ class ConnectionImpl implements Connection {
   private boolean readOnly;
   private boolean returnCommitStats;
   private boolean delayTransactionStartUntilFirstWrite;
+  private RetryChecksumMode retryChecksumMode = RetryChecksumMode.SHA256;
 
   private UnitOfWork currentUnitOfWork = null;
   /**
@@ -267,6 +270,7 @@ class ConnectionImpl implements Connection {
     this.rpcPriority = options.getRPCPriority();
     this.returnCommitStats = options.isReturnCommitStats();
     this.delayTransactionStartUntilFirstWrite = options.isDelayTransactionStartUntilFirstWrite();
+    this.retryChecksumMode = options.getRetryChecksumMode();
     this.dataBoostEnabled = options.isDataBoostEnabled();
     this.autoPartitionMode = options.isAutoPartitionMode();
     this.maxPartitions = options.getMaxPartitions();
@@ -1180,15 +1184,38 @@ class ConnectionImpl implements Connection {
   @Override
   public PartitionedQueryResultSet runPartitionedQuery(
       Statement query, PartitionOptions partitionOptions, QueryOption... options) {
+    List<String> partitionIds = getPartitionIds(query, partitionOptions, options);
+    // parallelism=0 means 'dynamically choose based on the number of available processors and the
+    // number of partitions'.
+    return new MergedResultSet(
+        this, partitionIds, maxPartitionedParallelism, this.options.isUseVirtualThreads(), null);
+  }
+
+  @Override
+  public PartitionedQueryResultSet runPartitionedQuery(
+      Statement query,
+      PartitionOptions partitionOptions,
+      Comparator<Struct> rowComparator,
+      QueryOption... options) {
+    Preconditions.checkNotNull(rowComparator);
+    List<String> partitionIds = getPartitionIds(query, partitionOptions, options);
+    return new MergedResultSet(
+        this,
+        partitionIds,
+        maxPartitionedParallelism,
+        this.options.isUseVirtualThreads(),
+        rowComparator);
+  }
+
+  private List<String> getPartitionIds(
+      Statement query, PartitionOptions partitionOptions, QueryOption... options) {
     List<String> partitionIds = new ArrayList<>();
     try (ResultSet partitions = partitionQuery(query, partitionOptions, options)) {
       while (partitions.next()) {
         partitionIds.add(partitions.getString(0));
       }
     }
-    // parallelism=0 means 'dynamically choose based on the number of available processors and the
-    // number of partitions'.
-    return new MergedResultSet(this, partitionIds, maxPartitionedParallelism);
+    return partitionIds;
   }
 
   /**
@@ -1624,6 +1651,7 @@ class ConnectionImpl implements Connection {
               .setDelayTransactionStartUntilFirstWrite(delayTransactionStartUntilFirstWrite)
               .setRetryAbortsInternally(retryAbortsInternally)
               .setSavepointSupport(savepointSupport)
+              .setRetryChecksumMode(retryChecksumMode)
               .setReturnCommitStats(returnCommitStats)
               .setTransactionRetryListeners(transactionRetryListeners)
               .setStatementTimeout(statementTimeout)
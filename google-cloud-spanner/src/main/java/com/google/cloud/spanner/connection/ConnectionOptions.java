@@ -48,6 +48,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -180,6 +181,7 @@ public class ConnectionOptions {
   private static final String DEFAULT_OPTIMIZER_VERSION = "";
   private static final String DEFAULT_OPTIMIZER_STATISTICS_PACKAGE = "";
   private static final RpcPriority DEFAULT_RPC_PRIORITY = null;
+  private static final RetryChecksumMode DEFAULT_RETRY_CHECKSUM_MODE = RetryChecksumMode.SHA256;
   private static final boolean DEFAULT_RETURN_COMMIT_STATS = false;
   private static final boolean DEFAULT_LENIENT = false;
   private static final boolean DEFAULT_ROUTE_TO_LEADER = true;
@@ -248,6 +250,8 @@ public class ConnectionOptions {
   public static final String LENIENT_PROPERTY_NAME = "lenient";
   /** Name of the 'rpcPriority' connection property. */
   public static final String RPC_PRIORITY_NAME = "rpcPriority";
+  /** Name of the 'retryChecksumMode' connection property. */
+  public static final String RETRY_CHECKSUM_MODE_PROPERTY_NAME = "retryChecksumMode";
   /** Dialect to use for a connection. */
   private static final String DIALECT_PROPERTY_NAME = "dialect";
   /** Name of the 'databaseRole' connection property. */
@@ -360,6 +364,10 @@ public class ConnectionOptions {
                   ConnectionProperty.createStringProperty(
                       RPC_PRIORITY_NAME,
                       "Sets the priority for all RPC invocations from this connection (HIGH/MEDIUM/LOW). The default is HIGH."),
+                  ConnectionProperty.createStringProperty(
+                      RETRY_CHECKSUM_MODE_PROPERTY_NAME,
+                      "Sets how the checksum of query results in read/write transactions is calculated when aborted transactions are retried internally (SHA256/FAST). "
+                          + "FAST uses a non-cryptographic hash of the raw query results. The default is SHA256."),
                   ConnectionProperty.createStringProperty(
                       DIALECT_PROPERTY_NAME,
                       "Sets the dialect to use for new databases that are created by this connection."),
@@ -557,6 +565,8 @@ public class ConnectionOptions {
      *       order to connect to the emulator than setting this property.
      *   <li>routeToLeader (boolean): Sets the routeToLeader flag to route requests to leader (true)
      *       or any region (false) in read/write transactions and Partitioned DML. Default is true.
+     *   <li>retryChecksumMode (SHA256/FAST): Sets how the checksum of query results is calculated
+     *       for read/write transactions that are retried internally. Default is SHA256.
      * </ul>
      *
      * @param uri The URI of the Spanner database to connect to.
@@ -676,6 +686,7 @@ public class ConnectionOptions {
   private final boolean autoConfigEmulator;
   private final Dialect dialect;
   private final RpcPriority rpcPriority;
+  private final RetryChecksumMode retryChecksumMode;
   private final boolean delayTransactionStartUntilFirstWrite;
   private final boolean trackSessionLeaks;
   private final boolean trackConnectionLeaks;
@@ -732,6 +743,7 @@ public class ConnectionOptions {
     this.usePlainText = this.autoConfigEmulator || parseUsePlainText(this.uri);
     this.host = determineHost(matcher, autoConfigEmulator, usePlainText, System.getenv());
     this.rpcPriority = parseRPCPriority(this.uri);
+    this.retryChecksumMode = parseRetryChecksumMode(this.uri);
     this.delayTransactionStartUntilFirstWrite = parseDelayTransactionStartUntilFirstWrite(this.uri);
     this.trackSessionLeaks = parseTrackSessionLeaks(this.uri);
     this.trackConnectionLeaks = parseTrackConnectionLeaks(this.uri);
@@ -1128,6 +1140,20 @@ public class ConnectionOptions {
     return value != null ? RpcPriority.valueOf(value) : DEFAULT_RPC_PRIORITY;
   }
 
+  @VisibleForTesting
+  static RetryChecksumMode parseRetryChecksumMode(String uri) {
+    String value = parseUriProperty(uri, RETRY_CHECKSUM_MODE_PROPERTY_NAME);
+    if (value == null) {
+      return DEFAULT_RETRY_CHECKSUM_MODE;
+    }
+    try {
+      return RetryChecksumMode.valueOf(value.toUpperCase(Locale.ENGLISH));
+    } catch (IllegalArgumentException illegalArgumentException) {
+      throw SpannerExceptionFactory.newSpannerException(
+          ErrorCode.INVALID_ARGUMENT, "Invalid value for retryChecksumMode: " + value);
+    }
+  }
+
   @VisibleForTesting
   static String parseUriProperty(String uri, String property) {
     Pattern pattern = Pattern.compile(String.format("(?is)(?:;|\\?)%s=(.*?)(?:;|$)", property));
@@ -1384,6 +1410,13 @@ public class ConnectionOptions {
     return rpcPriority;
   }
 
+  /**
+   * The {@link RetryChecksumMode} to use for read/write transactions that are retried internally.
+   */
+  RetryChecksumMode getRetryChecksumMode() {
+    return retryChecksumMode;
+  }
+
   /**
    * Whether connections created by this {@link ConnectionOptions} should delay the actual start of
    * a read/write transaction until the first write operation.
@@ -19,6 +19,7 @@ package com.google.cloud.spanner.connection;
 import com.google.cloud.ByteArray;
 import com.google.cloud.Date;
 import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.ProtobufResultSet;
 import com.google.cloud.spanner.ResultSet;
 import com.google.cloud.spanner.SpannerException;
 import com.google.cloud.spanner.Struct;
@@ -29,7 +30,9 @@ import com.google.protobuf.AbstractMessage;
 import com.google.protobuf.ProtocolMessageEnum;
 import com.google.spanner.v1.ResultSetMetadata;
 import com.google.spanner.v1.ResultSetStats;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.function.Function;
 
@@ -40,7 +43,7 @@ import java.util.function.Function;
  * to the actual query execution. It also ensures that any invalid query will throw an exception at
  * execution instead of the first next() call by a client.
  */
-class DirectExecuteResultSet implements ResultSet {
+class DirectExecuteResultSet implements ProtobufResultSet {
   private static final String MISSING_NEXT_CALL = "Must be preceded by a next() call";
   private final ResultSet delegate;
   private boolean nextCalledByClient = false;
@@ -90,6 +93,22 @@ class DirectExecuteResultSet implements ResultSet {
     delegate.close();
   }
 
+  @Override
+  public boolean canGetProtobufValue(int columnIndex) {
+    return nextCalledByClient
+        && delegate instanceof ProtobufResultSet
+        && ((ProtobufResultSet) delegate).canGetProtobufValue(columnIndex);
+  }
+
+  @Override
+  public com.google.protobuf.Value getProtobufValue(int columnIndex) {
+    Preconditions.checkState(nextCalledByClient, MISSING_NEXT_CALL);
+    Preconditions.checkState(
+        delegate instanceof ProtobufResultSet,
+        "The delegate result set does not support protobuf values");
+    return ((ProtobufResultSet) delegate).getProtobufValue(columnIndex);
+  }
+
   @Override
   public ResultSetStats getStats() {
     if (nextHasReturnedFalse) {
@@ -103,6 +122,11 @@ class DirectExecuteResultSet implements ResultSet {
     return delegate.getMetadata();
   }
 
+  @Override
+  public QueryExecutionStats getExecutionStats() {
+    return delegate.getExecutionStats();
+  }
+
   @Override
   public Type getType() {
     return delegate.getType();
@@ -236,6 +260,30 @@ class DirectExecuteResultSet implements ResultSet {
     return delegate.getBytes(columnName);
   }
 
+  @Override
+  public ByteBuffer getBytesAsByteBuffer(int columnIndex) {
+    Preconditions.checkState(nextCalledByClient, MISSING_NEXT_CALL);
+    return delegate.getBytesAsByteBuffer(columnIndex);
+  }
+
+  @Override
+  public ByteBuffer getBytesAsByteBuffer(String columnName) {
+    Preconditions.checkState(nextCalledByClient, MISSING_NEXT_CALL);
+    return delegate.getBytesAsByteBuffer(columnName);
+  }
+
+  @Override
+  public InputStream getBytesAsInputStream(int columnIndex) {
+    Preconditions.checkState(nextCalledByClient, MISSING_NEXT_CALL);
+    return delegate.getBytesAsInputStream(columnIndex);
+  }
+
+  @Override
+  public InputStream getBytesAsInputStream(String columnName) {
+    Preconditions.checkState(nextCalledByClient, MISSING_NEXT_CALL);
+    return delegate.getBytesAsInputStream(columnName);
+  }
+
   @Override
   public Timestamp getTimestamp(int columnIndex) {
     Preconditions.checkState(nextCalledByClient, MISSING_NEXT_CALL);
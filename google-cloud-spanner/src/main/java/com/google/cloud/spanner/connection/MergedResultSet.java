@@ -23,24 +23,33 @@ import com.google.cloud.spanner.ResultSet;
 import com.google.cloud.spanner.SpannerException;
 import com.google.cloud.spanner.SpannerExceptionFactory;
 import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.ThreadFactoryUtil;
 import com.google.cloud.spanner.Type;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Supplier;
 import com.google.spanner.v1.ResultSetMetadata;
 import com.google.spanner.v1.ResultSetStats;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 
 /**
  * {@link MergedResultSet} is a {@link ResultSet} implementation that combines the results from
  * multiple queries. Each query uses its own {@link RowProducer} that feeds rows into the {@link
- * MergedResultSet}. The order of the records in the {@link MergedResultSet} is not guaranteed.
+ * MergedResultSet}. The order of the records in the {@link MergedResultSet} is not guaranteed,
+ * unless the {@link MergedResultSet} is created with a row comparator. In that case, the rows of
+ * the queries are merged in the order that is defined by the comparator.
  */
 class MergedResultSet extends ForwardingStructReader implements PartitionedQueryResultSet {
   static class PartitionExecutor implements Runnable {
@@ -205,6 +214,25 @@ class MergedResultSet extends ForwardingStructReader implements PartitionedQuery
     public void close() {}
   }
 
+  /** Returns the number of partitions that should be executed in parallel. */
+  private static int getParallelism(List<String> partitions, int maxParallelism) {
+    Preconditions.checkArgument(maxParallelism >= 0, "maxParallelism must be >= 0");
+    Preconditions.checkArgument(
+        !Preconditions.checkNotNull(partitions).isEmpty(), "partitions must not be empty");
+    if (maxParallelism == 0) {
+      // Dynamically determine parallelism.
+      return Math.min(partitions.size(), Runtime.getRuntime().availableProcessors());
+    }
+    return Math.min(partitions.size(), maxParallelism);
+  }
+
+  private static ExecutorService createExecutor(int parallelism, boolean useVirtualThreads) {
+    return Executors.newFixedThreadPool(
+        parallelism,
+        ThreadFactoryUtil.createVirtualOrPlatformDaemonThreadFactory(
+            "partitioned-query-row-producer", useVirtualThreads));
+  }
+
   private static class RowProducerImpl implements RowProducer {
     /** The maximum number of rows that we will cache per thread that is fetching rows. */
     private static final int QUEUE_SIZE_PER_WORKER = 32;
@@ -219,25 +247,13 @@ class MergedResultSet extends ForwardingStructReader implements PartitionedQuery
     private Struct currentRow;
     private Throwable exception;
 
-    RowProducerImpl(Connection connection, List<String> partitions, int maxParallelism) {
-      Preconditions.checkArgument(maxParallelism >= 0, "maxParallelism must be >= 0");
-      Preconditions.checkArgument(
-          !Preconditions.checkNotNull(partitions).isEmpty(), "partitions must not be empty");
-      if (maxParallelism == 0) {
-        // Dynamically determine parallelism.
-        this.parallelism = Math.min(partitions.size(), Runtime.getRuntime().availableProcessors());
-      } else {
-        this.parallelism = Math.min(partitions.size(), maxParallelism);
-      }
-      this.executor =
-          Executors.newFixedThreadPool(
-              this.parallelism,
-              runnable -> {
-                Thread thread = new Thread(runnable);
-                thread.setName("partitioned-query-row-producer");
-                thread.setDaemon(true);
-                return thread;
-              });
+    RowProducerImpl(
+        Connection connection,
+        List<String> partitions,
+        int maxParallelism,
+        boolean useVirtualThreads) {
+      this.parallelism = getParallelism(partitions, maxParallelism);
+      this.executor = createExecutor(this.parallelism, useVirtualThreads);
       this.queue = new LinkedBlockingDeque<>(QUEUE_SIZE_PER_WORKER * this.parallelism);
       this.partitionExecutors = new ArrayList<>(partitions.size());
       this.finishedCounter = new AtomicInteger(partitions.size());
@@ -331,15 +347,234 @@ class MergedResultSet extends ForwardingStructReader implements PartitionedQuery
     }
   }
 
+  /**
+   * {@link RowProducer} that merges the rows of partitions that each return their rows in the order
+   * of a given comparator. The first row of each partition is fetched in parallel by at most {@link
+   * #getParallelism()} threads. All further rows are fetched on the thread of the consumer, and
+   * only from the partition whose row was returned last. A partition that is not being read from
+   * therefore does not fetch any more rows than what the underlying streaming result set
+   * prefetches.
+   */
+  private static class OrderedRowProducer implements RowProducer {
+    /** The current row of one of the partitions. */
+    private static final class PartitionRow {
+      private final int partitionIndex;
+      private final Struct row;
+
+      private PartitionRow(int partitionIndex, Struct row) {
+        this.partitionIndex = partitionIndex;
+        this.row = row;
+      }
+    }
+
+    private final Connection connection;
+    private final List<String> partitions;
+    private final int parallelism;
+    private final ExecutorService executor;
+    private final Object lock = new Object();
+
+    private final ResultSet[] resultSets;
+
+    @GuardedBy("lock")
+    private boolean stopped;
+
+    private final PriorityQueue<PartitionRow> queue;
+    private boolean initialized;
+    private PartitionRow currentRow;
+    private ResultSetMetadata metadata;
+    private Type type;
+    private Throwable exception;
+
+    OrderedRowProducer(
+        Connection connection,
+        List<String> partitions,
+        int maxParallelism,
+        boolean useVirtualThreads,
+        Comparator<Struct> rowComparator) {
+      this.connection = Preconditions.checkNotNull(connection);
+      this.partitions = partitions;
+      this.parallelism = getParallelism(partitions, maxParallelism);
+      this.executor = createExecutor(this.parallelism, useVirtualThreads);
+      this.resultSets = new ResultSet[partitions.size()];
+      // Rows that are equal according to the comparator are returned in partition order.
+      this.queue =
+          new PriorityQueue<>(
+              partitions.size(),
+              Comparator.<PartitionRow, Struct>comparing(
+                      partitionRow -> partitionRow.row, Preconditions.checkNotNull(rowComparator))
+                  .thenComparingInt(partitionRow -> partitionRow.partitionIndex));
+    }
+
+    /**
+     * Executes the partitions using at most {@link #parallelism} threads and adds the first row of
+     * each partition to the queue.
+     */
+    private void initialize() throws Throwable {
+      boolean[] hasNext = new boolean[partitions.size()];
+      AtomicInteger nextPartition = new AtomicInteger();
+      List<Future<?>> workers = new ArrayList<>(parallelism);
+      for (int worker = 0; worker < parallelism; worker++) {
+        workers.add(
+            executor.submit(
+                () -> {
+                  int index;
+                  while (!isStopped()
+                      && (index = nextPartition.getAndIncrement()) < hasNext.length) {
+                    ResultSet resultSet = connection.runPartition(partitions.get(index));
+                    synchronized (lock) {
+                      if (stopped) {
+                        // The producer was closed while this partition was being started.
+                        resultSet.close();
+                        return null;
+                      }
+                      resultSets[index] = resultSet;
+                    }
+                    hasNext[index] = resultSet.next();
+                  }
+                  return null;
+                }));
+      }
+      // The executor is only used to start the partitions.
+      executor.shutdown();
+      for (Future<?> worker : workers) {
+        try {
+          worker.get();
+        } catch (ExecutionException executionException) {
+          // Stop the other workers and close all partitions that they have started.
+          stop();
+          throw executionException.getCause();
+        } catch (InterruptedException interruptedException) {
+          stop();
+          throw interruptedException;
+        }
+      }
+      for (int index = 0; index < hasNext.length; index++) {
+        ResultSet resultSet = resultSets[index];
+        if (this.type == null) {
+          this.type = resultSet.getType();
+          this.metadata = resultSet.getMetadata();
+        }
+        if (hasNext[index]) {
+          queue.add(new PartitionRow(index, resultSet.getCurrentRowAsStruct()));
+        } else {
+          closePartition(index);
+        }
+      }
+    }
+
+    private boolean isStopped() {
+      synchronized (lock) {
+        return stopped;
+      }
+    }
+
+    @Override
+    public boolean nextRow() throws Throwable {
+      if (this.exception != null) {
+        throw this.exception;
+      }
+      try {
+        if (!initialized) {
+          initialized = true;
+          initialize();
+        } else if (currentRow != null) {
+          // Move the partition of the row that was returned last to its next row.
+          int index = currentRow.partitionIndex;
+          if (resultSets[index].next()) {
+            queue.add(new PartitionRow(index, resultSets[index].getCurrentRowAsStruct()));
+          } else {
+            closePartition(index);
+          }
+        }
+      } catch (Throwable throwable) {
+        this.exception = throwable;
+        throw throwable;
+      }
+      currentRow = queue.poll();
+      return currentRow != null;
+    }
+
+    private void closePartition(int index) {
+      ResultSet resultSet;
+      synchronized (lock) {
+        resultSet = resultSets[index];
+        resultSets[index] = null;
+      }
+      if (resultSet != null) {
+        resultSet.close();
+      }
+    }
+
+    /**
+     * Stops all workers that are still starting partitions and closes all partitions. A partition
+     * that is started by a worker after this method has been called is closed by that worker.
+     */
+    private void stop() {
+      synchronized (lock) {
+        stopped = true;
+      }
+      // shutdownNow will interrupt any partitions that are still being started.
+      this.executor.shutdownNow();
+      for (int index = 0; index < resultSets.length; index++) {
+        closePartition(index);
+      }
+    }
+
+    @Override
+    public void close() {
+      stop();
+    }
+
+    @Override
+    public Struct get() {
+      checkState(currentRow != null, "next() call required");
+      return currentRow.row;
+    }
+
+    @Override
+    public ResultSetMetadata getMetadata() {
+      checkState(metadata != null, "next() call required");
+      return metadata;
+    }
+
+    @Override
+    public Type getType() {
+      checkState(type != null, "next() call required");
+      return type;
+    }
+
+    @Override
+    public int getNumPartitions() {
+      return partitions.size();
+    }
+
+    @Override
+    public int getParallelism() {
+      return parallelism;
+    }
+  }
+
   private final RowProducer rowProducer;
 
   private boolean closed;
 
   MergedResultSet(Connection connection, List<String> partitions, int maxParallelism) {
+    this(connection, partitions, maxParallelism, false, null);
+  }
+
+  MergedResultSet(
+      Connection connection,
+      List<String> partitions,
+      int maxParallelism,
+      boolean useVirtualThreads,
+      @Nullable Comparator<Struct> rowComparator) {
     this(
         Preconditions.checkNotNull(partitions).isEmpty()
             ? new EmptyRowProducer()
-            : new RowProducerImpl(connection, partitions, maxParallelism));
+            : rowComparator == null
+                ? new RowProducerImpl(connection, partitions, maxParallelism, useVirtualThreads)
+                : new OrderedRowProducer(
+                    connection, partitions, maxParallelism, useVirtualThreads, rowComparator));
   }
 
   private MergedResultSet(RowProducer rowProducer) {
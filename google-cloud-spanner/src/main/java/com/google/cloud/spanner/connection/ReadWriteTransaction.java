@@ -57,6 +57,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.spanner.v1.SpannerGrpc;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
@@ -89,6 +90,7 @@ class ReadWriteTransaction extends AbstractMultiUseTransaction {
   private final boolean retryAbortsInternally;
   private final boolean delayTransactionStartUntilFirstWrite;
   private final SavepointSupport savepointSupport;
+  private final RetryChecksumMode retryChecksumMode;
   private int transactionRetryAttempts;
   private int successfulRetries;
   private final List<TransactionRetryListener> transactionRetryListeners;
@@ -111,6 +113,7 @@ class ReadWriteTransaction extends AbstractMultiUseTransaction {
     private boolean delayTransactionStartUntilFirstWrite;
     private boolean returnCommitStats;
     private SavepointSupport savepointSupport;
+    private RetryChecksumMode retryChecksumMode = RetryChecksumMode.SHA256;
     private List<TransactionRetryListener> transactionRetryListeners;
 
     private Builder() {}
@@ -141,6 +144,11 @@ class ReadWriteTransaction extends AbstractMultiUseTransaction {
       return this;
     }
 
+    Builder setRetryChecksumMode(RetryChecksumMode retryChecksumMode) {
+      this.retryChecksumMode = Preconditions.checkNotNull(retryChecksumMode);
+      return this;
+    }
+
     Builder setTransactionRetryListeners(List<TransactionRetryListener> listeners) {
       Preconditions.checkNotNull(listeners);
       this.transactionRetryListeners = listeners;
@@ -170,6 +178,7 @@ class ReadWriteTransaction extends AbstractMultiUseTransaction {
     this.delayTransactionStartUntilFirstWrite = builder.delayTransactionStartUntilFirstWrite;
     this.retryAbortsInternally = builder.retryAbortsInternally;
     this.savepointSupport = builder.savepointSupport;
+    this.retryChecksumMode = builder.retryChecksumMode;
     this.transactionRetryListeners = builder.transactionRetryListeners;
     this.transactionOptions = extractOptions(builder);
   }
@@ -427,11 +436,12 @@ class ReadWriteTransaction extends AbstractMultiUseTransaction {
                                 statement,
                                 StatementExecutionStep.EXECUTE_STATEMENT,
                                 ReadWriteTransaction.this);
+                        QueryOption[] queryOptions = getChecksumQueryOptions(options);
                         ResultSet delegate =
                             DirectExecuteResultSet.ofResultSet(
-                                internalExecuteQuery(statement, analyzeMode, options));
+                                internalExecuteQuery(statement, analyzeMode, queryOptions));
                         return createAndAddRetryResultSet(
-                            delegate, statement, analyzeMode, options);
+                            delegate, statement, analyzeMode, queryOptions);
                       } catch (AbortedException e) {
                         throw e;
                       } catch (SpannerException e) {
@@ -792,6 +802,19 @@ class ReadWriteTransaction extends AbstractMultiUseTransaction {
     }
   }
 
+  /**
+   * Returns the options that should be used for a query that is checksummed. {@link
+   * RetryChecksumMode#FAST} requires the values of the query to be available in protobuf format.
+   */
+  private QueryOption[] getChecksumQueryOptions(QueryOption[] options) {
+    if (retryChecksumMode != RetryChecksumMode.FAST) {
+      return options;
+    }
+    QueryOption[] result = Arrays.copyOf(options, options.length + 1);
+    result[options.length] = Options.lazyDecoding();
+    return result;
+  }
+
   /**
    * Registers a {@link ResultSet} on this transaction that must be checked during a retry, and
    * returns a retryable {@link ResultSet}.
@@ -1095,6 +1118,7 @@ class ReadWriteTransaction extends AbstractMultiUseTransaction {
       ParsedStatement statement,
       AnalyzeMode analyzeMode,
       QueryOption... options) {
-    return new ChecksumResultSet(this, delegate, statement, analyzeMode, options);
+    return new ChecksumResultSet(
+        this, delegate, statement, analyzeMode, retryChecksumMode, options);
   }
 }
@@ -20,6 +20,7 @@ import com.google.cloud.ByteArray;
 import com.google.cloud.Date;
 import com.google.cloud.Timestamp;
 import com.google.cloud.spanner.ErrorCode;
+import com.google.cloud.spanner.ProtobufResultSet;
 import com.google.cloud.spanner.ResultSet;
 import com.google.cloud.spanner.SpannerException;
 import com.google.cloud.spanner.SpannerExceptionFactory;
@@ -31,7 +32,9 @@ import com.google.protobuf.AbstractMessage;
 import com.google.protobuf.ProtocolMessageEnum;
 import com.google.spanner.v1.ResultSetMetadata;
 import com.google.spanner.v1.ResultSetStats;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.function.Function;
 
@@ -42,7 +45,7 @@ import java.util.function.Function;
  * that is fetched using the new transaction. This is achieved by wrapping the returned result sets
  * in a {@link ReplaceableForwardingResultSet} that replaces its delegate after a transaction retry.
  */
-class ReplaceableForwardingResultSet implements ResultSet {
+class ReplaceableForwardingResultSet implements ProtobufResultSet {
   private ResultSet delegate;
   private boolean closed;
 
@@ -92,6 +95,22 @@ class ReplaceableForwardingResultSet implements ResultSet {
     closed = true;
   }
 
+  @Override
+  public boolean canGetProtobufValue(int columnIndex) {
+    return !closed
+        && delegate instanceof ProtobufResultSet
+        && ((ProtobufResultSet) delegate).canGetProtobufValue(columnIndex);
+  }
+
+  @Override
+  public com.google.protobuf.Value getProtobufValue(int columnIndex) {
+    checkClosed();
+    Preconditions.checkState(
+        delegate instanceof ProtobufResultSet,
+        "The delegate result set does not support protobuf values");
+    return ((ProtobufResultSet) delegate).getProtobufValue(columnIndex);
+  }
+
   @Override
   public ResultSetStats getStats() {
     checkClosed();
@@ -103,6 +122,11 @@ class ReplaceableForwardingResultSet implements ResultSet {
     return delegate.getMetadata();
   }
 
+  @Override
+  public QueryExecutionStats getExecutionStats() {
+    return delegate.getExecutionStats();
+  }
+
   @Override
   public Type getType() {
     checkClosed();
@@ -241,6 +265,30 @@ class ReplaceableForwardingResultSet implements ResultSet {
     return delegate.getBytes(columnName);
   }
 
+  @Override
+  public ByteBuffer getBytesAsByteBuffer(int columnIndex) {
+    checkClosed();
+    return delegate.getBytesAsByteBuffer(columnIndex);
+  }
+
+  @Override
+  public ByteBuffer getBytesAsByteBuffer(String columnName) {
+    checkClosed();
+    return delegate.getBytesAsByteBuffer(columnName);
+  }
+
+  @Override
+  public InputStream getBytesAsInputStream(int columnIndex) {
+    checkClosed();
+    return delegate.getBytesAsInputStream(columnIndex);
+  }
+
+  @Override
+  public InputStream getBytesAsInputStream(String columnName) {
+    checkClosed();
+    return delegate.getBytesAsInputStream(columnName);
+  }
+
   @Override
   public Timestamp getTimestamp(int columnIndex) {
     checkClosed();
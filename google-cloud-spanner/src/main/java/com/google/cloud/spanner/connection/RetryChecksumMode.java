@@ -0,0 +1,35 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner.connection;
+
+/**
+ * Option value used for determining how the checksum of the results of a query in a read/write
+ * transaction is calculated. The checksum is used to verify that a query returns the same results
+ * when a transaction is retried internally after it has been aborted by Cloud Spanner.
+ */
+public enum RetryChecksumMode {
+  /** Calculates a SHA-256 checksum over the decoded values of each row. This is the default. */
+  SHA256,
+  /**
+   * Calculates a non-cryptographic 128-bit checksum over the values of each row in the format that
+   * was returned by Cloud Spanner. Queries are executed with {@link
+   * com.google.cloud.spanner.Options#lazyDecoding()}, so that values do not need to be decoded to
+   * calculate the checksum. This reduces the CPU usage of large queries in read/write
+   * transactions.
+   */
+  FAST,
+}
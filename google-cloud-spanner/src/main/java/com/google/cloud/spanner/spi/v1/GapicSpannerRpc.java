@@ -25,6 +25,7 @@ import com.google.api.core.InternalApi;
 import com.google.api.core.NanoClock;
 import com.google.api.gax.core.CredentialsProvider;
 import com.google.api.gax.core.GaxProperties;
+import com.google.api.gax.grpc.ChannelPoolSettings;
 import com.google.api.gax.grpc.GaxGrpcProperties;
 import com.google.api.gax.grpc.GrpcCallContext;
 import com.google.api.gax.grpc.GrpcCallSettings;
@@ -88,6 +89,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.io.Resources;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.RateLimiter;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.iam.v1.GetIamPolicyRequest;
@@ -105,6 +107,7 @@ import com.google.protobuf.FieldMask;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
 import com.google.protobuf.Timestamp;
+import com.google.protobuf.UnknownFieldSet;
 import com.google.spanner.admin.database.v1.Backup;
 import com.google.spanner.admin.database.v1.CopyBackupMetadata;
 import com.google.spanner.admin.database.v1.CopyBackupRequest;
@@ -208,6 +211,8 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
@@ -229,6 +234,8 @@ public class GapicSpannerRpc implements SpannerRpc {
   private static final int DEFAULT_TIMEOUT_SECONDS = 30 * 60;
   private static final int DEFAULT_PERIOD_SECONDS = 10;
   private static final int GRPC_KEEPALIVE_SECONDS = 2 * 60;
+  /** Field number of the 'multiplexed' field of the Session proto. */
+  private static final int SESSION_MULTIPLEXED_FIELD_NUMBER = 6;
   private static final String USER_AGENT_KEY = "user-agent";
   private static final String CLIENT_LIBRARY_LANGUAGE = "spanner-java";
   public static final String DEFAULT_USER_AGENT =
@@ -267,6 +274,27 @@ public class GapicSpannerRpc implements SpannerRpc {
       new ConcurrentHashMap<>();
   private final boolean leaderAwareRoutingEnabled;
 
+  /**
+   * The number of RPCs and streams that are in flight on each gRPC channel. Only data requests that
+   * are bound to a channel with {@link Option#CHANNEL_HINT} are counted. Requests are not counted
+   * if a dynamic channel pool is used, as a channel hint is then not bound to a fixed channel.
+   */
+  private final AtomicIntegerArray outstandingRequests;
+
+  /** The settings of the dynamic channel pool of the default channel provider, if one is used. */
+  @Nullable private ChannelPoolSettings channelPoolSettings;
+
+  /**
+   * Returns the settings of the dynamic channel pool that is used by the default channel provider,
+   * or null if the channel provider uses a fixed number of channels or a custom channel provider
+   * is used.
+   */
+  @VisibleForTesting
+  @Nullable
+  ChannelPoolSettings getChannelPoolSettings() {
+    return channelPoolSettings;
+  }
+
   public static GapicSpannerRpc create(SpannerOptions options) {
     return new GapicSpannerRpc(options);
   }
@@ -317,6 +345,7 @@ public class GapicSpannerRpc implements SpannerRpc {
     this.callCredentialsProvider = options.getCallCredentialsProvider();
     this.compressorName = options.getCompressorName();
     this.leaderAwareRoutingEnabled = options.isLeaderAwareRoutingEnabled();
+    this.outstandingRequests = new AtomicIntegerArray(Math.max(1, options.getNumChannels()));
 
     if (initializeStubs) {
       // First check if SpannerOptions provides a TransportChannelProvider. Create one
@@ -360,6 +389,15 @@ public class GapicSpannerRpc implements SpannerRpc {
           defaultChannelProviderBuilder.setExecutor(executor);
         }
       }
+      if (options.getChannelPoolSettings() != null) {
+        // Use a channel pool that grows and shrinks with the number of outstanding RPCs instead of
+        // a fixed number of channels. Channel hints are mapped to the channels that are in the
+        // pool when an RPC is started.
+        defaultChannelProviderBuilder.setChannelPoolSettings(options.getChannelPoolSettings());
+        if (options.getChannelProvider() == null) {
+          this.channelPoolSettings = options.getChannelPoolSettings();
+        }
+      }
       // If it is enabled in options uses the channel pool provided by the gRPC-GCP extension.
       maybeEnableGrpcGcpExtension(defaultChannelProviderBuilder, options);
 
@@ -1599,6 +1637,26 @@ public class GapicSpannerRpc implements SpannerRpc {
       @Nullable Map<String, String> labels,
       @Nullable Map<Option, ?> options)
       throws SpannerException {
+    return createSession(databaseName, databaseRole, labels, options, false);
+  }
+
+  @Override
+  public Session createMultiplexedSession(
+      String databaseName,
+      @Nullable String databaseRole,
+      @Nullable Map<String, String> labels,
+      @Nullable Map<Option, ?> options)
+      throws SpannerException {
+    return createSession(databaseName, databaseRole, labels, options, true);
+  }
+
+  private Session createSession(
+      String databaseName,
+      @Nullable String databaseRole,
+      @Nullable Map<String, String> labels,
+      @Nullable Map<Option, ?> options,
+      boolean multiplexed)
+      throws SpannerException {
     CreateSessionRequest.Builder requestBuilder =
         CreateSessionRequest.newBuilder().setDatabase(databaseName);
     Session.Builder sessionBuilder = Session.newBuilder();
@@ -1608,6 +1666,16 @@ public class GapicSpannerRpc implements SpannerRpc {
     if (databaseRole != null && !databaseRole.isEmpty()) {
       sessionBuilder.setCreatorRole(databaseRole);
     }
+    if (multiplexed) {
+      // The version of the Session proto that is included in this library does not yet contain
+      // the 'multiplexed' field, so it is set as an unknown field.
+      sessionBuilder.setUnknownFields(
+          UnknownFieldSet.newBuilder()
+              .addField(
+                  SESSION_MULTIPLEXED_FIELD_NUMBER,
+                  UnknownFieldSet.Field.newBuilder().addVarint(1L).build())
+              .build());
+    }
     requestBuilder.setSession(sessionBuilder);
     CreateSessionRequest request = requestBuilder.build();
     GrpcCallContext context =
@@ -1648,7 +1716,9 @@ public class GapicSpannerRpc implements SpannerRpc {
     GrpcCallContext context =
         newCallContext(
             options, request.getSession(), request, SpannerGrpc.getReadMethod(), routeToLeader);
-    SpannerResponseObserver responseObserver = new SpannerResponseObserver(consumer);
+    final int channel = startRequest(options);
+    SpannerResponseObserver responseObserver =
+        new SpannerResponseObserver(consumer, () -> finishRequest(channel));
     spannerStub.streamingReadCallable().call(request, responseObserver, context);
     return new GrpcStreamingCall(context, responseObserver.getController());
   }
@@ -1679,7 +1749,8 @@ public class GapicSpannerRpc implements SpannerRpc {
             request,
             SpannerGrpc.getExecuteSqlMethod(),
             routeToLeader);
-    return spannerStub.executeSqlCallable().futureCall(request, context);
+    return trackRequest(
+        options, () -> spannerStub.executeSqlCallable().futureCall(request, context));
   }
 
   @Override
@@ -1733,7 +1804,9 @@ public class GapicSpannerRpc implements SpannerRpc {
             SpannerGrpc.getExecuteStreamingSqlMethod(),
             routeToLeader);
 
-    SpannerResponseObserver responseObserver = new SpannerResponseObserver(consumer);
+    final int channel = startRequest(options);
+    SpannerResponseObserver responseObserver =
+        new SpannerResponseObserver(consumer, () -> finishRequest(channel));
     spannerStub.executeStreamingSqlCallable().call(request, responseObserver, context);
     return new GrpcStreamingCall(context, responseObserver.getController());
   }
@@ -1750,7 +1823,8 @@ public class GapicSpannerRpc implements SpannerRpc {
     GrpcCallContext context =
         newCallContext(
             options, request.getSession(), request, SpannerGrpc.getExecuteBatchDmlMethod(), true);
-    return spannerStub.executeBatchDmlCallable().futureCall(request, context);
+    return trackRequest(
+        options, () -> spannerStub.executeBatchDmlCallable().futureCall(request, context));
   }
 
   @Override
@@ -1763,7 +1837,8 @@ public class GapicSpannerRpc implements SpannerRpc {
             request,
             SpannerGrpc.getBeginTransactionMethod(),
             routeToLeader);
-    return spannerStub.beginTransactionCallable().futureCall(request, context);
+    return trackRequest(
+        options, () -> spannerStub.beginTransactionCallable().futureCall(request, context));
   }
 
   @Override
@@ -1778,7 +1853,7 @@ public class GapicSpannerRpc implements SpannerRpc {
       CommitRequest request, @Nullable Map<Option, ?> options) {
     GrpcCallContext context =
         newCallContext(options, request.getSession(), request, SpannerGrpc.getCommitMethod(), true);
-    return spannerStub.commitCallable().futureCall(request, context);
+    return trackRequest(options, () -> spannerStub.commitCallable().futureCall(request, context));
   }
 
   @Override
@@ -1792,7 +1867,8 @@ public class GapicSpannerRpc implements SpannerRpc {
     GrpcCallContext context =
         newCallContext(
             options, request.getSession(), request, SpannerGrpc.getRollbackMethod(), true);
-    return spannerStub.rollbackCallable().futureCall(request, context);
+    return trackRequest(
+        options, () -> spannerStub.rollbackCallable().futureCall(request, context));
   }
 
   @Override
@@ -1910,6 +1986,46 @@ public class GapicSpannerRpc implements SpannerRpc {
     }
   }
 
+  @Override
+  public int getNumOutstandingRequests(int channel) {
+    return outstandingRequests.get(channel);
+  }
+
+  /**
+   * Registers the start of a request that uses the given options. Returns the index of the channel
+   * that is used for the request, or -1 if the request is not bound to a specific channel.
+   */
+  private int startRequest(@Nullable Map<Option, ?> options) {
+    Long channelHint = Option.CHANNEL_HINT.getLong(options);
+    if (channelHint == null || channelPoolSettings != null) {
+      return -1;
+    }
+    int channel = (int) Math.floorMod(channelHint, (long) outstandingRequests.length());
+    outstandingRequests.incrementAndGet(channel);
+    return channel;
+  }
+
+  /** Registers the end of a request that was started with {@link #startRequest(Map)}. */
+  private void finishRequest(int channel) {
+    if (channel >= 0) {
+      outstandingRequests.decrementAndGet(channel);
+    }
+  }
+
+  /** Counts the given request as outstanding on its channel until the returned future is done. */
+  private <T> ApiFuture<T> trackRequest(
+      @Nullable Map<Option, ?> options, Supplier<ApiFuture<T>> request) {
+    final int channel = startRequest(options);
+    try {
+      ApiFuture<T> future = request.get();
+      future.addListener(() -> finishRequest(channel), MoreExecutors.directExecutor());
+      return future;
+    } catch (RuntimeException e) {
+      finishRequest(channel);
+      throw e;
+    }
+  }
+
   // Before removing this method, please verify with a code owner that it is not used
   // in any internal testing infrastructure.
   @VisibleForTesting
@@ -2037,9 +2153,11 @@ public class GapicSpannerRpc implements SpannerRpc {
 
     private StreamController controller;
     private final ResultStreamConsumer consumer;
+    private final Runnable onClose;
 
-    public SpannerResponseObserver(ResultStreamConsumer consumer) {
+    public SpannerResponseObserver(ResultStreamConsumer consumer, Runnable onClose) {
       this.consumer = consumer;
+      this.onClose = onClose;
     }
 
     @Override
@@ -2058,11 +2176,13 @@ public class GapicSpannerRpc implements SpannerRpc {
 
     @Override
     public void onError(Throwable t) {
+      onClose.run();
       consumer.onError(newSpannerException(t));
     }
 
     @Override
     public void onComplete() {
+      onClose.run();
       consumer.onCompleted();
     }
 
@@ -338,8 +338,29 @@ public interface SpannerRpc extends ServiceRpc {
       @Nullable Map<Option, ?> options)
       throws SpannerException;
 
+  /**
+   * Creates a multiplexed session. A multiplexed session can be used for multiple concurrent
+   * read-only transactions, and is not deleted when it is no longer used.
+   */
+  default Session createMultiplexedSession(
+      String databaseName,
+      @Nullable String databaseRole,
+      @Nullable Map<String, String> labels,
+      @Nullable Map<Option, ?> options)
+      throws SpannerException {
+    throw new UnsupportedOperationException("Not implemented");
+  }
+
   void deleteSession(String sessionName, @Nullable Map<Option, ?> options) throws SpannerException;
 
+  /**
+   * Returns the number of RPCs and streams that are currently in flight on the gRPC channel with
+   * the given index. Implementations that do not keep track of this return 0.
+   */
+  default int getNumOutstandingRequests(int channel) {
+    return 0;
+  }
+
   ApiFuture<Empty> asyncDeleteSession(String sessionName, @Nullable Map<Option, ?> options)
       throws SpannerException;
 
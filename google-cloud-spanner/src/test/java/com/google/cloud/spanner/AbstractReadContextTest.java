@@ -18,6 +18,7 @@ package com.google.cloud.spanner;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -36,6 +37,7 @@ import com.google.spanner.v1.RequestOptions;
 import com.google.spanner.v1.RequestOptions.Priority;
 import com.google.spanner.v1.TransactionSelector;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -200,6 +202,120 @@ public class AbstractReadContextTest {
     assertEquals(Priority.PRIORITY_MEDIUM, request.getRequestOptions().getPriority());
   }
 
+  @Test
+  public void testGetExecuteSqlRequestBuilderWithEncodedParameters() {
+    Statement statement =
+        Statement.newBuilder("SELECT * FROM FOO WHERE ID IN UNNEST(@ids)")
+            .bind("ids")
+            .to(Value.int64Array(new long[] {1L, 2L, 3L}))
+            .build();
+    com.google.protobuf.Struct encodedParameters =
+        com.google.protobuf.Struct.newBuilder()
+            .putFields("ids", statement.getParameters().get("ids").toProto())
+            .build();
+    Statement partitionStatement = statement.withEncodedParameters(encodedParameters);
+    assertEquals(statement, partitionStatement);
+
+    for (int i = 0; i < 2; i++) {
+      ExecuteSqlRequest.Builder request =
+          context.getExecuteSqlRequestBuilder(
+              partitionStatement, QueryMode.NORMAL, Options.fromQueryOptions(), false);
+      // The encoded parameters are sent as-is, and are not encoded again for each request.
+      assertSame(encodedParameters, request.getParams());
+      assertEquals(Type.array(Type.int64()).toProto(), request.getParamTypesOrThrow("ids"));
+    }
+    assertEquals(
+        encodedParameters,
+        context
+            .getExecuteSqlRequestBuilder(
+                statement, QueryMode.NORMAL, Options.fromQueryOptions(), false)
+            .getParams());
+  }
+
+  @Test
+  public void testGetExecuteSqlRequestBuilderWithTemplate() {
+    StatementTemplate template =
+        StatementTemplate.newBuilder("SELECT * FROM FOO WHERE ID=@id AND NAME=@name")
+            .addParameter("id", Type.int64())
+            .addParameter("name", Type.string())
+            .withQueryOptions(QueryOptions.newBuilder().setOptimizerVersion("2").build())
+            .withPriority(RpcPriority.LOW)
+            .withTag("tag-1")
+            .build();
+    Statement statement =
+        template.bind().bind("id").to(1L).bind("name").to(Value.bytes(null)).build();
+    Statement equivalentStatement =
+        Statement.newBuilder(template.getSql())
+            .bind("id")
+            .to(1L)
+            .bind("name")
+            .to(Value.bytes(null))
+            .withQueryOptions(template.getQueryOptions())
+            .build();
+    ExecuteSqlRequest expected =
+        context
+            .getExecuteSqlRequestBuilder(
+                equivalentStatement,
+                QueryMode.NORMAL,
+                Options.fromQueryOptions(Options.priority(RpcPriority.LOW), Options.tag("tag-1")),
+                true)
+            .clearSeqno()
+            .build();
+
+    ExecuteSqlRequest request =
+        context
+            .getExecuteSqlRequestBuilder(
+                statement, QueryMode.NORMAL, Options.fromQueryOptions(), true)
+            .clearSeqno()
+            .build();
+    assertEquals(expected, request);
+    // The type of a value that does not match the declared type is included in the request.
+    assertEquals(Type.bytes().toProto(), request.getParamTypesOrThrow("name"));
+    assertEquals(Priority.PRIORITY_LOW, request.getRequestOptions().getPriority());
+    assertEquals("2", request.getQueryOptions().getOptimizerVersion());
+
+    // Options that are passed in for an execution take precedence over the template options.
+    request =
+        context
+            .getExecuteSqlRequestBuilder(
+                statement,
+                QueryMode.NORMAL,
+                Options.fromQueryOptions(Options.priority(RpcPriority.HIGH)),
+                true)
+            .build();
+    assertEquals(Priority.PRIORITY_HIGH, request.getRequestOptions().getPriority());
+    assertEquals("tag-1", request.getRequestOptions().getRequestTag());
+  }
+
+  @Test
+  public void testGetExecuteBatchDmlRequestBuilderWithTemplate() {
+    StatementTemplate template =
+        StatementTemplate.newBuilder("UPDATE FOO SET BAR=1 WHERE ID=@id")
+            .addParameter("id", Type.int64())
+            .build();
+    ExecuteBatchDmlRequest request =
+        context
+            .getExecuteBatchDmlRequestBuilder(
+                Arrays.asList(
+                    template.bind().bind("id").to(1L).build(),
+                    Statement.of("UPDATE FOO SET BAR=2 WHERE TRUE"),
+                    template.bind().bind("id").to(2L).build()),
+                Options.fromUpdateOptions())
+            .clearSeqno()
+            .build();
+    ExecuteBatchDmlRequest expected =
+        context
+            .getExecuteBatchDmlRequestBuilder(
+                Arrays.asList(
+                    Statement.newBuilder(template.getSql()).bind("id").to(1L).build(),
+                    Statement.of("UPDATE FOO SET BAR=2 WHERE TRUE"),
+                    Statement.newBuilder(template.getSql()).bind("id").to(2L).build()),
+                Options.fromUpdateOptions())
+            .clearSeqno()
+            .build();
+    assertEquals(expected, request);
+  }
+
   @Test
   public void testGetExecuteSqlRequestBuilderWithDataBoost() {
     ExecuteSqlRequest.Builder request =
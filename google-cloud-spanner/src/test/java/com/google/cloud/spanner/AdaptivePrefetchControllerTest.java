@@ -0,0 +1,105 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class AdaptivePrefetchControllerTest {
+
+  @Test
+  public void testGrowsWindowWhenConsumerWaits() {
+    AdaptivePrefetchController controller = new AdaptivePrefetchController(4, 1024L * 1024L);
+    controller.onMessageReceived(100);
+    // The consumer had to wait, so the window is doubled to 8. One message has been consumed, so
+    // 3 are still in flight, and 5 more can be requested.
+    assertEquals(5, controller.onMessageConsumed(100, true, 0));
+    assertEquals(8, controller.getWindow());
+    assertEquals(8, controller.getInFlight());
+  }
+
+  @Test
+  public void testWindowIsLimitedByMaxWindow() {
+    AdaptivePrefetchController controller = new AdaptivePrefetchController(1, Long.MAX_VALUE);
+    for (int i = 0; i < 20; i++) {
+      controller.onMessageReceived(10);
+      controller.onMessageConsumed(10, true, 0);
+    }
+    assertEquals(AdaptivePrefetchController.MAX_WINDOW, controller.getWindow());
+    assertEquals(AdaptivePrefetchController.MAX_WINDOW, controller.getInFlight());
+  }
+
+  @Test
+  public void testShrinksWindowWhenConsumerIsSlow() {
+    AdaptivePrefetchController controller = new AdaptivePrefetchController(2, 1024L * 1024L);
+    controller.onMessageReceived(100);
+    controller.onMessageConsumed(100, true, 0);
+    controller.onMessageReceived(100);
+    controller.onMessageConsumed(100, true, 0);
+    assertEquals(8, controller.getWindow());
+
+    // The consumer finds more than half of the window buffered, so the window is decreased.
+    controller.onMessageReceived(100);
+    assertEquals(0, controller.onMessageConsumed(100, false, 6));
+    assertEquals(7, controller.getWindow());
+
+    // The window is never decreased below the initial window.
+    for (int i = 0; i < 20; i++) {
+      controller.onMessageReceived(100);
+      controller.onMessageConsumed(100, false, 6);
+    }
+    assertEquals(2, controller.getWindow());
+  }
+
+  @Test
+  public void testLimitsMessagesByBytes() {
+    // The buffer can hold at most 4 messages of 250 bytes.
+    AdaptivePrefetchController controller = new AdaptivePrefetchController(2, 1000L);
+    for (int i = 0; i < 10; i++) {
+      controller.onMessageReceived(250);
+      controller.onMessageConsumed(250, true, 0);
+    }
+    assertTrue(controller.getWindow() > 4);
+    assertEquals(4, controller.getInFlight());
+  }
+
+  @Test
+  public void testRequestsAtLeastOneMessageForLargeMessages() {
+    AdaptivePrefetchController controller = new AdaptivePrefetchController(1, 100L);
+    controller.onMessageReceived(1000);
+    assertEquals(1, controller.onMessageConsumed(1000, true, 0));
+    assertEquals(1, controller.getInFlight());
+    assertEquals(0L, controller.getBufferedBytes());
+  }
+
+  @Test
+  public void testDoesNotRequestMoreWhenBufferIsFull() {
+    AdaptivePrefetchController controller = new AdaptivePrefetchController(4, 1000L);
+    // The first message is small, and three large messages are buffered.
+    controller.onMessageReceived(10);
+    controller.onMessageReceived(500);
+    controller.onMessageReceived(500);
+    controller.onMessageReceived(500);
+    assertEquals(0, controller.onMessageConsumed(10, true, 3));
+    assertEquals(1500L, controller.getBufferedBytes());
+  }
+}
@@ -31,7 +31,10 @@ import com.google.cloud.spanner.AsyncResultSet.CallbackResponse;
 import com.google.cloud.spanner.AsyncResultSet.CursorState;
 import com.google.cloud.spanner.AsyncResultSet.ReadyCallback;
 import com.google.common.base.Function;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Range;
+import com.google.common.util.concurrent.Uninterruptibles;
 import java.util.List;
 import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.CountDownLatch;
@@ -44,6 +47,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -498,4 +502,69 @@ public class AsyncResultSetImplTest {
       rs.getResult().get(10L, TimeUnit.SECONDS);
     }
   }
+
+  private static ResultSet createLargeRowsResultSet(int numRows, int rowSize) {
+    Type type = Type.struct(Type.StructField.of("value", Type.string()));
+    ImmutableList.Builder<Struct> rows = ImmutableList.builder();
+    for (int i = 0; i < numRows; i++) {
+      rows.add(Struct.newBuilder().set("value").to(Strings.repeat("a", rowSize)).build());
+    }
+    return ResultSets.forRows(type, rows.build());
+  }
+
+  @Test
+  public void bufferLimitedByBytes() throws Exception {
+    final int numRows = 100;
+    final int rowSize = 1000;
+    final long maxBufferBytes = 5 * rowSize;
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    AtomicInteger rowCounter = new AtomicInteger();
+    AtomicLong maxBufferedBytes = new AtomicLong();
+    try (AsyncResultSetImpl rs =
+        new AsyncResultSetImpl(
+            simpleProvider, createLargeRowsResultSet(numRows, rowSize), numRows, maxBufferBytes)) {
+      ApiFuture<Void> finished =
+          rs.setCallback(
+              executor,
+              resultSet -> {
+                while (true) {
+                  maxBufferedBytes.accumulateAndGet(resultSet.getNumBufferedBytes(), Math::max);
+                  switch (resultSet.tryNext()) {
+                    case DONE:
+                      return CallbackResponse.DONE;
+                    case NOT_READY:
+                      return CallbackResponse.CONTINUE;
+                    case OK:
+                      rowCounter.incrementAndGet();
+                      // Consume the rows slower than they are produced.
+                      Uninterruptibles.sleepUninterruptibly(1L, TimeUnit.MILLISECONDS);
+                  }
+                }
+              });
+      get(finished);
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(numRows, rowCounter.get());
+    // The producer stops when the buffer contains at least maxBufferBytes, so the buffer can
+    // contain at most one row more than the limit.
+    assertThat(maxBufferedBytes.get()).isAtMost(maxBufferBytes + rowSize);
+    assertThat(maxBufferedBytes.get()).isAtLeast(maxBufferBytes);
+  }
+
+  @Test
+  public void bufferLimitedByBytesAcceptsRowLargerThanLimit() {
+    final int numRows = 10;
+    try (AsyncResultSetImpl rs =
+        new AsyncResultSetImpl(
+            simpleProvider,
+            createLargeRowsResultSet(numRows, 1000),
+            AsyncResultSetImpl.DEFAULT_BUFFER_SIZE,
+            100L)) {
+      List<String> values = rs.toList(row -> row.getString(0));
+      assertEquals(numRows, values.size());
+      assertEquals(0, rs.getNumBufferedRows());
+      assertEquals(0L, rs.getNumBufferedBytes());
+    }
+  }
 }
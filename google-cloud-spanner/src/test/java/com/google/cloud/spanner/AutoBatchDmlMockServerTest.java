@@ -0,0 +1,340 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import static com.google.cloud.spanner.MockSpannerTestUtil.INVALID_UPDATE_STATEMENT;
+import static com.google.cloud.spanner.MockSpannerTestUtil.SELECT1;
+import static com.google.cloud.spanner.MockSpannerTestUtil.SELECT1_RESULTSET;
+import static com.google.cloud.spanner.MockSpannerTestUtil.UPDATE_COUNT;
+import static com.google.cloud.spanner.MockSpannerTestUtil.UPDATE_STATEMENT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.gax.grpc.testing.LocalChannelProvider;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.spanner.MockSpannerServiceImpl.SimulatedExecutionTime;
+import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
+import com.google.spanner.v1.CommitRequest;
+import com.google.spanner.v1.ExecuteBatchDmlRequest;
+import com.google.spanner.v1.ExecuteSqlRequest;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessServerBuilder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.threeten.bp.Duration;
+
+@RunWith(JUnit4.class)
+public class AutoBatchDmlMockServerTest {
+  private static final Statement UPDATE_STATEMENT2 =
+      Statement.of("UPDATE FOO SET BAR=2 WHERE BAZ=3");
+
+  private static MockSpannerServiceImpl mockSpanner;
+  private static Server server;
+  private static LocalChannelProvider channelProvider;
+
+  private Spanner spanner;
+  private DatabaseClient client;
+
+  @BeforeClass
+  public static void startMockServer() throws IOException {
+    mockSpanner = new MockSpannerServiceImpl();
+    mockSpanner.setAbortProbability(0.0D);
+    mockSpanner.putStatementResult(StatementResult.query(SELECT1, SELECT1_RESULTSET));
+    mockSpanner.putStatementResult(StatementResult.update(UPDATE_STATEMENT, UPDATE_COUNT));
+    mockSpanner.putStatementResult(StatementResult.update(UPDATE_STATEMENT2, 2L));
+    mockSpanner.putStatementResult(
+        StatementResult.exception(
+            INVALID_UPDATE_STATEMENT,
+            Status.INVALID_ARGUMENT.withDescription("invalid statement").asRuntimeException()));
+
+    String uniqueName = InProcessServerBuilder.generateName();
+    server = InProcessServerBuilder.forName(uniqueName).addService(mockSpanner).build().start();
+    channelProvider = LocalChannelProvider.create(uniqueName);
+  }
+
+  @AfterClass
+  public static void stopMockServer() throws InterruptedException {
+    server.shutdown();
+    server.awaitTermination();
+  }
+
+  @Before
+  public void createSpanner() {
+    spanner =
+        SpannerOptions.newBuilder()
+            .setProjectId("p")
+            .setChannelProvider(channelProvider)
+            .setCredentials(NoCredentials.getInstance())
+            .setSessionPoolOption(SessionPoolOptions.newBuilder().setFailOnSessionLeak().build())
+            .build()
+            .getService();
+    client = spanner.getDatabaseClient(DatabaseId.of("p", "i", "d"));
+  }
+
+  @After
+  public void cleanup() {
+    spanner.close();
+    mockSpanner.reset();
+  }
+
+  @Test
+  public void testAsyncUpdatesAreBatchedUntilCommit() {
+    List<ApiFuture<Long>> updateCounts = new ArrayList<>();
+    client
+        .readWriteTransaction(Options.autoBatchDml(100, Duration.ofMinutes(1L)))
+        .run(
+            transaction -> {
+              for (int i = 0; i < 10; i++) {
+                updateCounts.add(transaction.executeUpdateAsync(UPDATE_STATEMENT));
+                updateCounts.add(transaction.executeUpdateAsync(UPDATE_STATEMENT2));
+              }
+              return null;
+            });
+
+    for (int i = 0; i < updateCounts.size(); i++) {
+      assertEquals(i % 2 == 0 ? 1L : 2L, SpannerApiFutures.get(updateCounts.get(i)).longValue());
+    }
+    assertEquals(0, mockSpanner.countRequestsOfType(ExecuteSqlRequest.class));
+    List<ExecuteBatchDmlRequest> requests =
+        mockSpanner.getRequestsOfType(ExecuteBatchDmlRequest.class);
+    assertEquals(1, requests.size());
+    assertEquals(20, requests.get(0).getStatementsCount());
+    assertTrue(requests.get(0).getTransaction().hasBegin());
+    assertEquals(1, mockSpanner.countRequestsOfType(CommitRequest.class));
+  }
+
+  @Test
+  public void testSyncUpdateFlushesBatch() {
+    long updateCount =
+        client
+            .readWriteTransaction(Options.autoBatchDml(100, Duration.ofMinutes(1L)))
+            .run(
+                transaction -> {
+                  transaction.executeUpdateAsync(UPDATE_STATEMENT);
+                  transaction.executeUpdateAsync(UPDATE_STATEMENT);
+                  return transaction.executeUpdate(UPDATE_STATEMENT2);
+                });
+
+    assertEquals(2L, updateCount);
+    List<ExecuteBatchDmlRequest> requests =
+        mockSpanner.getRequestsOfType(ExecuteBatchDmlRequest.class);
+    assertEquals(1, requests.size());
+    assertEquals(3, requests.get(0).getStatementsCount());
+  }
+
+  @Test
+  public void testQueryFlushesBatch() {
+    client
+        .readWriteTransaction(Options.autoBatchDml(100, Duration.ofMinutes(1L)))
+        .run(
+            transaction -> {
+              ApiFuture<Long> updateCount = transaction.executeUpdateAsync(UPDATE_STATEMENT);
+              assertFalse(updateCount.isDone());
+              try (ResultSet resultSet = transaction.executeQuery(SELECT1)) {
+                // The query waits until the batch has been executed.
+                assertTrue(updateCount.isDone());
+                assertTrue(resultSet.next());
+              }
+              return null;
+            });
+
+    assertEquals(1, mockSpanner.countRequestsOfType(ExecuteBatchDmlRequest.class));
+    List<ExecuteSqlRequest> queries = mockSpanner.getRequestsOfType(ExecuteSqlRequest.class);
+    assertEquals(1, queries.size());
+    assertTrue(queries.get(0).getTransaction().hasId());
+  }
+
+  @Test
+  public void testBatchIsFlushedWhenFull() {
+    client
+        .readWriteTransaction(Options.autoBatchDml(5, Duration.ofMinutes(1L)))
+        .run(
+            transaction -> {
+              for (int i = 0; i < 12; i++) {
+                transaction.executeUpdateAsync(UPDATE_STATEMENT);
+              }
+              return null;
+            });
+
+    List<ExecuteBatchDmlRequest> requests =
+        mockSpanner.getRequestsOfType(ExecuteBatchDmlRequest.class);
+    assertEquals(3, requests.size());
+    assertEquals(5, requests.get(0).getStatementsCount());
+    assertEquals(5, requests.get(1).getStatementsCount());
+    assertEquals(2, requests.get(2).getStatementsCount());
+  }
+
+  @Test
+  public void testQueryWaitsForBatchThatWasFlushedWhenFull() {
+    mockSpanner.setExecuteBatchDmlExecutionTime(
+        SimulatedExecutionTime.ofMinimumAndRandomTime(50, 0));
+    client
+        .readWriteTransaction(Options.autoBatchDml(2, Duration.ofMinutes(1L)))
+        .run(
+            transaction -> {
+              ApiFuture<Long> updateCount1 = transaction.executeUpdateAsync(UPDATE_STATEMENT);
+              // This statement fills the batch, which is then sent to Spanner.
+              ApiFuture<Long> updateCount2 = transaction.executeUpdateAsync(UPDATE_STATEMENT2);
+              try (ResultSet resultSet = transaction.executeQuery(SELECT1)) {
+                // The query waits until the batch that was already sent has been executed.
+                assertTrue(updateCount1.isDone());
+                assertTrue(updateCount2.isDone());
+                assertTrue(resultSet.next());
+              }
+              return null;
+            });
+
+    assertEquals(1, mockSpanner.countRequestsOfType(ExecuteBatchDmlRequest.class));
+    List<ExecuteSqlRequest> queries = mockSpanner.getRequestsOfType(ExecuteSqlRequest.class);
+    assertEquals(1, queries.size());
+    assertTrue(queries.get(0).getTransaction().hasId());
+  }
+
+  @Test
+  public void testBatchIsSentWhenPreviousBatchHasFinished() {
+    List<ApiFuture<Long>> updateCounts = new ArrayList<>();
+    client
+        .readWriteTransaction(Options.autoBatchDml(2, Duration.ofMinutes(1L)))
+        .run(
+            transaction -> {
+              mockSpanner.freeze();
+              updateCounts.add(transaction.executeUpdateAsync(UPDATE_STATEMENT));
+              updateCounts.add(transaction.executeUpdateAsync(UPDATE_STATEMENT));
+              mockSpanner.waitForRequestsToContain(ExecuteBatchDmlRequest.class, 10000L);
+              updateCounts.add(transaction.executeUpdateAsync(UPDATE_STATEMENT2));
+              updateCounts.add(transaction.executeUpdateAsync(UPDATE_STATEMENT2));
+              // The second batch is not sent while the first batch is still executing.
+              Thread.sleep(20L);
+              assertEquals(1, mockSpanner.countRequestsOfType(ExecuteBatchDmlRequest.class));
+              mockSpanner.unfreeze();
+              try (ResultSet resultSet = transaction.executeQuery(SELECT1)) {
+                for (ApiFuture<Long> updateCount : updateCounts) {
+                  assertTrue(updateCount.isDone());
+                }
+                assertTrue(resultSet.next());
+              }
+              return null;
+            });
+
+    for (int i = 0; i < updateCounts.size(); i++) {
+      long expected = i < 2 ? UPDATE_COUNT : 2L;
+      assertEquals(expected, SpannerApiFutures.get(updateCounts.get(i)).longValue());
+    }
+    List<ExecuteBatchDmlRequest> requests =
+        mockSpanner.getRequestsOfType(ExecuteBatchDmlRequest.class);
+    assertEquals(2, requests.size());
+    assertTrue(requests.get(0).getTransaction().hasBegin());
+    assertEquals(UPDATE_STATEMENT2.getSql(), requests.get(1).getStatements(0).getSql());
+    assertTrue(requests.get(1).getTransaction().hasId());
+  }
+
+  @Test
+  public void testBatchIsFlushedAfterMaxDelay() {
+    client
+        .readWriteTransaction(Options.autoBatchDml(100, Duration.ofMillis(1L)))
+        .run(
+            transaction -> {
+              ApiFuture<Long> updateCount = transaction.executeUpdateAsync(UPDATE_STATEMENT);
+              // Wait without calling get(), as that would also flush the batch.
+              long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+              while (!updateCount.isDone() && System.nanoTime() < deadline) {
+                Thread.sleep(1L);
+              }
+              assertTrue(updateCount.isDone());
+              return null;
+            });
+
+    assertEquals(1, mockSpanner.countRequestsOfType(ExecuteBatchDmlRequest.class));
+  }
+
+  @Test
+  public void testGetFlushesBatch() {
+    long updateCount =
+        client
+            .readWriteTransaction(Options.autoBatchDml(100, Duration.ofMinutes(1L)))
+            .run(transaction -> transaction.executeUpdateAsync(UPDATE_STATEMENT).get());
+
+    assertEquals(UPDATE_COUNT, updateCount);
+    assertEquals(1, mockSpanner.countRequestsOfType(ExecuteBatchDmlRequest.class));
+  }
+
+  @Test
+  public void testErrorIsReturnedForFailedStatementOnly() {
+    List<ApiFuture<Long>> updateCounts = new ArrayList<>();
+    client
+        .readWriteTransaction(Options.autoBatchDml(100, Duration.ofMinutes(1L)))
+        .run(
+            transaction -> {
+              updateCounts.add(transaction.executeUpdateAsync(UPDATE_STATEMENT));
+              updateCounts.add(transaction.executeUpdateAsync(INVALID_UPDATE_STATEMENT));
+              updateCounts.add(transaction.executeUpdateAsync(UPDATE_STATEMENT2));
+              // Wait for all statements, so the transaction can commit.
+              for (ApiFuture<Long> updateCount : updateCounts) {
+                try {
+                  updateCount.get();
+                } catch (Exception ignore) {
+                  // Ignore and continue with the other statements.
+                }
+              }
+              return null;
+            });
+
+    assertEquals(UPDATE_COUNT, SpannerApiFutures.get(updateCounts.get(0)).longValue());
+    SpannerException exception =
+        assertThrows(SpannerException.class, () -> SpannerApiFutures.get(updateCounts.get(1)));
+    assertEquals(ErrorCode.INVALID_ARGUMENT, exception.getErrorCode());
+    assertEquals(2L, SpannerApiFutures.get(updateCounts.get(2)).longValue());
+
+    // The statement after the failed statement is sent again in a new batch.
+    List<ExecuteBatchDmlRequest> requests =
+        mockSpanner.getRequestsOfType(ExecuteBatchDmlRequest.class);
+    assertEquals(2, requests.size());
+    assertEquals(3, requests.get(0).getStatementsCount());
+    assertEquals(1, requests.get(1).getStatementsCount());
+    assertEquals(UPDATE_STATEMENT2.getSql(), requests.get(1).getStatements(0).getSql());
+    assertTrue(requests.get(1).getTransaction().hasId());
+  }
+
+  @Test
+  public void testWithoutAutoBatching() {
+    client
+        .readWriteTransaction()
+        .run(
+            transaction -> {
+              assertNotNull(transaction.executeUpdateAsync(UPDATE_STATEMENT));
+              assertNotNull(transaction.executeUpdateAsync(UPDATE_STATEMENT));
+              return null;
+            });
+
+    assertEquals(2, mockSpanner.countRequestsOfType(ExecuteSqlRequest.class));
+    assertEquals(0, mockSpanner.countRequestsOfType(ExecuteBatchDmlRequest.class));
+  }
+}
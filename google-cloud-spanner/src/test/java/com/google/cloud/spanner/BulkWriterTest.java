@@ -0,0 +1,325 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.google.api.gax.grpc.testing.LocalChannelProvider;
+import com.google.cloud.ByteArray;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.spanner.MockSpannerServiceImpl.SimulatedExecutionTime;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.ListValue;
+import com.google.spanner.v1.CommitRequest;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessServerBuilder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class BulkWriterTest {
+  private static MockSpannerServiceImpl mockSpanner;
+  private static Server server;
+  private static LocalChannelProvider channelProvider;
+
+  private Spanner spanner;
+  private DatabaseClient client;
+
+  @BeforeClass
+  public static void startMockServer() throws IOException {
+    mockSpanner = new MockSpannerServiceImpl();
+    mockSpanner.setAbortProbability(0.0D);
+
+    String uniqueName = InProcessServerBuilder.generateName();
+    server = InProcessServerBuilder.forName(uniqueName).addService(mockSpanner).build().start();
+    channelProvider = LocalChannelProvider.create(uniqueName);
+  }
+
+  @AfterClass
+  public static void stopMockServer() throws InterruptedException {
+    server.shutdown();
+    server.awaitTermination();
+  }
+
+  @Before
+  public void createSpanner() {
+    spanner =
+        SpannerOptions.newBuilder()
+            .setProjectId("p")
+            .setChannelProvider(channelProvider)
+            .setCredentials(NoCredentials.getInstance())
+            .setSessionPoolOption(SessionPoolOptions.newBuilder().setFailOnSessionLeak().build())
+            .build()
+            .getService();
+    client = spanner.getDatabaseClient(DatabaseId.of("p", "i", "d"));
+  }
+
+  @After
+  public void cleanup() {
+    spanner.close();
+    mockSpanner.reset();
+    mockSpanner.removeAllExecutionTimes();
+  }
+
+  private static List<Mutation> createInserts(int numRows) {
+    List<Mutation> mutations = new ArrayList<>(numRows);
+    for (int i = 0; i < numRows; i++) {
+      mutations.add(
+          Mutation.newInsertOrUpdateBuilder("Singers")
+              .set("SingerId")
+              .to(i)
+              .set("Name")
+              .to("Name " + i)
+              .build());
+    }
+    return mutations;
+  }
+
+  private static int countRows(List<CommitRequest> requests) {
+    int rows = 0;
+    for (CommitRequest request : requests) {
+      for (com.google.spanner.v1.Mutation mutation : request.getMutationsList()) {
+        rows += mutation.getInsertOrUpdate().getValuesCount();
+      }
+    }
+    return rows;
+  }
+
+  @Test
+  public void testSplitByNumberOfMutations() {
+    BulkWriter writer = BulkWriter.newBuilder(client).setMaxMutationsPerCommit(20).build();
+    List<List<Mutation>> batches = writer.split(createInserts(95));
+
+    assertEquals(10, batches.size());
+    for (int i = 0; i < 9; i++) {
+      assertEquals(10, batches.get(i).size());
+    }
+    assertEquals(5, batches.get(9).size());
+  }
+
+  @Test
+  public void testSplitByNumberOfBytes() {
+    List<Mutation> mutations = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      mutations.add(
+          Mutation.newInsertBuilder("T")
+              .set("C")
+              .to(ByteArray.copyFrom(new byte[3000]))
+              .build());
+    }
+    BulkWriter writer = BulkWriter.newBuilder(client).setMaxBytesPerCommit(8192L).build();
+    List<List<Mutation>> batches = writer.split(mutations);
+
+    // Each mutation uses 4002 bytes.
+    assertEquals(4002L, BulkWriter.estimateSize(mutations.get(0)));
+    assertEquals(2, batches.size());
+    assertEquals(2, batches.get(0).size());
+    assertEquals(2, batches.get(1).size());
+  }
+
+  @Test
+  public void testMutationsForSameRowStayInSameBatch() {
+    List<Mutation> mutations = new ArrayList<>(createInserts(10));
+    // Both of these mutations must be applied after the insert of row 0 in the same batch.
+    mutations.add(Mutation.delete("Singers", Key.of(0L)));
+    mutations.add(Mutation.newInsertBuilder("Singers").set("SingerId").to(0L).build());
+    BulkWriter writer =
+        BulkWriter.newBuilder(client)
+            .setKeyColumns("Singers", "SingerId")
+            .setMaxMutationsPerCommit(4)
+            .build();
+    List<List<Mutation>> batches = writer.split(mutations);
+
+    assertEquals(5, batches.size());
+    // The three mutations for row 0 have been merged into a single replace.
+    assertEquals(2, batches.get(0).size());
+    assertEquals(
+        Mutation.newReplaceBuilder("Singers").set("SingerId").to(0L).build(),
+        batches.get(0).get(0));
+  }
+
+  @Test
+  public void testDeleteOfMultipleRowsIsCommittedInOrder() {
+    List<Mutation> mutations =
+        ImmutableList.of(
+            Mutation.newInsertOrUpdateBuilder("Singers")
+                .set("SingerId")
+                .to(1L)
+                .set("Name")
+                .to("Before")
+                .build(),
+            Mutation.delete("Singers", KeySet.all()),
+            Mutation.newInsertBuilder("Singers")
+                .set("SingerId")
+                .to(1L)
+                .set("Name")
+                .to("After")
+                .build());
+    BulkWriter writer =
+        BulkWriter.newBuilder(client)
+            .setKeyColumns("Singers", "SingerId")
+            .setMaxMutationsPerCommit(2)
+            .setMaxParallelism(3)
+            .build();
+
+    assertEquals(3, writer.write(mutations).size());
+    // Apply the mutations in the order in which they were committed.
+    Map<Long, String> rows = new HashMap<>();
+    for (CommitRequest request : mockSpanner.getRequestsOfType(CommitRequest.class)) {
+      for (com.google.spanner.v1.Mutation mutation : request.getMutationsList()) {
+        if (mutation.hasDelete()) {
+          assertTrue(mutation.getDelete().getKeySet().getAll());
+          rows.clear();
+        } else {
+          com.google.spanner.v1.Mutation.Write write =
+              mutation.hasInsert() ? mutation.getInsert() : mutation.getInsertOrUpdate();
+          ListValue row = write.getValues(0);
+          String previous =
+              rows.put(
+                  Long.valueOf(row.getValues(0).getStringValue()),
+                  row.getValues(1).getStringValue());
+          assertFalse(mutation.hasInsert() && previous != null);
+        }
+      }
+    }
+    assertEquals(ImmutableMap.of(1L, "After"), rows);
+  }
+
+  @Test
+  public void testSegmentAtDeletesThatCanAffectOtherRows() {
+    Mutation insertAlbum =
+        Mutation.newInsertBuilder("Albums").set("SingerId").to(1L).set("AlbumId").to(1L).build();
+    Mutation insertSinger = Mutation.newInsertBuilder("Singers").set("SingerId").to(1L).build();
+    Mutation deleteSinger = Mutation.delete("Singers", Key.of(1L));
+    Mutation deleteSongs = Mutation.delete("Songs", KeySet.all());
+    BulkWriter writer =
+        BulkWriter.newBuilder(client)
+            .setKeyColumns("Singers", "SingerId")
+            .setKeyColumns("Albums", "SingerId", "AlbumId")
+            .build();
+
+    // The delete of a singer could cascade to the albums of the singer.
+    assertEquals(
+        ImmutableList.of(
+            ImmutableList.of(insertAlbum),
+            ImmutableList.of(deleteSinger, insertSinger),
+            ImmutableList.of(insertAlbum)),
+        writer.segment(ImmutableList.of(insertAlbum, deleteSinger, insertSinger, insertAlbum)));
+    // Deletes can be committed in any order.
+    assertEquals(
+        ImmutableList.of(
+            ImmutableList.of(insertSinger),
+            ImmutableList.of(deleteSongs, deleteSinger, deleteSongs),
+            ImmutableList.of(insertAlbum)),
+        writer.segment(
+            ImmutableList.of(insertSinger, deleteSongs, deleteSinger, deleteSongs, insertAlbum)));
+    // Mutations for a single table without deletes of multiple rows stay in one segment.
+    assertEquals(
+        ImmutableList.of(ImmutableList.of(insertSinger, deleteSinger, insertSinger)),
+        writer.segment(ImmutableList.of(insertSinger, deleteSinger, insertSinger)));
+  }
+
+  @Test
+  public void testCountMutations() {
+    assertEquals(2, BulkWriter.countMutations(createInserts(1).get(0)));
+    assertEquals(
+        3,
+        BulkWriter.countMutations(
+            Mutation.delete(
+                "T",
+                KeySet.newBuilder()
+                    .addKey(Key.of(1L))
+                    .addKey(Key.of(2L))
+                    .addRange(KeyRange.closedOpen(Key.of(3L), Key.of(4L)))
+                    .build())));
+    assertEquals(1, BulkWriter.countMutations(Mutation.delete("T", KeySet.all())));
+  }
+
+  @Test
+  public void testWriteInParallel() {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    BulkWriter writer =
+        BulkWriter.newBuilder(client)
+            .setMaxMutationsPerCommit(20)
+            .setMaxParallelism(4)
+            .setExecutor(executor)
+            .build();
+    List<CommitResponse> responses = writer.write(createInserts(100));
+
+    assertEquals(10, responses.size());
+    List<CommitRequest> requests = mockSpanner.getRequestsOfType(CommitRequest.class);
+    assertEquals(10, requests.size());
+    assertEquals(100, countRows(requests));
+    assertFalse(executor.isShutdown());
+    executor.shutdown();
+  }
+
+  @Test
+  public void testWriteAtLeastOnce() {
+    BulkWriter writer =
+        BulkWriter.newBuilder(client).setMaxMutationsPerCommit(100).setAtLeastOnce(true).build();
+    List<CommitResponse> responses = writer.write(createInserts(100));
+
+    assertEquals(2, responses.size());
+    List<CommitRequest> requests = mockSpanner.getRequestsOfType(CommitRequest.class);
+    assertEquals(2, requests.size());
+    for (CommitRequest request : requests) {
+      assertTrue(request.hasSingleUseTransaction());
+    }
+    assertEquals(100, countRows(requests));
+  }
+
+  @Test
+  public void testWriteSingleBatch() {
+    BulkWriter writer = BulkWriter.newBuilder(client).build();
+    assertEquals(1, writer.write(createInserts(10)).size());
+    assertEquals(0, writer.write(new ArrayList<>()).size());
+    assertEquals(1, mockSpanner.countRequestsOfType(CommitRequest.class));
+  }
+
+  @Test
+  public void testWriteFails() {
+    mockSpanner.setCommitExecutionTime(
+        SimulatedExecutionTime.ofStickyException(
+            Status.INVALID_ARGUMENT.withDescription("too many mutations").asRuntimeException()));
+    BulkWriter writer =
+        BulkWriter.newBuilder(client).setMaxMutationsPerCommit(20).setMaxParallelism(2).build();
+
+    SpannerException exception =
+        assertThrows(SpannerException.class, () -> writer.write(createInserts(100)));
+    assertEquals(ErrorCode.INVALID_ARGUMENT, exception.getErrorCode());
+    // No new commits are started after the first error.
+    assertTrue(mockSpanner.countRequestsOfType(CommitRequest.class) < 10);
+  }
+}
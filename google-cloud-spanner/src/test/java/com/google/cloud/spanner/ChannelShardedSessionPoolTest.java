@@ -0,0 +1,231 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import static com.google.cloud.spanner.MockSpannerTestUtil.SELECT1;
+import static com.google.cloud.spanner.MockSpannerTestUtil.SELECT1_RESULTSET;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.api.gax.grpc.testing.LocalChannelProvider;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
+import com.google.cloud.spanner.spi.v1.SpannerRpc;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessServerBuilder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for a {@link SessionPool} that shards its idle sessions by gRPC channel. */
+@RunWith(JUnit4.class)
+public class ChannelShardedSessionPoolTest {
+  private static final int NUM_CHANNELS = 4;
+
+  private static MockSpannerServiceImpl mockSpanner;
+  private static Server server;
+  private static LocalChannelProvider channelProvider;
+
+  private Spanner spanner;
+
+  @BeforeClass
+  public static void startMockServer() throws IOException {
+    mockSpanner = new MockSpannerServiceImpl();
+    mockSpanner.setAbortProbability(0.0D);
+    mockSpanner.putStatementResult(StatementResult.query(SELECT1, SELECT1_RESULTSET));
+
+    String uniqueName = InProcessServerBuilder.generateName();
+    server = InProcessServerBuilder.forName(uniqueName).addService(mockSpanner).build().start();
+    channelProvider = LocalChannelProvider.create(uniqueName);
+  }
+
+  @AfterClass
+  public static void stopMockServer() throws InterruptedException {
+    server.shutdown();
+    server.awaitTermination();
+  }
+
+  @After
+  public void cleanup() {
+    if (spanner != null) {
+      spanner.close();
+    }
+    mockSpanner.reset();
+  }
+
+  private DatabaseClientImpl createClient(int minSessions, int maxSessions) {
+    return createClient(minSessions, maxSessions, false);
+  }
+
+  private DatabaseClientImpl createClient(
+      int minSessions, int maxSessions, boolean useLeastOutstandingRequestsChannelSelection) {
+    spanner =
+        SpannerOptions.newBuilder()
+            .setProjectId("p")
+            .setChannelProvider(channelProvider)
+            .setCredentials(NoCredentials.getInstance())
+            .setNumChannels(NUM_CHANNELS)
+            .setSessionPoolOption(
+                SessionPoolOptions.newBuilder()
+                    .setMinSessions(minSessions)
+                    .setMaxSessions(maxSessions)
+                    .setUseChannelShardedSessions(true)
+                    .setUseLeastOutstandingRequestsChannelSelection(
+                        useLeastOutstandingRequestsChannelSelection)
+                    .setFailOnSessionLeak()
+                    .build())
+            .build()
+            .getService();
+    return (DatabaseClientImpl) spanner.getDatabaseClient(DatabaseId.of("p", "i", "d"));
+  }
+
+  private static void executeQueries(DatabaseClient client, int numThreads, int numQueries)
+      throws Exception {
+    ListeningExecutorService executor =
+        MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(numThreads));
+    List<ListenableFuture<Long>> futures = new ArrayList<>(numQueries);
+    for (int i = 0; i < numQueries; i++) {
+      futures.add(
+          executor.submit(
+              () -> {
+                try (ResultSet resultSet = client.singleUse().executeQuery(SELECT1)) {
+                  long sum = 0L;
+                  while (resultSet.next()) {
+                    sum += resultSet.getLong(0);
+                  }
+                  return sum;
+                }
+              }));
+    }
+    for (Long result : Futures.allAsList(futures).get(30L, TimeUnit.SECONDS)) {
+      assertEquals(1L, result.longValue());
+    }
+    executor.shutdown();
+  }
+
+  @Test
+  public void testConcurrentQueries() throws Exception {
+    DatabaseClientImpl client = createClient(NUM_CHANNELS * 4, NUM_CHANNELS * 4);
+    executeQueries(client, 32, 500);
+
+    SessionPool pool = client.pool;
+    assertEquals(0, pool.getNumberOfSessionsInUse());
+    assertEquals(pool.totalSessions(), pool.getNumberOfSessionsInPool());
+  }
+
+  @Test
+  public void testWaitersReceiveReleasedSessions() throws Exception {
+    // Use fewer sessions than threads to force threads to wait for sessions to be released.
+    DatabaseClientImpl client = createClient(0, 2);
+    executeQueries(client, 16, 200);
+
+    SessionPool pool = client.pool;
+    assertEquals(0, pool.getNumberOfSessionsInUse());
+    assertEquals(2, pool.totalSessions());
+    assertEquals(2, pool.getNumberOfSessionsInPool());
+  }
+
+  @Test
+  public void testCheckoutIsBalancedOverChannels() {
+    DatabaseClientImpl client = createClient(NUM_CHANNELS * 2, NUM_CHANNELS * 2);
+    SessionPool pool = client.pool;
+    // Wait until all sessions have been created.
+    while (pool.getNumberOfSessionsInPool() < NUM_CHANNELS * 2) {
+      Thread.yield();
+    }
+
+    List<ReadOnlyTransaction> transactions = new ArrayList<>(NUM_CHANNELS);
+    Set<Integer> channels = new HashSet<>();
+    for (int i = 0; i < NUM_CHANNELS; i++) {
+      ReadOnlyTransaction transaction = client.readOnlyTransaction();
+      try (ResultSet resultSet = transaction.executeQuery(SELECT1)) {
+        assertTrue(resultSet.next());
+      }
+      transactions.add(transaction);
+    }
+    for (SessionPool.PooledSessionFuture session : pool.checkedOutSessions) {
+      channels.add(session.get().getChannel());
+    }
+    // Each checked out session should use a different channel.
+    assertEquals(NUM_CHANNELS, channels.size());
+    for (ReadOnlyTransaction transaction : transactions) {
+      transaction.close();
+    }
+  }
+
+  @Test
+  public void testLeastOutstandingRequestsChannelSelection() throws Exception {
+    DatabaseClientImpl client = createClient(NUM_CHANNELS * 2, NUM_CHANNELS * 2, true);
+    client.warmup(SELECT1).get(30L, TimeUnit.SECONDS);
+    SpannerRpc rpc = ((SpannerImpl) spanner).getRpc();
+
+    // Start a query that blocks on the server, so it stays outstanding on its channel.
+    mockSpanner.freeze();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<?> query =
+        executor.submit(
+            () -> {
+              try (ResultSet resultSet = client.singleUse().executeQuery(SELECT1)) {
+                while (resultSet.next()) {}
+              }
+            });
+    int busyChannel = -1;
+    while (busyChannel == -1) {
+      for (int channel = 0; channel < NUM_CHANNELS; channel++) {
+        if (rpc.getNumOutstandingRequests(channel) > 0) {
+          busyChannel = channel;
+        }
+      }
+      Thread.yield();
+    }
+
+    // Sessions are checked out from the other channels, as long as these have idle sessions.
+    List<SessionPool.PooledSessionFuture> sessions = new ArrayList<>();
+    for (int i = 0; i < (NUM_CHANNELS - 1) * 2; i++) {
+      SessionPool.PooledSessionFuture session = client.pool.getSession();
+      assertNotEquals(busyChannel, session.get().getChannel());
+      sessions.add(session);
+    }
+    for (SessionPool.PooledSessionFuture session : sessions) {
+      session.close();
+    }
+
+    mockSpanner.unfreeze();
+    query.get(30L, TimeUnit.SECONDS);
+    executor.shutdown();
+    for (int channel = 0; channel < NUM_CHANNELS; channel++) {
+      assertEquals(0, rpc.getNumOutstandingRequests(channel));
+    }
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ChannelShardedSessionQueueTest {
+
+  @Test
+  public void testAddFirstAndAddLast() {
+    ChannelShardedSessionQueue<String> queue = new ChannelShardedSessionQueue<>(1, 2);
+    queue.addFirst(0, "b");
+    queue.addFirst(0, "a");
+    queue.addLast(0, "c");
+
+    assertEquals(3, queue.size());
+    assertEquals("a", queue.pollLeastLoaded(shard -> 0));
+    assertEquals("b", queue.pollLeastLoaded(shard -> 0));
+    assertEquals("c", queue.pollLeastLoaded(shard -> 0));
+    assertNull(queue.pollLeastLoaded(shard -> 0));
+    assertTrue(queue.isEmpty());
+  }
+
+  @Test
+  public void testShardOf() {
+    ChannelShardedSessionQueue<String> queue = new ChannelShardedSessionQueue<>(4, 1);
+    assertEquals(0, queue.shardOf(0));
+    assertEquals(3, queue.shardOf(3));
+    assertEquals(1, queue.shardOf(5));
+  }
+
+  @Test
+  public void testPollLeastLoaded() {
+    ChannelShardedSessionQueue<String> queue = new ChannelShardedSessionQueue<>(3, 4);
+    queue.addFirst(0, "channel0");
+    queue.addFirst(1, "channel1");
+    queue.addFirst(2, "channel2");
+    int[] load = new int[] {5, 1, 3};
+
+    assertEquals("channel1", queue.pollLeastLoaded(shard -> load[shard]));
+    // Shard 1 is now empty, so the next least loaded non-empty shard is used.
+    assertEquals("channel2", queue.pollLeastLoaded(shard -> load[shard]));
+    assertEquals("channel0", queue.pollLeastLoaded(shard -> load[shard]));
+    assertNull(queue.pollLeastLoaded(shard -> load[shard]));
+  }
+
+  @Test
+  public void testRemoveIf() {
+    ChannelShardedSessionQueue<Integer> queue = new ChannelShardedSessionQueue<>(2, 4);
+    for (int i = 0; i < 10; i++) {
+      queue.addLast(i, i);
+    }
+
+    List<Integer> removed = queue.removeIf(value -> value % 3 == 0);
+
+    assertEquals(Arrays.asList(0, 6, 3, 9), removed);
+    assertEquals(6, queue.size());
+    assertEquals(3, queue.size(0));
+    assertEquals(3, queue.size(1));
+    List<Integer> remaining = new ArrayList<>();
+    Integer value;
+    while ((value = queue.pollLeastLoaded(shard -> shard)) != null) {
+      remaining.add(value);
+    }
+    assertEquals(Arrays.asList(2, 4, 8, 1, 5, 7), remaining);
+  }
+
+  @Test
+  public void testRemoveFirstMatching() {
+    ChannelShardedSessionQueue<Integer> queue = new ChannelShardedSessionQueue<>(2, 4);
+    // Shard 0 contains 0, 2, 4 and shard 1 contains 1, 3, 5.
+    for (int i = 0; i < 6; i++) {
+      queue.addLast(i, i);
+    }
+
+    // The heads of all shards are checked before the second element of any shard.
+    assertEquals(Integer.valueOf(1), queue.removeFirstMatching(value -> value > 0, 6));
+    // Only the first two elements (0 and 3) are checked.
+    assertNull(queue.removeFirstMatching(value -> value == 2, 2));
+    assertEquals(Integer.valueOf(2), queue.removeFirstMatching(value -> value == 2, 3));
+    assertNull(queue.removeFirstMatching(value -> value == 100, 100));
+    assertEquals(4, queue.size());
+  }
+
+  @Test
+  public void testGrowsBeyondInitialCapacity() {
+    ChannelShardedSessionQueue<Integer> queue = new ChannelShardedSessionQueue<>(1, 1);
+    for (int i = 0; i < 10; i++) {
+      if (i % 2 == 0) {
+        queue.addFirst(0, i);
+      } else {
+        queue.addLast(0, i);
+      }
+    }
+    List<Integer> values = new ArrayList<>();
+    Integer value;
+    while ((value = queue.pollLeastLoaded(shard -> 0)) != null) {
+      values.add(value);
+    }
+    assertEquals(Arrays.asList(8, 6, 4, 2, 0, 1, 3, 5, 7, 9), values);
+  }
+
+  @Test
+  public void testClear() {
+    ChannelShardedSessionQueue<Integer> queue = new ChannelShardedSessionQueue<>(4, 4);
+    for (int i = 0; i < 10; i++) {
+      queue.addFirst(i, i);
+    }
+    queue.clear();
+    assertEquals(0, queue.size());
+    assertNull(queue.pollLeastLoaded(shard -> 0));
+  }
+
+  @Test
+  public void testConcurrentPollAndAdd() throws Exception {
+    int numShards = 4;
+    int numElements = 64;
+    int numThreads = 8;
+    int iterations = 10_000;
+    ChannelShardedSessionQueue<Integer> queue = new ChannelShardedSessionQueue<>(numShards, 16);
+    for (int i = 0; i < numElements; i++) {
+      queue.addFirst(i, i);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    List<Future<?>> futures = new ArrayList<>(numThreads);
+    for (int thread = 0; thread < numThreads; thread++) {
+      futures.add(
+          executor.submit(
+              () -> {
+                for (int i = 0; i < iterations; i++) {
+                  Integer element = queue.pollLeastLoaded(queue::size);
+                  if (element != null) {
+                    queue.addFirst(element, element);
+                  }
+                }
+              }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+
+    Set<Integer> elements = new HashSet<>();
+    Integer element;
+    while ((element = queue.pollLeastLoaded(shard -> 0)) != null) {
+      elements.add(element);
+    }
+    assertEquals(numElements, elements.size());
+  }
+}
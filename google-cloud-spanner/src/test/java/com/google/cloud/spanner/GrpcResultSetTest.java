@@ -41,25 +41,39 @@ import com.google.spanner.v1.QueryPlan;
 import com.google.spanner.v1.ResultSetMetadata;
 import com.google.spanner.v1.ResultSetStats;
 import com.google.spanner.v1.Transaction;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import javax.annotation.Nullable;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.junit.runners.JUnit4;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
 import org.threeten.bp.Duration;
 
 /** Unit tests for {@link com.google.cloud.spanner.AbstractResultSet.GrpcResultSet}. */
-@RunWith(JUnit4.class)
+@RunWith(Parameterized.class)
 public class GrpcResultSetTest {
 
+  @Parameter public boolean lazyDecoding;
+
+  @Parameters(name = "lazyDecoding = {0}")
+  public static Collection<Object[]> data() {
+    return Arrays.asList(new Object[][] {{false}, {true}});
+  }
+
   private AbstractResultSet.GrpcResultSet resultSet;
   private SpannerRpc.ResultStreamConsumer consumer;
   private AbstractResultSet.GrpcStreamIterator stream;
@@ -97,11 +111,11 @@ public class GrpcResultSetTest {
         },
         false);
     consumer = stream.consumer();
-    resultSet = new AbstractResultSet.GrpcResultSet(stream, new NoOpListener());
+    resultSet = new AbstractResultSet.GrpcResultSet(stream, new NoOpListener(), lazyDecoding);
   }
 
   public AbstractResultSet.GrpcResultSet resultSetWithMode(QueryMode queryMode) {
-    return new AbstractResultSet.GrpcResultSet(stream, new NoOpListener());
+    return new AbstractResultSet.GrpcResultSet(stream, new NoOpListener(), lazyDecoding);
   }
 
   @Test
@@ -609,7 +623,7 @@ public class GrpcResultSetTest {
 
   private void verifySerialization(
       Function<Value, com.google.protobuf.Value> protoFn, Value... values) {
-    resultSet = new AbstractResultSet.GrpcResultSet(stream, new NoOpListener());
+    resultSet = new AbstractResultSet.GrpcResultSet(stream, new NoOpListener(), lazyDecoding);
     PartialResultSet.Builder builder = PartialResultSet.newBuilder();
     List<Type.StructField> types = new ArrayList<>();
     for (Value value : values) {
@@ -702,6 +716,142 @@ public class GrpcResultSetTest {
     assertThat(resultSet.getLong(0)).isEqualTo(Long.MAX_VALUE);
   }
 
+  @Test
+  public void invalidValueInColumnThatIsNotAccessed() {
+    consumer.onPartialResultSet(
+        PartialResultSet.newBuilder()
+            .setMetadata(
+                makeMetadata(
+                    Type.struct(
+                        Type.StructField.of("valid", Type.int64()),
+                        Type.StructField.of("invalid", Type.int64()))))
+            .addValues(Value.int64(1L).toProto())
+            .addValues(Value.bool(true).toProto())
+            .build());
+    consumer.onCompleted();
+
+    if (lazyDecoding) {
+      // The invalid value is only detected when the column is accessed.
+      assertThat(resultSet.next()).isTrue();
+      assertThat(resultSet.getLong(0)).isEqualTo(1L);
+      assertThat(resultSet.isNull(1)).isFalse();
+      SpannerException e = assertThrows(SpannerException.class, () -> resultSet.getLong(1));
+      assertEquals(ErrorCode.INTERNAL, e.getErrorCode());
+    } else {
+      SpannerException e = assertThrows(SpannerException.class, () -> resultSet.next());
+      assertEquals(ErrorCode.INTERNAL, e.getErrorCode());
+    }
+  }
+
+  @Test
+  public void getSameColumnMultipleTimes() {
+    consumer.onPartialResultSet(
+        PartialResultSet.newBuilder()
+            .setMetadata(
+                makeMetadata(
+                    Type.struct(
+                        Type.StructField.of("l", Type.int64()),
+                        Type.StructField.of("s", Type.string()),
+                        Type.StructField.of("n", Type.int64()))))
+            .addValues(Value.int64(100L).toProto())
+            .addValues(Value.string("foo").toProto())
+            .addValues(Value.int64(null).toProto())
+            .build());
+    consumer.onCompleted();
+
+    assertThat(resultSet.next()).isTrue();
+    for (int i = 0; i < 2; i++) {
+      assertThat(resultSet.getLong(0)).isEqualTo(100L);
+      assertThat(resultSet.getValue(0)).isEqualTo(Value.int64(100L));
+      assertThat(resultSet.getString(1)).isEqualTo("foo");
+      assertThat(resultSet.getValue(1)).isEqualTo(Value.string("foo"));
+      assertThat(resultSet.isNull(2)).isTrue();
+      assertThat(resultSet.getValue(2)).isEqualTo(Value.int64(null));
+    }
+    assertThat(resultSet.getCurrentRowAsStruct())
+        .isEqualTo(
+            Struct.newBuilder()
+                .set("l")
+                .to(100L)
+                .set("s")
+                .to("foo")
+                .set("n")
+                .to((Long) null)
+                .build());
+    assertThat(resultSet.next()).isFalse();
+  }
+
+  @Test
+  public void nextBatch() {
+    consumer.onPartialResultSet(
+        PartialResultSet.newBuilder()
+            .setMetadata(
+                makeMetadata(
+                    Type.struct(
+                        Type.StructField.of("l", Type.int64()),
+                        Type.StructField.of("s", Type.string()),
+                        Type.StructField.of("d", Type.float64()),
+                        Type.StructField.of("b", Type.bool()))))
+            .addValues(Value.int64(1L).toProto())
+            .addValues(Value.string("one").toProto())
+            .addValues(Value.float64(1.5d).toProto())
+            .addValues(Value.bool(true).toProto())
+            .addValues(Value.int64(null).toProto())
+            .addValues(Value.string("two").toProto())
+            .addValues(Value.float64(null).toProto())
+            .addValues(Value.bool(null).toProto())
+            .addValues(Value.int64(3L).toProto())
+            .addValues(Value.string("three").toProto())
+            .addValues(Value.float64(Double.NaN).toProto())
+            .addValues(Value.bool(false).toProto())
+            .build());
+    consumer.onCompleted();
+
+    ColumnBuffer.Int64Buffer longs = ColumnBuffer.int64(0, 2);
+    ColumnBuffer.Float64Buffer doubles = ColumnBuffer.float64(2, 10);
+    ColumnBuffer.BoolBuffer bools = ColumnBuffer.bool(3, 10);
+
+    assertEquals(2, resultSet.nextBatch(longs, doubles, bools));
+    assertEquals(2, longs.size());
+    assertEquals(2, doubles.size());
+    assertEquals(2, bools.size());
+    assertEquals(1L, longs.get(0));
+    assertThat(longs.isNull(0)).isFalse();
+    assertThat(longs.isNull(1)).isTrue();
+    assertEquals(0L, longs.get(1));
+    assertEquals(1.5d, doubles.get(0), 0d);
+    assertThat(doubles.isNull(1)).isTrue();
+    assertThat(bools.get(0)).isTrue();
+    assertThat(bools.isNull(1)).isTrue();
+    // The result set is positioned on the last row that was read.
+    assertThat(resultSet.getString(1)).isEqualTo("two");
+
+    assertEquals(1, resultSet.nextBatch(longs, doubles, bools));
+    assertEquals(1, longs.size());
+    assertEquals(3L, longs.getValues()[0]);
+    assertThat(Double.isNaN(doubles.get(0))).isTrue();
+    assertThat(bools.isNull(0)).isFalse();
+    assertThat(bools.get(0)).isFalse();
+    assertThrows(IndexOutOfBoundsException.class, () -> longs.get(1));
+
+    assertEquals(0, resultSet.nextBatch(longs, doubles, bools));
+    assertEquals(0, longs.size());
+  }
+
+  @Test
+  public void nextBatchWithInvalidType() {
+    consumer.onPartialResultSet(
+        PartialResultSet.newBuilder()
+            .setMetadata(makeMetadata(Type.struct(Type.StructField.of("s", Type.string()))))
+            .addValues(Value.string("foo").toProto())
+            .build());
+    consumer.onCompleted();
+
+    ColumnBuffer.Int64Buffer longs = ColumnBuffer.int64(0, 10);
+    assertThrows(IllegalStateException.class, () -> resultSet.nextBatch(longs));
+    assertEquals(0, longs.size());
+  }
+
   @Test
   public void getDate() {
     consumer.onPartialResultSet(
@@ -803,6 +953,58 @@ public class GrpcResultSetTest {
         });
   }
 
+  @Test
+  public void getBytesAsByteBufferAndInputStream() throws IOException {
+    byte[] largeValue = new byte[100_000];
+    new Random().nextBytes(largeValue);
+    SingerInfo singerInfo = SingerInfo.newBuilder().setSingerId(1).setGenre(Genre.ROCK).build();
+    String singerInfoFullName = SingerInfo.getDescriptor().getFullName();
+    List<ByteArray> values =
+        Arrays.asList(
+            ByteArray.copyFrom(largeValue),
+            ByteArray.copyFrom(""),
+            // These values are encoded with one and two padding characters.
+            ByteArray.copyFrom("ab"),
+            ByteArray.copyFrom("a"));
+
+    PartialResultSet.Builder builder =
+        PartialResultSet.newBuilder()
+            .setMetadata(
+                makeMetadata(
+                    Type.struct(
+                        Type.StructField.of("b", Type.bytes()),
+                        Type.StructField.of("p", Type.proto(singerInfoFullName)))));
+    for (ByteArray value : values) {
+      builder.addValues(Value.bytes(value).toProto());
+      builder.addValues(Value.protoMessage(singerInfo).toProto());
+    }
+    builder.addValues(Value.bytes(null).toProto());
+    builder.addValues(Value.protoMessage(null, singerInfoFullName).toProto());
+    consumer.onPartialResultSet(builder.build());
+    consumer.onCompleted();
+
+    for (ByteArray value : values) {
+      assertTrue(resultSet.next());
+      ByteBuffer buffer = resultSet.getBytesAsByteBuffer(0);
+      assertTrue(buffer.isReadOnly());
+      assertEquals(value.asReadOnlyByteBuffer(), buffer);
+      assertEquals(value.asReadOnlyByteBuffer(), resultSet.getBytesAsByteBuffer("b"));
+      try (InputStream input = resultSet.getBytesAsInputStream(0)) {
+        assertEquals(value, ByteArray.copyFrom(input));
+      }
+      try (InputStream input = resultSet.getBytesAsInputStream("p")) {
+        assertEquals(singerInfo, SingerInfo.parseFrom(input));
+      }
+      assertEquals(
+          ByteBuffer.wrap(singerInfo.toByteArray()), resultSet.getBytesAsByteBuffer("p"));
+      assertEquals(value, resultSet.getBytes(0));
+    }
+    assertTrue(resultSet.next());
+    assertThrows(NullPointerException.class, () -> resultSet.getBytesAsByteBuffer(0));
+    assertThrows(NullPointerException.class, () -> resultSet.getBytesAsInputStream(1));
+    assertThrows(IllegalArgumentException.class, () -> resultSet.getBytesAsInputStream("foo"));
+  }
+
   @Test
   public void getProtoEnum() {
     String genreFullyQualifiedName = Genre.getDescriptor().getFullName();
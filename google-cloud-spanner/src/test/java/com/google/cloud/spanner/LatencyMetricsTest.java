@@ -0,0 +1,213 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import static com.google.cloud.spanner.MockSpannerTestUtil.SELECT1;
+import static com.google.cloud.spanner.MockSpannerTestUtil.SELECT1_RESULTSET;
+import static com.google.cloud.spanner.MockSpannerTestUtil.UPDATE_COUNT;
+import static com.google.cloud.spanner.MockSpannerTestUtil.UPDATE_STATEMENT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.api.gax.grpc.testing.LocalChannelProvider;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class LatencyMetricsTest {
+  private static final DatabaseId DATABASE_ID = DatabaseId.of("p", "i", "d");
+
+  private static MockSpannerServiceImpl mockSpanner;
+  private static Server server;
+  private static LocalChannelProvider channelProvider;
+
+  private InMemoryMetricReader metricReader;
+  private Spanner spanner;
+  private DatabaseClient client;
+
+  @BeforeClass
+  public static void startMockServer() throws IOException {
+    mockSpanner = new MockSpannerServiceImpl();
+    mockSpanner.setAbortProbability(0.0D);
+    mockSpanner.putStatementResult(StatementResult.query(SELECT1, SELECT1_RESULTSET));
+    mockSpanner.putStatementResult(StatementResult.update(UPDATE_STATEMENT, UPDATE_COUNT));
+
+    String uniqueName = InProcessServerBuilder.generateName();
+    server = InProcessServerBuilder.forName(uniqueName).addService(mockSpanner).build().start();
+    channelProvider = LocalChannelProvider.create(uniqueName);
+  }
+
+  @AfterClass
+  public static void stopMockServer() throws InterruptedException {
+    server.shutdown();
+    server.awaitTermination();
+  }
+
+  @Before
+  public void createClient() {
+    metricReader = InMemoryMetricReader.create();
+    OpenTelemetrySdk openTelemetry =
+        OpenTelemetrySdk.builder()
+            .setMeterProvider(SdkMeterProvider.builder().registerMetricReader(metricReader).build())
+            .build();
+    spanner =
+        SpannerOptions.newBuilder()
+            .setProjectId("p")
+            .setChannelProvider(channelProvider)
+            .setCredentials(NoCredentials.getInstance())
+            .setSessionPoolOption(SessionPoolOptions.newBuilder().setFailOnSessionLeak().build())
+            .setOpenTelemetry(openTelemetry)
+            .build()
+            .getService();
+    client = spanner.getDatabaseClient(DATABASE_ID);
+  }
+
+  @After
+  public void cleanup() {
+    spanner.close();
+    mockSpanner.removeAllExecutionTimes();
+    mockSpanner.reset();
+  }
+
+  private List<HistogramPointData> getPoints(LatencyMetrics.Phase phase, String method) {
+    Collection<MetricData> metrics = metricReader.collectAllMetrics();
+    List<HistogramPointData> result = new ArrayList<>();
+    for (MetricData metric : metrics) {
+      if (!metric.getName().equals(phase.getMetricName())) {
+        continue;
+      }
+      for (HistogramPointData point : metric.getHistogramData().getPoints()) {
+        if (method.equals(point.getAttributes().get(LatencyMetrics.METHOD))) {
+          assertEquals(DATABASE_ID.getName(), point.getAttributes().get(LatencyMetrics.DATABASE));
+          assertEquals(LatencyMetrics.MILLISECOND, metric.getUnit());
+          result.add(point);
+        }
+      }
+    }
+    return result;
+  }
+
+  private long getCount(LatencyMetrics.Phase phase, String method) {
+    return getPoints(phase, method).stream().mapToLong(HistogramPointData::getCount).sum();
+  }
+
+  @Test
+  public void testQuery() {
+    try (ResultSet resultSet = client.singleUse().executeQuery(SELECT1)) {
+      while (resultSet.next()) {
+        assertEquals(1L, resultSet.getLong(0));
+      }
+    }
+
+    assertEquals(
+        1L, getCount(LatencyMetrics.Phase.SESSION_ACQUIRE, LatencyMetrics.METHOD_GET_SESSION));
+    assertEquals(
+        1L,
+        getCount(
+            LatencyMetrics.Phase.FIRST_RESPONSE, LatencyMetrics.METHOD_EXECUTE_STREAMING_SQL));
+    assertEquals(
+        1L, getCount(LatencyMetrics.Phase.DECODE, LatencyMetrics.METHOD_EXECUTE_STREAMING_SQL));
+  }
+
+  @Test
+  public void testReadWriteTransactionWithInlinedBegin() {
+    client.readWriteTransaction().run(transaction -> transaction.executeUpdate(UPDATE_STATEMENT));
+
+    List<HistogramPointData> begin =
+        getPoints(
+            LatencyMetrics.Phase.BEGIN_TRANSACTION, LatencyMetrics.METHOD_BEGIN_TRANSACTION);
+    assertEquals(1, begin.size());
+    assertEquals(1L, begin.get(0).getCount());
+    assertTrue(begin.get(0).getAttributes().get(LatencyMetrics.INLINED));
+    assertEquals(1L, getCount(LatencyMetrics.Phase.COMMIT, LatencyMetrics.METHOD_COMMIT));
+    assertEquals(
+        0L,
+        getCount(
+            LatencyMetrics.Phase.RETRY_DELAY, LatencyMetrics.METHOD_READ_WRITE_TRANSACTION));
+  }
+
+  @Test
+  public void testRetryDelayOfAbortedTransaction() {
+    AtomicInteger attempts = new AtomicInteger();
+    client
+        .readWriteTransaction()
+        .run(
+            transaction -> {
+              if (attempts.incrementAndGet() == 1) {
+                mockSpanner.abortNextStatement();
+              }
+              return transaction.executeUpdate(UPDATE_STATEMENT);
+            });
+
+    assertEquals(2, attempts.get());
+    assertEquals(
+        1L,
+        getCount(
+            LatencyMetrics.Phase.RETRY_DELAY, LatencyMetrics.METHOD_READ_WRITE_TRANSACTION));
+    // The retry uses an explicit BeginTransaction RPC, as the first attempt did not return a
+    // transaction.
+    List<HistogramPointData> begin =
+        getPoints(
+            LatencyMetrics.Phase.BEGIN_TRANSACTION, LatencyMetrics.METHOD_BEGIN_TRANSACTION);
+    assertEquals(1, begin.size());
+    assertFalse(begin.get(0).getAttributes().get(LatencyMetrics.INLINED));
+  }
+
+  @Test
+  public void testWriteAtLeastOnce() {
+    client.writeAtLeastOnce(
+        Collections.singletonList(Mutation.newInsertBuilder("FOO").set("ID").to(1L).build()));
+
+    assertEquals(1L, getCount(LatencyMetrics.Phase.COMMIT, LatencyMetrics.METHOD_COMMIT));
+  }
+
+  @Test
+  public void testMetricsAreDisabledByDefault() {
+    try (Spanner spanner =
+        SpannerOptions.newBuilder()
+            .setProjectId("p")
+            .setChannelProvider(channelProvider)
+            .setCredentials(NoCredentials.getInstance())
+            .build()
+            .getService()) {
+      spanner.getDatabaseClient(DATABASE_ID);
+      assertNull(((SpannerImpl) spanner).getLatencyMetrics(DATABASE_ID));
+    }
+  }
+}
@@ -566,6 +566,8 @@ public class MockSpannerServiceImpl extends SpannerImplBase implements MockGrpcS
   }
 
   public static final SimulatedExecutionTime NO_EXECUTION_TIME = SimulatedExecutionTime.none();
+  /** Field number of the 'multiplexed' field of the Session proto. */
+  private static final int SESSION_MULTIPLEXED_FIELD_NUMBER = 6;
 
   private final Random random = new Random();
   private double abortProbability = 0.0010D;
@@ -627,11 +629,8 @@ public class MockSpannerServiceImpl extends SpannerImplBase implements MockGrpcS
   }
 
   private ByteString generateTransactionName(String session) {
-    AtomicLong counter = transactionCounters.get(session);
-    if (counter == null) {
-      counter = new AtomicLong();
-      transactionCounters.put(session, counter);
-    }
+    // Multiplexed sessions can be used concurrently by multiple transactions.
+    AtomicLong counter = transactionCounters.computeIfAbsent(session, key -> new AtomicLong());
     return ByteString.copyFromUtf8(
         String.format("%s/transactions/%d", session, counter.incrementAndGet()));
   }
@@ -864,12 +863,15 @@ public class MockSpannerServiceImpl extends SpannerImplBase implements MockGrpcS
       createSessionExecutionTime.simulateExecutionTime(
           exceptions, stickyGlobalExceptions, freezeLock);
       Timestamp now = getCurrentGoogleTimestamp();
-      Session session =
+      Session.Builder builder =
           Session.newBuilder()
               .setCreateTime(now)
               .setName(name)
-              .setApproximateLastUseTime(now)
-              .build();
+              .setApproximateLastUseTime(now);
+      if (isMultiplexed(request.getSession())) {
+        builder.setUnknownFields(request.getSession().getUnknownFields());
+      }
+      Session session = builder.build();
       Session prev = sessions.putIfAbsent(name, session);
       if (prev == null) {
         sessionLastUsed.put(name, Instant.now());
@@ -892,6 +894,23 @@ public class MockSpannerServiceImpl extends SpannerImplBase implements MockGrpcS
     }
   }
 
+  /**
+   * Returns true if the given session is a multiplexed session. The 'multiplexed' field is not
+   * (yet) included in the Session proto, and is therefore sent as an unknown field.
+   */
+  static boolean isMultiplexed(Session session) {
+    return session.getUnknownFields().hasField(SESSION_MULTIPLEXED_FIELD_NUMBER)
+        && session
+            .getUnknownFields()
+            .getField(SESSION_MULTIPLEXED_FIELD_NUMBER)
+            .getVarintList()
+            .contains(1L);
+  }
+
+  public long getNumMultiplexedSessionsCreated() {
+    return sessions.values().stream().filter(MockSpannerServiceImpl::isMultiplexed).count();
+  }
+
   @Override
   public void getSession(GetSessionRequest request, StreamObserver<Session> responseObserver) {
     requests.add(request);
@@ -983,6 +1002,14 @@ public class MockSpannerServiceImpl extends SpannerImplBase implements MockGrpcS
     }
   }
 
+  /** Removes the session with the given name, as if it had been garbage collected by Spanner. */
+  void removeSession(String name) {
+    Session session = sessions.get(name);
+    if (session != null) {
+      doDeleteSession(session);
+    }
+  }
+
   void doDeleteSession(Session session) {
     sessions.remove(session.getName());
     transactionCounters.remove(session.getName());
@@ -1890,6 +1917,9 @@ public class MockSpannerServiceImpl extends SpannerImplBase implements MockGrpcS
   }
 
   private void ensureMostRecentTransaction(Session session, ByteString transactionId) {
+    if (isMultiplexed(session)) {
+      return;
+    }
     AtomicLong counter = transactionCounters.get(session.getName());
     if (transactionId != null && transactionId.toStringUtf8() != null && counter != null) {
       int index = transactionId.toStringUtf8().lastIndexOf('/');
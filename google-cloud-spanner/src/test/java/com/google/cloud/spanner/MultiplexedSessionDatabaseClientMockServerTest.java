@@ -0,0 +1,299 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import static com.google.cloud.spanner.MockSpannerTestUtil.SELECT1;
+import static com.google.cloud.spanner.MockSpannerTestUtil.SELECT1_RESULTSET;
+import static com.google.cloud.spanner.MockSpannerTestUtil.UPDATE_COUNT;
+import static com.google.cloud.spanner.MockSpannerTestUtil.UPDATE_STATEMENT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.google.api.gax.grpc.testing.LocalChannelProvider;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.spanner.MockSpannerServiceImpl.SimulatedExecutionTime;
+import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
+import com.google.spanner.v1.CreateSessionRequest;
+import com.google.spanner.v1.ExecuteSqlRequest;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.opencensus.trace.BlankSpan;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.threeten.bp.Duration;
+
+@RunWith(JUnit4.class)
+public class MultiplexedSessionDatabaseClientMockServerTest {
+  private static final DatabaseId DATABASE_ID = DatabaseId.of("p", "i", "d");
+
+  private static MockSpannerServiceImpl mockSpanner;
+  private static Server server;
+  private static LocalChannelProvider channelProvider;
+
+  private Spanner spanner;
+
+  @BeforeClass
+  public static void startMockServer() throws IOException {
+    mockSpanner = new MockSpannerServiceImpl();
+    mockSpanner.setAbortProbability(0.0D);
+    mockSpanner.putStatementResult(StatementResult.query(SELECT1, SELECT1_RESULTSET));
+    mockSpanner.putStatementResult(StatementResult.update(UPDATE_STATEMENT, UPDATE_COUNT));
+
+    String uniqueName = InProcessServerBuilder.generateName();
+    server = InProcessServerBuilder.forName(uniqueName).addService(mockSpanner).build().start();
+    channelProvider = LocalChannelProvider.create(uniqueName);
+  }
+
+  @AfterClass
+  public static void stopMockServer() throws InterruptedException {
+    server.shutdown();
+    server.awaitTermination();
+  }
+
+  @After
+  public void cleanup() {
+    if (spanner != null) {
+      spanner.close();
+    }
+    mockSpanner.reset();
+    mockSpanner.removeAllExecutionTimes();
+  }
+
+  private DatabaseClientImpl createClient(int maxSessions) {
+    createSpanner(maxSessions);
+    return (DatabaseClientImpl) spanner.getDatabaseClient(DATABASE_ID);
+  }
+
+  private void createSpanner(int maxSessions) {
+    spanner =
+        SpannerOptions.newBuilder()
+            .setProjectId("p")
+            .setChannelProvider(channelProvider)
+            .setCredentials(NoCredentials.getInstance())
+            .setSessionPoolOption(
+                SessionPoolOptions.newBuilder()
+                    .setMinSessions(0)
+                    .setMaxSessions(maxSessions)
+                    .setUseMultiplexedSession(true)
+                    .setFailOnSessionLeak()
+                    .build())
+            .build()
+            .getService();
+  }
+
+  private static String getMultiplexedSessionName(DatabaseClientImpl client) {
+    assertNotNull(client.multiplexedSessionClient);
+    SessionImpl session = client.multiplexedSessionClient.getCurrentSession();
+    assertNotNull(session);
+    return session.getName();
+  }
+
+  @Test
+  public void testSingleUseQueryUsesMultiplexedSession() {
+    DatabaseClientImpl client = createClient(1);
+    try (ResultSet resultSet = client.singleUse().executeQuery(SELECT1)) {
+      assertTrue(resultSet.next());
+      assertEquals(1L, resultSet.getLong(0));
+      assertFalse(resultSet.next());
+    }
+
+    List<ExecuteSqlRequest> requests = mockSpanner.getRequestsOfType(ExecuteSqlRequest.class);
+    assertEquals(1, requests.size());
+    assertEquals(getMultiplexedSessionName(client), requests.get(0).getSession());
+    assertEquals(1L, mockSpanner.getNumMultiplexedSessionsCreated());
+    assertEquals(0, client.pool.getNumberOfSessionsInUse());
+    assertEquals(0, client.pool.totalSessions());
+  }
+
+  @Test
+  public void testConcurrentReadOnlyTransactionsAreNotLimitedByMaxSessions() {
+    DatabaseClientImpl client = createClient(1);
+    int numTransactions = 10;
+    List<ReadOnlyTransaction> transactions = new ArrayList<>(numTransactions);
+    for (int i = 0; i < numTransactions; i++) {
+      ReadOnlyTransaction transaction = client.readOnlyTransaction();
+      try (ResultSet resultSet = transaction.executeQuery(SELECT1)) {
+        assertTrue(resultSet.next());
+      }
+      transactions.add(transaction);
+    }
+    // Execute a second query on each transaction after all transactions have been started.
+    for (ReadOnlyTransaction transaction : transactions) {
+      try (ResultSet resultSet = transaction.executeQuery(SELECT1)) {
+        assertTrue(resultSet.next());
+      }
+      transaction.close();
+    }
+
+    String multiplexedSessionName = getMultiplexedSessionName(client);
+    Set<String> sessions = new HashSet<>();
+    for (ExecuteSqlRequest request : mockSpanner.getRequestsOfType(ExecuteSqlRequest.class)) {
+      sessions.add(request.getSession());
+    }
+    assertEquals(1, sessions.size());
+    assertTrue(sessions.contains(multiplexedSessionName));
+    assertEquals(0, client.pool.totalSessions());
+  }
+
+  @Test
+  public void testReadWriteTransactionUsesSessionPool() {
+    DatabaseClientImpl client = createClient(1);
+    // Make sure that the multiplexed session has been created.
+    try (ResultSet resultSet = client.singleUse().executeQuery(SELECT1)) {
+      assertTrue(resultSet.next());
+    }
+    mockSpanner.clearRequests();
+
+    Long updateCount =
+        client
+            .readWriteTransaction()
+            .run(transaction -> transaction.executeUpdate(UPDATE_STATEMENT));
+    assertEquals(Long.valueOf(UPDATE_COUNT), updateCount);
+
+    List<ExecuteSqlRequest> requests = mockSpanner.getRequestsOfType(ExecuteSqlRequest.class);
+    assertEquals(1, requests.size());
+    assertNotEquals(getMultiplexedSessionName(client), requests.get(0).getSession());
+    assertEquals(1, client.pool.totalSessions());
+  }
+
+  @Test
+  public void testRetriesCreateSessionAfterFailure() {
+    mockSpanner.setCreateSessionExecutionTime(
+        SimulatedExecutionTime.ofException(Status.PERMISSION_DENIED.asRuntimeException()));
+    DatabaseClientImpl client = createClient(1);
+
+    SpannerException exception =
+        assertThrows(SpannerException.class, () -> client.singleUse().executeQuery(SELECT1));
+    assertEquals(ErrorCode.PERMISSION_DENIED, exception.getErrorCode());
+
+    // The next read-only operation should trigger a new attempt to create a multiplexed session.
+    try (ResultSet resultSet = client.singleUse().executeQuery(SELECT1)) {
+      assertTrue(resultSet.next());
+    }
+    assertEquals(2, mockSpanner.getRequestsOfType(CreateSessionRequest.class).size());
+    assertEquals(1L, mockSpanner.getNumMultiplexedSessionsCreated());
+  }
+
+  @Test
+  public void testReplacesSessionAfterMaintenanceDuration() throws InterruptedException {
+    createSpanner(1);
+    FakeClock clock = new FakeClock();
+    MultiplexedSessionDatabaseClient multiplexedSessionClient =
+        new MultiplexedSessionDatabaseClient(
+            ((SpannerImpl) spanner).getSessionClient(DATABASE_ID), Duration.ofDays(7), clock);
+    SessionImpl first = multiplexedSessionClient.getSession(BlankSpan.INSTANCE);
+    assertEquals(first.getName(), multiplexedSessionClient.getCurrentSession().getName());
+
+    // The session should not be replaced before the maintenance duration has passed.
+    clock.currentTimeMillis.addAndGet(Duration.ofDays(6).toMillis());
+    assertEquals(
+        first.getName(), multiplexedSessionClient.getSession(BlankSpan.INSTANCE).getName());
+    assertEquals(1L, mockSpanner.getNumMultiplexedSessionsCreated());
+
+    // The old session is used until the replacement session has been created.
+    clock.currentTimeMillis.addAndGet(Duration.ofDays(2).toMillis());
+    assertEquals(
+        first.getName(), multiplexedSessionClient.getSession(BlankSpan.INSTANCE).getName());
+    while (multiplexedSessionClient.getCurrentSession().getName().equals(first.getName())) {
+      Thread.sleep(1L);
+    }
+    assertEquals(2L, mockSpanner.getNumMultiplexedSessionsCreated());
+    assertNotEquals(
+        first.getName(), multiplexedSessionClient.getSession(BlankSpan.INSTANCE).getName());
+  }
+
+  @Test
+  public void testReplacesSessionThatIsNotFound() {
+    DatabaseClientImpl client = createClient(1);
+    try (ResultSet resultSet = client.singleUse().executeQuery(SELECT1)) {
+      assertTrue(resultSet.next());
+    }
+    String first = getMultiplexedSessionName(client);
+    mockSpanner.removeSession(first);
+    mockSpanner.clearRequests();
+
+    // The query is retried on a new multiplexed session.
+    try (ResultSet resultSet = client.singleUse().executeQuery(SELECT1)) {
+      assertTrue(resultSet.next());
+      assertEquals(1L, resultSet.getLong(0));
+      assertFalse(resultSet.next());
+    }
+    String second = getMultiplexedSessionName(client);
+    assertNotEquals(first, second);
+    assertEquals(2L, mockSpanner.getNumMultiplexedSessionsCreated());
+    List<ExecuteSqlRequest> requests = mockSpanner.getRequestsOfType(ExecuteSqlRequest.class);
+    assertEquals(2, requests.size());
+    assertEquals(first, requests.get(0).getSession());
+    assertEquals(second, requests.get(1).getSession());
+
+    // Subsequent operations use the new session directly.
+    mockSpanner.clearRequests();
+    try (ResultSet resultSet = client.singleUse().executeQuery(SELECT1)) {
+      assertTrue(resultSet.next());
+    }
+    requests = mockSpanner.getRequestsOfType(ExecuteSqlRequest.class);
+    assertEquals(1, requests.size());
+    assertEquals(second, requests.get(0).getSession());
+  }
+
+  @Test
+  public void testReadOnlyTransactionThatReturnedDataIsNotRetried() {
+    DatabaseClientImpl client = createClient(1);
+    try (ReadOnlyTransaction transaction = client.readOnlyTransaction()) {
+      try (ResultSet resultSet = transaction.executeQuery(SELECT1)) {
+        assertTrue(resultSet.next());
+      }
+      String first = getMultiplexedSessionName(client);
+      mockSpanner.removeSession(first);
+
+      try (ResultSet resultSet = transaction.executeQuery(SELECT1)) {
+        assertThrows(SessionNotFoundException.class, resultSet::next);
+      }
+      // The session is invalidated, and the next transaction uses a new session.
+      try (ResultSet resultSet = client.singleUse().executeQuery(SELECT1)) {
+        assertTrue(resultSet.next());
+      }
+      assertNotEquals(first, getMultiplexedSessionName(client));
+    }
+  }
+
+  @Test
+  public void testCreateSessionRequestIsMarkedAsMultiplexed() {
+    DatabaseClientImpl client = createClient(1);
+    try (ResultSet resultSet = client.singleUse().executeQuery(SELECT1)) {
+      assertTrue(resultSet.next());
+    }
+    List<CreateSessionRequest> requests =
+        mockSpanner.getRequestsOfType(CreateSessionRequest.class);
+    assertEquals(1, requests.size());
+    assertTrue(MockSpannerServiceImpl.isMultiplexed(requests.get(0).getSession()));
+  }
+}
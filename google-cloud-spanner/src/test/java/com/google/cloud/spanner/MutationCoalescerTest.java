@@ -0,0 +1,186 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class MutationCoalescerTest {
+  private final MutationCoalescer coalescer =
+      new MutationCoalescer(ImmutableMap.of("Singers", ImmutableList.of("SingerId")));
+
+  private static Mutation insert(long id, String name) {
+    return Mutation.newInsertBuilder("Singers")
+        .set("SingerId")
+        .to(id)
+        .set("Name")
+        .to(name)
+        .build();
+  }
+
+  private static Mutation update(long id, String column, String value) {
+    return Mutation.newUpdateBuilder("Singers")
+        .set("SingerId")
+        .to(id)
+        .set(column)
+        .to(value)
+        .build();
+  }
+
+  private static Mutation insertOrUpdate(long id, String name) {
+    return Mutation.newInsertOrUpdateBuilder("Singers")
+        .set("SingerId")
+        .to(id)
+        .set("Name")
+        .to(name)
+        .build();
+  }
+
+  private static Mutation delete(long id) {
+    return Mutation.delete("Singers", Key.of(id));
+  }
+
+  @Test
+  public void testMergesWritesToSameRow() {
+    List<List<Mutation>> groups =
+        coalescer.coalesce(
+            Arrays.asList(
+                insert(1L, "One"),
+                insert(2L, "Two"),
+                update(1L, "Name", "Uno"),
+                update(1L, "LastName", "Last")));
+
+    assertEquals(2, groups.size());
+    assertEquals(
+        ImmutableList.of(
+            Mutation.newInsertBuilder("Singers")
+                .set("SingerId")
+                .to(1L)
+                .set("Name")
+                .to("Uno")
+                .set("LastName")
+                .to("Last")
+                .build()),
+        groups.get(0));
+    assertEquals(ImmutableList.of(insert(2L, "Two")), groups.get(1));
+  }
+
+  @Test
+  public void testColumnNamesAreCaseInsensitive() {
+    List<List<Mutation>> groups =
+        new MutationCoalescer(ImmutableMap.of("SINGERS", ImmutableList.of("singerid")))
+            .coalesce(Arrays.asList(insert(1L, "One"), update(1L, "NAME", "Uno")));
+
+    assertEquals(1, groups.size());
+    assertEquals(ImmutableList.of(insert(1L, "Uno")), groups.get(0));
+  }
+
+  @Test
+  public void testDeleteAndWrite() {
+    // A delete followed by an insert is the same as a replace.
+    List<List<Mutation>> groups =
+        coalescer.coalesce(Arrays.asList(delete(1L), insertOrUpdate(1L, "One")));
+    assertEquals(
+        ImmutableList.of(
+            Mutation.newReplaceBuilder("Singers")
+                .set("SingerId")
+                .to(1L)
+                .set("Name")
+                .to("One")
+                .build()),
+        groups.get(0));
+
+    // A write followed by a delete is the same as the delete.
+    groups = coalescer.coalesce(Arrays.asList(insertOrUpdate(1L, "One"), delete(1L)));
+    assertEquals(ImmutableList.of(delete(1L)), groups.get(0));
+  }
+
+  @Test
+  public void testMutationsThatCouldFailAreNotMerged() {
+    // The insert could fail if the row already exists.
+    List<List<Mutation>> groups = coalescer.coalesce(Arrays.asList(insert(1L, "One"), delete(1L)));
+    assertEquals(ImmutableList.of(insert(1L, "One"), delete(1L)), groups.get(0));
+
+    // The update fails because the row does not exist.
+    groups = coalescer.coalesce(Arrays.asList(delete(1L), update(1L, "Name", "One")));
+    assertEquals(ImmutableList.of(delete(1L), update(1L, "Name", "One")), groups.get(0));
+
+    assertNull(MutationCoalescer.merge(update(1L, "Name", "One"), insertOrUpdate(1L, "Two")));
+    assertNull(MutationCoalescer.merge(insert(1L, "One"), insert(1L, "Two")));
+  }
+
+  @Test
+  public void testTablesWithoutKeyColumnsAreNotMerged() {
+    Mutation first = Mutation.newInsertBuilder("Albums").set("AlbumId").to(1L).build();
+    Mutation second = Mutation.newUpdateBuilder("Albums").set("AlbumId").to(1L).build();
+    List<List<Mutation>> groups = coalescer.coalesce(Arrays.asList(first, second));
+
+    assertEquals(2, groups.size());
+    assertEquals(ImmutableList.of(first), groups.get(0));
+    assertEquals(ImmutableList.of(second), groups.get(1));
+  }
+
+  @Test
+  public void testDeleteOfMultipleKeysIsNotMerged() {
+    Mutation delete =
+        Mutation.delete(
+            "Singers", KeySet.newBuilder().addKey(Key.of(1L)).addKey(Key.of(2L)).build());
+    List<List<Mutation>> groups =
+        coalescer.coalesce(Arrays.asList(insertOrUpdate(1L, "One"), delete));
+
+    assertEquals(2, groups.size());
+  }
+
+  @Test
+  public void testMutationsAreNotMovedPastDeleteOfAllRows() {
+    Mutation deleteAll = Mutation.delete("Singers", KeySet.all());
+    List<List<Mutation>> groups =
+        coalescer.coalesce(Arrays.asList(insert(1L, "One"), deleteAll, insert(1L, "Uno")));
+
+    assertEquals(
+        ImmutableList.of(
+            ImmutableList.of(insert(1L, "One")),
+            ImmutableList.of(deleteAll),
+            ImmutableList.of(insert(1L, "Uno"))),
+        groups);
+  }
+
+  @Test
+  public void testMutationsAreNotMovedPastDeleteOfMultipleKeys() {
+    Mutation delete =
+        Mutation.delete(
+            "Singers", KeySet.newBuilder().addKey(Key.of(1L)).addKey(Key.of(2L)).build());
+    List<List<Mutation>> groups =
+        coalescer.coalesce(Arrays.asList(insert(1L, "One"), delete, update(1L, "Name", "Uno")));
+
+    assertEquals(
+        ImmutableList.of(
+            ImmutableList.of(insert(1L, "One")),
+            ImmutableList.of(delete),
+            ImmutableList.of(update(1L, "Name", "Uno"))),
+        groups);
+  }
+}
@@ -463,6 +463,122 @@ public class MutationTest {
             "insert { table: 'T2', columns: 'C', values { values { string_value: 'V1' } } }"));
   }
 
+  @Test
+  public void columnarInsert() {
+    List<Mutation> mutations =
+        Mutation.newColumnarInsertBuilder("T")
+            .set("Id", new long[] {1L, 2L})
+            .set("Score", new double[] {1.5d, Double.NaN})
+            .set("Active", new boolean[] {true, false})
+            .set("Name", new String[] {"a", null})
+            .set("Data", new ByteArray[] {ByteArray.copyFrom("x"), null})
+            .set("Created", new Timestamp[] {Value.COMMIT_TIMESTAMP, Timestamp.MIN_VALUE})
+            .set("Birthday", new Date[] {null, Date.fromYearMonthDay(2000, 1, 2)})
+            .build();
+
+    List<Mutation> expected =
+        Arrays.asList(
+            Mutation.newInsertBuilder("T")
+                .set("Id")
+                .to(1L)
+                .set("Score")
+                .to(1.5d)
+                .set("Active")
+                .to(true)
+                .set("Name")
+                .to("a")
+                .set("Data")
+                .to(ByteArray.copyFrom("x"))
+                .set("Created")
+                .to(Value.COMMIT_TIMESTAMP)
+                .set("Birthday")
+                .to((Date) null)
+                .build(),
+            Mutation.newInsertBuilder("T")
+                .set("Id")
+                .to(2L)
+                .set("Score")
+                .to(Double.NaN)
+                .set("Active")
+                .to(false)
+                .set("Name")
+                .to((String) null)
+                .set("Data")
+                .to((ByteArray) null)
+                .set("Created")
+                .to(Timestamp.MIN_VALUE)
+                .set("Birthday")
+                .to(Date.fromYearMonthDay(2000, 1, 2))
+                .build());
+    List<com.google.spanner.v1.Mutation> proto = new ArrayList<>();
+    Mutation.toProto(mutations, proto);
+    List<com.google.spanner.v1.Mutation> expectedProto = new ArrayList<>();
+    Mutation.toProto(expected, expectedProto);
+
+    assertThat(proto).isEqualTo(expectedProto);
+    assertThat(proto).hasSize(1);
+    assertThat(mutations).isEqualTo(expected);
+    assertThat(mutations.get(1).toString()).isEqualTo(expected.get(1).toString());
+  }
+
+  @Test
+  public void columnarInsertOrUpdateIsCoalescedWithRowMutations() {
+    List<Mutation> mutations = new ArrayList<>();
+    mutations.add(Mutation.newInsertOrUpdateBuilder("T").set("C").to("V1").build());
+    mutations.addAll(
+        Mutation.newColumnarInsertOrUpdateBuilder("T")
+            .set("C", new String[] {"V2", "V3"})
+            .build());
+
+    List<com.google.spanner.v1.Mutation> proto = new ArrayList<>();
+    Mutation.toProto(mutations, proto);
+
+    assertThat(proto.size()).isEqualTo(1);
+    MatcherAssert.assertThat(
+        proto.get(0),
+        matchesProto(
+            "insert_or_update { table: 'T' columns: 'C' values { values { string_value: 'V1' } }"
+                + " values { values { string_value: 'V2' } }"
+                + " values { values { string_value: 'V3' } } }"));
+  }
+
+  @Test
+  public void columnarBuilderCopiesArrays() {
+    long[] ids = new long[] {1L, 2L};
+    List<Mutation> mutations = Mutation.newColumnarInsertBuilder("T").set("Id", ids).build();
+    ids[0] = 100L;
+
+    assertThat(mutations.get(0).asMap()).containsExactly("Id", Value.int64(1L));
+  }
+
+  @Test
+  public void columnarBuilderValidation() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            Mutation.newColumnarInsertBuilder("T")
+                .set("Id", new long[] {1L, 2L})
+                .set("Name", new String[] {"a"}));
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            Mutation.newColumnarInsertBuilder("T")
+                .set("Id", new long[] {1L})
+                .set("ID", new long[] {2L}));
+    assertThat(Mutation.newColumnarInsertBuilder("T").build()).isEmpty();
+  }
+
+  @Test
+  public void columnarJavaSerialization() {
+    for (Mutation mutation :
+        Mutation.newColumnarInsertBuilder("T")
+            .set("Id", new long[] {1L, 2L})
+            .set("Name", new String[] {"a", null})
+            .build()) {
+      reserializeAndAssert(mutation);
+    }
+  }
+
   @Test
   public void javaSerialization() {
     reserializeAndAssert(appendAllTypes(Mutation.newInsertBuilder("test")).build());
@@ -18,6 +18,7 @@ package com.google.cloud.spanner;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThrows;
@@ -31,6 +32,7 @@ import com.google.spanner.v1.RequestOptions.Priority;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
+import org.threeten.bp.Duration;
 
 /** Unit tests for {@link Options}. */
 @RunWith(JUnit4.class)
@@ -71,6 +73,50 @@ public class OptionsTest {
     assertNotNull(e.getMessage());
   }
 
+  @Test
+  public void zeroMaxBufferedBytesNotAllowed() {
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> Options.adaptivePrefetch(0L));
+    assertNotNull(e.getMessage());
+  }
+
+  @Test
+  public void adaptivePrefetch() {
+    Options options = Options.fromQueryOptions(Options.adaptivePrefetch(1024L));
+    assertTrue(options.hasMaxBufferedBytes());
+    assertEquals(1024L, options.maxBufferedBytes());
+    assertEquals("maxBufferedBytes: 1024 ", options.toString());
+    assertFalse(Options.fromQueryOptions().hasMaxBufferedBytes());
+
+    assertEquals(options, Options.fromReadOptions(Options.adaptivePrefetch(1024L)));
+    assertEquals(
+        options.hashCode(), Options.fromReadOptions(Options.adaptivePrefetch(1024L)).hashCode());
+    assertNotEquals(options, Options.fromReadOptions(Options.adaptivePrefetch(2048L)));
+    assertNotEquals(options, Options.fromReadOptions());
+  }
+
+  @Test
+  public void zeroBufferBytesNotAllowed() {
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> Options.bufferBytes(0L));
+    assertNotNull(e.getMessage());
+  }
+
+  @Test
+  public void bufferBytes() {
+    Options options = Options.fromQueryOptions(Options.bufferBytes(1024L));
+    assertTrue(options.hasBufferBytes());
+    assertEquals(1024L, options.bufferBytes());
+    assertEquals("bufferBytes: 1024 ", options.toString());
+    assertFalse(Options.fromQueryOptions().hasBufferBytes());
+
+    assertEquals(options, Options.fromReadOptions(Options.bufferBytes(1024L)));
+    assertEquals(
+        options.hashCode(), Options.fromReadOptions(Options.bufferBytes(1024L)).hashCode());
+    assertNotEquals(options, Options.fromReadOptions(Options.bufferBytes(2048L)));
+    assertNotEquals(options, Options.fromReadOptions());
+  }
+
   @Test
   public void allOptionsPresent() {
     Options options =
@@ -667,6 +713,29 @@ public class OptionsTest {
     assertNotEquals(option1.hashCode(), option3.hashCode());
   }
 
+  @Test
+  public void autoBatchDml() {
+    Options options = Options.fromTransactionOptions(Options.autoBatchDml());
+    assertTrue(options.hasAutoBatchDml());
+    assertEquals(100, options.autoBatchDmlMaxBatchSize());
+    assertEquals(Duration.ofMillis(10L), options.autoBatchDmlMaxDelay());
+    assertFalse(Options.fromTransactionOptions().hasAutoBatchDml());
+
+    Options custom =
+        Options.fromTransactionOptions(Options.autoBatchDml(20, Duration.ofMillis(5L)));
+    assertEquals(20, custom.autoBatchDmlMaxBatchSize());
+    assertEquals(Duration.ofMillis(5L), custom.autoBatchDmlMaxDelay());
+    assertNotEquals(options, custom);
+    assertNotEquals(options.hashCode(), custom.hashCode());
+    assertEquals(options, Options.fromTransactionOptions(Options.autoBatchDml()));
+    assertEquals(
+        "autoBatchDmlMaxBatchSize: 20 autoBatchDmlMaxDelay: PT0.005S ", custom.toString());
+
+    assertThrows(
+        IllegalArgumentException.class, () -> Options.autoBatchDml(0, Duration.ofMillis(1L)));
+    assertThrows(IllegalArgumentException.class, () -> Options.autoBatchDml(1, Duration.ZERO));
+  }
+
   @Test
   public void directedReadEquality() {
     Options option1 = Options.fromReadOptions(Options.directedRead(DIRECTED_READ_OPTIONS));
@@ -691,4 +760,25 @@ public class OptionsTest {
   public void directedReadsNullNotAllowed() {
     assertThrows(NullPointerException.class, () -> Options.directedRead(null));
   }
+
+  @Test
+  public void lazyDecoding() {
+    assertFalse(Options.fromQueryOptions().lazyDecoding());
+    assertTrue(Options.fromQueryOptions(Options.lazyDecoding()).lazyDecoding());
+    assertTrue(Options.fromReadOptions(Options.lazyDecoding()).lazyDecoding());
+    assertEquals(
+        "lazyDecoding: true ", Options.fromQueryOptions(Options.lazyDecoding()).toString());
+  }
+
+  @Test
+  public void lazyDecodingEquality() {
+    Options option1 = Options.fromQueryOptions(Options.lazyDecoding());
+    Options option2 = Options.fromQueryOptions(Options.lazyDecoding());
+    Options option3 = Options.fromQueryOptions();
+
+    assertEquals(option1, option2);
+    assertEquals(option1.hashCode(), option2.hashCode());
+    assertNotEquals(option1, option3);
+    assertNotEquals(option1.hashCode(), option3.hashCode());
+  }
 }
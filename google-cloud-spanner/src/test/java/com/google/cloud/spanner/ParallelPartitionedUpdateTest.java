@@ -0,0 +1,461 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.google.api.gax.grpc.testing.LocalChannelProvider;
+import com.google.cloud.ByteArray;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
+import com.google.cloud.spanner.PartitionedUpdateOptions.RangeProgress;
+import com.google.protobuf.ListValue;
+import com.google.spanner.v1.ExecuteSqlRequest;
+import com.google.spanner.v1.ResultSetMetadata;
+import com.google.spanner.v1.StructType;
+import com.google.spanner.v1.StructType.Field;
+import com.google.spanner.v1.TypeCode;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessServerBuilder;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ParallelPartitionedUpdateTest {
+  private static final Statement UPDATE =
+      Statement.of(
+          "UPDATE Foo SET Bar=1 WHERE (@rangeStart IS NULL OR Id >= @rangeStart)"
+              + " AND (@rangeEnd IS NULL OR Id < @rangeEnd"
+              + " OR (@rangeStart IS NULL AND Id IS NULL))");
+  private static final Value UNBOUNDED = Value.int64((Long) null);
+
+  private static MockSpannerServiceImpl mockSpanner;
+  private static Server server;
+  private static LocalChannelProvider channelProvider;
+
+  private Spanner spanner;
+  private DatabaseClient client;
+
+  @BeforeClass
+  public static void startMockServer() throws IOException {
+    mockSpanner = new MockSpannerServiceImpl();
+    mockSpanner.setAbortProbability(0.0D);
+
+    String uniqueName = InProcessServerBuilder.generateName();
+    server = InProcessServerBuilder.forName(uniqueName).addService(mockSpanner).build().start();
+    channelProvider = LocalChannelProvider.create(uniqueName);
+  }
+
+  @AfterClass
+  public static void stopMockServer() throws InterruptedException {
+    server.shutdown();
+    server.awaitTermination();
+  }
+
+  @Before
+  public void createClient() {
+    spanner =
+        SpannerOptions.newBuilder()
+            .setProjectId("p")
+            .setChannelProvider(channelProvider)
+            .setCredentials(NoCredentials.getInstance())
+            .setSessionPoolOption(SessionPoolOptions.newBuilder().setFailOnSessionLeak().build())
+            .build()
+            .getService();
+    client = spanner.getDatabaseClient(DatabaseId.of("p", "i", "d"));
+  }
+
+  @After
+  public void cleanup() {
+    spanner.close();
+    mockSpanner.removeAllExecutionTimes();
+    mockSpanner.reset();
+  }
+
+  private static Statement rangeStatement(Value start, Value end) {
+    return UPDATE
+        .toBuilder()
+        .bind(PartitionedUpdateOptions.RANGE_START_PARAMETER)
+        .to(start)
+        .bind(PartitionedUpdateOptions.RANGE_END_PARAMETER)
+        .to(end)
+        .build();
+  }
+
+  private static com.google.spanner.v1.ResultSet createKeyResultSet(long... keys) {
+    com.google.spanner.v1.ResultSet.Builder builder =
+        com.google.spanner.v1.ResultSet.newBuilder()
+            .setMetadata(
+                ResultSetMetadata.newBuilder()
+                    .setRowType(
+                        StructType.newBuilder()
+                            .addFields(
+                                Field.newBuilder()
+                                    .setName("Id")
+                                    .setType(
+                                        com.google.spanner.v1.Type.newBuilder()
+                                            .setCode(TypeCode.INT64)
+                                            .build())
+                                    .build())
+                            .build())
+                    .build());
+    for (long key : keys) {
+      builder.addRows(
+          ListValue.newBuilder()
+              .addValues(
+                  com.google.protobuf.Value.newBuilder().setStringValue(String.valueOf(key)))
+              .build());
+    }
+    return builder.build();
+  }
+
+  private static List<ExecuteSqlRequest> getUpdateRequests() {
+    return mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+        .filter(request -> request.getSql().equals(UPDATE.getSql()))
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void testSplitPoints() {
+    mockSpanner.putStatementResult(
+        StatementResult.update(rangeStatement(UNBOUNDED, Value.int64(10L)), 1L));
+    mockSpanner.putStatementResult(
+        StatementResult.update(rangeStatement(Value.int64(10L), Value.int64(20L)), 2L));
+    mockSpanner.putStatementResult(
+        StatementResult.update(rangeStatement(Value.int64(20L), UNBOUNDED), 3L));
+    List<RangeProgress> progress = new ArrayList<>();
+
+    long updateCount =
+        client.executePartitionedUpdate(
+            UPDATE,
+            PartitionedUpdateOptions.newBuilder()
+                .setSplitPoints(Arrays.asList(Value.int64(10L), Value.int64(20L)))
+                .setMaxParallelism(3)
+                .setProgressListener(progress::add)
+                .build());
+
+    assertEquals(6L, updateCount);
+    assertEquals(3, getUpdateRequests().size());
+    assertEquals(3, progress.size());
+    assertEquals(3, progress.get(2).getCompletedRangeCount());
+    assertEquals(6L, progress.stream().mapToLong(RangeProgress::getUpdateCount).sum());
+    for (RangeProgress rangeProgress : progress) {
+      assertEquals(3, rangeProgress.getRangeCount());
+    }
+  }
+
+  @Test
+  public void testMaxParallelismWithExecutor() {
+    mockSpanner.putStatementResult(
+        StatementResult.update(rangeStatement(UNBOUNDED, Value.int64(10L)), 1L));
+    mockSpanner.putStatementResult(
+        StatementResult.update(rangeStatement(Value.int64(10L), UNBOUNDED), 1L));
+    List<Integer> rangeIndexes = new ArrayList<>();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      long updateCount =
+          client.executePartitionedUpdate(
+              UPDATE,
+              PartitionedUpdateOptions.newBuilder()
+                  .setSplitPoints(Collections.singletonList(Value.int64(10L)))
+                  .setMaxParallelism(1)
+                  .setExecutor(executor)
+                  .setProgressListener(progress -> rangeIndexes.add(progress.getRangeIndex()))
+                  .build());
+
+      assertEquals(2L, updateCount);
+      // A single worker executes the ranges in order.
+      assertEquals(Arrays.asList(0, 1), rangeIndexes);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testSampledSplitPoints() {
+    mockSpanner.putStatementResult(
+        StatementResult.query(
+            Statement.of("SELECT Id FROM Foo TABLESAMPLE RESERVOIR (200 ROWS) ORDER BY Id"),
+            createKeyResultSet(0L, 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L)));
+    mockSpanner.putStatementResult(
+        StatementResult.update(rangeStatement(UNBOUNDED, Value.int64(5L)), 5L));
+    mockSpanner.putStatementResult(
+        StatementResult.update(rangeStatement(Value.int64(5L), UNBOUNDED), 5L));
+
+    long updateCount =
+        client.executePartitionedUpdate(
+            UPDATE,
+            PartitionedUpdateOptions.newBuilder().setSampledSplitPoints("Foo", "Id", 2).build());
+
+    assertEquals(10L, updateCount);
+    assertEquals(2, getUpdateRequests().size());
+  }
+
+  @Test
+  public void testEmptySampleUsesSingleRange() {
+    mockSpanner.putStatementResult(
+        StatementResult.query(
+            Statement.of("SELECT Id FROM Foo TABLESAMPLE RESERVOIR (400 ROWS) ORDER BY Id"),
+            createKeyResultSet()));
+    mockSpanner.putStatementResult(
+        StatementResult.update(rangeStatement(UNBOUNDED, UNBOUNDED), 0L));
+
+    assertEquals(
+        0L,
+        client.executePartitionedUpdate(
+            UPDATE,
+            PartitionedUpdateOptions.newBuilder().setSampledSplitPoints("Foo", "Id", 4).build()));
+    assertEquals(1, getUpdateRequests().size());
+  }
+
+  @Test
+  public void testSampleSkipsNullAndNaN() {
+    com.google.spanner.v1.ResultSet.Builder sample =
+        com.google.spanner.v1.ResultSet.newBuilder()
+            .setMetadata(
+                ResultSetMetadata.newBuilder()
+                    .setRowType(
+                        StructType.newBuilder()
+                            .addFields(
+                                Field.newBuilder()
+                                    .setName("Id")
+                                    .setType(
+                                        com.google.spanner.v1.Type.newBuilder()
+                                            .setCode(TypeCode.FLOAT64)
+                                            .build())
+                                    .build())
+                            .build())
+                    .build());
+    for (String value : Arrays.asList("NaN", "NaN", "NaN", "1.0")) {
+      sample.addRows(
+          ListValue.newBuilder()
+              .addValues(com.google.protobuf.Value.newBuilder().setStringValue(value))
+              .build());
+    }
+    sample.addRows(
+        ListValue.newBuilder()
+            .addValues(
+                com.google.protobuf.Value.newBuilder()
+                    .setNullValue(com.google.protobuf.NullValue.NULL_VALUE))
+            .build());
+    mockSpanner.putStatementResult(
+        StatementResult.query(
+            Statement.of("SELECT Id FROM Foo TABLESAMPLE RESERVOIR (200 ROWS) ORDER BY Id"),
+            sample.build()));
+    Value unbounded = Value.float64((Double) null);
+    mockSpanner.putStatementResult(
+        StatementResult.update(rangeStatement(unbounded, Value.float64(1.0d)), 1L));
+    mockSpanner.putStatementResult(
+        StatementResult.update(rangeStatement(Value.float64(1.0d), unbounded), 2L));
+
+    assertEquals(
+        3L,
+        client.executePartitionedUpdate(
+            UPDATE,
+            PartitionedUpdateOptions.newBuilder().setSampledSplitPoints("Foo", "Id", 2).build()));
+    assertEquals(2, getUpdateRequests().size());
+  }
+
+  @Test
+  public void testFloat64KeyRangesIncludeNullAndNaNKeysOnce() {
+    Statement update =
+        Statement.of(
+            "UPDATE Foo SET Bar=1 WHERE (@rangeStart IS NULL OR Id >= @rangeStart)"
+                + " AND (@rangeEnd IS NULL OR Id < @rangeEnd"
+                + " OR (@rangeStart IS NULL AND (Id IS NULL OR IS_NAN(Id))))");
+    Value unbounded = Value.float64((Double) null);
+    List<Value> bounds =
+        Arrays.asList(unbounded, Value.float64(1.0d), Value.float64(2.0d), unbounded);
+    for (int i = 0; i < bounds.size() - 1; i++) {
+      mockSpanner.putStatementResult(
+          StatementResult.update(
+              update
+                  .toBuilder()
+                  .bind(PartitionedUpdateOptions.RANGE_START_PARAMETER)
+                  .to(bounds.get(i))
+                  .bind(PartitionedUpdateOptions.RANGE_END_PARAMETER)
+                  .to(bounds.get(i + 1))
+                  .build(),
+              1L));
+    }
+
+    client.executePartitionedUpdate(
+        update,
+        PartitionedUpdateOptions.newBuilder()
+            .setSplitPoints(Arrays.asList(Value.float64(1.0d), Value.float64(2.0d)))
+            .build());
+
+    List<ExecuteSqlRequest> requests =
+        mockSpanner.getRequestsOfType(ExecuteSqlRequest.class).stream()
+            .filter(request -> request.getSql().equals(update.getSql()))
+            .collect(Collectors.toList());
+    assertEquals(3, requests.size());
+    // Evaluate the range predicate of the statement for each range that was executed. All
+    // comparisons with NULL and NaN are false, so these keys are only matched by the first range.
+    for (Double key :
+        Arrays.asList(
+            null,
+            Double.NaN,
+            Double.NEGATIVE_INFINITY,
+            0.0d,
+            1.0d,
+            1.5d,
+            2.0d,
+            Double.POSITIVE_INFINITY)) {
+      int matchingRanges = 0;
+      for (ExecuteSqlRequest request : requests) {
+        Double start = getFloat64Param(request, PartitionedUpdateOptions.RANGE_START_PARAMETER);
+        Double end = getFloat64Param(request, PartitionedUpdateOptions.RANGE_END_PARAMETER);
+        boolean matchesStart = start == null || (key != null && key >= start);
+        boolean matchesEnd =
+            end == null
+                || (key != null && key < end)
+                || (start == null && (key == null || key.isNaN()));
+        if (matchesStart && matchesEnd) {
+          matchingRanges++;
+        }
+      }
+      assertEquals("key " + key, 1, matchingRanges);
+    }
+  }
+
+  private static Double getFloat64Param(ExecuteSqlRequest request, String name) {
+    com.google.protobuf.Value value = request.getParams().getFieldsOrThrow(name);
+    return value.hasNullValue() ? null : value.getNumberValue();
+  }
+
+  @Test
+  public void testFailedRange() {
+    mockSpanner.putStatementResult(
+        StatementResult.update(rangeStatement(UNBOUNDED, Value.int64(10L)), 1L));
+    mockSpanner.putStatementResult(
+        StatementResult.exception(
+            rangeStatement(Value.int64(10L), UNBOUNDED),
+            Status.INVALID_ARGUMENT.withDescription("division by zero").asRuntimeException()));
+
+    SpannerException exception =
+        assertThrows(
+            SpannerException.class,
+            () ->
+                client.executePartitionedUpdate(
+                    UPDATE,
+                    PartitionedUpdateOptions.newBuilder()
+                        .setSplitPoints(Collections.singletonList(Value.int64(10L)))
+                        .build()));
+    assertEquals(ErrorCode.INVALID_ARGUMENT, exception.getErrorCode());
+    assertTrue(exception.getMessage().contains("division by zero"));
+  }
+
+  @Test
+  public void testSelectSplitPoints() {
+    List<Value> sample =
+        Arrays.asList(
+            Value.string("a"),
+            Value.string("a"),
+            Value.string("a"),
+            Value.string("b"),
+            Value.string("c"),
+            Value.string("d"));
+
+    assertEquals(
+        Arrays.asList(Value.string("a"), Value.string("c")),
+        ParallelPartitionedUpdate.selectSplitPoints(sample, 3));
+    // Duplicate split points are skipped.
+    assertEquals(
+        Arrays.asList(
+            Value.string("a"), Value.string("b"), Value.string("c"), Value.string("d")),
+        ParallelPartitionedUpdate.selectSplitPoints(sample, 6));
+    assertTrue(ParallelPartitionedUpdate.selectSplitPoints(Collections.emptyList(), 4).isEmpty());
+  }
+
+  @Test
+  public void testInvalidSplitPoints() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> PartitionedUpdateOptions.newBuilder().setSplitPoints(Collections.emptyList()));
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            PartitionedUpdateOptions.newBuilder()
+                .setSplitPoints(Arrays.asList(Value.int64(1L), Value.string("a"))));
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            PartitionedUpdateOptions.newBuilder()
+                .setSplitPoints(Collections.singletonList(Value.int64((Long) null))));
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            PartitionedUpdateOptions.newBuilder()
+                .setSplitPoints(Arrays.asList(Value.int64(2L), Value.int64(1L))));
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            PartitionedUpdateOptions.newBuilder()
+                .setSplitPoints(Arrays.asList(Value.int64(1L), Value.int64(1L))));
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            PartitionedUpdateOptions.newBuilder()
+                .setSplitPoints(Collections.singletonList(Value.float64(Double.NaN))));
+    IllegalArgumentException unsupportedType =
+        assertThrows(
+            IllegalArgumentException.class,
+            () ->
+                PartitionedUpdateOptions.newBuilder()
+                    .setSplitPoints(Collections.singletonList(Value.json("{}"))));
+    assertTrue(unsupportedType.getMessage().contains("not supported"));
+    assertThrows(IllegalStateException.class, () -> PartitionedUpdateOptions.newBuilder().build());
+  }
+
+  @Test
+  public void testCompareKeys() {
+    // Strings are sorted by their UTF-8 encoding, which sorts U+FFFD before U+1F600.
+    assertTrue(
+        ParallelPartitionedUpdate.compareKeys(Value.string("\uFFFD"), Value.string("\uD83D\uDE00"))
+            < 0);
+    assertTrue(
+        ParallelPartitionedUpdate.compareKeys(
+                Value.bytes(ByteArray.copyFrom(new byte[] {0x7f})),
+                Value.bytes(ByteArray.copyFrom(new byte[] {(byte) 0x80})))
+            < 0);
+    assertTrue(
+        ParallelPartitionedUpdate.compareKeys(Value.pgNumeric(Value.NAN), Value.pgNumeric("1e10"))
+            > 0);
+    assertEquals(
+        0,
+        ParallelPartitionedUpdate.compareKeys(
+            Value.numeric(new BigDecimal("1.0")), Value.numeric(new BigDecimal("1.00"))));
+  }
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.ByteArray;
+import com.google.cloud.spanner.Type.StructField;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.protobuf.ByteString;
+import com.google.spanner.v1.ResultSetMetadata;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class PartitionedResultSetTest {
+  private static final Type TYPE =
+      Type.struct(StructField.of("ID", Type.int64()), StructField.of("NAME", Type.string()));
+
+  private static List<Partition> createPartitions(int numPartitions) {
+    List<Partition> partitions = new ArrayList<>(numPartitions);
+    for (int i = 0; i < numPartitions; i++) {
+      partitions.add(
+          Partition.createQueryPartition(
+              ByteString.copyFromUtf8(String.valueOf(i)),
+              PartitionOptions.getDefaultInstance(),
+              Statement.of("SELECT * FROM FOO"),
+              Options.fromQueryOptions()));
+    }
+    return partitions;
+  }
+
+  private static int partitionIndex(Partition partition) {
+    return Integer.parseInt(partition.getPartitionToken().toStringUtf8());
+  }
+
+  /** Returns a result set with {@code rowsPerPartition} rows for each partition. */
+  private static Function<Partition, ResultSet> executeFunction(int rowsPerPartition) {
+    return partition -> {
+      int index = partitionIndex(partition);
+      List<Struct> rows = new ArrayList<>(rowsPerPartition);
+      for (int i = 0; i < rowsPerPartition; i++) {
+        long id = (long) index * rowsPerPartition + i;
+        rows.add(Struct.newBuilder().set("ID").to(id).set("NAME").to("Row " + id).build());
+      }
+      return withMetadata(ResultSets.forRows(TYPE, rows));
+    };
+  }
+
+  private static ResultSet withMetadata(ResultSet delegate) {
+    return new ForwardingResultSet(delegate) {
+      @Override
+      public ResultSetMetadata getMetadata() {
+        return ResultSetMetadata.getDefaultInstance();
+      }
+    };
+  }
+
+  private static Set<Long> consume(ResultSet resultSet) {
+    Set<Long> ids = new HashSet<>();
+    while (resultSet.next()) {
+      assertTrue(ids.add(resultSet.getLong("ID")));
+      assertEquals("Row " + resultSet.getLong(0), resultSet.getString("NAME"));
+    }
+    return ids;
+  }
+
+  @Test
+  public void testMergesAllPartitions() {
+    try (PartitionedResultSet resultSet =
+        new PartitionedResultSet(
+            executeFunction(100),
+            createPartitions(10),
+            PartitionExecutionOptions.newBuilder().setMaxParallelism(4).build())) {
+      assertEquals(4, resultSet.getParallelism());
+      Set<Long> ids = consume(resultSet);
+      assertEquals(1000, ids.size());
+      assertEquals(TYPE, resultSet.getType());
+      assertEquals(2, resultSet.getColumnCount());
+      assertEquals(Type.string(), resultSet.getColumnType("NAME"));
+      assertFalse(resultSet.next());
+    }
+  }
+
+  @Test
+  public void testParallelismIsLimitedByNumberOfPartitions() {
+    try (PartitionedResultSet resultSet =
+        new PartitionedResultSet(
+            executeFunction(1),
+            createPartitions(2),
+            PartitionExecutionOptions.newBuilder().setMaxParallelism(8).build())) {
+      assertEquals(2, resultSet.getParallelism());
+      assertEquals(2, consume(resultSet).size());
+    }
+  }
+
+  @Test
+  public void testNoPartitions() {
+    try (PartitionedResultSet resultSet =
+        new PartitionedResultSet(
+            executeFunction(1),
+            Collections.emptyList(),
+            PartitionExecutionOptions.getDefaultInstance())) {
+      assertEquals(0, resultSet.getParallelism());
+      assertFalse(resultSet.next());
+      assertEquals(Type.struct(), resultSet.getType());
+    }
+  }
+
+  @Test
+  public void testEmptyPartitions() {
+    try (PartitionedResultSet resultSet =
+        new PartitionedResultSet(
+            executeFunction(0),
+            createPartitions(3),
+            PartitionExecutionOptions.getDefaultInstance())) {
+      assertFalse(resultSet.next());
+      assertEquals(TYPE, resultSet.getType());
+    }
+  }
+
+  @Test
+  public void testErrorIsPropagated() {
+    Function<Partition, ResultSet> delegate = executeFunction(10);
+    try (PartitionedResultSet resultSet =
+        new PartitionedResultSet(
+            partition -> {
+              if (partitionIndex(partition) == 2) {
+                throw SpannerExceptionFactory.newSpannerException(
+                    ErrorCode.INVALID_ARGUMENT, "invalid partition");
+              }
+              return delegate.apply(partition);
+            },
+            createPartitions(5),
+            PartitionExecutionOptions.newBuilder().setMaxParallelism(2).build())) {
+      SpannerException exception = assertThrows(SpannerException.class, () -> consume(resultSet));
+      assertEquals(ErrorCode.INVALID_ARGUMENT, exception.getErrorCode());
+      // The error is sticky, and is not replaced by an error that the result set is closed.
+      assertSame(exception, assertThrows(SpannerException.class, resultSet::next));
+      assertSame(exception, assertThrows(SpannerException.class, resultSet::next));
+    }
+  }
+
+  @Test
+  public void testUsesCustomExecutor() {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    Set<String> threadNames = ConcurrentHashMap.newKeySet();
+    Function<Partition, ResultSet> delegate = executeFunction(10);
+    try (PartitionedResultSet resultSet =
+        new PartitionedResultSet(
+            partition -> {
+              threadNames.add(Thread.currentThread().getName());
+              return delegate.apply(partition);
+            },
+            createPartitions(4),
+            PartitionExecutionOptions.newBuilder()
+                .setMaxParallelism(2)
+                .setExecutor(executor)
+                .build())) {
+      assertEquals(40, consume(resultSet).size());
+    }
+    for (String name : threadNames) {
+      assertFalse(name.startsWith("partition-executor"));
+    }
+    // The executor is not owned by the result set and is not shut down.
+    assertFalse(executor.isShutdown());
+    executor.shutdown();
+  }
+
+  @Test
+  public void testBufferedRowsAreLimited() throws Exception {
+    AtomicInteger fetchedRows = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    try (PartitionedResultSet resultSet =
+        new PartitionedResultSet(
+            partition ->
+                new ForwardingResultSet(executeFunction(100).apply(partition)) {
+                  @Override
+                  public boolean next() {
+                    started.countDown();
+                    boolean hasNext = super.next();
+                    if (hasNext) {
+                      fetchedRows.incrementAndGet();
+                    }
+                    return hasNext;
+                  }
+                },
+            createPartitions(4),
+            PartitionExecutionOptions.newBuilder()
+                .setMaxParallelism(4)
+                .setMaxBufferedRows(10)
+                .build())) {
+      assertTrue(started.await(10L, TimeUnit.SECONDS));
+      // Give the workers time to fill the buffer.
+      Thread.sleep(50L);
+      // Each worker can fetch at most one row more than it is allowed to buffer.
+      assertTrue(fetchedRows.get() <= 10 + 4);
+      assertEquals(400, consume(resultSet).size());
+    }
+  }
+
+  @Test
+  public void testCloseStopsWorkers() throws Exception {
+    AtomicInteger fetchedRows = new AtomicInteger();
+    PartitionedResultSet resultSet =
+        new PartitionedResultSet(
+            partition ->
+                new ForwardingResultSet(executeFunction(1000).apply(partition)) {
+                  @Override
+                  public boolean next() {
+                    fetchedRows.incrementAndGet();
+                    return super.next();
+                  }
+                },
+            createPartitions(4),
+            PartitionExecutionOptions.newBuilder().setMaxBufferedRows(1).build());
+    assertTrue(resultSet.next());
+    resultSet.close();
+    Thread.sleep(50L);
+    int fetched = fetchedRows.get();
+    Thread.sleep(50L);
+    assertEquals(fetched, fetchedRows.get());
+    assertTrue(fetched < 4000);
+    assertThrows(IllegalStateException.class, resultSet::next);
+  }
+
+  @Test
+  public void testRejectedWorkerStopsStartedWorkers() throws Exception {
+    ExecutorService delegate = Executors.newCachedThreadPool();
+    AtomicInteger submitted = new AtomicInteger();
+    CountDownLatch opened = new CountDownLatch(1);
+    CountDownLatch closed = new CountDownLatch(1);
+    try {
+      RejectedExecutionException exception =
+          assertThrows(
+              RejectedExecutionException.class,
+              () ->
+                  new PartitionedResultSet(
+                      partition -> {
+                        opened.countDown();
+                        return new ForwardingResultSet(executeFunction(100).apply(partition)) {
+                          @Override
+                          public void close() {
+                            closed.countDown();
+                            super.close();
+                          }
+                        };
+                      },
+                      createPartitions(4),
+                      PartitionExecutionOptions.newBuilder()
+                          .setMaxParallelism(2)
+                          .setMaxBufferedRows(1)
+                          .setExecutor(
+                              command -> {
+                                // Accept the first worker and reject the second when the
+                                // first worker has opened a partition.
+                                if (submitted.incrementAndGet() > 1) {
+                                  assertTrue(
+                                      Uninterruptibles.awaitUninterruptibly(
+                                          opened, 10L, TimeUnit.SECONDS));
+                                  throw new RejectedExecutionException("executor is full");
+                                }
+                                delegate.execute(command);
+                              })
+                          .build()));
+      assertEquals("executor is full", exception.getMessage());
+      // The worker that was started stops and closes its partition.
+      assertTrue(closed.await(10L, TimeUnit.SECONDS));
+    } finally {
+      delegate.shutdown();
+    }
+  }
+
+  @Test
+  public void testEstimateSize() {
+    assertEquals(
+        8L + 5L,
+        PartitionedResultSet.estimateSize(
+            Struct.newBuilder().set("ID").to(1L).set("NAME").to("Hello").build()));
+    // Bytes are estimated by their base64 encoded length.
+    assertEquals(
+        1L + 4L,
+        PartitionedResultSet.estimateSize(
+            Struct.newBuilder()
+                .set("ID")
+                .to((Long) null)
+                .set("DATA")
+                .to(ByteArray.copyFrom(new byte[] {1, 2, 3}))
+                .build()));
+    assertEquals(
+        3 * 8L + 2L + 1L,
+        PartitionedResultSet.estimateSize(
+            Struct.newBuilder()
+                .set("IDS")
+                .toInt64Array(new long[] {1L, 2L, 3L})
+                .set("NAMES")
+                .toStringArray(Arrays.asList("ab", null))
+                .build()));
+  }
+
+  @Test
+  public void testEstimateSizeDoesNotDecodeValues() {
+    com.google.protobuf.Value name =
+        com.google.protobuf.Value.newBuilder().setStringValue("Hello").build();
+    ResultSet resultSet =
+        new ForwardingResultSet(
+            ResultSets.forRows(
+                TYPE,
+                Collections.singletonList(
+                    Struct.newBuilder().set("ID").to(1L).set("NAME").to("Hello").build()))) {
+          @Override
+          public boolean canGetProtobufValue(int columnIndex) {
+            return columnIndex == 1;
+          }
+
+          @Override
+          public com.google.protobuf.Value getProtobufValue(int columnIndex) {
+            return name;
+          }
+
+          @Override
+          public String getString(int columnIndex) {
+            throw new AssertionError("The value should not be decoded");
+          }
+        };
+    assertTrue(resultSet.next());
+    assertEquals(8L + name.getSerializedSize(), PartitionedResultSet.estimateSize(resultSet));
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.api.gax.grpc.testing.LocalChannelProvider;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.spanner.MockSpannerServiceImpl.SimulatedExecutionTime;
+import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
+import com.google.cloud.spanner.connection.RandomResultSetGenerator;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessServerBuilder;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.threeten.bp.Duration;
+
+@RunWith(JUnit4.class)
+public class QueryExecutionStatsTest {
+  private static final int ROW_COUNT = 5;
+  private static final Statement STATEMENT = Statement.of("select * from random_table");
+
+  private static MockSpannerServiceImpl mockSpanner;
+  private static Server server;
+  private static LocalChannelProvider channelProvider;
+
+  private Spanner spanner;
+  private DatabaseClient client;
+
+  @BeforeClass
+  public static void startMockServer() throws IOException {
+    mockSpanner = new MockSpannerServiceImpl();
+    mockSpanner.setAbortProbability(0.0D);
+    mockSpanner.putStatementResult(
+        StatementResult.query(STATEMENT, new RandomResultSetGenerator(ROW_COUNT).generate()));
+
+    String uniqueName = InProcessServerBuilder.generateName();
+    server = InProcessServerBuilder.forName(uniqueName).addService(mockSpanner).build().start();
+    channelProvider = LocalChannelProvider.create(uniqueName);
+  }
+
+  @AfterClass
+  public static void stopMockServer() throws InterruptedException {
+    server.shutdown();
+    server.awaitTermination();
+  }
+
+  @Before
+  public void createClient() {
+    spanner =
+        SpannerOptions.newBuilder()
+            .setProjectId("p")
+            .setChannelProvider(channelProvider)
+            .setCredentials(NoCredentials.getInstance())
+            .setSessionPoolOption(SessionPoolOptions.newBuilder().setFailOnSessionLeak().build())
+            .build()
+            .getService();
+    client = spanner.getDatabaseClient(DatabaseId.of("p", "i", "d"));
+  }
+
+  @After
+  public void cleanup() {
+    spanner.close();
+    mockSpanner.removeAllExecutionTimes();
+    mockSpanner.reset();
+  }
+
+  private static QueryExecutionStats consume(ResultSet resultSet) {
+    try (ResultSet closeable = resultSet) {
+      //noinspection StatementWithEmptyBody
+      while (closeable.next()) {}
+      return closeable.getExecutionStats();
+    }
+  }
+
+  @Test
+  public void testStatsAreNotCollectedByDefault() {
+    assertNull(consume(client.singleUse().executeQuery(STATEMENT)));
+  }
+
+  @Test
+  public void testQueryStats() {
+    QueryExecutionStats stats =
+        consume(
+            client
+                .singleUse()
+                .executeQuery(STATEMENT, Options.executionStats(), Options.tag("my-tag")));
+
+    assertNotNull(stats);
+    assertEquals("my-tag", stats.getStatementTag());
+    assertEquals(ROW_COUNT, stats.getRowCount());
+    assertTrue(stats.getPartialResultSetCount() > 0L);
+    assertTrue(stats.getBytes() > 0L);
+    assertEquals(0L, stats.getResumeCount());
+  }
+
+  @Test
+  public void testResumeIsCounted() {
+    mockSpanner.setExecuteStreamingSqlExecutionTime(
+        SimulatedExecutionTime.ofStreamException(Status.UNAVAILABLE.asRuntimeException(), 2L));
+
+    QueryExecutionStats stats =
+        consume(client.singleUse().executeQuery(STATEMENT, Options.executionStats()));
+
+    assertNotNull(stats);
+    assertNull(stats.getStatementTag());
+    assertEquals(ROW_COUNT, stats.getRowCount());
+    assertEquals(1L, stats.getResumeCount());
+  }
+
+  @Test
+  public void testAsyncResultSetStats() throws Exception {
+    try (AsyncResultSet resultSet =
+        client.singleUse().executeQueryAsync(STATEMENT, Options.executionStats())) {
+      resultSet.toListAsync(row -> row.getValue(0), Runnable::run).get();
+      assertEquals(ROW_COUNT, resultSet.getExecutionStats().getRowCount());
+    }
+  }
+
+  @Test
+  public void testAggregator() {
+    QueryExecutionStats.Aggregator aggregator = new QueryExecutionStats.Aggregator();
+    for (int i = 0; i < 2; i++) {
+      aggregator.record(
+          consume(
+              client
+                  .singleUse()
+                  .executeQuery(STATEMENT, Options.executionStats(), Options.tag("tag1"))));
+    }
+    aggregator.record(
+        consume(client.singleUse().executeQuery(STATEMENT, Options.executionStats())));
+
+    assertEquals(2, aggregator.getStatsByStatementTag().size());
+    assertEquals(2L * ROW_COUNT, aggregator.getStats("tag1").getRowCount());
+    assertEquals("tag1", aggregator.getStats("tag1").getStatementTag());
+    assertEquals(ROW_COUNT, aggregator.getStats("").getRowCount());
+    assertNull(aggregator.getStats("tag2"));
+
+    aggregator.reset();
+    assertTrue(aggregator.getStatsByStatementTag().isEmpty());
+  }
+
+  @Test
+  public void testPlus() {
+    QueryExecutionStats.Collector collector = new QueryExecutionStats.Collector("tag");
+    collector.onRow();
+    collector.onPartialResultSet(100);
+    collector.onResume();
+    collector.addDecodeNanos(10L);
+    QueryExecutionStats stats = collector.snapshot();
+
+    QueryExecutionStats sum = stats.plus(stats);
+    assertEquals("tag", sum.getStatementTag());
+    assertEquals(2L, sum.getRowCount());
+    assertEquals(2L, sum.getPartialResultSetCount());
+    assertEquals(200L, sum.getBytes());
+    assertEquals(2L, sum.getResumeCount());
+    assertEquals(Duration.ofNanos(20L), sum.getDecodeTime());
+    assertNull(stats.plus(new QueryExecutionStats.Collector(null).snapshot()).getStatementTag());
+  }
+}
@@ -23,6 +23,9 @@ import static org.junit.Assert.assertThrows;
 import com.google.api.gax.grpc.testing.LocalChannelProvider;
 import com.google.cloud.NoCredentials;
 import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
+import com.google.cloud.spanner.Options.TransactionOption;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.protobuf.AbstractMessage;
 import com.google.protobuf.ListValue;
@@ -97,6 +100,9 @@ public class ReadWriteTransactionWithInlineBeginTest {
       TransactionOptions.newBuilder()
           .setReadWrite(ReadWrite.newBuilder().setReadLockMode(ReadWrite.ReadLockMode.OPTIMISTIC))
           .build();
+  private static final TransactionOption READ_YOUR_WRITES =
+      Options.readYourWrites(
+          ImmutableMap.of(MockSpannerTestUtil.READ_TABLE_NAME, ImmutableList.of("Key")));
   private Spanner spanner;
   private DatabaseClient client;
 
@@ -117,6 +123,12 @@ public class ReadWriteTransactionWithInlineBeginTest {
     mockSpanner.putStatementResult(
         StatementResult.read(
             "FOO", KeySet.all(), Collections.singletonList("ID"), SELECT1_RESULTSET));
+    mockSpanner.putStatementResult(
+        StatementResult.read(
+            MockSpannerTestUtil.READ_TABLE_NAME,
+            KeySet.singleKey(Key.of()),
+            MockSpannerTestUtil.READ_COLUMN_NAMES,
+            MockSpannerTestUtil.READ_ONE_KEY_VALUE_RESULTSET));
 
     String uniqueName = InProcessServerBuilder.generateName();
     server =
@@ -536,6 +548,89 @@ public class ReadWriteTransactionWithInlineBeginTest {
     assertThat(countTransactionsStarted()).isEqualTo(2);
   }
 
+  @Test
+  public void readYourWritesReturnsInsertedRow() {
+    List<Struct> rows =
+        client
+            .readWriteTransaction(READ_YOUR_WRITES)
+            .run(
+                transaction -> {
+                  transaction.buffer(
+                      Mutation.newInsertBuilder(MockSpannerTestUtil.READ_TABLE_NAME)
+                          .set("Key")
+                          .to("k2")
+                          .set("Value")
+                          .to("v2")
+                          .build());
+                  List<Struct> result = new ArrayList<>();
+                  // The first read needs the column types from Spanner. The second read is
+                  // returned from the buffered mutations alone.
+                  result.add(
+                      transaction.readRow(
+                          MockSpannerTestUtil.READ_TABLE_NAME,
+                          Key.of("k2"),
+                          MockSpannerTestUtil.READ_COLUMN_NAMES));
+                  assertThat(countRequests(ReadRequest.class)).isEqualTo(1);
+                  result.add(
+                      transaction.readRow(
+                          MockSpannerTestUtil.READ_TABLE_NAME,
+                          Key.of("k2"),
+                          MockSpannerTestUtil.READ_COLUMN_NAMES));
+                  return result;
+                });
+    Struct expected = Struct.newBuilder().set("Key").to("k2").set("Value").to("v2").build();
+    assertThat(rows).containsExactly(expected, expected);
+    assertThat(countRequests(ReadRequest.class)).isEqualTo(1);
+    assertThat(countRequests(BeginTransactionRequest.class)).isEqualTo(0);
+    assertThat(countTransactionsStarted()).isEqualTo(1);
+  }
+
+  @Test
+  public void readYourWritesAppliesUpdateToStoredRow() {
+    Struct row =
+        client
+            .readWriteTransaction(READ_YOUR_WRITES)
+            .run(
+                transaction -> {
+                  transaction.buffer(
+                      Mutation.newUpdateBuilder(MockSpannerTestUtil.READ_TABLE_NAME)
+                          .set("Key")
+                          .to("k1")
+                          .set("Value")
+                          .to("updated")
+                          .build());
+                  // An update does not prove that the row exists, so the row is read from
+                  // Spanner and the update is applied to it.
+                  return transaction.readRow(
+                      MockSpannerTestUtil.READ_TABLE_NAME,
+                      Key.of("k1"),
+                      MockSpannerTestUtil.READ_COLUMN_NAMES);
+                });
+    assertThat(row)
+        .isEqualTo(Struct.newBuilder().set("Key").to("k1").set("Value").to("updated").build());
+    assertThat(countRequests(ReadRequest.class)).isEqualTo(1);
+  }
+
+  @Test
+  public void readYourWritesReturnsNoRowForDeletedRow() {
+    Struct row =
+        client
+            .readWriteTransaction(READ_YOUR_WRITES)
+            .run(
+                transaction -> {
+                  transaction.buffer(
+                      Mutation.delete(MockSpannerTestUtil.READ_TABLE_NAME, Key.of("k1")));
+                  // The row is known to be deleted, but the column types of the (empty) result
+                  // are read from Spanner.
+                  return transaction.readRow(
+                      MockSpannerTestUtil.READ_TABLE_NAME,
+                      Key.of("k1"),
+                      MockSpannerTestUtil.READ_COLUMN_NAMES);
+                });
+    assertThat(row).isNull();
+    assertThat(countRequests(ReadRequest.class)).isEqualTo(1);
+  }
+
   private int countRequests(Class<? extends AbstractMessage> requestType) {
     int count = 0;
     for (AbstractMessage msg : mockSpanner.getRequests()) {
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.spanner.ReadYourWritesOverlay.RowReader;
+import com.google.cloud.spanner.Type.StructField;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ReadYourWritesOverlayTest {
+  private static final List<String> COLUMNS = Arrays.asList("SingerId", "FirstName", "LastName");
+
+  private final ReadYourWritesOverlay overlay =
+      new ReadYourWritesOverlay(ImmutableMap.of("Singers", ImmutableList.of("SingerId")));
+
+  /** {@link RowReader} that returns rows from a fixed list and records the keys that it read. */
+  private static final class FakeDatabase implements RowReader {
+    private final List<Struct> rows;
+    private final List<KeySet> reads = new ArrayList<>();
+
+    FakeDatabase(Struct... rows) {
+      this.rows = Arrays.asList(rows);
+    }
+
+    @Override
+    public ResultSet read(KeySet keys, List<String> columns, Options readOptions) {
+      reads.add(keys);
+      List<StructField> fields = new ArrayList<>();
+      for (String column : columns) {
+        Type type = column.equals("SingerId") ? Type.int64() : Type.string();
+        fields.add(StructField.of(column, type));
+      }
+      List<Struct> result = new ArrayList<>();
+      for (Struct row : rows) {
+        for (Key key : keys.getKeys()) {
+          if (key.equals(Key.of(row.getLong("SingerId")))) {
+            Struct.Builder builder = Struct.newBuilder();
+            for (String column : columns) {
+              builder.set(column).to(row.getValue(column));
+            }
+            result.add(builder.build());
+          }
+        }
+      }
+      if (readOptions.hasLimit() && result.size() > readOptions.limit()) {
+        result = result.subList(0, (int) readOptions.limit());
+      }
+      return ResultSets.forRows(Type.struct(fields), result);
+    }
+  }
+
+  private static Struct singer(long id, String firstName, String lastName) {
+    return Struct.newBuilder()
+        .set("SingerId")
+        .to(id)
+        .set("FirstName")
+        .to(firstName)
+        .set("LastName")
+        .to(lastName)
+        .build();
+  }
+
+  private static Mutation insertSinger(long id, String firstName, String lastName) {
+    return Mutation.newInsertBuilder("Singers")
+        .set("SingerId")
+        .to(id)
+        .set("FirstName")
+        .to(firstName)
+        .set("LastName")
+        .to(lastName)
+        .build();
+  }
+
+  private static Mutation updateLastName(long id, String lastName) {
+    return Mutation.newUpdateBuilder("Singers")
+        .set("SingerId")
+        .to(id)
+        .set("LastName")
+        .to(lastName)
+        .build();
+  }
+
+  private List<Struct> read(KeySet keys, RowReader reader, Mutation... mutations) {
+    return read(keys, Options.fromReadOptions(), reader, mutations);
+  }
+
+  private List<Struct> read(
+      KeySet keys, Options options, RowReader reader, Mutation... mutations) {
+    return read(overlay, keys, options, reader, mutations);
+  }
+
+  private static List<Struct> read(
+      ReadYourWritesOverlay overlay,
+      KeySet keys,
+      Options options,
+      RowReader reader,
+      Mutation... mutations) {
+    List<Struct> rows = new ArrayList<>();
+    try (ResultSet resultSet =
+        overlay.read("Singers", keys, COLUMNS, options, Arrays.asList(mutations), reader)) {
+      while (resultSet.next()) {
+        rows.add(resultSet.getCurrentRowAsStruct());
+      }
+    }
+    return rows;
+  }
+
+  @Test
+  public void testInsertIsReadLocally() {
+    FakeDatabase database = new FakeDatabase();
+    List<Struct> rows =
+        read(KeySet.singleKey(Key.of(1L)), database, insertSinger(1L, "Alice", "Trentor"));
+
+    assertEquals(ImmutableList.of(singer(1L, "Alice", "Trentor")), rows);
+    // The database is only read once to get the types of the columns.
+    assertEquals(1, database.reads.size());
+
+    rows = read(KeySet.singleKey(Key.of(2L)), database, insertSinger(2L, "Bruce", "Allison"));
+    assertEquals(ImmutableList.of(singer(2L, "Bruce", "Allison")), rows);
+    assertEquals(1, database.reads.size());
+  }
+
+  @Test
+  public void testRowTypeIsTakenFromDatabase() {
+    FakeDatabase database = new FakeDatabase();
+    List<Struct> rows =
+        read(
+            KeySet.singleKey(Key.of(1L)),
+            database,
+            Mutation.newInsertBuilder("Singers")
+                .set("SingerId")
+                .to(1L)
+                .set("FirstName")
+                .to("Alice")
+                .set("LastName")
+                .to((Long) null)
+                .build());
+
+    assertEquals(1, rows.size());
+    // The column type is STRING, although the mutation contains a NULL value of type INT64.
+    assertEquals(Type.string(), rows.get(0).getColumnType("LastName"));
+    assertTrue(rows.get(0).isNull("LastName"));
+    assertEquals(1, database.reads.size());
+  }
+
+  @Test
+  public void testDeleteIsReadLocally() {
+    FakeDatabase database = new FakeDatabase(singer(1L, "Alice", "Trentor"));
+    List<Struct> rows =
+        read(
+            KeySet.singleKey(Key.of(1L)),
+            database,
+            insertSinger(1L, "Alice", "Trentor"),
+            Mutation.delete("Singers", Key.of(1L)));
+
+    assertTrue(rows.isEmpty());
+    assertEquals(1, database.reads.size());
+  }
+
+  @Test
+  public void testUpdateIsAppliedToDatabaseRow() {
+    FakeDatabase database =
+        new FakeDatabase(singer(1L, "Alice", "Trentor"), singer(2L, "Bruce", "Allison"));
+    List<Struct> rows =
+        read(
+            KeySet.newBuilder().addKey(Key.of(1L)).addKey(Key.of(2L)).addKey(Key.of(3L)).build(),
+            database,
+            updateLastName(2L, "Lee"),
+            updateLastName(3L, "Lee"));
+
+    assertEquals(
+        ImmutableList.of(singer(1L, "Alice", "Trentor"), singer(2L, "Bruce", "Lee")), rows);
+    assertEquals(1, database.reads.size());
+  }
+
+  @Test
+  public void testUnwrittenColumnsOfInsertAreNull() {
+    FakeDatabase database = new FakeDatabase();
+    List<Struct> rows =
+        read(
+            KeySet.singleKey(Key.of(1L)),
+            database,
+            Mutation.newInsertBuilder("Singers").set("SingerId").to(1L).build());
+
+    assertEquals(1, rows.size());
+    assertEquals(1L, rows.get(0).getLong("SingerId"));
+    assertTrue(rows.get(0).isNull("FirstName"));
+    assertTrue(rows.get(0).isNull("LastName"));
+    // The database is only read to get the types of the columns.
+    assertEquals(1, database.reads.size());
+  }
+
+  @Test
+  public void testInsertOrUpdateAfterDelete() {
+    FakeDatabase database = new FakeDatabase(singer(1L, "Alice", "Trentor"));
+    List<Struct> rows =
+        read(
+            KeySet.singleKey(Key.of(1L)),
+            database,
+            Mutation.delete("Singers", KeySet.all()),
+            Mutation.newInsertOrUpdateBuilder("Singers")
+                .set("SingerId")
+                .to(1L)
+                .set("FirstName")
+                .to("Alice")
+                .build());
+
+    assertEquals(1, rows.size());
+    assertEquals("Alice", rows.get(0).getString("FirstName"));
+    assertTrue(rows.get(0).isNull("LastName"));
+  }
+
+  @Test
+  public void testLimit() {
+    FakeDatabase database = new FakeDatabase();
+    List<Struct> rows =
+        read(
+            KeySet.newBuilder().addKey(Key.of(2L)).addKey(Key.of(1L)).build(),
+            Options.fromReadOptions(Options.limit(1L)),
+            database,
+            insertSinger(1L, "Alice", "Trentor"),
+            insertSinger(2L, "Bruce", "Allison"));
+
+    // The rows are returned in key order, and not in the order of the requested keys.
+    assertEquals(ImmutableList.of(singer(1L, "Alice", "Trentor")), rows);
+  }
+
+  @Test
+  public void testLimitIsNotAppliedToDatabaseRead() {
+    // The limit is applied to the result of the overlay, and not to the rows that are read from
+    // the database.
+    FakeDatabase database =
+        new FakeDatabase(singer(1L, "Alice", "Trentor"), singer(2L, "Bruce", "Allison"));
+    List<Struct> rows =
+        read(
+            KeySet.newBuilder().addKey(Key.of(2L)).addKey(Key.of(1L)).build(),
+            Options.fromReadOptions(Options.limit(1L)),
+            database,
+            updateLastName(1L, "Smith"),
+            updateLastName(2L, "Jones"));
+
+    assertEquals(ImmutableList.of(singer(1L, "Alice", "Smith")), rows);
+  }
+
+  @Test
+  public void testRowsAreSortedByKeyBeforeLimit() {
+    FakeDatabase database =
+        new FakeDatabase(singer(1L, "Alice", "Trentor"), singer(3L, "Carl", "Lee"));
+    List<Struct> rows =
+        read(
+            KeySet.newBuilder()
+                .addKey(Key.of(4L))
+                .addKey(Key.of(3L))
+                .addKey(Key.of(2L))
+                .addKey(Key.of(1L))
+                .build(),
+            Options.fromReadOptions(Options.limit(3L)),
+            database,
+            insertSinger(4L, "Dana", "Smith"),
+            insertSinger(2L, "Bruce", "Allison"),
+            updateLastName(3L, "Jones"));
+
+    assertEquals(
+        ImmutableList.of(
+            singer(1L, "Alice", "Trentor"),
+            singer(2L, "Bruce", "Allison"),
+            singer(3L, "Carl", "Jones")),
+        rows);
+  }
+
+  @Test
+  public void testDescendingKeyColumn() {
+    ReadYourWritesOverlay descendingOverlay =
+        new ReadYourWritesOverlay(ImmutableMap.of("Singers", ImmutableList.of("SingerId DESC")));
+    FakeDatabase database = new FakeDatabase(singer(2L, "Bruce", "Allison"));
+    List<Struct> rows =
+        read(
+            descendingOverlay,
+            KeySet.newBuilder().addKey(Key.of(1L)).addKey(Key.of(3L)).addKey(Key.of(2L)).build(),
+            Options.fromReadOptions(Options.limit(2L)),
+            database,
+            insertSinger(1L, "Alice", "Trentor"),
+            insertSinger(3L, "Carl", "Lee"));
+
+    assertEquals(ImmutableList.of(singer(3L, "Carl", "Lee"), singer(2L, "Bruce", "Allison")), rows);
+  }
+
+  @Test
+  public void testPendingCommitTimestampCannotBeRead() {
+    FakeDatabase database = new FakeDatabase(singer(1L, "Alice", "Trentor"));
+    SpannerException exception =
+        assertThrows(
+            SpannerException.class,
+            () ->
+                read(
+                    KeySet.singleKey(Key.of(1L)),
+                    database,
+                    Mutation.newUpdateBuilder("Singers")
+                        .set("SingerId")
+                        .to(1L)
+                        .set("LastName")
+                        .to(Value.COMMIT_TIMESTAMP)
+                        .build()));
+    assertEquals(ErrorCode.FAILED_PRECONDITION, exception.getErrorCode());
+  }
+
+  @Test
+  public void testReadWithoutMutationsIsPassedThrough() {
+    FakeDatabase database = new FakeDatabase(singer(1L, "Alice", "Trentor"));
+    List<Struct> rows =
+        read(
+            KeySet.all(),
+            database,
+            Mutation.newInsertBuilder("Albums").set("SingerId").to(1L).build());
+
+    assertEquals(ImmutableList.of(), rows);
+    assertEquals(ImmutableList.of(KeySet.all()), database.reads);
+  }
+
+  @Test
+  public void testKeyRangesAreNotSupported() {
+    FakeDatabase database = new FakeDatabase();
+    SpannerException exception =
+        assertThrows(
+            SpannerException.class,
+            () -> read(KeySet.all(), database, insertSinger(1L, "Alice", "Trentor")));
+    assertEquals(ErrorCode.UNIMPLEMENTED, exception.getErrorCode());
+
+    exception =
+        assertThrows(
+            SpannerException.class,
+            () ->
+                read(
+                    KeySet.singleKey(Key.of(1L)),
+                    database,
+                    Mutation.delete("Singers", KeySet.prefixRange(Key.of(1L)))));
+    assertEquals(ErrorCode.UNIMPLEMENTED, exception.getErrorCode());
+    assertTrue(database.reads.isEmpty());
+  }
+}
@@ -20,6 +20,7 @@ import static com.google.common.truth.Truth.assertThat;
 
 import com.google.api.gax.rpc.TransportChannelProvider;
 import com.google.cloud.NoCredentials;
+import com.google.cloud.spanner.SessionPool.PooledSessionFuture;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningScheduledExecutorService;
@@ -88,6 +89,9 @@ public class SessionPoolBenchmark {
     @Param({"0.2"})
     float writeFraction;
 
+    @Param({"false", "true"})
+    boolean useChannelShardedSessions;
+
     /** AuxCounter for number of RPCs. */
     public int numBatchCreateSessionsRpcs() {
       return mockServer.countRequests(BatchCreateSessionsRequest.class);
@@ -115,6 +119,7 @@ public class SessionPoolBenchmark {
                       .setMaxSessions(maxSessions)
                       .setIncStep(incStep)
                       .setWriteSessionsFraction(writeFraction)
+                      .setUseChannelShardedSessions(useChannelShardedSessions)
                       .build())
               .build();
 
@@ -243,6 +248,39 @@ public class SessionPoolBenchmark {
     service.shutdown();
   }
 
+  /**
+   * Measures the time needed to check out and release sessions from a large number of threads in
+   * parallel without executing any RPCs. This benchmark primarily measures the lock contention in
+   * the session pool.
+   */
+  @Benchmark
+  public void parallelCheckoutAndRelease(final BenchmarkState server) throws Exception {
+    int checkoutsPerThread = 10_000;
+    int parallelThreads = Runtime.getRuntime().availableProcessors() * 2;
+    final DatabaseClient client =
+        server.spanner.getDatabaseClient(DatabaseId.of(TEST_PROJECT, TEST_INSTANCE, TEST_DATABASE));
+    final SessionPool pool = ((DatabaseClientImpl) client).pool;
+    assertThat(pool.totalSessions()).isEqualTo(server.minSessions);
+
+    ListeningScheduledExecutorService service =
+        MoreExecutors.listeningDecorator(Executors.newScheduledThreadPool(parallelThreads));
+    List<ListenableFuture<?>> futures = new ArrayList<>(parallelThreads);
+    for (int i = 0; i < parallelThreads; i++) {
+      futures.add(
+          service.submit(
+              () -> {
+                for (int n = 0; n < checkoutsPerThread; n++) {
+                  PooledSessionFuture session = pool.getSession();
+                  session.get();
+                  session.close();
+                }
+                return null;
+              }));
+    }
+    Futures.allAsList(futures).get();
+    service.shutdown();
+  }
+
   /** Measures the time needed to acquire MaxSessions session sequentially. */
   @Benchmark
   public void steadyIncrease(BenchmarkState server) {
@@ -18,6 +18,7 @@ package com.google.cloud.spanner;
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -218,4 +219,52 @@ public class SessionPoolOptionsTest {
 
     assertEquals(Duration.ofSeconds(60), sessionPoolOptions.getAcquireSessionTimeout());
   }
+
+  @Test
+  public void testUseChannelShardedSessions() {
+    assertFalse(SessionPoolOptions.newBuilder().build().isUseChannelShardedSessions());
+    SessionPoolOptions options =
+        SessionPoolOptions.newBuilder().setUseChannelShardedSessions(true).build();
+    assertTrue(options.isUseChannelShardedSessions());
+    assertTrue(options.toBuilder().build().isUseChannelShardedSessions());
+    assertNotEquals(SessionPoolOptions.newBuilder().build(), options);
+  }
+
+  @Test
+  public void testUseLeastOutstandingRequestsChannelSelection() {
+    assertFalse(
+        SessionPoolOptions.newBuilder().build().isUseLeastOutstandingRequestsChannelSelection());
+    SessionPoolOptions options =
+        SessionPoolOptions.newBuilder()
+            .setUseChannelShardedSessions(true)
+            .setUseLeastOutstandingRequestsChannelSelection(true)
+            .build();
+    assertTrue(options.isUseLeastOutstandingRequestsChannelSelection());
+    assertTrue(options.toBuilder().build().isUseLeastOutstandingRequestsChannelSelection());
+    assertNotEquals(
+        SessionPoolOptions.newBuilder().setUseChannelShardedSessions(true).build(), options);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testLeastOutstandingRequestsChannelSelectionRequiresChannelShardedSessions() {
+    SessionPoolOptions.newBuilder().setUseLeastOutstandingRequestsChannelSelection(true).build();
+  }
+
+  @Test
+  public void testUseMultiplexedSession() {
+    assertFalse(SessionPoolOptions.newBuilder().build().getUseMultiplexedSession());
+    SessionPoolOptions options =
+        SessionPoolOptions.newBuilder().setUseMultiplexedSession(true).build();
+    assertTrue(options.getUseMultiplexedSession());
+    assertTrue(options.toBuilder().build().getUseMultiplexedSession());
+    assertNotEquals(SessionPoolOptions.newBuilder().build(), options);
+    assertEquals(
+        Duration.ofDays(7),
+        SessionPoolOptions.newBuilder().build().getMultiplexedSessionMaintenanceDuration());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testZeroMultiplexedSessionMaintenanceDuration() {
+    SessionPoolOptions.newBuilder().setMultiplexedSessionMaintenanceDuration(Duration.ZERO).build();
+  }
 }
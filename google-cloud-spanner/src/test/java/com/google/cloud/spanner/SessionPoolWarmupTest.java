@@ -0,0 +1,203 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import static com.google.cloud.spanner.MockSpannerTestUtil.SELECT1;
+import static com.google.cloud.spanner.MockSpannerTestUtil.SELECT1_RESULTSET;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import com.google.api.gax.grpc.testing.LocalChannelProvider;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.spanner.MockSpannerServiceImpl.SimulatedExecutionTime;
+import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
+import com.google.spanner.v1.ExecuteSqlRequest;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessServerBuilder;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.threeten.bp.Duration;
+
+@RunWith(JUnit4.class)
+public class SessionPoolWarmupTest {
+  private static final int NUM_CHANNELS = 4;
+  private static final Statement WARMUP_STATEMENT = Statement.of("SELECT 1");
+
+  private static MockSpannerServiceImpl mockSpanner;
+  private static Server server;
+  private static LocalChannelProvider channelProvider;
+
+  private Spanner spanner;
+
+  @BeforeClass
+  public static void startMockServer() throws IOException {
+    mockSpanner = new MockSpannerServiceImpl();
+    mockSpanner.setAbortProbability(0.0D);
+    mockSpanner.putStatementResult(StatementResult.query(SELECT1, SELECT1_RESULTSET));
+    mockSpanner.putStatementResult(StatementResult.query(WARMUP_STATEMENT, SELECT1_RESULTSET));
+
+    String uniqueName = InProcessServerBuilder.generateName();
+    server = InProcessServerBuilder.forName(uniqueName).addService(mockSpanner).build().start();
+    channelProvider = LocalChannelProvider.create(uniqueName);
+  }
+
+  @AfterClass
+  public static void stopMockServer() throws InterruptedException {
+    server.shutdown();
+    server.awaitTermination();
+  }
+
+  @After
+  public void cleanup() {
+    if (spanner != null) {
+      spanner.close();
+    }
+    mockSpanner.removeAllExecutionTimes();
+    mockSpanner.reset();
+  }
+
+  private DatabaseClientImpl createClient(int minSessions, boolean useChannelShardedSessions) {
+    spanner =
+        SpannerOptions.newBuilder()
+            .setProjectId("p")
+            .setChannelProvider(channelProvider)
+            .setCredentials(NoCredentials.getInstance())
+            .setNumChannels(NUM_CHANNELS)
+            .setSessionPoolOption(
+                SessionPoolOptions.newBuilder()
+                    .setMinSessions(minSessions)
+                    .setUseChannelShardedSessions(useChannelShardedSessions)
+                    .setFailOnSessionLeak()
+                    .build())
+            .build()
+            .getService();
+    return (DatabaseClientImpl) spanner.getDatabaseClient(DatabaseId.of("p", "i", "d"));
+  }
+
+  private void assertWarmedUp(DatabaseClientImpl client, SessionPoolWarmupStats stats) {
+    assertEquals(NUM_CHANNELS * 2, stats.getNumSessions());
+    assertEquals(NUM_CHANNELS, stats.getNumChannels());
+    assertNotNull(stats.getSessionCreationDuration());
+    assertTrue(stats.getTotalDuration().compareTo(stats.getWarmupQueryDuration()) >= 0);
+
+    // The warm-up query is executed once on each channel, and all sessions are back in the pool.
+    List<ExecuteSqlRequest> requests = mockSpanner.getRequestsOfType(ExecuteSqlRequest.class);
+    assertEquals(NUM_CHANNELS, requests.size());
+    Set<String> sessions = new HashSet<>();
+    for (ExecuteSqlRequest request : requests) {
+      assertEquals(WARMUP_STATEMENT.getSql(), request.getSql());
+      assertTrue(request.getTransaction().hasSingleUse());
+      sessions.add(request.getSession());
+    }
+    assertEquals(NUM_CHANNELS, sessions.size());
+    assertEquals(0, client.pool.getNumberOfSessionsInUse());
+    assertEquals(NUM_CHANNELS * 2, client.pool.getNumberOfSessionsInPool());
+  }
+
+  @Test
+  public void testWarmup() throws Exception {
+    DatabaseClientImpl client = createClient(NUM_CHANNELS * 2, false);
+    SessionPoolWarmupStats stats = client.warmup().get(30L, TimeUnit.SECONDS);
+    assertWarmedUp(client, stats);
+  }
+
+  @Test
+  public void testWarmupWithChannelShardedSessions() throws Exception {
+    DatabaseClientImpl client = createClient(NUM_CHANNELS * 2, true);
+    SessionPoolWarmupStats stats = client.warmup().get(30L, TimeUnit.SECONDS);
+    assertWarmedUp(client, stats);
+  }
+
+  @Test
+  public void testWarmupWithCustomStatement() throws Exception {
+    DatabaseClientImpl client = createClient(NUM_CHANNELS, false);
+    SessionPoolWarmupStats stats = client.warmup(SELECT1).get(30L, TimeUnit.SECONDS);
+
+    assertEquals(NUM_CHANNELS, stats.getNumChannels());
+    for (ExecuteSqlRequest request : mockSpanner.getRequestsOfType(ExecuteSqlRequest.class)) {
+      assertEquals(SELECT1.getSql(), request.getSql());
+    }
+  }
+
+  @Test
+  public void testWarmupWithoutMinSessions() throws Exception {
+    DatabaseClientImpl client = createClient(0, false);
+    SessionPoolWarmupStats stats = client.warmup().get(30L, TimeUnit.SECONDS);
+
+    assertEquals(0, stats.getNumSessions());
+    assertEquals(0, stats.getNumChannels());
+    assertEquals(Duration.ZERO, stats.getSessionCreationDuration());
+    assertEquals(0, mockSpanner.countRequestsOfType(ExecuteSqlRequest.class));
+  }
+
+  @Test
+  public void testWarmupFailsIfSessionCreationFails() {
+    mockSpanner.setBatchCreateSessionsExecutionTime(
+        SimulatedExecutionTime.ofStickyException(
+            Status.PERMISSION_DENIED.withDescription("Not allowed").asRuntimeException()));
+    DatabaseClientImpl client = createClient(NUM_CHANNELS, false);
+
+    ExecutionException exception =
+        assertThrows(
+            ExecutionException.class, () -> client.warmup().get(30L, TimeUnit.SECONDS));
+    assertTrue(exception.getCause() instanceof SpannerException);
+    assertEquals(
+        ErrorCode.PERMISSION_DENIED, ((SpannerException) exception.getCause()).getErrorCode());
+  }
+
+  @Test
+  public void testWarmupReleasesSessionsIfQueryFails() {
+    Statement invalid = Statement.of("SELECT * FROM NonExistingTable");
+    mockSpanner.putStatementResult(
+        StatementResult.exception(
+            invalid,
+            Status.INVALID_ARGUMENT.withDescription("Table not found").asRuntimeException()));
+    DatabaseClientImpl client = createClient(NUM_CHANNELS, false);
+
+    ExecutionException exception =
+        assertThrows(
+            ExecutionException.class, () -> client.warmup(invalid).get(30L, TimeUnit.SECONDS));
+    assertTrue(exception.getCause() instanceof SpannerException);
+    assertEquals(
+        ErrorCode.INVALID_ARGUMENT, ((SpannerException) exception.getCause()).getErrorCode());
+    assertEquals(0, client.pool.getNumberOfSessionsInUse());
+  }
+
+  @Test
+  public void testWarmupOfClosedPoolFails() {
+    DatabaseClientImpl client = createClient(NUM_CHANNELS, false);
+    spanner.close();
+    spanner = null;
+
+    ExecutionException exception =
+        assertThrows(ExecutionException.class, () -> client.warmup().get(30L, TimeUnit.SECONDS));
+    assertTrue(exception.getCause() instanceof IllegalStateException);
+  }
+}
@@ -29,7 +29,9 @@ import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
+import com.google.api.gax.grpc.ChannelPoolSettings;
 import com.google.api.gax.grpc.GrpcCallContext;
+import com.google.api.gax.grpc.testing.LocalChannelProvider;
 import com.google.api.gax.retrying.RetrySettings;
 import com.google.api.gax.rpc.ApiCallContext;
 import com.google.api.gax.rpc.ServerStreamingCallSettings;
@@ -1037,6 +1039,88 @@ public class SpannerOptionsTest {
     assertEquals(SpannerOptions.DEFAULT_CHANNELS, options.getNumChannels());
   }
 
+  @Test
+  public void testChannelPoolSettings() {
+    ChannelPoolSettings channelPoolSettings =
+        ChannelPoolSettings.builder()
+            .setMinChannelCount(2)
+            .setInitialChannelCount(2)
+            .setMaxChannelCount(16)
+            .setMinRpcsPerChannel(10)
+            .setMaxRpcsPerChannel(80)
+            .build();
+    SpannerOptions options =
+        SpannerOptions.newBuilder()
+            .setProjectId("test-project")
+            .setCredentials(NoCredentials.getInstance())
+            .setChannelPoolSettings(channelPoolSettings)
+            .build();
+    assertSame(channelPoolSettings, options.getChannelPoolSettings());
+    assertSame(channelPoolSettings, options.toBuilder().build().getChannelPoolSettings());
+    // The channel hints are distributed over the max number of channels by default.
+    assertEquals(16, options.getNumChannels());
+    assertTrue(options.usesDynamicChannelPool());
+    // The channel pool settings are not used with a custom channel provider.
+    assertFalse(
+        options.toBuilder()
+            .setChannelProvider(LocalChannelProvider.create("test"))
+            .build()
+            .usesDynamicChannelPool());
+    assertNull(
+        SpannerOptions.newBuilder()
+            .setProjectId("test-project")
+            .setCredentials(NoCredentials.getInstance())
+            .build()
+            .getChannelPoolSettings());
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            SpannerOptions.newBuilder()
+                .setProjectId("test-project")
+                .setCredentials(NoCredentials.getInstance())
+                .setChannelPoolSettings(channelPoolSettings)
+                .enableGrpcGcpExtension()
+                .build());
+  }
+
+  @Test
+  public void testChannelPoolSettingsWithToBuilder() {
+    SpannerOptions options =
+        SpannerOptions.newBuilder()
+            .setProjectId("test-project")
+            .setCredentials(NoCredentials.getInstance())
+            .build();
+    assertEquals(SpannerOptions.DEFAULT_CHANNELS, options.getNumChannels());
+
+    // The default number of channels is determined again when channel pool settings are added.
+    SpannerOptions withPool =
+        options
+            .toBuilder()
+            .setChannelPoolSettings(
+                ChannelPoolSettings.builder()
+                    .setMinChannelCount(1)
+                    .setInitialChannelCount(1)
+                    .setMaxChannelCount(12)
+                    .setMinRpcsPerChannel(10)
+                    .setMaxRpcsPerChannel(80)
+                    .build())
+            .build();
+    assertEquals(12, withPool.getNumChannels());
+
+    // An explicitly set number of channels is kept.
+    assertEquals(
+        3,
+        options
+            .toBuilder()
+            .setNumChannels(3)
+            .build()
+            .toBuilder()
+            .setChannelPoolSettings(withPool.getChannelPoolSettings())
+            .build()
+            .getNumChannels());
+  }
+
   @Test
   public void testNumChannelsWithGrpcGcpExtensionEnabled() {
     // Set number of channels explicitly, before enabling gRPC-GCP channel pool in SpannerOptions
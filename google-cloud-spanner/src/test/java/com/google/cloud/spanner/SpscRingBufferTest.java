@@ -0,0 +1,148 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SpscRingBufferTest {
+
+  @Test
+  public void testCapacityIsRoundedUpToPowerOfTwo() {
+    assertEquals(1, new SpscRingBuffer<>(1).capacity());
+    assertEquals(4, new SpscRingBuffer<>(3).capacity());
+    assertEquals(16, new SpscRingBuffer<>(16).capacity());
+    assertEquals(32, new SpscRingBuffer<>(17).capacity());
+    assertThrows(IllegalArgumentException.class, () -> new SpscRingBuffer<>(0));
+  }
+
+  @Test
+  public void testPutAndTake() throws InterruptedException {
+    SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(4);
+    assertTrue(buffer.isEmpty());
+    // Wrap around the end of the array a couple of times.
+    for (int i = 0; i < 10; i++) {
+      buffer.putUninterruptibly(i);
+      buffer.putUninterruptibly(i + 100);
+      assertEquals(2, buffer.size());
+      assertEquals(Integer.valueOf(i), buffer.take());
+      assertEquals(Integer.valueOf(i + 100), buffer.poll(1L, TimeUnit.SECONDS));
+    }
+    assertTrue(buffer.isEmpty());
+  }
+
+  @Test
+  public void testPollTimesOut() throws InterruptedException {
+    SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(1);
+    assertNull(buffer.poll(1L, TimeUnit.MILLISECONDS));
+    assertNull(buffer.poll(0L, TimeUnit.NANOSECONDS));
+  }
+
+  @Test
+  public void testTakeIsInterruptible() {
+    SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(1);
+    Thread.currentThread().interrupt();
+    assertThrows(InterruptedException.class, buffer::take);
+    assertFalse(Thread.interrupted());
+  }
+
+  @Test
+  public void testProducerWaitsWhenFull() throws Exception {
+    SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(2);
+    buffer.putUninterruptibly(1);
+    buffer.putUninterruptibly(2);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<?> producer = executor.submit(() -> buffer.putUninterruptibly(3));
+    Thread.sleep(10L);
+    assertFalse(producer.isDone());
+
+    assertEquals(Integer.valueOf(1), buffer.take());
+    producer.get(10L, TimeUnit.SECONDS);
+    assertEquals(Integer.valueOf(2), buffer.take());
+    assertEquals(Integer.valueOf(3), buffer.take());
+    executor.shutdown();
+  }
+
+  @Test
+  public void testInterruptedProducerKeepsWaiting() throws Exception {
+    SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(1);
+    buffer.putUninterruptibly(1);
+    AtomicBoolean interruptedAfterPut = new AtomicBoolean();
+    Thread producer =
+        new Thread(
+            () -> {
+              buffer.putUninterruptibly(2);
+              interruptedAfterPut.set(Thread.currentThread().isInterrupted());
+            });
+    producer.start();
+    waitForState(producer, Thread.State.WAITING);
+
+    producer.interrupt();
+    Thread.sleep(50L);
+    // The producer should park again instead of spinning until space becomes available.
+    waitForState(producer, Thread.State.WAITING);
+    assertTrue(producer.isAlive());
+
+    assertEquals(Integer.valueOf(1), buffer.take());
+    producer.join(10_000L);
+    assertFalse(producer.isAlive());
+    assertEquals(Integer.valueOf(2), buffer.take());
+    // The interrupt is restored when the element has been added.
+    assertTrue(interruptedAfterPut.get());
+  }
+
+  private static void waitForState(Thread thread, Thread.State state) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+    while (thread.getState() != state) {
+      assertTrue("Thread did not reach state " + state, System.nanoTime() < deadline);
+      Thread.sleep(1L);
+    }
+  }
+
+  @Test
+  public void testConcurrentProducerAndConsumer() throws Exception {
+    int numElements = 1_000_000;
+    SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(8);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    Future<?> producer =
+        executor.submit(
+            () -> {
+              for (int i = 0; i < numElements; i++) {
+                buffer.putUninterruptibly(i);
+              }
+            });
+    for (int i = 0; i < numElements; i++) {
+      assertEquals(i, buffer.take().intValue());
+    }
+    producer.get();
+    assertTrue(buffer.isEmpty());
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import static com.google.cloud.spanner.MockSpannerTestUtil.SELECT1;
+import static com.google.cloud.spanner.MockSpannerTestUtil.SELECT1_RESULTSET;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.api.gax.grpc.testing.LocalChannelProvider;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.MockSpannerServiceImpl.StatementResult;
+import com.google.spanner.v1.ExecuteSqlRequest;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessServerBuilder;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class StaleReadCacheMockServerTest {
+  private static final DatabaseId DATABASE_ID = DatabaseId.of("p", "i", "d");
+
+  private static MockSpannerServiceImpl mockSpanner;
+  private static Server server;
+  private static LocalChannelProvider channelProvider;
+
+  private Spanner spanner;
+  private DatabaseClient client;
+
+  @BeforeClass
+  public static void startMockServer() throws IOException {
+    mockSpanner = new MockSpannerServiceImpl();
+    mockSpanner.setAbortProbability(0.0D);
+    mockSpanner.putStatementResult(StatementResult.query(SELECT1, SELECT1_RESULTSET));
+
+    String uniqueName = InProcessServerBuilder.generateName();
+    server = InProcessServerBuilder.forName(uniqueName).addService(mockSpanner).build().start();
+    channelProvider = LocalChannelProvider.create(uniqueName);
+  }
+
+  @AfterClass
+  public static void stopMockServer() throws InterruptedException {
+    server.shutdown();
+    server.awaitTermination();
+  }
+
+  @Before
+  public void createSpanner() {
+    spanner =
+        SpannerOptions.newBuilder()
+            .setProjectId("p")
+            .setChannelProvider(channelProvider)
+            .setCredentials(NoCredentials.getInstance())
+            .setSessionPoolOption(SessionPoolOptions.newBuilder().setFailOnSessionLeak().build())
+            .setStaleReadCacheMaxBytes(1 << 20)
+            .build()
+            .getService();
+    client = spanner.getDatabaseClient(DATABASE_ID);
+  }
+
+  @After
+  public void cleanup() {
+    spanner.close();
+    mockSpanner.reset();
+  }
+
+  private void executeSelect1(TimestampBound bound) {
+    try (ResultSet resultSet = client.singleUse(bound).executeQuery(SELECT1)) {
+      assertTrue(resultSet.next());
+      assertEquals(1L, resultSet.getLong(0));
+      assertFalse(resultSet.next());
+    }
+  }
+
+  private StaleReadCache getCache() {
+    return ((SpannerImpl) spanner).getStaleReadCache(DATABASE_ID);
+  }
+
+  @Test
+  public void testReadTimestamp() {
+    TimestampBound bound = TimestampBound.ofReadTimestamp(Timestamp.now());
+    executeSelect1(bound);
+    executeSelect1(bound);
+
+    assertEquals(1, mockSpanner.countRequestsOfType(ExecuteSqlRequest.class));
+    assertTrue(
+        mockSpanner
+            .getRequestsOfType(ExecuteSqlRequest.class)
+            .get(0)
+            .getTransaction()
+            .getSingleUse()
+            .getReadOnly()
+            .getReturnReadTimestamp());
+    assertEquals(1L, getCache().getHitCount());
+    assertEquals(1L, getCache().getMissCount());
+  }
+
+  @Test
+  public void testMaxStaleness() {
+    // The mock server reads at exactly the max staleness, so the cached result can be used for
+    // queries with a larger max staleness, but not for queries with the same max staleness.
+    executeSelect1(TimestampBound.ofMaxStaleness(10L, TimeUnit.SECONDS));
+    executeSelect1(TimestampBound.ofMaxStaleness(1L, TimeUnit.MINUTES));
+    assertEquals(1, mockSpanner.countRequestsOfType(ExecuteSqlRequest.class));
+
+    executeSelect1(TimestampBound.ofMaxStaleness(5L, TimeUnit.SECONDS));
+    assertEquals(2, mockSpanner.countRequestsOfType(ExecuteSqlRequest.class));
+  }
+
+  @Test
+  public void testSingleUseReadOnlyTransactionReturnsCachedReadTimestamp() {
+    Timestamp readTimestamp = Timestamp.ofTimeSecondsAndNanos(1000L, 0);
+    TimestampBound bound = TimestampBound.ofMinReadTimestamp(readTimestamp);
+    executeSelect1(bound);
+
+    try (ReadOnlyTransaction transaction = client.singleUseReadOnlyTransaction(bound);
+        ResultSet resultSet = transaction.executeQuery(SELECT1)) {
+      assertTrue(resultSet.next());
+      assertEquals(readTimestamp, transaction.getReadTimestamp());
+    }
+    assertEquals(1, mockSpanner.countRequestsOfType(ExecuteSqlRequest.class));
+  }
+
+  @Test
+  public void testStrongAndExactStalenessAreNotCached() {
+    executeSelect1(TimestampBound.strong());
+    executeSelect1(TimestampBound.strong());
+    executeSelect1(TimestampBound.ofExactStaleness(10L, TimeUnit.SECONDS));
+    executeSelect1(TimestampBound.ofExactStaleness(10L, TimeUnit.SECONDS));
+
+    assertEquals(4, mockSpanner.countRequestsOfType(ExecuteSqlRequest.class));
+    assertEquals(0L, getCache().getHitCount());
+  }
+
+  @Test
+  public void testCacheIsDisabledByDefault() {
+    try (Spanner spanner =
+        SpannerOptions.newBuilder()
+            .setProjectId("p")
+            .setChannelProvider(channelProvider)
+            .setCredentials(NoCredentials.getInstance())
+            .build()
+            .getService()) {
+      DatabaseClient client = spanner.getDatabaseClient(DATABASE_ID);
+      TimestampBound bound = TimestampBound.ofReadTimestamp(Timestamp.now());
+      for (int i = 0; i < 2; i++) {
+        try (ResultSet resultSet = client.singleUse(bound).executeQuery(SELECT1)) {
+          assertTrue(resultSet.next());
+        }
+      }
+      assertEquals(2, mockSpanner.countRequestsOfType(ExecuteSqlRequest.class));
+    }
+  }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.AbstractResultSet.CloseableIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+import com.google.spanner.v1.DirectedReadOptions;
+import com.google.spanner.v1.DirectedReadOptions.IncludeReplicas;
+import com.google.spanner.v1.ExecuteSqlRequest.QueryOptions;
+import com.google.spanner.v1.PartialResultSet;
+import com.google.spanner.v1.ResultSetMetadata;
+import com.google.spanner.v1.Transaction;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class StaleReadCacheTest {
+  private static final Statement STATEMENT = Statement.of("SELECT * FROM FOO");
+  private static final QueryOptions OPTIONS = QueryOptions.getDefaultInstance();
+
+  private static final class ListIterator implements CloseableIterator<PartialResultSet> {
+    private final Iterator<PartialResultSet> delegate;
+
+    private ListIterator(List<PartialResultSet> results) {
+      this.delegate = results.iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return delegate.hasNext();
+    }
+
+    @Override
+    public PartialResultSet next() {
+      return delegate.next();
+    }
+
+    @Override
+    public void close(@Nullable String message) {}
+
+    @Override
+    public boolean isWithBeginTransaction() {
+      return false;
+    }
+  }
+
+  private static List<PartialResultSet> createResults(Timestamp readTimestamp, int size) {
+    return ImmutableList.of(
+        PartialResultSet.newBuilder()
+            .setMetadata(
+                ResultSetMetadata.newBuilder()
+                    .setTransaction(
+                        Transaction.newBuilder().setReadTimestamp(readTimestamp.toProto())))
+            .build(),
+        PartialResultSet.newBuilder().setResumeToken(ByteString.copyFrom(new byte[size])).build());
+  }
+
+  private static void consume(Iterator<PartialResultSet> iterator) {
+    while (iterator.hasNext()) {
+      iterator.next();
+    }
+  }
+
+  @Test
+  public void testIsCacheable() {
+    assertFalse(StaleReadCache.isCacheable(TimestampBound.strong()));
+    assertFalse(StaleReadCache.isCacheable(TimestampBound.ofExactStaleness(1L, TimeUnit.SECONDS)));
+    assertTrue(StaleReadCache.isCacheable(TimestampBound.ofMaxStaleness(1L, TimeUnit.SECONDS)));
+    assertTrue(StaleReadCache.isCacheable(TimestampBound.ofReadTimestamp(Timestamp.now())));
+    assertTrue(StaleReadCache.isCacheable(TimestampBound.ofMinReadTimestamp(Timestamp.now())));
+  }
+
+  @Test
+  public void testMaxStaleness() {
+    FakeClock clock = new FakeClock();
+    clock.currentTimeMillis.set(10_000L);
+    StaleReadCache cache = new StaleReadCache(1 << 20, clock);
+    TimestampBound bound = TimestampBound.ofMaxStaleness(5L, TimeUnit.SECONDS);
+    Timestamp readTimestamp = Timestamp.ofTimeMicroseconds(8_000_000L);
+
+    assertNull(cache.get(STATEMENT, OPTIONS, null, bound));
+    consume(
+        cache.record(
+            STATEMENT, OPTIONS, null, bound, new ListIterator(createResults(readTimestamp, 10))));
+    assertEquals(1L, cache.size());
+
+    // The cached result is 2 seconds old.
+    CloseableIterator<PartialResultSet> cached = cache.get(STATEMENT, OPTIONS, null, bound);
+    assertNotNull(cached);
+    assertEquals(createResults(readTimestamp, 10), ImmutableList.copyOf(cached));
+    assertNull(
+        cache.get(STATEMENT, OPTIONS, null, TimestampBound.ofMaxStaleness(1L, TimeUnit.SECONDS)));
+
+    // The cached result is 5.001 seconds old.
+    clock.currentTimeMillis.set(13_001L);
+    assertNull(cache.get(STATEMENT, OPTIONS, null, bound));
+    assertEquals(1L, cache.getHitCount());
+    assertEquals(3L, cache.getMissCount());
+  }
+
+  @Test
+  public void testMinReadTimestamp() {
+    StaleReadCache cache = new StaleReadCache(1 << 20);
+    Timestamp readTimestamp = Timestamp.ofTimeMicroseconds(8_000_000L);
+    consume(
+        cache.record(
+            STATEMENT, OPTIONS, null,
+            TimestampBound.ofMinReadTimestamp(readTimestamp),
+            new ListIterator(createResults(readTimestamp, 10))));
+
+    assertNotNull(
+        cache.get(STATEMENT, OPTIONS, null, TimestampBound.ofMinReadTimestamp(readTimestamp)));
+    assertNotNull(
+        cache.get(
+            STATEMENT,
+            OPTIONS,
+            null,
+            TimestampBound.ofMinReadTimestamp(Timestamp.ofTimeMicroseconds(1L))));
+    assertNull(
+        cache.get(
+            STATEMENT, OPTIONS, null,
+            TimestampBound.ofMinReadTimestamp(Timestamp.ofTimeMicroseconds(8_000_001L))));
+    assertNull(
+        cache.get(
+            Statement.of("SELECT 1"),
+            OPTIONS,
+            null,
+            TimestampBound.ofMinReadTimestamp(readTimestamp)));
+  }
+
+  @Test
+  public void testReadTimestampIsPartOfKey() {
+    StaleReadCache cache = new StaleReadCache(1 << 20);
+    Timestamp readTimestamp = Timestamp.ofTimeMicroseconds(8_000_000L);
+    TimestampBound bound = TimestampBound.ofReadTimestamp(readTimestamp);
+    consume(
+        cache.record(
+            STATEMENT, OPTIONS, null, bound, new ListIterator(createResults(readTimestamp, 10))));
+
+    assertNotNull(cache.get(STATEMENT, OPTIONS, null, bound));
+    assertNull(
+        cache.get(
+            STATEMENT,
+            OPTIONS,
+            null,
+            TimestampBound.ofReadTimestamp(Timestamp.ofTimeMicroseconds(9_000_000L))));
+  }
+
+  @Test
+  public void testIncompleteResultsAreNotCached() {
+    StaleReadCache cache = new StaleReadCache(1 << 20);
+    Timestamp readTimestamp = Timestamp.ofTimeMicroseconds(8_000_000L);
+    TimestampBound bound = TimestampBound.ofMinReadTimestamp(readTimestamp);
+    CloseableIterator<PartialResultSet> iterator =
+        cache.record(
+            STATEMENT, OPTIONS, null, bound, new ListIterator(createResults(readTimestamp, 10)));
+    iterator.next();
+    iterator.close(null);
+
+    assertEquals(0L, cache.size());
+  }
+
+  @Test
+  public void testLargeResultsAreNotCached() {
+    StaleReadCache cache = new StaleReadCache(8_000L);
+    Timestamp readTimestamp = Timestamp.ofTimeMicroseconds(8_000_000L);
+    TimestampBound bound = TimestampBound.ofMinReadTimestamp(readTimestamp);
+    consume(
+        cache.record(
+            STATEMENT,
+            OPTIONS,
+            null,
+            bound,
+            new ListIterator(createResults(readTimestamp, 2_000))));
+    assertEquals(0L, cache.size());
+
+    consume(
+        cache.record(
+            STATEMENT, OPTIONS, null, bound, new ListIterator(createResults(readTimestamp, 500))));
+    assertEquals(1L, cache.size());
+  }
+
+  @Test
+  public void testOptionsArePartOfKey() {
+    StaleReadCache cache = new StaleReadCache(1 << 20);
+    Timestamp readTimestamp = Timestamp.ofTimeMicroseconds(8_000_000L);
+    TimestampBound bound = TimestampBound.ofMinReadTimestamp(readTimestamp);
+    consume(
+        cache.record(
+            STATEMENT, OPTIONS, null, bound, new ListIterator(createResults(readTimestamp, 10))));
+
+    assertNotNull(cache.get(STATEMENT, OPTIONS, null, bound));
+    assertNull(
+        cache.get(
+            STATEMENT, QueryOptions.newBuilder().setOptimizerVersion("1").build(), null, bound));
+    assertNull(
+        cache.get(
+            STATEMENT,
+            QueryOptions.newBuilder()
+                .setOptimizerStatisticsPackage("auto_20191128_14_47_22UTC")
+                .build(),
+            null,
+            bound));
+    assertNull(
+        cache.get(
+            STATEMENT,
+            OPTIONS,
+            DirectedReadOptions.newBuilder()
+                .setIncludeReplicas(IncludeReplicas.newBuilder().setAutoFailoverDisabled(true))
+                .build(),
+            bound));
+  }
+}
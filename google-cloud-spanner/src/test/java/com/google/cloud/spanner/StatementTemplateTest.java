@@ -0,0 +1,106 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import com.google.spanner.v1.ExecuteSqlRequest.QueryOptions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class StatementTemplateTest {
+  private static final StatementTemplate TEMPLATE =
+      StatementTemplate.newBuilder("SELECT * FROM Singers WHERE SingerId=@id")
+          .addParameter("id", Type.int64())
+          .withQueryOptions(QueryOptions.newBuilder().setOptimizerVersion("1").build())
+          .build();
+
+  @Test
+  public void testBind() {
+    Statement statement = TEMPLATE.bind().bind("id").to(1L).build();
+
+    assertSame(TEMPLATE, statement.getTemplate());
+    assertEquals(
+        Statement.newBuilder(TEMPLATE.getSql())
+            .bind("id")
+            .to(1L)
+            .withQueryOptions(TEMPLATE.getQueryOptions())
+            .build(),
+        statement);
+
+    // Rebinding a parameter keeps the template.
+    Statement rebound = statement.toBuilder().bind("id").to(2L).build();
+    assertSame(TEMPLATE, rebound.getTemplate());
+    assertEquals(Value.int64(2L), rebound.getParameters().get("id"));
+  }
+
+  @Test
+  public void testChangingSqlOrQueryOptionsDetachesTemplate() {
+    Statement statement = TEMPLATE.bind().bind("id").to(1L).append(" LIMIT 1").build();
+    assertNull(statement.getTemplate());
+    assertEquals(TEMPLATE.getSql() + " LIMIT 1", statement.getSql());
+
+    statement =
+        TEMPLATE
+            .bind()
+            .bind("id")
+            .to(1L)
+            .build()
+            .toBuilder()
+            .withQueryOptions(QueryOptions.getDefaultInstance())
+            .build();
+    assertNull(statement.getTemplate());
+    assertEquals(TEMPLATE.getSql(), statement.getSql());
+  }
+
+  @Test
+  public void testAllParametersMustBeBound() {
+    assertThrows(IllegalStateException.class, () -> TEMPLATE.bind().build());
+  }
+
+  @Test
+  public void testDuplicateParameter() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            StatementTemplate.newBuilder("SELECT @p")
+                .addParameter("p", Type.string())
+                .addParameter("p", Type.int64()));
+  }
+
+  @Test
+  public void testMergedQueryOptions() {
+    QueryOptions defaultQueryOptions =
+        QueryOptions.newBuilder()
+            .setOptimizerVersion("2")
+            .setOptimizerStatisticsPackage("package")
+            .build();
+    QueryOptions merged = TEMPLATE.getMergedQueryOptions(defaultQueryOptions);
+
+    assertEquals("1", merged.getOptimizerVersion());
+    assertEquals("package", merged.getOptimizerStatisticsPackage());
+    assertSame(merged, TEMPLATE.getMergedQueryOptions(defaultQueryOptions));
+    assertEquals(
+        TEMPLATE.getQueryOptions(),
+        TEMPLATE.getMergedQueryOptions(QueryOptions.getDefaultInstance()));
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner;
+
+import com.google.api.gax.rpc.ApiCallContext;
+import com.google.cloud.spanner.AbstractResultSet.GrpcResultSet;
+import com.google.cloud.spanner.AbstractResultSet.GrpcStreamIterator;
+import com.google.cloud.spanner.AbstractResultSet.Listener;
+import com.google.cloud.spanner.spi.v1.SpannerRpc;
+import com.google.spanner.v1.PartialResultSet;
+import com.google.spanner.v1.ResultSetMetadata;
+import com.google.spanner.v1.StructType;
+import com.google.spanner.v1.StructType.Field;
+import com.google.spanner.v1.Transaction;
+import com.google.spanner.v1.TypeCode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for streaming {@link PartialResultSet}s from a gRPC thread through a {@link
+ * GrpcStreamIterator} to a {@link GrpcResultSet}. The benchmark does not use a (mock) server, so
+ * the results only include the cost of handing off the messages between threads and of decoding
+ * the rows. The benchmarks are bound to the Maven profile `benchmark` and can be executed like
+ * this: <code>
+ * mvn clean test -DskipTests -Pbenchmark -Dbenchmark.name=StreamingResultSetBenchmark
+ * </code>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(value = 1, warmups = 0)
+@Measurement(batchSize = 1, iterations = 5, timeUnit = TimeUnit.MILLISECONDS)
+@Warmup(batchSize = 1, iterations = 3)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StreamingResultSetBenchmark {
+  private static final int NUM_COLUMNS = 4;
+
+  @State(Scope.Thread)
+  public static class BenchmarkState {
+    @Param({"10000"})
+    int numMessages;
+
+    @Param({"1", "100"})
+    int rowsPerMessage;
+
+    @Param({"4", "64"})
+    int prefetchChunks;
+
+    private List<PartialResultSet> messages;
+    private ExecutorService producer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      StructType.Builder rowType = StructType.newBuilder();
+      for (int col = 0; col < NUM_COLUMNS; col++) {
+        rowType.addFields(
+            Field.newBuilder()
+                .setName("COL" + col)
+                .setType(com.google.spanner.v1.Type.newBuilder().setCode(TypeCode.INT64)));
+      }
+      messages = new ArrayList<>(numMessages);
+      for (int i = 0; i < numMessages; i++) {
+        PartialResultSet.Builder builder = PartialResultSet.newBuilder();
+        if (i == 0) {
+          builder.setMetadata(ResultSetMetadata.newBuilder().setRowType(rowType));
+        }
+        for (int row = 0; row < rowsPerMessage; row++) {
+          for (int col = 0; col < NUM_COLUMNS; col++) {
+            builder.addValues(Value.int64((long) i * row + col).toProto());
+          }
+        }
+        messages.add(builder.build());
+      }
+      producer = Executors.newSingleThreadExecutor();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+      producer.shutdown();
+    }
+  }
+
+  private static final Listener NO_OP_LISTENER =
+      new Listener() {
+        @Override
+        public void onTransactionMetadata(Transaction transaction, boolean shouldIncludeId) {}
+
+        @Override
+        public SpannerException onError(SpannerException e, boolean withBeginTransaction) {
+          return e;
+        }
+
+        @Override
+        public void onDone(boolean withBeginTransaction) {}
+      };
+
+  private static final SpannerRpc.StreamingCall NO_OP_CALL =
+      new SpannerRpc.StreamingCall() {
+        @Override
+        public ApiCallContext getCallContext() {
+          return null;
+        }
+
+        @Override
+        public void cancel(@Nullable String message) {}
+
+        @Override
+        public void request(int numMessages) {}
+      };
+
+  /** Measures the time needed to stream all messages and to read all values in all rows. */
+  @Benchmark
+  public long streamResults(final BenchmarkState state) throws Exception {
+    GrpcStreamIterator stream = new GrpcStreamIterator(state.prefetchChunks);
+    stream.setCall(NO_OP_CALL, /* withBeginTransaction = */ false);
+    SpannerRpc.ResultStreamConsumer consumer = stream.consumer();
+    Future<?> producer =
+        state.producer.submit(
+            () -> {
+              for (PartialResultSet message : state.messages) {
+                consumer.onPartialResultSet(message);
+              }
+              consumer.onCompleted();
+            });
+
+    long sum = 0L;
+    try (ResultSet resultSet = new GrpcResultSet(stream, NO_OP_LISTENER)) {
+      while (resultSet.next()) {
+        for (int col = 0; col < NUM_COLUMNS; col++) {
+          sum += resultSet.getLong(col);
+        }
+      }
+    }
+    producer.get();
+    return sum;
+  }
+}
@@ -1858,6 +1858,33 @@ public class ValueTest {
             .toProto());
   }
 
+  @Test
+  public void testLargeArrayToProto() {
+    long[] longs = new long[1000];
+    List<String> strings = new ArrayList<>(1000);
+    for (int i = 0; i < longs.length; i++) {
+      longs[i] = i;
+      strings.add(i % 10 == 0 ? null : String.valueOf(i));
+    }
+    Value int64Array = Value.int64Array(longs);
+    Value stringArray = Value.stringArray(strings);
+
+    com.google.protobuf.Value int64Proto = int64Array.toProto();
+    com.google.protobuf.Value stringProto = stringArray.toProto();
+    assertEquals(int64Proto, int64Array.toProto());
+    assertEquals(stringProto, stringArray.toProto());
+    for (int i = 0; i < longs.length; i++) {
+      assertEquals(String.valueOf(i), int64Proto.getListValue().getValues(i).getStringValue());
+      assertEquals(
+          strings.get(i) == null
+              ? com.google.protobuf.Value.newBuilder().setNullValue(NullValue.NULL_VALUE).build()
+              : com.google.protobuf.Value.newBuilder().setStringValue(strings.get(i)).build(),
+          stringProto.getListValue().getValues(i));
+    }
+    // Encoding a copy of the value gives the same result.
+    assertEquals(int64Proto, Value.int64Array(longs).toProto());
+  }
+
   @Test
   public void testEqualsHashCode() {
     EqualsTester tester = new EqualsTester();
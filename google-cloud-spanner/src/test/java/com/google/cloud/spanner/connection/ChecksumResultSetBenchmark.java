@@ -0,0 +1,150 @@
+/*
+ * Copyright 2023 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.spanner.connection;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.spanner.ForwardingResultSet;
+import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.ResultSets;
+import com.google.cloud.spanner.Struct;
+import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+import com.google.cloud.spanner.connection.ChecksumResultSet.ChecksumCalculator;
+import com.google.common.hash.HashCode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the per-row cost of the checksums that are calculated by a {@link
+ * ChecksumResultSet} for each {@link RetryChecksumMode}. The {@link RetryChecksumMode#SHA256}
+ * checksum is calculated from the decoded rows, and the {@link RetryChecksumMode#FAST} checksum is
+ * calculated from the rows in protobuf format. The benchmarks are bound to the Maven profile
+ * `benchmark` and can be executed like this: <code>
+ * mvn clean test -DskipTests -Pbenchmark -Dbenchmark.name=ChecksumResultSetBenchmark
+ * </code>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@Fork(value = 1, warmups = 0)
+@Measurement(batchSize = 1, iterations = 5, timeUnit = TimeUnit.MILLISECONDS)
+@Warmup(batchSize = 1, iterations = 3)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ChecksumResultSetBenchmark {
+  private static final Type ROW_TYPE =
+      Type.struct(
+          StructField.of("id", Type.int64()),
+          StructField.of("name", Type.string()),
+          StructField.of("score", Type.float64()),
+          StructField.of("active", Type.bool()),
+          StructField.of("updated", Type.timestamp()));
+
+  @State(Scope.Thread)
+  public static class BenchmarkState {
+    @Param({"100000"})
+    int numRows;
+
+    private List<Struct> rows;
+    private List<com.google.protobuf.Value[]> protobufRows;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      rows = new ArrayList<>(numRows);
+      protobufRows = new ArrayList<>(numRows);
+      for (int i = 0; i < numRows; i++) {
+        Struct row =
+            Struct.newBuilder()
+                .set("id")
+                .to(i)
+                .set("name")
+                .to("Name " + i)
+                .set("score")
+                .to(i / 3d)
+                .set("active")
+                .to(i % 2 == 0)
+                .set("updated")
+                .to(Timestamp.ofTimeMicroseconds(i * 1000L))
+                .build();
+        rows.add(row);
+        com.google.protobuf.Value[] protobufRow = new com.google.protobuf.Value[5];
+        for (int col = 0; col < protobufRow.length; col++) {
+          protobufRow[col] = row.getValue(col).toProto();
+        }
+        protobufRows.add(protobufRow);
+      }
+    }
+  }
+
+  /** {@link ResultSet} that returns the values of the current row also in protobuf format. */
+  private static final class ProtobufRowsResultSet extends ForwardingResultSet {
+    private final List<com.google.protobuf.Value[]> protobufRows;
+    private int index = -1;
+
+    private ProtobufRowsResultSet(
+        List<Struct> rows, List<com.google.protobuf.Value[]> protobufRows) {
+      super(ResultSets.forRows(ROW_TYPE, rows));
+      this.protobufRows = protobufRows;
+    }
+
+    @Override
+    public boolean next() {
+      index++;
+      return super.next();
+    }
+
+    @Override
+    public boolean canGetProtobufValue(int columnIndex) {
+      return true;
+    }
+
+    @Override
+    public com.google.protobuf.Value getProtobufValue(int columnIndex) {
+      return protobufRows.get(index)[columnIndex];
+    }
+  }
+
+  private static HashCode calculateChecksum(BenchmarkState state, RetryChecksumMode mode) {
+    ChecksumCalculator calculator = ChecksumCalculator.create(mode);
+    try (ResultSet resultSet = new ProtobufRowsResultSet(state.rows, state.protobufRows)) {
+      while (resultSet.next()) {
+        calculator.calculateNextChecksum(resultSet);
+      }
+    }
+    return calculator.getChecksum();
+  }
+
+  @Benchmark
+  public HashCode sha256Checksum(BenchmarkState state) {
+    return calculateChecksum(state, RetryChecksumMode.SHA256);
+  }
+
+  @Benchmark
+  public HashCode fastChecksum(BenchmarkState state) {
+    return calculateChecksum(state, RetryChecksumMode.FAST);
+  }
+}
@@ -16,6 +16,10 @@
 
 package com.google.cloud.spanner.connection;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -27,6 +31,7 @@ import com.google.cloud.Date;
 import com.google.cloud.Timestamp;
 import com.google.cloud.spanner.AbortedDueToConcurrentModificationException;
 import com.google.cloud.spanner.AbortedException;
+import com.google.cloud.spanner.ForwardingResultSet;
 import com.google.cloud.spanner.ResultSet;
 import com.google.cloud.spanner.ResultSets;
 import com.google.cloud.spanner.SingerProto.Genre;
@@ -38,7 +43,9 @@ import com.google.cloud.spanner.Type;
 import com.google.cloud.spanner.Type.StructField;
 import com.google.cloud.spanner.Value;
 import com.google.cloud.spanner.connection.AbstractStatementParser.ParsedStatement;
+import com.google.cloud.spanner.connection.ChecksumResultSet.ChecksumCalculator;
 import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
@@ -380,4 +387,102 @@ public class ChecksumResultSetTest {
           () -> resultSet.retry(abortedException));
     }
   }
+
+  /** Returns the given rows both as decoded values and in protobuf format. */
+  private static ResultSet createProtobufResultSet(long... values) {
+    Type type =
+        Type.struct(StructField.of("id", Type.int64()), StructField.of("name", Type.string()));
+    ImmutableList.Builder<Struct> rows = ImmutableList.builder();
+    for (long value : values) {
+      rows.add(Struct.newBuilder().set("id").to(value).set("name").to("name" + value).build());
+    }
+    return new ProtobufRowsResultSet(ResultSets.forRows(type, rows.build()));
+  }
+
+  private static final class ProtobufRowsResultSet extends ForwardingResultSet {
+    private ProtobufRowsResultSet(ResultSet delegate) {
+      super(delegate);
+    }
+
+    @Override
+    public boolean canGetProtobufValue(int columnIndex) {
+      return true;
+    }
+
+    @Override
+    public com.google.protobuf.Value getProtobufValue(int columnIndex) {
+      if (columnIndex == 0) {
+        return com.google.protobuf.Value.newBuilder()
+            .setStringValue(String.valueOf(getLong(0)))
+            .build();
+      }
+      return com.google.protobuf.Value.newBuilder().setStringValue(getString(1)).build();
+    }
+  }
+
+  @Test
+  public void testRetryWithFastChecksum() {
+    ParsedStatement parsedStatement = mock(ParsedStatement.class);
+    Statement statement = Statement.of("select * from foo");
+    when(parsedStatement.getStatement()).thenReturn(statement);
+    AbortedException abortedException = mock(AbortedException.class);
+    ReadWriteTransaction transaction = mock(ReadWriteTransaction.class);
+    when(transaction.runWithRetry(any(Callable.class)))
+        .thenAnswer(invocationOnMock -> ((Callable<?>) invocationOnMock.getArgument(0)).call());
+    when(transaction.getStatementExecutor()).thenReturn(mock(StatementExecutor.class));
+
+    ChecksumResultSet resultSet =
+        new ChecksumResultSet(
+            transaction,
+            DirectExecuteResultSet.ofResultSet(createProtobufResultSet(1L, 2L, 3L)),
+            parsedStatement,
+            AnalyzeMode.NONE,
+            RetryChecksumMode.FAST);
+    assertNull(resultSet.getChecksum());
+    assertTrue(resultSet.next());
+    assertTrue(resultSet.next());
+    assertNotNull(resultSet.getChecksum());
+
+    // The same rows give the same checksum.
+    when(transaction.internalExecuteQuery(parsedStatement, AnalyzeMode.NONE))
+        .thenReturn(createProtobufResultSet(1L, 2L, 4L));
+    resultSet.retry(abortedException);
+
+    // Rows in a different order give a different checksum.
+    when(transaction.internalExecuteQuery(parsedStatement, AnalyzeMode.NONE))
+        .thenReturn(createProtobufResultSet(2L, 1L, 3L));
+    assertThrows(
+        AbortedDueToConcurrentModificationException.class,
+        () -> resultSet.retry(abortedException));
+
+    // A different value in a row that has been consumed gives a different checksum.
+    when(transaction.internalExecuteQuery(parsedStatement, AnalyzeMode.NONE))
+        .thenReturn(createProtobufResultSet(1L, 5L, 3L));
+    assertThrows(
+        AbortedDueToConcurrentModificationException.class,
+        () -> resultSet.retry(abortedException));
+  }
+
+  @Test
+  public void testFastChecksumWithDecodedValues() {
+    // The checksum falls back to the decoded values if the values are not available in protobuf
+    // format, for example for a query that was not executed with lazy decoding.
+    Type type = Type.struct(StructField.of("id", Type.int64()));
+    ResultSet first =
+        ResultSets.forRows(type, ImmutableList.of(Struct.newBuilder().set("id").to(1L).build()));
+    ResultSet second =
+        ResultSets.forRows(type, ImmutableList.of(Struct.newBuilder().set("id").to(1L).build()));
+    ResultSet third =
+        ResultSets.forRows(type, ImmutableList.of(Struct.newBuilder().set("id").to(2L).build()));
+    HashCode[] checksums = new HashCode[3];
+    int index = 0;
+    for (ResultSet resultSet : ImmutableList.of(first, second, third)) {
+      ChecksumCalculator calculator = ChecksumCalculator.create(RetryChecksumMode.FAST);
+      assertTrue(resultSet.next());
+      calculator.calculateNextChecksum(resultSet);
+      checksums[index++] = calculator.getChecksum();
+    }
+    assertEquals(checksums[0], checksums[1]);
+    assertNotEquals(checksums[0], checksums[2]);
+  }
 }
@@ -1087,4 +1087,32 @@ public class ConnectionOptionsTest {
             .build()
             .isUseVirtualThreads());
   }
+
+  @Test
+  public void testRetryChecksumMode() {
+    String uri =
+        "cloudspanner:/projects/test-project-123/instances/test-instance/databases/test-database";
+    assertEquals(
+        RetryChecksumMode.SHA256,
+        ConnectionOptions.newBuilder()
+            .setUri(uri)
+            .setCredentials(NoCredentials.getInstance())
+            .build()
+            .getRetryChecksumMode());
+    assertEquals(
+        RetryChecksumMode.FAST,
+        ConnectionOptions.newBuilder()
+            .setUri(uri + "?retryChecksumMode=fast")
+            .setCredentials(NoCredentials.getInstance())
+            .build()
+            .getRetryChecksumMode());
+    assertEquals(
+        RetryChecksumMode.SHA256,
+        ConnectionOptions.parseRetryChecksumMode(uri + "?retryChecksumMode=SHA256"));
+    SpannerException exception =
+        assertThrows(
+            SpannerException.class,
+            () -> ConnectionOptions.parseRetryChecksumMode(uri + "?retryChecksumMode=md5"));
+    assertEquals(ErrorCode.INVALID_ARGUMENT, exception.getErrorCode());
+  }
 }
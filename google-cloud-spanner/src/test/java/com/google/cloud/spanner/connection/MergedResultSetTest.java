@@ -21,22 +21,29 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import com.google.cloud.spanner.ErrorCode;
 import com.google.cloud.spanner.ForwardingResultSet;
 import com.google.cloud.spanner.ResultSet;
+import com.google.cloud.spanner.ResultSets;
 import com.google.cloud.spanner.ResultSetsHelper;
 import com.google.cloud.spanner.SpannerException;
 import com.google.cloud.spanner.SpannerExceptionFactory;
 import com.google.cloud.spanner.Struct;
 import com.google.cloud.spanner.Type;
+import com.google.cloud.spanner.Type.StructField;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -194,6 +201,157 @@ public class MergedResultSetTest {
     }
   }
 
+  private static final class CountingResultSet extends ForwardingResultSet {
+    private final AtomicInteger nextCount = new AtomicInteger();
+
+    CountingResultSet(ResultSet delegate) {
+      super(delegate);
+    }
+
+    @Override
+    public boolean next() {
+      nextCount.incrementAndGet();
+      return super.next();
+    }
+  }
+
+  @Test
+  public void testOrderedMerge() {
+    Random random = new Random();
+    Connection connection = mock(Connection.class);
+    Type type = Type.struct(StructField.of("ID", Type.int64()));
+    List<String> partitions = new ArrayList<>();
+    List<CountingResultSet> partitionResults = new ArrayList<>();
+    int totalRows = 0;
+    for (int index = 0; index < numPartitions; index++) {
+      String partition = String.valueOf(index);
+      partitions.add(partition);
+      int numRows = maxRowsPerPartition == 0 ? 0 : random.nextInt(maxRowsPerPartition) + 1;
+      List<Struct> rows = new ArrayList<>(numRows);
+      long id = 0L;
+      for (int row = 0; row < numRows; row++) {
+        id += random.nextInt(10);
+        rows.add(Struct.newBuilder().set("ID").to(id).build());
+      }
+      totalRows += numRows;
+      CountingResultSet resultSet = new CountingResultSet(ResultSets.forRows(type, rows));
+      partitionResults.add(resultSet);
+      when(connection.runPartition(partition)).thenReturn(resultSet);
+    }
+
+    try (MergedResultSet resultSet =
+        new MergedResultSet(
+            connection,
+            partitions,
+            maxParallelism,
+            false,
+            Comparator.comparingLong(row -> row.getLong("ID")))) {
+      int rowCount = 0;
+      long previousId = Long.MIN_VALUE;
+      while (resultSet.next()) {
+        long id = resultSet.getLong("ID");
+        assertTrue(id >= previousId);
+        previousId = id;
+        if (rowCount == 0) {
+          // Only the first row of each partition is fetched before the first row is returned.
+          for (CountingResultSet partitionResult : partitionResults) {
+            assertEquals(1, partitionResult.nextCount.get());
+          }
+        }
+        rowCount++;
+      }
+      assertEquals(totalRows, rowCount);
+      assertEquals(numPartitions, resultSet.getNumPartitions());
+      if (numPartitions > 0) {
+        assertEquals(type, resultSet.getType());
+      }
+    }
+  }
+
+  @Test
+  public void testOrderedResultSetStopsAfterFirstError() {
+    MockedResults results = setupResults(true);
+    try (MergedResultSet resultSet =
+        new MergedResultSet(
+            results.connection, results.partitions, maxParallelism, false, (row1, row2) -> 0)) {
+      if (numPartitions > 0) {
+        SpannerException exception =
+            assertThrows(
+                SpannerException.class,
+                () -> {
+                  //noinspection StatementWithEmptyBody
+                  while (resultSet.next()) {}
+                });
+        assertEquals(ErrorCode.INTERNAL, exception.getErrorCode());
+        // The result set should continue to throw the same error if we continue to call next().
+        SpannerException nextException = assertThrows(SpannerException.class, resultSet::next);
+        assertEquals(exception, nextException);
+      }
+    }
+  }
+
+  @Test
+  public void testOrderedResultSetClosesPartitionsAfterFailedStart() throws Exception {
+    Connection connection = mock(Connection.class);
+    Type type = Type.struct(StructField.of("ID", Type.int64()));
+    List<String> partitions = new ArrayList<>();
+    for (int index = 0; index < numPartitions; index++) {
+      partitions.add(String.valueOf(index));
+    }
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    AtomicInteger opened = new AtomicInteger();
+    AtomicInteger closed = new AtomicInteger();
+    when(connection.runPartition(anyString()))
+        .thenAnswer(
+            invocation -> {
+              maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+              try {
+                if ("0".equals(invocation.getArgument(0))) {
+                  throw SpannerExceptionFactory.newSpannerException(
+                      ErrorCode.INTERNAL, "test error");
+                }
+                Thread.sleep(2L);
+                opened.incrementAndGet();
+                return new ForwardingResultSet(
+                    ResultSets.forRows(
+                        type, ImmutableList.of(Struct.newBuilder().set("ID").to(1L).build()))) {
+                  @Override
+                  public void close() {
+                    closed.incrementAndGet();
+                    super.close();
+                  }
+                };
+              } finally {
+                running.decrementAndGet();
+              }
+            });
+
+    int parallelism;
+    try (MergedResultSet resultSet =
+        new MergedResultSet(
+            connection,
+            partitions,
+            maxParallelism,
+            false,
+            Comparator.comparingLong(row -> row.getLong("ID")))) {
+      parallelism = resultSet.getParallelism();
+      if (numPartitions > 0) {
+        SpannerException exception = assertThrows(SpannerException.class, resultSet::next);
+        assertEquals(ErrorCode.INTERNAL, exception.getErrorCode());
+      }
+    }
+    // Partitions that were still being started when the result set was closed are closed by the
+    // thread that started them.
+    Stopwatch watch = Stopwatch.createStarted();
+    while (running.get() > 0 || closed.get() < opened.get()) {
+      assertTrue(watch.elapsed(TimeUnit.SECONDS) < 5L);
+      Thread.sleep(1L);
+    }
+    assertEquals(opened.get(), closed.get());
+    assertTrue(maxRunning.get() <= parallelism);
+  }
+
   private void assertRowExists(List<Struct> expectedRows, Struct row, BitSet rowsFound) {
     for (int i = 0; i < expectedRows.size(); i++) {
       if (row.equals(expectedRows.get(i))) {
@@ -23,6 +23,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeTrue;
@@ -1714,6 +1715,63 @@ public class StatementParserTest {
     assertEquals(1, stats.hitCount());
   }
 
+  @Test
+  public void testClientSideStatementKeywords() {
+    // All built-in client-side statements should have known keywords, so that normal SQL
+    // statements are not matched against any of the client-side statement patterns.
+    for (ClientSideStatementImpl statement : parser.getClientSideStatements()) {
+      assertFalse(statement.toString(), statement.getKeywords().isEmpty());
+    }
+    assertEquals(
+        ImmutableSet.of("begin", "start"),
+        ClientSideStatementImpl.extractKeywords(
+            "(?is)\\A\\s*(?:begin|start)(?:\\s+transaction)?\\s*\\z"));
+    assertEquals(
+        ImmutableSet.of("show"),
+        ClientSideStatementImpl.extractKeywords("(?is)\\A\\s*show\\s+variable\\s+foo\\s*\\z"));
+    assertEquals(
+        ImmutableSet.of("partition"),
+        ClientSideStatementImpl.extractKeywords("(?is)\\A\\s*partition(\\s+|\\()(.*)\\z"));
+    // The keywords of these patterns cannot be determined.
+    assertEquals(
+        ImmutableSet.of(),
+        ClientSideStatementImpl.extractKeywords("(?is)\\A\\s*show.*\\z"));
+    assertEquals(
+        ImmutableSet.of(), ClientSideStatementImpl.extractKeywords("(?is)\\A\\s*(show|set)\\s+"));
+  }
+
+  @Test
+  public void testGetFirstKeyword() {
+    assertEquals("select", AbstractStatementParser.getFirstKeyword("SELECT 1"));
+    assertEquals("set", AbstractStatementParser.getFirstKeyword("  Set autocommit=true"));
+    assertEquals("partition", AbstractStatementParser.getFirstKeyword("partition(select 1)"));
+    assertEquals("commit", AbstractStatementParser.getFirstKeyword("commit"));
+    assertEquals("", AbstractStatementParser.getFirstKeyword(""));
+    assertEquals("", AbstractStatementParser.getFirstKeyword("(select 1)"));
+    assertEquals("", AbstractStatementParser.getFirstKeyword("set_foo"));
+    assertEquals("", AbstractStatementParser.getFirstKeyword("set1"));
+    assertEquals("", AbstractStatementParser.getFirstKeyword("set\u00e9 foo"));
+  }
+
+  @Test
+  public void testParseClientSideStatementUsesSameStatementAsFullScan() {
+    for (ClientSideStatementImpl statement : parser.getClientSideStatements()) {
+      for (String example : statement.getExampleStatements()) {
+        String sql = parser.removeCommentsAndTrim(example);
+        ClientSideStatementImpl expected = null;
+        for (ClientSideStatementImpl candidate : parser.getClientSideStatements()) {
+          if (candidate.matches(sql)) {
+            expected = candidate;
+            break;
+          }
+        }
+        assertEquals(example, expected, parser.parseClientSideStatement(sql));
+      }
+    }
+    assertNull(parser.parseClientSideStatement("select * from foo"));
+    assertNull(parser.parseClientSideStatement("settings"));
+  }
+
   private void assertUnclosedLiteral(String sql) {
     try {
       parser.convertPositionalParametersToNamedParameters('?', sql);
@@ -22,11 +22,13 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeTrue;
 
 import com.google.api.gax.core.GaxProperties;
+import com.google.api.gax.grpc.ChannelPoolSettings;
 import com.google.api.gax.grpc.GrpcCallContext;
 import com.google.api.gax.rpc.ApiCallContext;
 import com.google.api.gax.rpc.ApiClientHeaderProvider;
@@ -534,6 +536,56 @@ public class GapicSpannerRpcTest {
     }
   }
 
+  @Test
+  public void testDynamicChannelPool() {
+    ChannelPoolSettings channelPoolSettings =
+        ChannelPoolSettings.builder()
+            .setMinChannelCount(1)
+            .setInitialChannelCount(1)
+            .setMaxChannelCount(6)
+            .setMinRpcsPerChannel(1)
+            .setMaxRpcsPerChannel(10)
+            .build();
+    String endpoint = address.getHostString() + ":" + server.getPort();
+    SpannerOptions options =
+        SpannerOptions.newBuilder()
+            .setProjectId("[PROJECT]")
+            .setChannelConfigurator(ManagedChannelBuilder::usePlaintext)
+            .disableDirectPath()
+            .setHost("http://" + endpoint)
+            .setCredentials(STATIC_CREDENTIALS)
+            .setChannelPoolSettings(channelPoolSettings)
+            .build();
+    // The number of channel hints defaults to the max number of channels in the pool.
+    assertEquals(6, options.getNumChannels());
+
+    GapicSpannerRpc rpc = new GapicSpannerRpc(options);
+    try {
+      assertSame(channelPoolSettings, rpc.getChannelPoolSettings());
+    } finally {
+      rpc.shutdown();
+    }
+    try (Spanner spanner = options.getService()) {
+      DatabaseClient databaseClient =
+          spanner.getDatabaseClient(DatabaseId.of("[PROJECT]", "[INSTANCE]", "[DATABASE]"));
+      for (int i = 0; i < 10; i++) {
+        try (ResultSet rs = databaseClient.singleUse().executeQuery(SELECT1AND2)) {
+          assertTrue(rs.next());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testFixedChannelPoolHasNoChannelPoolSettings() {
+    GapicSpannerRpc rpc = new GapicSpannerRpc(createSpannerOptions());
+    try {
+      assertNull(rpc.getChannelPoolSettings());
+    } finally {
+      rpc.shutdown();
+    }
+  }
+
   @Test
   public void testRouteToLeaderHeaderForReadOnly() {
     final SpannerOptions options =